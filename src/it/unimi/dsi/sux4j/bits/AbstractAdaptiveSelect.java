@@ -0,0 +1,253 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+
+/** The common implementation of {@link AdaptiveSelect} and {@link AdaptiveSelectZero}.
+ *
+ * <p>All methods operate on the words of the underlying bit vector xor'd with {@link #complement}, so
+ * the same code selects ones (when {@link #complement} is zero) or zeroes (when {@link #complement} is &minus;1).
+ * In the following, a <em>one</em> is a bit set in a transformed word.
+ */
+
+abstract class AbstractAdaptiveSelect implements Serializable {
+	private static final long serialVersionUID = 0L;
+
+	private static final int MAX_ONES_PER_INVENTORY = 8192;
+	/** The logarithm of the average number of bits covered by a subinventory entry. */
+	private static final int LOG2_TARGET_SPAN = 8;
+	/** The number of bits used by the offset of a {@link #descriptor}; the remaining bits contain the logarithm of the step and of the width. */
+	private static final int OFFSET_BITS = 56;
+	private static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+
+	/** The underlying bit vector. */
+	protected final BitVector bitVector;
+	/** Zero to select ones, &minus;1 to select zeroes. */
+	private final long complement;
+	/** The number of ones in {@link #bitVector}. */
+	protected final long numOnes;
+	/** The cached result of {@link BitVector#bits() bitVector.bits()}. */
+	private transient long[] bits;
+	/** The position of a one each {@link #onesPerInventory}, followed by the length of {@link #bitVector}. */
+	private final long[] inventory;
+	/** For each {@link #inventory} entry, the offset in 16-bit units of the associated part of {@link #subinventory} (lower {@value #OFFSET_BITS} bits),
+	 * the logarithm of the number of ones between two subinventory entries (next six bits), and the
+	 * logarithm of the width of the subinventory entries divided by 16 (upper two bits). */
+	private final long[] descriptor;
+	/** The logarithm of the number of ones per {@link #inventory} entry. */
+	private final int log2OnesPerInventory;
+	/** The number of ones per {@link #inventory} entry. */
+	private final int onesPerInventory;
+	/** The mask associated to the number of ones per {@link #inventory} entry. */
+	private final int onesPerInventoryMask;
+	/** The second-level inventory: offsets with respect to the first-level inventory of 16, 32 or 64 bits, packed in longwords. */
+	private final long[] subinventory;
+
+	/** Returns a bit vector containing the first bits of an array, clearing a copy of the last word if it contains bits beyond the given length.
+	 *
+	 * @param bits an array of longs representing a bit array.
+	 * @param length the number of bits to use from <code>bits</code>.
+	 * @return a bit vector of length {@code length} whose bits are the first {@code length} bits of {@code bits}.
+	 */
+	static LongArrayBitVector wrap(final long[] bits, final long length) {
+		final int numWords = (int)((length + 63) / 64);
+		if (length % 64 == 0 || (bits[numWords - 1] & -1L << length) == 0) return LongArrayBitVector.wrap(bits, length);
+		final long[] copy = Arrays.copyOf(bits, numWords);
+		copy[numWords - 1] &= (1L << length) - 1;
+		return LongArrayBitVector.wrap(copy, length);
+	}
+
+	/** Creates a new selection structure using the specified bit vector.
+	 *
+	 * @param bitVector a bit vector.
+	 * @param zeroes whether to select zeroes.
+	 */
+	protected AbstractAdaptiveSelect(final BitVector bitVector, final boolean zeroes) {
+		this.bitVector = bitVector;
+		complement = zeroes ? -1L : 0;
+		final long[] bits = this.bits = bitVector.bits();
+		final long length = bitVector.length();
+		final int numWords = (int)((length + 63) / 64);
+
+		long c = 0;
+		for(int i = 0; i < numWords; i++) c += Long.bitCount(word(bits, i, numWords, length));
+		numOnes = c;
+
+		onesPerInventory = 1 << (log2OnesPerInventory = Fast.mostSignificantBit(length == 0 ? 1 : Math.max(1, (numOnes * MAX_ONES_PER_INVENTORY + length - 1) / length)));
+		onesPerInventoryMask = onesPerInventory - 1;
+		final int inventorySize = (int)((numOnes + onesPerInventory - 1) >>> log2OnesPerInventory);
+
+		// First phase: we build an inventory for each one out of onesPerInventory.
+		inventory = new long[inventorySize + 1];
+		long d = 0;
+		for(int i = 0; i < numWords; i++) {
+			long word = word(bits, i, numWords, length);
+			final int bitCount = Long.bitCount(word);
+			if ((d & onesPerInventoryMask) + bitCount <= onesPerInventoryMask && (d & onesPerInventoryMask) != 0) d += bitCount;
+			else for(; word != 0; word &= word - 1) {
+				if ((d & onesPerInventoryMask) == 0) inventory[(int)(d >>> log2OnesPerInventory)] = i * 64L + Long.numberOfTrailingZeros(word);
+				d++;
+			}
+		}
+		inventory[inventorySize] = length;
+
+		// Second phase: we choose the step and the width of each block, and allocate the subinventory.
+		descriptor = new long[inventorySize];
+		long units = 0;
+		for(int inventoryIndex = 0; inventoryIndex < inventorySize; inventoryIndex++) {
+			final long span = inventory[inventoryIndex + 1] - inventory[inventoryIndex];
+			final int ones = (int)Math.min(numOnes - ((long)inventoryIndex << log2OnesPerInventory), onesPerInventory);
+			final int log2Width = span <= 1 << 16 ? 0 : span <= 1L << 32 ? 1 : 2;
+			// We round the ideal step to the nearest power of two, so that blocks of average span do not oscillate between two steps
+			final long step = Math.max(1, ((long)ones << LOG2_TARGET_SPAN) / span);
+			final int log2Step = Math.min(log2OnesPerInventory, Fast.mostSignificantBit(step + (step >>> 1)));
+			units = units + (1 << log2Width) - 1 & -(1 << log2Width);
+			descriptor[inventoryIndex] = units | (long)log2Step << OFFSET_BITS | (long)log2Width << 62;
+			units += (long)((ones - 1) >>> log2Step) << log2Width;
+		}
+
+		subinventory = new long[(int)((units + 3) >>> 2)];
+
+		// Third phase: we fill the subinventory, skipping words that do not contain ones to be recorded.
+		final long[] subinventory = this.subinventory;
+		long next = 0, start = 0, desc = 0;
+		int log2Step = 0;
+		d = 0;
+		for(int i = 0; i < numWords; i++) {
+			long word = word(bits, i, numWords, length);
+			final int bitCount = Long.bitCount(word);
+			if (d + bitCount <= next) {
+				d += bitCount;
+				continue;
+			}
+			for(; word != 0; word &= word - 1, d++) {
+				if (d != next) continue;
+				final long bit = i * 64L + Long.numberOfTrailingZeros(word);
+				final int subrank = (int)(d & onesPerInventoryMask);
+				if (subrank == 0) {
+					start = bit;
+					desc = descriptor[(int)(d >>> log2OnesPerInventory)];
+					log2Step = (int)(desc >>> OFFSET_BITS & 0x3F);
+				}
+				else {
+					final int log2Width = (int)(desc >>> 62);
+					final long unit = (desc & OFFSET_MASK) + ((long)((subrank >>> log2Step) - 1) << log2Width);
+					if (log2Width == 2) subinventory[(int)(unit >>> 2)] = bit - start;
+					else subinventory[(int)(unit >>> 2)] |= bit - start << ((unit & 3) << 4);
+				}
+				next = d + (1 << log2Step);
+			}
+		}
+	}
+
+	/** Returns a transformed word of a bit array, with the bits beyond a given length cleared. */
+	private long word(final long[] bits, final int i, final int numWords, final long length) {
+		return i == numWords - 1 && length % 64 != 0 ? (bits[i] ^ complement) & (1L << length) - 1 : bits[i] ^ complement;
+	}
+
+	/** Returns the position of the one of given rank.
+	 *
+	 * @param rank a rank.
+	 * @return the position of the one of rank {@code rank}, or &minus;1 if there is no such one.
+	 */
+	protected long selectBit(final long rank) {
+		if (rank >= numOnes) return -1;
+
+		final int inventoryIndex = (int)(rank >>> log2OnesPerInventory);
+		long start = inventory[inventoryIndex];
+		final int subrank = (int)(rank & onesPerInventoryMask);
+		if (subrank == 0) return start;
+
+		final long desc = descriptor[inventoryIndex];
+		final int log2Step = (int)(desc >>> OFFSET_BITS & 0x3F);
+		final int entry = subrank >>> log2Step;
+		if (entry != 0) {
+			final int log2Width = (int)(desc >>> 62);
+			final long unit = (desc & OFFSET_MASK) + ((long)(entry - 1) << log2Width);
+			final long offset = subinventory[(int)(unit >>> 2)];
+			start += log2Width == 2 ? offset : offset >>> ((unit & 3) << 4) & (1L << (16 << log2Width)) - 1;
+		}
+
+		int residual = subrank & (1 << log2Step) - 1;
+		if (residual == 0) return start;
+
+		final long bits[] = this.bits, complement = this.complement;
+		int wordIndex = (int)(start / 64);
+		long word = (bits[wordIndex] ^ complement) & -1L << start;
+
+		for(;;) {
+			final int bitCount = Long.bitCount(word);
+			if (residual < bitCount) break;
+			word = bits[++wordIndex] ^ complement;
+			residual -= bitCount;
+		}
+
+		return wordIndex * (long)Long.SIZE + Fast.select(word, residual);
+	}
+
+	/** Performs a bulk select of consecutive ranks into a given array fragment.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with {@code length} positions of consecutive ones starting at position {@code offset}.
+	 * @param offset the first bit position written in {@code dest}.
+	 * @param length the number of bit positions in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 */
+	protected long[] selectBits(final long rank, final long[] dest, final int offset, final int length) {
+		if (length == 0) return dest;
+		final long s = selectBit(rank);
+		dest[offset] = s;
+		int curr = (int)(s / Long.SIZE);
+
+		final long bits[] = this.bits, complement = this.complement;
+		long window = (bits[curr] ^ complement) & -1L << s;
+		window &= window - 1;
+
+		for(int i = 1; i < length; i++) {
+			while(window == 0) window = bits[++curr] ^ complement;
+			dest[offset + i] = curr * (long)Long.SIZE + Long.numberOfTrailingZeros(window);
+			window &= window - 1;
+		}
+
+		return dest;
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		bits = bitVector.bits();
+	}
+
+	public long numBits() {
+		return (inventory.length + (long)descriptor.length + subinventory.length) * Long.SIZE;
+	}
+
+	public BitVector bitVector() {
+		return bitVector;
+	}
+}
@@ -0,0 +1,99 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import it.unimi.dsi.bits.BitVector;
+
+/** A select implementation based on a two-level inventory whose second-level budget depends on the span of each block.
+ *
+ * <p>Like {@link SimpleSelect}, this class records the position of a one every 2<sup><var>h</var></sup> ones,
+ * where <var>h</var> depends on the density of the bit vector.
+ * However, the part of the subinventory associated with each inventory entry (a <em>block</em>) is sized
+ * following the idea of the SDArray of Daisuke Okanohara and Kunihiko Sadakane (&ldquo;Practical Entropy-Compressed Rank/Select Dictionary&rdquo;,
+ * <i>Proc. ALENEX 2007</i>): the subinventory records the offset of a one every 2<sup><var>k</var></sup> ones,
+ * where <var>k</var> is chosen so that each recorded one covers on average about 256 bits of the block, and offsets
+ * use 16, 32 or 64 bits depending on the span of the block. In other words, the budget of a block is proportional to its span (in bits)
+ * rather than to its number of ones, and selection never scans more than a few words on average, independently of the distribution of the ones.
+ * In particular, long spans containing many ones get a denser subinventory, whereas sparse spans record
+ * their ones explicitly, but using 32-bit offsets whenever possible, rather than spilling 64-bit positions.
+ *
+ * <p>On evenly distributed bit arrays this implementation uses about 8% additional space, slightly more than {@link SimpleSelect};
+ * on clustered or skewed bit arrays, where {@link SimpleSelect} spills many positions, it uses instead about half the space.
+ *
+ * <p>An additional {@linkplain #select(long, long[], int, int) bulk method} makes it possible
+ * to select several consecutive bits at high speed.
+ *
+ * @see AdaptiveSelectZero
+ */
+
+public class AdaptiveSelect extends AbstractAdaptiveSelect implements Select {
+	private static final long serialVersionUID = 0L;
+
+	/** Creates a new selection structure using a bit vector specified by an array of longs and a number of bits.
+	 *
+	 * <p>Bits of {@code bits} beyond {@code length} are ignored.
+	 *
+	 * @param bits an array of longs representing a bit array.
+	 * @param length the number of bits to use from <code>bits</code>.
+	 */
+	public AdaptiveSelect(final long[] bits, final long length) {
+		this(wrap(bits, length));
+	}
+
+	/** Creates a new selection structure using the specified bit vector.
+	 *
+	 * @param bitVector a bit vector.
+	 */
+	public AdaptiveSelect(final BitVector bitVector) {
+		super(bitVector, false);
+	}
+
+	@Override
+	public long select(final long rank) {
+		return selectBit(rank);
+	}
+
+	/** Performs a bulk select of consecutive ranks into a given array fragment.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with {@code length} positions of consecutive bits starting at position {@code offset}.
+	 * @param offset the first bit position written in {@code dest}.
+	 * @param length the number of bit positions in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #select(long, long[])
+	 */
+	@Override
+	public long[] select(final long rank, final long[] dest, final int offset, final int length) {
+		return selectBits(rank, dest, offset, length);
+	}
+
+	/** Performs a bulk select of consecutive ranks into a given array.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with position of consecutive bits.
+	 * @return {@code dest}
+	 * @see #select(long, long[], int, int)
+	 */
+	@Override
+	public long[] select(final long rank, final long[] dest) {
+		return selectBits(rank, dest, 0, dest.length);
+	}
+}
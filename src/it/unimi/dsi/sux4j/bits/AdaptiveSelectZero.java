@@ -0,0 +1,85 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import it.unimi.dsi.bits.BitVector;
+
+/** A zero-select implementation based on a two-level inventory whose second-level budget depends on the span of each block.
+ *
+ * <p>This class is the zero-selection counterpart of {@link AdaptiveSelect}: see its documentation for details.
+ *
+ * <p>An additional {@linkplain #selectZero(long, long[], int, int) bulk method} makes it possible
+ * to select several consecutive zeroes at high speed.
+ */
+
+public class AdaptiveSelectZero extends AbstractAdaptiveSelect implements SelectZero {
+	private static final long serialVersionUID = 0L;
+
+	/** Creates a new zero-selection structure using a bit vector specified by an array of longs and a number of bits.
+	 *
+	 * <p>Bits of {@code bits} beyond {@code length} are ignored.
+	 *
+	 * @param bits an array of longs representing a bit array.
+	 * @param length the number of bits to use from <code>bits</code>.
+	 */
+	public AdaptiveSelectZero(final long[] bits, final long length) {
+		this(wrap(bits, length));
+	}
+
+	/** Creates a new zero-selection structure using the specified bit vector.
+	 *
+	 * @param bitVector a bit vector.
+	 */
+	public AdaptiveSelectZero(final BitVector bitVector) {
+		super(bitVector, true);
+	}
+
+	@Override
+	public long selectZero(final long rank) {
+		return selectBit(rank);
+	}
+
+	/** Performs a bulk zero-select of consecutive ranks into a given array fragment.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with {@code length} positions of consecutive zeroes starting at position {@code offset}.
+	 * @param offset the first bit position written in {@code dest}.
+	 * @param length the number of bit positions in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #selectZero(long, long[])
+	 */
+	@Override
+	public long[] selectZero(final long rank, final long[] dest, final int offset, final int length) {
+		return selectBits(rank, dest, offset, length);
+	}
+
+	/** Performs a bulk zero-select of consecutive ranks into a given array.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with position of consecutive zeroes.
+	 * @return {@code dest}
+	 * @see #selectZero(long, long[], int, int)
+	 */
+	@Override
+	public long[] selectZero(final long rank, final long[] dest) {
+		return selectBits(rank, dest, 0, dest.length);
+	}
+}
@@ -0,0 +1,178 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.longs.LongBigArrays;
+import it.unimi.dsi.sux4j.io.MappedDumpable;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+
+/** A <code>rank9</code> implementation for {@linkplain LongBigArrayBitVector bit vectors backed by big arrays}.
+ *
+ * <p>This class is identical to {@link Rank9}, except that bits and counts are stored in {@linkplain BigArrays big arrays},
+ * so there is no limit on the length of the underlying bit vector. As in {@link Rank9}, the two counts of each block
+ * of 512 bits are interleaved, and since segments of a big array have even length they always lie in the same segment:
+ * ranking requires exactly two memory accesses, as in the standard case.
+ */
+
+public class BigRank9 extends AbstractRank implements Rank, MappedDumpable {
+	private static final boolean ASSERTS = false;
+	private static final long serialVersionUID = 1L;
+
+	protected transient long[][] bits;
+	protected final LongBigArrayBitVector bitVector;
+	protected final long[][] count;
+	protected final long numWords;
+	protected final long numOnes;
+	protected final long lastOne;
+
+	public BigRank9(final LongBigArrayBitVector bitVector) {
+		this.bitVector = bitVector;
+		this.bits = bitVector.bigBits();
+		final long length = bitVector.length();
+
+		numWords = (length + Long.SIZE - 1) / Long.SIZE;
+
+		final long numCounts = (length + 8 * Long.SIZE - 1) / (8 * Long.SIZE) * 2;
+		// Init rank/select structure
+		count = LongBigArrays.newBigArray(numCounts + 1);
+
+		long c = 0, l = -1;
+		long pos = 0;
+		for(long i = 0; i < numWords; i += 8, pos += 2) {
+			final long[] countSegment = count[BigArrays.segment(pos)];
+			final int d = BigArrays.displacement(pos);
+			countSegment[d] = c;
+			long word = BigArrays.get(bits, i);
+			c += Long.bitCount(word);
+			if (word != 0) l = i * 64L + Fast.mostSignificantBit(word);
+			for(int j = 1;  j < 8; j++) {
+				countSegment[d + 1] |= (i + j <= numWords ? c - countSegment[d] : 0x1FFL) << 9 * (j - 1);
+				if (i + j < numWords) {
+					word = BigArrays.get(bits, i + j);
+					c += Long.bitCount(word);
+					if (word != 0) l = (i + j) * 64L + Fast.mostSignificantBit(word);
+				}
+			}
+		}
+
+		numOnes = c;
+		lastOne = l;
+		BigArrays.set(count, numCounts, c);
+	}
+
+	@Override
+	public long rank(final long pos) {
+		if (ASSERTS) assert pos >= 0;
+		if (ASSERTS) assert pos <= bitVector.length();
+		// This test can be eliminated if there is always an additional word at the end of the bit array.
+		if (pos > lastOne) return numOnes;
+
+		final long word = pos / 64;
+		final long block = word / 4 & ~1;
+		final int offset = (int)(word % 8) - 1;
+		final long[] countSegment = count[BigArrays.segment(block)];
+		final int d = BigArrays.displacement(block);
+
+		return countSegment[d] + (countSegment[d + 1] >>> (offset + (offset >>> 32 - 4 & 0x8)) * 9 & 0x1FF) + Long.bitCount(bits[BigArrays.segment(word)][BigArrays.displacement(word)] & ((1L << pos % 64) - 1));
+	}
+
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation first reads the counts of all positions, and then the words containing
+	 * them, so that independent memory accesses overlap.
+	 */
+	@Override
+	public long[] rank(final long[] pos, final long[] dest) {
+		final long[][] count = this.count, bits = this.bits;
+		final long lastOne = this.lastOne;
+		for(int i = 0; i < pos.length; i++) {
+			final long p = pos[i];
+			if (p > lastOne) continue;
+			final long word = p / 64;
+			final long block = word / 4 & ~1;
+			final int offset = (int)(word % 8) - 1;
+			final long[] countSegment = count[BigArrays.segment(block)];
+			final int d = BigArrays.displacement(block);
+			dest[i] = countSegment[d] + (countSegment[d + 1] >>> (offset + (offset >>> 32 - 4 & 0x8)) * 9 & 0x1FF);
+		}
+		for(int i = 0; i < pos.length; i++) {
+			final long p = pos[i];
+			if (p > lastOne) dest[i] = numOnes;
+			else dest[i] += Long.bitCount(bits[BigArrays.segment(p / 64)][BigArrays.displacement(p / 64)] & ((1L << p % 64) - 1));
+		}
+		return dest;
+	}
+
+	@Override
+	public long numBits() {
+		return BigArrays.length(count) * Long.SIZE;
+	}
+
+	@Override
+	public long count() {
+		return numOnes;
+	}
+
+	@Override
+	public long rank(final long from, final long to) {
+		return rank(to) - rank(from);
+	}
+
+	/** Returns the position of the last one in the underlying bit vector.
+	 *
+	 * @return the position of the last one in the underlying bit vector, or -1 if the vector contains no ones.
+	 */
+	public long lastOne() {
+		return lastOne;
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		bits = bitVector.bigBits();
+	}
+
+	@Override
+	public BitVector bitVector() {
+		return bitVector;
+	}
+
+	/** Writes this structure, including the underlying bit vector, in the {@linkplain MappedFormat mapped format}.
+	 *
+	 * <p>The format is the same of {@link Rank9#dump(MappedOutput)}, so the result can be mapped by {@link MappedRank9}.
+	 *
+	 * @param out a mapped output.
+	 */
+	@Override
+	public void dump(final MappedOutput out) throws IOException {
+		out.writeLong(MappedFormat.RANK9);
+		out.writeBitVector(bitVector);
+		out.writeLong(numOnes);
+		out.writeLong(lastOne);
+		out.writeLongs(count);
+	}
+}
@@ -0,0 +1,269 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.longs.LongBigArrays;
+
+/** A <code>select9</code> implementation for {@linkplain LongBigArrayBitVector bit vectors backed by big arrays}.
+ *
+ * <p>This class is identical to {@link Select9}, except that it is based on a {@link BigRank9} instance,
+ * and that inventories are stored in {@linkplain BigArrays big arrays}, so there is no limit on the length
+ * of the underlying bit vector. The constant-time guarantees of {@link Select9} are unchanged.
+ */
+
+public class BigSelect9 implements Select {
+	private static final boolean ASSERTS = false;
+	private static final long serialVersionUID = 1L;
+
+	private final static long ONES_STEP_16 = 1L << 0 | 1L << 16 | 1L << 32 | 1L << 48;
+	private final static long MSBS_STEP_16 = 0x8000L * ONES_STEP_16;
+
+	private final static long ONES_STEP_9 = 1L << 0 | 1L << 9 | 1L << 18 | 1L << 27 | 1L << 36 | 1L << 45 | 1L << 54;
+	private final static long MSBS_STEP_9 = 0x100L * ONES_STEP_9;
+
+	private final static int LOG2_ONES_PER_INVENTORY = 9;
+	private final static int ONES_PER_INVENTORY = 1 << LOG2_ONES_PER_INVENTORY;
+	private final static int INVENTORY_MASK = ONES_PER_INVENTORY - 1;
+
+	private final long[][] inventory;
+	private final long[][] subinventory;
+	private final long numOnes;
+	private final long numWords;
+	private transient long[][] bits;
+	private final long[][] count;
+	private final BigRank9 rank9;
+
+	public BigSelect9(final BigRank9 rank9) {
+		this.rank9 = rank9;
+		numOnes = rank9.numOnes;
+		numWords = rank9.numWords;
+		bits = rank9.bits;
+		count = rank9.count;
+
+		final long inventorySize = (numOnes + ONES_PER_INVENTORY - 1) / ONES_PER_INVENTORY;
+
+		inventory = LongBigArrays.newBigArray(inventorySize + 1);
+		subinventory = LongBigArrays.newBigArray((numWords + 3) / 4);
+
+		long d = 0;
+		for(long i = 0; i < numWords; i++) {
+			long word = BigArrays.get(bits, i);
+			final int c = Long.bitCount(word);
+			if ((d & INVENTORY_MASK) + c <= INVENTORY_MASK && (d & INVENTORY_MASK) != 0) d += c;
+			else for(; word != 0; word &= word - 1) {
+				if ((d & INVENTORY_MASK) == 0) BigArrays.set(inventory, d >> LOG2_ONES_PER_INVENTORY, i * 64L + Long.numberOfTrailingZeros(word));
+				d++;
+			}
+		}
+
+		BigArrays.set(inventory, inventorySize, ((numWords + 3) & ~3L) * Long.SIZE);
+
+		for(long index = 0; index < inventorySize; index++) {
+			final long firstBit = BigArrays.get(inventory, index), nextBit = BigArrays.get(inventory, index + 1);
+			final long subinventoryPosition = (firstBit / 64) / 4;
+			final long span = (nextBit / 64) / 4 - (firstBit / 64) / 4;
+			final long countsAtStart = BigArrays.get(count, ((firstBit / 64) / 8) * 2);
+			final int blockSpan = (int)((nextBit / 64) / 8 - (firstBit / 64) / 8);
+			final long blockLeft = (firstBit / 64) / 8;
+			final int state;
+
+			if (span >= 512) state = 0;
+			else if (span >= 256) state = 1;
+			else if (span >= 128) state = 2;
+			else {
+				state = -1;
+				if (span >= 16) {
+					if (ASSERTS) assert (blockSpan + 8 & -8L) + 8 <= span * 4;
+					final long s = subinventoryPosition * 4;
+
+					int k;
+					for(k = 0; k < blockSpan; k++) setShort(s + k + 8, BigArrays.get(count, (blockLeft + k + 1) * 2) - countsAtStart);
+					for(; k < (blockSpan + 8 & -8L); k++) setShort(s + k + 8, 0xFFFF);
+
+					if (ASSERTS) assert blockSpan / 8 <= 8;
+
+					for(k = 0; k < blockSpan / 8; k++) setShort(s + k, BigArrays.get(count, (blockLeft + (k + 1) * 8) * 2) - countsAtStart);
+					for(; k < 8; k++) setShort(s + k, 0xFFFF);
+				}
+				else if (span >= 2) {
+					if (ASSERTS) assert (blockSpan + 8 & -8L) <= span * 4;
+					final long s = subinventoryPosition * 4;
+
+					int k;
+					for(k = 0; k < blockSpan; k++) setShort(s + k, BigArrays.get(count, (blockLeft + k + 1) * 2) - countsAtStart);
+					for(; k < (blockSpan + 8 & -8L); k++) setShort(s + k, 0xFFFF);
+				}
+			}
+
+			if (state == -1) continue;
+
+			// We enumerate the ones of this entry
+			final int ones = (int)Math.min(ONES_PER_INVENTORY, numOnes - (index << LOG2_ONES_PER_INVENTORY));
+			long i = firstBit / 64;
+			long word = BigArrays.get(bits, i) & -1L << firstBit;
+			for(int o = 0; o < ones; o++, word &= word - 1) {
+				while(word == 0) word = BigArrays.get(bits, ++i);
+				final long bit = i * 64L + Long.numberOfTrailingZeros(word);
+				switch(state) {
+				case 0:
+					BigArrays.set(subinventory, subinventoryPosition + o, bit);
+					break;
+				case 1:
+					if (ASSERTS) assert bit - firstBit < (1L << 32);
+					setInt(subinventoryPosition * 2 + o, bit - firstBit);
+					break;
+				case 2:
+					if (ASSERTS) assert bit - firstBit < (1 << 16);
+					setShort(subinventoryPosition * 4 + o, bit - firstBit);
+					break;
+				}
+			}
+		}
+	}
+
+	private void setShort(final long index, final long value) {
+		final long[] segment = subinventory[BigArrays.segment(index >>> 2)];
+		final int displacement = BigArrays.displacement(index >>> 2);
+		final int shift = (int)(index & 3) * Short.SIZE;
+		segment[displacement] = segment[displacement] & ~(0xFFFFL << shift) | value << shift;
+	}
+
+	private void setInt(final long index, final long value) {
+		final long[] segment = subinventory[BigArrays.segment(index >>> 1)];
+		final int displacement = BigArrays.displacement(index >>> 1);
+		final int shift = (int)(index & 1) * Integer.SIZE;
+		segment[displacement] = segment[displacement] & ~(0xFFFFFFFFL << shift) | value << shift;
+	}
+
+	@Override
+	public long select(final long rank) {
+		if (rank >= numOnes) return -1;
+
+		final long inventoryIndexLeft = rank >> LOG2_ONES_PER_INVENTORY;
+
+		final long inventoryLeft = BigArrays.get(inventory, inventoryIndexLeft);
+		final long blockRight = BigArrays.get(inventory, inventoryIndexLeft + 1) / 64;
+		long blockLeft = inventoryLeft / 64;
+		final long subinventoryIndex = blockLeft / 4;
+		final long span = blockRight / 4 - blockLeft / 4;
+		long countLeft;
+		int rankInBlock;
+		final long[][] count = this.count, subinventory = this.subinventory;
+
+		if (span < 2) {
+			blockLeft &= ~7;
+			countLeft = blockLeft / 4 & ~1;
+			rankInBlock = (int)(rank - BigArrays.get(count, countLeft));
+		}
+		else if (span < 16) {
+			blockLeft &= ~7;
+			countLeft = blockLeft / 4 & ~1;
+			final long rankInSuperblock = rank - BigArrays.get(count, countLeft);
+			final long rankInSuperblockStep16 = rankInSuperblock * ONES_STEP_16;
+
+			final long first = BigArrays.get(subinventory, subinventoryIndex), second = BigArrays.get(subinventory, subinventoryIndex + 1);
+
+			final int where = (int)((
+					((((((rankInSuperblockStep16 | MSBS_STEP_16) - (first & ~MSBS_STEP_16)) | (first ^ rankInSuperblockStep16)) ^ (first & ~rankInSuperblockStep16)) & MSBS_STEP_16) >>> 15) +
+					((((((rankInSuperblockStep16 | MSBS_STEP_16) - (second & ~MSBS_STEP_16)) | (second ^ rankInSuperblockStep16)) ^ (second & ~rankInSuperblockStep16)) & MSBS_STEP_16) >>> 15)
+			) * ONES_STEP_16 >>> 47);
+
+			if (ASSERTS) assert where >= 0;
+			if (ASSERTS) assert where <= 16;
+
+			blockLeft += where * 4;
+			countLeft += where;
+			rankInBlock = (int)(rank - BigArrays.get(count, countLeft));
+			if (ASSERTS) assert rankInBlock >= 0;
+			if (ASSERTS) assert rankInBlock < 512;
+		}
+		else if (span < 128) {
+			blockLeft &= ~7;
+			countLeft = blockLeft / 4 & ~1;
+			final long rankInSuperblock = rank - BigArrays.get(count, countLeft);
+			final long rankInSuperblockStep16 = rankInSuperblock * ONES_STEP_16;
+
+			final long first = BigArrays.get(subinventory, subinventoryIndex), second = BigArrays.get(subinventory, subinventoryIndex + 1);
+			final int where0 = (int)((
+					((((((rankInSuperblockStep16 | MSBS_STEP_16) - (first & ~MSBS_STEP_16)) | (first ^ rankInSuperblockStep16)) ^ (first & ~rankInSuperblockStep16)) & MSBS_STEP_16) >>> 15) +
+					((((((rankInSuperblockStep16 | MSBS_STEP_16) - (second & ~MSBS_STEP_16)) | (second ^ rankInSuperblockStep16)) ^ (second & ~rankInSuperblockStep16)) & MSBS_STEP_16) >>> 15)
+			) * ONES_STEP_16 >>> 47);
+			if (ASSERTS) assert where0 <= 16;
+			final long first_bis = BigArrays.get(subinventory, subinventoryIndex + where0 + 2), second_bis = BigArrays.get(subinventory, subinventoryIndex + where0 + 2 + 1);
+			final int where1 = where0 * 8 + (int)((
+					((((((rankInSuperblockStep16 | MSBS_STEP_16) - (first_bis & ~MSBS_STEP_16)) | (first_bis ^ rankInSuperblockStep16)) ^ (first_bis & ~rankInSuperblockStep16)) & MSBS_STEP_16) >>> 15) +
+					((((((rankInSuperblockStep16 | MSBS_STEP_16) - (second_bis & ~MSBS_STEP_16)) | (second_bis ^ rankInSuperblockStep16)) ^ (second_bis & ~rankInSuperblockStep16)) & MSBS_STEP_16) >>> 15)
+			) * ONES_STEP_16 >>> 47);
+
+			blockLeft += where1 * 4;
+			countLeft += where1;
+			rankInBlock = (int)(rank - BigArrays.get(count, countLeft));
+			if (ASSERTS) assert rankInBlock >= 0;
+			if (ASSERTS) assert rankInBlock < 512;
+		}
+		else if (span < 256) {
+			final long index = subinventoryIndex * 4 + (rank % ONES_PER_INVENTORY);
+			return (BigArrays.get(subinventory, index >>> 2) >>> (index & 3) * Short.SIZE & 0xFFFF) + inventoryLeft;
+		}
+		else if (span < 512) {
+			final long index = subinventoryIndex * 2 + (rank % ONES_PER_INVENTORY);
+			return (BigArrays.get(subinventory, index >>> 1) >>> (index & 1) * Integer.SIZE & 0xFFFFFFFFL) + inventoryLeft;
+		}
+		else {
+			return BigArrays.get(subinventory, subinventoryIndex + (rank % ONES_PER_INVENTORY));
+		}
+
+		final long rankInBlockStep9 = rankInBlock * ONES_STEP_9;
+		final long subcounts = BigArrays.get(count, countLeft + 1);
+		final int offsetInBlock = (int)(((((((rankInBlockStep9 | MSBS_STEP_9) - (subcounts & ~MSBS_STEP_9)) | (subcounts ^ rankInBlockStep9)) ^ (subcounts & ~rankInBlockStep9)) & MSBS_STEP_9) >>> 8) * ONES_STEP_9 >>> 54 & 0x7);
+
+		final long word = blockLeft + offsetInBlock;
+		final int rankInWord = (int)(rankInBlock - (subcounts >>> (offsetInBlock - 1 & 7) * 9 & 0x1FF));
+		if (ASSERTS) assert offsetInBlock >= 0;
+		if (ASSERTS) assert offsetInBlock <= 7;
+
+		if (ASSERTS) assert rankInWord < 64;
+		if (ASSERTS) assert rankInWord >= 0;
+
+		return word * 64L + Fast.select(BigArrays.get(bits, word), rankInWord);
+	}
+
+	@Override
+	public long numBits() {
+		return rank9.numBits() + (BigArrays.length(inventory) + BigArrays.length(subinventory)) * Long.SIZE;
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		bits = rank9.bitVector.bigBits();
+	}
+
+	@Override
+	public BitVector bitVector() {
+		return rank9.bitVector();
+	}
+}
@@ -0,0 +1,104 @@
+package it.unimi.dsi.sux4j.bits;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/** Static utilities for the chunked, possibly parallel construction of ranking and selection structures.
+ *
+ * <p>A bit vector of <var>n</var> words is split into chunks of {@link #WORDS_PER_CHUNK} words
+ * (the last chunk may be shorter) if construction is parallel, or into a single chunk otherwise.
+ * Structures first compute the number of ones preceding each chunk using a parallel prefix sum
+ * over per-chunk population counts, and then fill independently their counts and inventories, chunk by chunk.
+ * Since every entry is computed from the same data, the resulting structures are identical to those
+ * built sequentially.
+ *
+ * <p>Parallel tasks run in the {@linkplain ForkJoinPool#commonPool() common pool}, or in the pool
+ * in which construction has been invoked, if any.
+ */
+
+final class Chunks {
+
+	private Chunks() {}
+
+	/** The base-2 logarithm of {@link #WORDS_PER_CHUNK}. */
+	static final int LOG2_WORDS_PER_CHUNK = 16;
+	/** The number of words in a chunk; it is a multiple of the block sizes of all structures using this class. */
+	static final int WORDS_PER_CHUNK = 1 << LOG2_WORDS_PER_CHUNK;
+
+	/** Returns the number of chunks for a given number of words.
+	 *
+	 * @param numWords a number of words.
+	 * @param parallel whether construction will be parallel.
+	 * @return the number of chunks (always one, if <code>parallel</code> is false).
+	 */
+	static int numChunks(final int numWords, final boolean parallel) {
+		return parallel ? Math.max(1, (int)((numWords + (long)WORDS_PER_CHUNK - 1) >>> LOG2_WORDS_PER_CHUNK)) : 1;
+	}
+
+	/** Returns the first word of a chunk.
+	 *
+	 * @param chunk a chunk index between 0 and <code>numChunks</code> (inclusive).
+	 * @param numChunks the number of chunks.
+	 * @param numWords the number of words.
+	 * @return the index of the first word of <code>chunk</code>, or <code>numWords</code> if <code>chunk</code> is <code>numChunks</code>.
+	 */
+	static int start(final int chunk, final int numChunks, final int numWords) {
+		return chunk == numChunks ? numWords : chunk << LOG2_WORDS_PER_CHUNK;
+	}
+
+	/** Returns a stream enumerating chunks.
+	 *
+	 * @param numChunks the number of chunks.
+	 * @param parallel whether the stream should be parallel.
+	 * @return a stream enumerating the integers in [0..<code>numChunks</code>).
+	 */
+	static IntStream stream(final int numChunks, final boolean parallel) {
+		final IntStream stream = IntStream.range(0, numChunks);
+		return parallel ? stream.parallel() : stream;
+	}
+
+	/** Computes the number of ones (or zeroes) preceding each chunk.
+	 *
+	 * <p>All bits of each word are counted, including possible spurious bits in the last word.
+	 *
+	 * @param bits a bit array.
+	 * @param numWords the number of words of <code>bits</code> to consider.
+	 * @param numChunks the number of chunks.
+	 * @param zeroes whether to count zeroes instead of ones.
+	 * @param parallel whether to compute population counts in parallel.
+	 * @return an array of <code>numChunks</code>&nbsp;+&nbsp;1 elements whose <var>i</var>-th element
+	 * is the number of ones (or zeroes) in the chunks preceding chunk <var>i</var>; the last element is the overall count.
+	 */
+	static long[] prefixCounts(final long[] bits, final int numWords, final int numChunks, final boolean zeroes, final boolean parallel) {
+		final long[] count = new long[numChunks + 1];
+		stream(numChunks, parallel).forEach(t -> {
+			long c = 0;
+			final int to = start(t + 1, numChunks, numWords);
+			if (zeroes) for(int i = start(t, numChunks, numWords); i < to; i++) c += Long.bitCount(~bits[i]);
+			else for(int i = start(t, numChunks, numWords); i < to; i++) c += Long.bitCount(bits[i]);
+			count[t + 1] = c;
+		});
+		for(int t = 0; t < numChunks; t++) count[t + 1] += count[t];
+		return count;
+	}
+}
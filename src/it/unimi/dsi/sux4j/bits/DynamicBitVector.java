@@ -0,0 +1,567 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Arrays;
+
+import it.unimi.dsi.bits.AbstractBitVector;
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+
+/** A dynamic bit vector supporting ranking and selection under updates, insertions and deletions.
+ *
+ * <p>All rank/select structures in this package are static: changing a single bit requires rebuilding them. Instances of this class
+ * are instead bit vectors supporting {@linkplain #set(long, boolean) updates}, {@linkplain #add(long, boolean) insertions}
+ * and {@linkplain #removeBoolean(long) deletions} of bits together with {@linkplain #rank(long) ranking} and
+ * {@linkplain #select(long) selection} (of {@linkplain #selectZero(long) zeroes}, too).
+ *
+ * <p>The bits are stored in the leaves of a B-tree. Each leaf contains at most {@value #MAX_LEAF_WORDS} longs, and each internal node
+ * contains at most {@value #MAX_CHILDREN} children, together with the number of bits and the number of ones
+ * under each child (stored in two arrays that can be scanned quickly). All operations descend the tree from the root,
+ * scanning counts at each level, and then operate on a single leaf; insertions and deletions may split or merge nodes on the way back.
+ * Since the number of children of a node is a small multiple of the logarithm of any practical number of bits,
+ * the depth of the tree (and thus the cost of all operations) is <i>O</i>(log <var>n</var> / log log <var>n</var>).
+ *
+ * <p>Once updates are over, {@link #freeze()} builds in linear time a static {@link Rank9}/{@link Select9} pair.
+ */
+
+public class DynamicBitVector extends AbstractBitVector implements Rank, Select, SelectZero {
+	private static final long serialVersionUID = 0L;
+	/** The maximum number of longs in a leaf. */
+	public static final int MAX_LEAF_WORDS = 32;
+	/** The maximum number of bits in a leaf. */
+	private static final int MAX_LEAF_BITS = MAX_LEAF_WORDS * Long.SIZE;
+	/** The minimum number of bits in a leaf, unless it is the root. */
+	private static final int MIN_LEAF_BITS = MAX_LEAF_BITS / 4;
+	/** The maximum number of children of an internal node. */
+	public static final int MAX_CHILDREN = 32;
+	/** The minimum number of children of an internal node, unless it is the root. */
+	private static final int MIN_CHILDREN = MAX_CHILDREN / 4;
+	/** The number of bits in a leaf, or of children of an internal node, when building from a bit vector. */
+	private static final int FILL_FACTOR_NUMERATOR = 3, FILL_FACTOR_DENOMINATOR = 4;
+
+	/** A node of the tree. */
+	private static abstract class Node {
+		/** Returns the number of bits under this node. */
+		abstract long size();
+		/** Returns the number of ones under this node. */
+		abstract long ones();
+		/** Returns whether this node has too few bits (or children). */
+		abstract boolean underflow();
+	}
+
+	/** A leaf, containing bits. */
+	private static final class Leaf extends Node {
+		/** The bits of this leaf; bits after {@link #size} are zero. There is room for an additional word, so we can insert before splitting. */
+		final long[] bits = new long[MAX_LEAF_WORDS + 1];
+		/** The number of bits in this leaf. */
+		int size;
+
+		@Override
+		long size() {
+			return size;
+		}
+
+		@Override
+		long ones() {
+			long c = 0;
+			for(int i = (size + Long.SIZE - 1) >>> 6; i-- != 0;) c += Long.bitCount(bits[i]);
+			return c;
+		}
+
+		@Override
+		boolean underflow() {
+			return size < MIN_LEAF_BITS;
+		}
+
+		/** Returns the number of ones preceding a position. */
+		int rank(final int pos) {
+			int c = 0;
+			final int w = pos >>> 6;
+			for(int i = 0; i < w; i++) c += Long.bitCount(bits[i]);
+			return c + Long.bitCount(bits[w] & (1L << pos) - 1);
+		}
+
+		/** Returns the position of the one of given rank, which must exist. */
+		int select(int rank) {
+			for(int i = 0;; i++) {
+				final int c = Long.bitCount(bits[i]);
+				if (rank < c) return i * Long.SIZE + Fast.select(bits[i], rank);
+				rank -= c;
+			}
+		}
+
+		/** Returns the position of the zero of given rank, which must exist. */
+		int selectZero(int rank) {
+			for(int i = 0;; i++) {
+				final int c = Long.bitCount(~bits[i]);
+				if (rank < c) return i * Long.SIZE + Fast.select(~bits[i], rank);
+				rank -= c;
+			}
+		}
+
+		/** Inserts a bit, shifting the following ones. */
+		void insert(final int pos, final boolean value) {
+			final int w = pos >>> 6;
+			for(int i = size >>> 6; i > w; i--) bits[i] = bits[i] << 1 | bits[i - 1] >>> 63;
+			final long low = (1L << pos) - 1;
+			bits[w] = bits[w] & low | (bits[w] & ~low) << 1 | (value ? 1L << pos : 0);
+			size++;
+		}
+
+		/** Removes a bit, shifting the following ones, and returns it. */
+		boolean remove(final int pos) {
+			final int w = pos >>> 6;
+			final boolean value = (bits[w] & 1L << pos) != 0;
+			final long low = (1L << pos) - 1;
+			bits[w] = bits[w] & low | bits[w] >>> 1 & ~low;
+			for(int i = w, last = (size - 1) >>> 6; i < last; i++) {
+				bits[i] |= bits[i + 1] << 63;
+				bits[i + 1] >>>= 1;
+			}
+			size--;
+			return value;
+		}
+
+		/** Appends the bits of this leaf to a bit vector. */
+		void appendTo(final LongArrayBitVector v) {
+			for(int i = 0; i < size; i += Long.SIZE) v.append(bits[i >>> 6], Math.min(Long.SIZE, size - i));
+		}
+	}
+
+	/** An internal node, containing children and their counts. */
+	private static final class Inner extends Node {
+		/** The children; there is room for an additional child, so we can insert before splitting. */
+		final Node[] child = new Node[MAX_CHILDREN + 1];
+		/** The number of bits under each child. */
+		final long[] size = new long[MAX_CHILDREN + 1];
+		/** The number of ones under each child. */
+		final long[] ones = new long[MAX_CHILDREN + 1];
+		/** The number of children. */
+		int n;
+
+		@Override
+		long size() {
+			long s = 0;
+			for(int i = n; i-- != 0;) s += size[i];
+			return s;
+		}
+
+		@Override
+		long ones() {
+			long s = 0;
+			for(int i = n; i-- != 0;) s += ones[i];
+			return s;
+		}
+
+		@Override
+		boolean underflow() {
+			return n < MIN_CHILDREN;
+		}
+
+		/** Inserts a child at a given position, computing its counts. */
+		void insert(final int i, final Node node) {
+			System.arraycopy(child, i, child, i + 1, n - i);
+			System.arraycopy(size, i, size, i + 1, n - i);
+			System.arraycopy(ones, i, ones, i + 1, n - i);
+			child[i] = node;
+			size[i] = node.size();
+			ones[i] = node.ones();
+			n++;
+		}
+
+		/** Removes the child at a given position. */
+		void remove(final int i) {
+			System.arraycopy(child, i + 1, child, i, n - i - 1);
+			System.arraycopy(size, i + 1, size, i, n - i - 1);
+			System.arraycopy(ones, i + 1, ones, i, n - i - 1);
+			child[--n] = null;
+		}
+	}
+
+	/** The root of the tree. */
+	private transient Node root;
+	/** The number of bits. */
+	private transient long length;
+	/** The number of ones. */
+	private transient long numOnes;
+
+	/** Creates a new empty dynamic bit vector. */
+	public DynamicBitVector() {
+		root = new Leaf();
+	}
+
+	/** Creates a new dynamic bit vector with the same content of a given bit vector.
+	 *
+	 * @param bitVector a bit vector.
+	 */
+	public DynamicBitVector(final BitVector bitVector) {
+		build(bitVector);
+	}
+
+	/** Builds the tree bottom-up, filling nodes to 3/4 of their capacity. */
+	private void build(final BitVector bitVector) {
+		length = bitVector.length();
+		final int leafBits = MAX_LEAF_BITS * FILL_FACTOR_NUMERATOR / FILL_FACTOR_DENOMINATOR;
+		Node[] level = new Node[(int)Math.max(1, (length + leafBits - 1) / leafBits)];
+		long c = 0;
+		for(int i = 0; i < level.length; i++) {
+			final Leaf leaf = new Leaf();
+			final long from = (long)i * leafBits;
+			leaf.size = (int)Math.min(leafBits, length - from);
+			for(int j = 0; j < leaf.size; j += Long.SIZE) c += Long.bitCount(leaf.bits[j >>> 6] = bitVector.getLong(from + j, Math.min(from + j + Long.SIZE, from + leaf.size)));
+			level[i] = leaf;
+		}
+		numOnes = c;
+
+		final int children = MAX_CHILDREN * FILL_FACTOR_NUMERATOR / FILL_FACTOR_DENOMINATOR;
+		while(level.length > 1) {
+			final Node[] up = new Node[(level.length + children - 1) / children];
+			for(int i = 0; i < up.length; i++) {
+				final Inner inner = new Inner();
+				for(int j = i * children; j < Math.min(level.length, (i + 1) * children); j++) inner.insert(inner.n, level[j]);
+				up[i] = inner;
+			}
+			level = up;
+		}
+		root = level[0];
+	}
+
+	@Override
+	public long length() {
+		return length;
+	}
+
+	@Override
+	public long count() {
+		return numOnes;
+	}
+
+	@Override
+	public boolean getBoolean(long index) {
+		ensureRestrictedIndex(index);
+		Node node = root;
+		while(node instanceof Inner) {
+			final Inner inner = (Inner)node;
+			int i = 0;
+			while(index >= inner.size[i]) index -= inner.size[i++];
+			node = inner.child[i];
+		}
+		return (((Leaf)node).bits[(int)(index >>> 6)] & 1L << index) != 0;
+	}
+
+	@Override
+	public boolean set(final long index, final boolean value) {
+		ensureRestrictedIndex(index);
+		final boolean old = set(root, index, value);
+		if (old != value) numOnes += value ? 1 : -1;
+		return old;
+	}
+
+	/** Sets a bit under a node, updating counts, and returns its previous value. */
+	private static boolean set(final Node node, long index, final boolean value) {
+		if (node instanceof Leaf) {
+			final long[] bits = ((Leaf)node).bits;
+			final int w = (int)(index >>> 6);
+			final boolean old = (bits[w] & 1L << index) != 0;
+			if (value) bits[w] |= 1L << index;
+			else bits[w] &= ~(1L << index);
+			return old;
+		}
+		final Inner inner = (Inner)node;
+		int i = 0;
+		while(index >= inner.size[i]) index -= inner.size[i++];
+		final boolean old = set(inner.child[i], index, value);
+		if (old != value) inner.ones[i] += value ? 1 : -1;
+		return old;
+	}
+
+	@Override
+	public void add(final long index, final boolean value) {
+		ensureIndex(index);
+		final Node split = insert(root, index, value);
+		if (split != null) {
+			final Inner inner = new Inner();
+			inner.insert(0, root);
+			inner.insert(1, split);
+			root = inner;
+		}
+		length++;
+		if (value) numOnes++;
+	}
+
+	/** Inserts a bit under a node, updating counts, and returns a new right sibling if the node has been split. */
+	private static Node insert(final Node node, long index, final boolean value) {
+		if (node instanceof Leaf) {
+			final Leaf leaf = (Leaf)node;
+			leaf.insert((int)index, value);
+			if (leaf.size <= MAX_LEAF_BITS) return null;
+			// Split at a word boundary
+			final Leaf right = new Leaf();
+			final int half = leaf.size / 2 & -Long.SIZE;
+			right.size = leaf.size - half;
+			final int w = half >>> 6, words = (leaf.size + Long.SIZE - 1) >>> 6;
+			System.arraycopy(leaf.bits, w, right.bits, 0, words - w);
+			Arrays.fill(leaf.bits, w, words, 0);
+			leaf.size = half;
+			return right;
+		}
+		final Inner inner = (Inner)node;
+		int i = 0;
+		// Appending goes to the last child
+		while(i < inner.n - 1 && index >= inner.size[i]) index -= inner.size[i++];
+		final Node split = insert(inner.child[i], index, value);
+		if (split == null) {
+			inner.size[i]++;
+			if (value) inner.ones[i]++;
+			return null;
+		}
+		inner.size[i] = inner.child[i].size();
+		inner.ones[i] = inner.child[i].ones();
+		inner.insert(i + 1, split);
+		if (inner.n <= MAX_CHILDREN) return null;
+		final Inner right = new Inner();
+		final int half = inner.n / 2;
+		for(int j = half; j < inner.n; j++) right.insert(right.n, inner.child[j]);
+		while(inner.n > half) inner.remove(inner.n - 1);
+		return right;
+	}
+
+	@Override
+	public boolean removeBoolean(final long index) {
+		ensureRestrictedIndex(index);
+		final boolean value = remove(root, index);
+		if (root instanceof Inner && ((Inner)root).n == 1) root = ((Inner)root).child[0];
+		length--;
+		if (value) numOnes--;
+		return value;
+	}
+
+	/** Removes a bit under a node, updating counts and rebalancing children, and returns its value. */
+	private static boolean remove(final Node node, long index) {
+		if (node instanceof Leaf) return ((Leaf)node).remove((int)index);
+		final Inner inner = (Inner)node;
+		int i = 0;
+		while(index >= inner.size[i]) index -= inner.size[i++];
+		final boolean value = remove(inner.child[i], index);
+		inner.size[i]--;
+		if (value) inner.ones[i]--;
+		if (inner.n > 1 && inner.child[i].underflow()) rebalance(inner, i);
+		return value;
+	}
+
+	/** Merges, or redistributes evenly, the content of a child and one of its siblings. */
+	private static void rebalance(final Inner inner, final int i) {
+		final int a = i == inner.n - 1 ? i - 1 : i, b = a + 1;
+		if (inner.child[a] instanceof Leaf) {
+			final Leaf left = (Leaf)inner.child[a], right = (Leaf)inner.child[b];
+			final int total = left.size + right.size;
+			if (total <= MAX_LEAF_BITS) {
+				// Move all bits of right into left
+				final LongArrayBitVector v = LongArrayBitVector.wrap(left.bits, left.size);
+				right.appendTo(v);
+				System.arraycopy(v.bits(), 0, left.bits, 0, (total + Long.SIZE - 1) >>> 6);
+				left.size = total;
+				inner.remove(b);
+			}
+			else {
+				final LongArrayBitVector v = LongArrayBitVector.getInstance(total);
+				left.appendTo(v);
+				right.appendTo(v);
+				final long[] bits = v.bits();
+				final int half = total / 2 & -Long.SIZE, words = (total + Long.SIZE - 1) >>> 6;
+				Arrays.fill(left.bits, 0);
+				Arrays.fill(right.bits, 0);
+				System.arraycopy(bits, 0, left.bits, 0, half >>> 6);
+				System.arraycopy(bits, half >>> 6, right.bits, 0, words - (half >>> 6));
+				left.size = half;
+				right.size = total - half;
+			}
+		}
+		else {
+			final Inner left = (Inner)inner.child[a], right = (Inner)inner.child[b];
+			final int total = left.n + right.n;
+			final int half = total <= MAX_CHILDREN ? total : total / 2;
+			if (half >= left.n) {
+				while(left.n < half) {
+					left.insert(left.n, right.child[0]);
+					right.remove(0);
+				}
+			}
+			else {
+				while(left.n > half) {
+					right.insert(0, left.child[left.n - 1]);
+					left.remove(left.n - 1);
+				}
+			}
+			if (right.n == 0) inner.remove(b);
+		}
+		for(int j = a; j <= Math.min(b, inner.n - 1); j++) {
+			inner.size[j] = inner.child[j].size();
+			inner.ones[j] = inner.child[j].ones();
+		}
+	}
+
+	@Override
+	public DynamicBitVector length(final long newLength) {
+		if (newLength < 0) throw new IllegalArgumentException("Negative length: " + newLength);
+		if (newLength == 0) clear();
+		while(length < newLength) add(length, false);
+		while(length > newLength) removeBoolean(length - 1);
+		return this;
+	}
+
+	@Override
+	public void clear() {
+		root = new Leaf();
+		length = numOnes = 0;
+	}
+
+	@Override
+	public long rank(long pos) {
+		if (pos >= length) return numOnes;
+		long rank = 0;
+		Node node = root;
+		while(node instanceof Inner) {
+			final Inner inner = (Inner)node;
+			int i = 0;
+			while(pos >= inner.size[i]) {
+				pos -= inner.size[i];
+				rank += inner.ones[i++];
+			}
+			node = inner.child[i];
+		}
+		return rank + ((Leaf)node).rank((int)pos);
+	}
+
+	@Override
+	public long rank(final long from, final long to) {
+		return rank(to) - rank(from);
+	}
+
+	@Override
+	public long rankZero(final long pos) {
+		return pos - rank(pos);
+	}
+
+	@Override
+	public long rankZero(final long from, final long to) {
+		return to - from - rank(from, to);
+	}
+
+	@Override
+	public long select(long rank) {
+		if (rank < 0 || rank >= numOnes) return -1;
+		long pos = 0;
+		Node node = root;
+		while(node instanceof Inner) {
+			final Inner inner = (Inner)node;
+			int i = 0;
+			while(rank >= inner.ones[i]) {
+				rank -= inner.ones[i];
+				pos += inner.size[i++];
+			}
+			node = inner.child[i];
+		}
+		return pos + ((Leaf)node).select((int)rank);
+	}
+
+	@Override
+	public long selectZero(long zeroRank) {
+		if (zeroRank < 0 || zeroRank >= length - numOnes) return -1;
+		long pos = 0;
+		Node node = root;
+		while(node instanceof Inner) {
+			final Inner inner = (Inner)node;
+			int i = 0;
+			while(zeroRank >= inner.size[i] - inner.ones[i]) {
+				zeroRank -= inner.size[i] - inner.ones[i];
+				pos += inner.size[i++];
+			}
+			node = inner.child[i];
+		}
+		return pos + ((Leaf)node).selectZero((int)zeroRank);
+	}
+
+	/** Returns this bit vector.
+	 *
+	 * @return this bit vector.
+	 */
+	@Override
+	public BitVector bitVector() {
+		return this;
+	}
+
+	/** Returns the number of bits used by the counts in the internal nodes and by the unused space in the leaves.
+	 *
+	 * @return the number of bits used by this structure beyond the bits it contains.
+	 */
+	@Override
+	public long numBits() {
+		return numBits(root);
+	}
+
+	private static long numBits(final Node node) {
+		if (node instanceof Leaf) return (MAX_LEAF_WORDS + 1) * (long)Long.SIZE - ((Leaf)node).size;
+		final Inner inner = (Inner)node;
+		long s = 2 * (MAX_CHILDREN + 1) * (long)Long.SIZE;
+		for(int i = inner.n; i-- != 0;) s += numBits(inner.child[i]);
+		return s;
+	}
+
+	/** Appends the bits under a node to a bit vector. */
+	private static void appendTo(final Node node, final LongArrayBitVector v) {
+		if (node instanceof Leaf) ((Leaf)node).appendTo(v);
+		else {
+			final Inner inner = (Inner)node;
+			for(int i = 0; i < inner.n; i++) appendTo(inner.child[i], v);
+		}
+	}
+
+	@Override
+	public LongArrayBitVector copy() {
+		final LongArrayBitVector v = LongArrayBitVector.getInstance(length);
+		appendTo(root, v);
+		return v;
+	}
+
+	/** Builds a static rank/select structure on a copy of the content of this bit vector.
+	 *
+	 * @return a {@link RankSelect} containing a {@link Rank9} and a {@link Select9} structure built on a copy of this bit vector.
+	 */
+	public RankSelect freeze() {
+		final Rank9 rank9 = new Rank9(copy());
+		return new RankSelect(rank9, new Select9(rank9));
+	}
+
+	private void writeObject(final ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		s.writeObject(copy());
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		build((BitVector)s.readObject());
+	}
+}
@@ -0,0 +1,237 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package it.unimi.dsi.sux4j.bits;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+
+/** A rank/select structure interleaving counts and bits, so that ranking causes a single cache miss.
+ *
+ * <p>Structures such as {@link Rank9} keep their counts in an array separate from the bit vector,
+ * so ranking a position in a large bit vector usually causes two cache misses.
+ * Following the ideas of <code>poppy</code> (Dong Zhou, David G. Andersen and Michael Kaminsky,
+ * &ldquo;Space-efficient, high-performance rank and select structures on uncompressed bit sequences&rdquo;,
+ * <i>Experimental Algorithms, 12th International Symposium, SEA 2013</i>, LNCS 7933, pages 151&minus;163, Springer, 2013),
+ * instances of this class store a copy of the bits in blocks of eight longs (64 bytes, the size of a cache line): the first long
+ * of each block is a header containing counts, and the remaining seven contain 448 bits of data. The header contains, in its
+ * upper 37 bits, the number of ones before the block and, in its lower 27 bits, three 9-bit counts of the ones in
+ * the first two, four and six words of the block. The rank of a position is computed adding up the counts in the header,
+ * the bit count of the preceding word, if its index in the block is odd, and the bit count of the word containing the position: all
+ * accesses happen in the same 64-byte block. Note that Java makes it impossible to align arrays, so a block might span
+ * two adjacent cache lines; however, processors usually fetch adjacent lines together.
+ *
+ * <p>Selection (of ones or zeroes) uses a sample of the blocks containing every 256th one (or zero): the block
+ * containing the desired bit is found by a (binary and then sequential) search on the headers, and then the counts in the
+ * header locate the pair of words containing the bit.
+ *
+ * <p>Instances of this class do not keep a reference to the original bit vector, so {@link #bitVector()} returns a copy built on
+ * purpose. The headers use 1/7 &#x2248; 14.3% additional space; the samples add 32 bits every 256 ones and every 256 zeroes (12.5% of the length of the bit vector).
+ * Bit vectors longer than about 2<sup>36.8</sup> bits cannot be indexed, as the interleaved blocks would not fit an array.
+ */
+
+public class InterleavedRankSelect extends AbstractRank implements Rank, Select, SelectZero {
+	private static final long serialVersionUID = 0L;
+	/** The number of data words in a block. */
+	private static final int DATA_WORDS = 7;
+	/** The number of bits in a block. */
+	private static final int BITS_PER_BLOCK = DATA_WORDS * Long.SIZE;
+	/** The base-2 logarithm of the number of ones (or zeroes) between two samples. */
+	private static final int LOG2_SAMPLE = 8;
+	/** The maximum linear search performed by selection. */
+	private static final int MAX_LINEAR_SEARCH = 8;
+
+	/** The interleaved headers and data: the block of index <var>b</var> starts at position 8<var>b</var>. */
+	protected final long[] data;
+	/** The block containing the one of rank 256<var>i</var>, followed by the index of the last block. */
+	protected final int[] onesSample;
+	/** The block containing the zero of rank 256<var>i</var>, followed by the index of the last block. */
+	protected final int[] zeroesSample;
+	/** The length of the underlying bit vector. */
+	protected final long length;
+	/** The number of ones in the underlying bit vector. */
+	protected final long numOnes;
+
+	public InterleavedRankSelect(final long[] bits, final long length) {
+		this(LongArrayBitVector.wrap(bits, length));
+	}
+
+	public InterleavedRankSelect(final BitVector bitVector) {
+		length = bitVector.length();
+		// There is always an additional (possibly empty) block, so we can rank length
+		final long numBlocks = length / BITS_PER_BLOCK + 1;
+		if (numBlocks > (Integer.MAX_VALUE - 16) / 8) throw new IllegalArgumentException("Bit vector too long: " + length);
+		data = new long[(int)numBlocks * 8];
+
+		long c = 0;
+		for(int b = 0; b < numBlocks; b++) {
+			final long blockOnes = c;
+			long header = c << 27;
+			for(int j = 0; j < DATA_WORDS; j++) {
+				final long from = b * (long)BITS_PER_BLOCK + j * Long.SIZE;
+				final long word = from < length ? bitVector.getLong(from, Math.min(from + Long.SIZE, length)) : 0;
+				data[b * 8 + 1 + j] = word;
+				c += Long.bitCount(word);
+				// After an odd word we store the number of ones in the first j + 1 words of the block
+				if ((j & 1) != 0) header |= c - blockOnes << 9 * (j >>> 1);
+			}
+			data[b * 8] = header;
+		}
+
+		numOnes = c;
+		onesSample = sample(false);
+		zeroesSample = sample(true);
+	}
+
+	/** Returns the number of ones (or zeroes) before a block.
+	 *
+	 * @param block a block.
+	 * @param zeroes whether to count zeroes.
+	 * @return the number of ones (or zeroes) before {@code block}.
+	 */
+	private long before(final int block, final boolean zeroes) {
+		final long ones = data[block * 8] >>> 27;
+		return zeroes ? block * (long)BITS_PER_BLOCK - ones : ones;
+	}
+
+	/** Returns the number of ones (or zeroes) before the end of a block, using only the block itself.
+	 *
+	 * @param block a block.
+	 * @param zeroes whether to count zeroes.
+	 * @return the number of ones (or zeroes) before the end of {@code block}.
+	 */
+	private long after(final int block, final boolean zeroes) {
+		final long header = data[block * 8];
+		final long ones = (header >>> 27) + (header >>> 18 & 0x1FF) + Long.bitCount(data[block * 8 + DATA_WORDS]);
+		return zeroes ? (block + 1) * (long)BITS_PER_BLOCK - ones : ones;
+	}
+
+	/** Samples the blocks containing every {@code 1 << LOG2_SAMPLE}-th one (or zero).
+	 *
+	 * @param zeroes whether to sample zeroes.
+	 * @return the sample, followed by the index of the last block.
+	 */
+	private int[] sample(final boolean zeroes) {
+		final long n = zeroes ? length - numOnes : numOnes;
+		final int numBlocks = data.length / 8;
+		final int[] sample = new int[(int)((n + (1 << LOG2_SAMPLE) - 1) >>> LOG2_SAMPLE) + 1];
+		int s = 0;
+		for(int b = 0; b < numBlocks; b++) {
+			final long next = b == numBlocks - 1 ? Long.MAX_VALUE : before(b + 1, zeroes);
+			while(s < sample.length - 1 && (long)s << LOG2_SAMPLE < next) sample[s++] = b;
+		}
+		sample[sample.length - 1] = numBlocks - 1;
+		return sample;
+	}
+
+	@Override
+	public long rank(final long pos) {
+		final long[] data = this.data;
+		final int block = (int)(pos / BITS_PER_BLOCK);
+		final int offset = (int)(pos - block * (long)BITS_PER_BLOCK);
+		final int word = offset >>> 6;
+		final int pair = word >>> 1;
+		final int base = block * 8;
+		final long header = data[base];
+		return (header >>> 27) + (header >>> 9 * (pair - 1) & 0x1FF & -pair >> 31) + Long.bitCount(data[base + word] & -(word & 1)) + Long.bitCount(data[base + 1 + word] & (1L << offset) - 1);
+	}
+
+	/** Finds the block containing the one (or zero) of given rank, assuming it exists.
+	 *
+	 * @param rank a rank.
+	 * @param sample the sample of ones (or zeroes).
+	 * @param zeroes whether {@code rank} is a zero rank.
+	 * @return the index of the block containing the one (or zero) of rank {@code rank}.
+	 */
+	private int block(final long rank, final int[] sample, final boolean zeroes) {
+		final int s = (int)(rank >>> LOG2_SAMPLE);
+		int lo = sample[s], hi = sample[s + 1];
+		// Invariant: the block is in [lo..hi]
+		while(hi - lo > MAX_LINEAR_SEARCH) {
+			final int mid = lo + hi + 1 >>> 1;
+			if (before(mid, zeroes) <= rank) lo = mid;
+			else hi = mid - 1;
+		}
+		// We use the counts of the current block, so to avoid accessing the header of the next one
+		while(lo < hi && after(lo, zeroes) <= rank) lo++;
+		return lo;
+	}
+
+	@Override
+	public long select(final long rank) {
+		if (rank >= numOnes) return -1;
+		final int block = block(rank, onesSample, false);
+		final int base = block * 8;
+		final long header = data[base];
+		final long r = rank - (header >>> 27);
+		final long c1 = header & 0x1FF, c2 = header >>> 9 & 0x1FF, c3 = header >>> 18 & 0x1FF;
+		// The number of pairs of words preceding the one
+		final int pair = (int)((c1 - r - 1 >>> 63) + (c2 - r - 1 >>> 63) + (c3 - r - 1 >>> 63));
+		final long residual = r - (header >>> 9 * (pair - 1) & 0x1FF & -pair >> 31);
+		final int word = base + 1 + 2 * pair;
+		final int bitCount = Long.bitCount(data[word]);
+		final long start = block * (long)BITS_PER_BLOCK + 2 * Long.SIZE * pair;
+		if (residual < bitCount) return start + Fast.select(data[word], (int)residual);
+		return start + Long.SIZE + Fast.select(data[word + 1], (int)(residual - bitCount));
+	}
+
+	@Override
+	public long selectZero(final long zeroRank) {
+		if (zeroRank >= length - numOnes) return -1;
+		final int block = block(zeroRank, zeroesSample, true);
+		final int base = block * 8;
+		final long header = data[base];
+		final long r = zeroRank - (block * (long)BITS_PER_BLOCK - (header >>> 27));
+		final long c1 = 128 - (header & 0x1FF), c2 = 256 - (header >>> 9 & 0x1FF), c3 = 384 - (header >>> 18 & 0x1FF);
+		// The number of pairs of words preceding the zero
+		final int pair = (int)((c1 - r - 1 >>> 63) + (c2 - r - 1 >>> 63) + (c3 - r - 1 >>> 63));
+		final long residual = r - (2 * Long.SIZE * pair - (header >>> 9 * (pair - 1) & 0x1FF & -pair >> 31));
+		final int word = base + 1 + 2 * pair;
+		final int bitCount = Long.bitCount(~data[word]);
+		final long start = block * (long)BITS_PER_BLOCK + 2 * Long.SIZE * pair;
+		if (residual < bitCount) return start + Fast.select(~data[word], (int)residual);
+		return start + Long.SIZE + Fast.select(~data[word + 1], (int)(residual - bitCount));
+	}
+
+	@Override
+	public long count() {
+		return numOnes;
+	}
+
+	@Override
+	public long numBits() {
+		return (data.length / 8) * (long)Long.SIZE + (onesSample.length + zeroesSample.length) * (long)Integer.SIZE;
+	}
+
+	/** Returns the bit vector indexed; since the bits are not stored in this data structure in a
+	 * separate array, a copy is built on purpose and returned.
+	 *
+	 * @return a copy of the underlying bit vector.
+	 */
+	@Override
+	public BitVector bitVector() {
+		final LongArrayBitVector result = LongArrayBitVector.getInstance(length);
+		for(long from = 0; from < length; from += Long.SIZE) {
+			final long block = from / BITS_PER_BLOCK;
+			result.append(data[(int)(block * 8 + 1 + (from - block * BITS_PER_BLOCK) / Long.SIZE)], (int)Math.min(Long.SIZE, length - from));
+		}
+		return result;
+	}
+}
@@ -0,0 +1,256 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import it.unimi.dsi.bits.AbstractBitVector;
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.longs.LongBigArrays;
+
+/** A bit vector implementation based on a {@linkplain BigArrays big array} of longs.
+ *
+ * <p>A {@link LongArrayBitVector} is backed by a standard array, and thus it cannot contain more than
+ * 2<sup>37</sup> bits. Instances of this class can grow to any size. The ranking and selection structures
+ * {@link BigRank9}, {@link BigSelect9}, {@link SimpleBigSelect} and {@link SimpleBigSelectZero}
+ * access directly the {@linkplain #bigBits() underlying big array}.
+ *
+ * <p>Bits beyond the current length are always zero. Only operations at the end of the vector
+ * ({@link #add(boolean)}, {@link #append(long, int)}, {@link #length(long)}) can change its length.
+ */
+
+public class LongBigArrayBitVector extends AbstractBitVector implements Cloneable, Serializable {
+	private static final long serialVersionUID = 1L;
+
+	/** The maximum length of a {@link LongArrayBitVector}. */
+	public static final long MAX_LONG_ARRAY_BIT_VECTOR_LENGTH = Long.SIZE * ((1L << 31) - 16);
+
+	/** The words of this bit vector. */
+	private transient long[][] bits;
+	/** The length of this bit vector. */
+	private long length;
+
+	/** Returns the number of words that are necessary to hold the given number of bits.
+	 *
+	 * @param size a number of bits.
+	 * @return the number of words that are necessary to hold the given number of bits.
+	 */
+	protected static long words(final long size) {
+		return (size + Long.SIZE - 1) >>> 6;
+	}
+
+	protected LongBigArrayBitVector(final long capacity) {
+		bits = capacity > 0 ? LongBigArrays.newBigArray(words(capacity)) : LongBigArrays.EMPTY_BIG_ARRAY;
+	}
+
+	/** Creates a new empty bit vector of given capacity.
+	 *
+	 * @param capacity the capacity (in bits) of the new bit vector.
+	 * @return a new empty bit vector of given capacity.
+	 */
+	public static LongBigArrayBitVector getInstance(final long capacity) {
+		return new LongBigArrayBitVector(capacity);
+	}
+
+	/** Creates a new empty bit vector.
+	 *
+	 * @return a new empty bit vector.
+	 */
+	public static LongBigArrayBitVector getInstance() {
+		return new LongBigArrayBitVector(0);
+	}
+
+	/** Creates a new bit vector of given length, filled with zeroes.
+	 *
+	 * @param length the length (in bits) of the new bit vector.
+	 * @return a new bit vector of given length, filled with zeroes.
+	 */
+	public static LongBigArrayBitVector ofLength(final long length) {
+		return new LongBigArrayBitVector(length).length(length);
+	}
+
+	/** Returns a bit vector that can hold the given number of bits: a {@link LongArrayBitVector}, if possible,
+	 * or an instance of this class otherwise.
+	 *
+	 * @param length a length (in bits).
+	 * @return a new bit vector of given length, filled with zeroes.
+	 */
+	public static BitVector ofLengthFitting(final long length) {
+		return length <= MAX_LONG_ARRAY_BIT_VECTOR_LENGTH ? LongArrayBitVector.ofLength(length) : ofLength(length);
+	}
+
+	/** Returns the big array of longs backing this bit vector.
+	 *
+	 * <p>Bits beyond the current length are guaranteed to be zero; the big array might be longer than necessary.
+	 *
+	 * @return the big array of longs backing this bit vector.
+	 */
+	public long[][] bigBits() {
+		return bits;
+	}
+
+	/** Ensures that this bit vector can hold the specified number of bits.
+	 *
+	 * @param numBits a number of bits that this vector must be able to contain.
+	 * @return this bit vector.
+	 */
+	public LongBigArrayBitVector ensureCapacity(final long numBits) {
+		if (numBits < 0) throw new IllegalArgumentException("Negative capacity: " + numBits);
+		bits = BigArrays.grow(bits, words(numBits));
+		return this;
+	}
+
+	@Override
+	public long length() {
+		return length;
+	}
+
+	@Override
+	public LongBigArrayBitVector length(final long newLength) {
+		if (newLength < 0) throw new IllegalArgumentException("Negative length: " + newLength);
+		if (newLength > length) ensureCapacity(newLength);
+		else if (newLength < length) {
+			// We keep bits beyond the length clean
+			final long from = words(newLength), to = words(length);
+			if (from < to) BigArrays.fill(bits, from, to, 0);
+			if (newLength % Long.SIZE != 0) bits[BigArrays.segment(newLength >>> 6)][BigArrays.displacement(newLength >>> 6)] &= (1L << newLength) - 1;
+		}
+		length = newLength;
+		return this;
+	}
+
+	@Override
+	public void clear() {
+		length(0);
+	}
+
+	@Override
+	public boolean getBoolean(final long index) {
+		ensureRestrictedIndex(index);
+		return (bits[BigArrays.segment(index >>> 6)][BigArrays.displacement(index >>> 6)] & 1L << index) != 0;
+	}
+
+	@Override
+	public boolean set(final long index, final boolean value) {
+		ensureRestrictedIndex(index);
+		final long[] segment = bits[BigArrays.segment(index >>> 6)];
+		final int displacement = BigArrays.displacement(index >>> 6);
+		final boolean oldValue = (segment[displacement] & 1L << index) != 0;
+		if (value) segment[displacement] |= 1L << index;
+		else segment[displacement] &= ~(1L << index);
+		return oldValue;
+	}
+
+	@Override
+	public void set(final long index) {
+		ensureRestrictedIndex(index);
+		bits[BigArrays.segment(index >>> 6)][BigArrays.displacement(index >>> 6)] |= 1L << index;
+	}
+
+	@Override
+	public void clear(final long index) {
+		ensureRestrictedIndex(index);
+		bits[BigArrays.segment(index >>> 6)][BigArrays.displacement(index >>> 6)] &= ~(1L << index);
+	}
+
+	@Override
+	public void flip(final long index) {
+		ensureRestrictedIndex(index);
+		bits[BigArrays.segment(index >>> 6)][BigArrays.displacement(index >>> 6)] ^= 1L << index;
+	}
+
+	@Override
+	public void add(final long index, final boolean value) {
+		if (index != length) throw new UnsupportedOperationException("Bits can only be added at the end of a " + getClass().getSimpleName());
+		add(value);
+	}
+
+	@Override
+	public boolean add(final boolean value) {
+		ensureCapacity(length + 1);
+		if (value) bits[BigArrays.segment(length >>> 6)][BigArrays.displacement(length >>> 6)] |= 1L << length;
+		length++;
+		return true;
+	}
+
+	@Override
+	public LongBigArrayBitVector append(final long value, final int width) {
+		if (width == 0) return this;
+		if (width < Long.SIZE && (value & -1L << width) != 0) throw new IllegalArgumentException("The specified value (" + value + ") is larger than the maximum value for the given width (" + width + ")");
+		ensureCapacity(length + width);
+		final long word = length >>> 6;
+		final int startBit = (int)(length & 63);
+		bits[BigArrays.segment(word)][BigArrays.displacement(word)] |= value << startBit;
+		if (startBit + width > Long.SIZE) bits[BigArrays.segment(word + 1)][BigArrays.displacement(word + 1)] = value >>> -startBit;
+		length += width;
+		return this;
+	}
+
+	@Override
+	public long getLong(final long from, final long to) {
+		if (from < 0 || to > length || from > to) throw new IndexOutOfBoundsException("[" + from + ".." + to + ") is not a valid range of [0.." + length + ")");
+		final int l = (int)(to - from);
+		if (l == 0) return 0;
+		if (l > Long.SIZE) throw new IllegalArgumentException("Range too large: " + l);
+		final long startWord = from >>> 6;
+		final int startBit = (int)(from & 63);
+		final long first = bits[BigArrays.segment(startWord)][BigArrays.displacement(startWord)];
+		if (startBit + l <= Long.SIZE) return first << -startBit - l >>> -l;
+		return first >>> startBit | bits[BigArrays.segment(startWord + 1)][BigArrays.displacement(startWord + 1)] << -startBit - l >>> -l;
+	}
+
+	@Override
+	public long count() {
+		long c = 0;
+		for(long i = words(length); i-- != 0;) c += Long.bitCount(bits[BigArrays.segment(i)][BigArrays.displacement(i)]);
+		return c;
+	}
+
+	@Override
+	public LongBigArrayBitVector copy() {
+		final LongBigArrayBitVector copy = new LongBigArrayBitVector(length);
+		BigArrays.copy(bits, 0, copy.bits, 0, words(length));
+		copy.length = length;
+		return copy;
+	}
+
+	@Override
+	public LongBigArrayBitVector clone() {
+		return copy();
+	}
+
+	private void writeObject(final ObjectOutputStream s) throws IOException {
+		s.defaultWriteObject();
+		for(long i = 0, numWords = words(length); i < numWords; i++) s.writeLong(bits[BigArrays.segment(i)][BigArrays.displacement(i)]);
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		final long numWords = words(length);
+		bits = LongBigArrays.newBigArray(numWords);
+		for(long i = 0; i < numWords; i++) bits[BigArrays.segment(i)][BigArrays.displacement(i)] = s.readLong();
+	}
+}
@@ -0,0 +1,140 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.File;
+import java.io.IOException;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.sux4j.io.MappedBitVector;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedInput;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.util.ByteBufferLongBigList;
+
+/** A read-only, memory-mapped version of {@link Rank9}.
+ *
+ * <p>Instances of this class access the data written by {@link Rank9#dump(MappedOutput)}
+ * directly from a {@link ByteBufferLongBigList}, usually obtained by {@linkplain MappedInput#map(File) memory-mapping a file}.
+ *
+ * <p>Instances of this class are not thread safe. Use {@link #copy()} to obtain an
+ * instance sharing the same data that can be used by another thread.
+ */
+
+public class MappedRank9 extends AbstractRank implements Rank {
+	private static final long serialVersionUID = 0L;
+
+	/** The underlying bit vector. */
+	private final MappedBitVector bitVector;
+	/** The underlying list. */
+	private final ByteBufferLongBigList data;
+	/** The position of the first word of the underlying bit vector. */
+	private final long bits;
+	/** The position of the counts. */
+	private final long count;
+	/** The number of counts. */
+	private final long countLength;
+	/** The number of ones in the underlying bit vector. */
+	private final long numOnes;
+	/** The position of the last one in the underlying bit vector, or -1. */
+	private final long lastOne;
+
+	/** Reads a rank structure from a mapped input.
+	 *
+	 * @param in a mapped input positioned on a structure written by {@link Rank9#dump(MappedOutput)}.
+	 */
+	public MappedRank9(final MappedInput in) throws IOException {
+		in.readTag(MappedFormat.RANK9);
+		bitVector = in.readBitVector();
+		data = in.data();
+		bits = bitVector.offset();
+		numOnes = in.readLong();
+		lastOne = in.readLong();
+		count = in.readLongs();
+		countLength = data.getLong(count - 1);
+	}
+
+	private MappedRank9(final MappedRank9 r) {
+		data = r.data.copy();
+		bitVector = new MappedBitVector(data, r.bits, r.bitVector.length());
+		bits = r.bits;
+		count = r.count;
+		countLength = r.countLength;
+		numOnes = r.numOnes;
+		lastOne = r.lastOne;
+	}
+
+	/** Maps a file containing a rank structure written by {@link Rank9#dump(MappedOutput)}.
+	 *
+	 * @param file a file.
+	 * @return a rank structure backed by {@code file}.
+	 */
+	public static MappedRank9 map(final File file) throws IOException {
+		return new MappedRank9(MappedInput.map(file));
+	}
+
+	/** Returns a copy of this structure sharing the same data, which can be used by a different thread.
+	 *
+	 * @return a copy of this structure.
+	 */
+	public MappedRank9 copy() {
+		return new MappedRank9(this);
+	}
+
+	@Override
+	public long rank(final long pos) {
+		if (pos > lastOne) return numOnes;
+
+		final long word = pos / 64;
+		final long block = word / 4 & ~1;
+		final int offset = (int)(word % 8) - 1;
+
+		return data.getLong(count + block) + (data.getLong(count + block + 1) >>> (offset + (offset >>> 32 - 4 & 0x8)) * 9 & 0x1FF) + Long.bitCount(data.getLong(bits + word) & ((1L << pos % 64) - 1));
+	}
+
+	@Override
+	public long numBits() {
+		return countLength * Long.SIZE;
+	}
+
+	@Override
+	public long count() {
+		return numOnes;
+	}
+
+	@Override
+	public long rank(final long from, final long to) {
+		return rank(to) - rank(from);
+	}
+
+	public long lastOne() {
+		return lastOne;
+	}
+
+	/** Returns a read-only view of the underlying bit vector.
+	 *
+	 * @return a read-only view of the underlying bit vector.
+	 */
+	@Override
+	public BitVector bitVector() {
+		return bitVector;
+	}
+}
@@ -0,0 +1,234 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.File;
+import java.io.IOException;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.sux4j.io.MappedBitVector;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedInput;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.util.ByteBufferLongBigList;
+
+/** A read-only, memory-mapped version of {@link SimpleSelect}.
+ *
+ * <p>Instances of this class access the data written by {@link SimpleSelect#dump(MappedOutput)}
+ * directly from a {@link ByteBufferLongBigList}, usually obtained by {@linkplain MappedInput#map(File) memory-mapping a file}.
+ * Loading is thus instantaneous, no heap space is used, and the pages of the file are shared among
+ * all processes mapping it. The results are identical to those of the original structure.
+ *
+ * <p>Instances of this class are not thread safe. Use {@link #copy()} to obtain an
+ * instance sharing the same data that can be used by another thread.
+ */
+
+public class MappedSimpleSelect implements Select {
+	private static final long serialVersionUID = 0L;
+
+	/** The underlying bit vector. */
+	private final MappedBitVector bitVector;
+	/** The underlying list. */
+	private final ByteBufferLongBigList data;
+	/** The position of the first word of the underlying bit vector. */
+	private final long bits;
+	/** The number of ones in the underlying bit vector. */
+	private final long numOnes;
+	/** The position of the inventory. */
+	private final long inventory;
+	/** The length of the inventory. */
+	private final long inventoryLength;
+	/** The position of the subinventory. */
+	private final long subinventory;
+	/** The length of the subinventory. */
+	private final long subinventoryLength;
+	/** The position of the exact spill. */
+	private final long exactSpill;
+	/** The length of the exact spill. */
+	private final long exactSpillLength;
+	/** The logarithm of the number of ones per inventory entry. */
+	private final int log2OnesPerInventory;
+	/** The mask for the number of ones per inventory entry. */
+	private final int onesPerInventoryMask;
+	/** The logarithm of the number of longwords used in the part of the subinventory associated with an inventory entry. */
+	private final int log2LongwordsPerSubinventory;
+	/** The number of ones per subinventory longword entry. */
+	private final int onesPerSub64;
+	/** The logarithm of the number of ones per subinventory 16-bit entry. */
+	private final int log2OnesPerSub16;
+	/** The mask for the number of ones per subinventory 16-bit entry. */
+	private final int onesPerSub16Mask;
+
+	/** Reads a select structure from a mapped input.
+	 *
+	 * @param in a mapped input positioned on a structure written by {@link SimpleSelect#dump(MappedOutput)}.
+	 */
+	public MappedSimpleSelect(final MappedInput in) throws IOException {
+		in.readTag(MappedFormat.SIMPLE_SELECT);
+		bitVector = in.readBitVector();
+		data = in.data();
+		bits = bitVector.offset();
+		numOnes = in.readLong();
+		log2OnesPerInventory = (int)in.readLong();
+		onesPerInventoryMask = (1 << log2OnesPerInventory) - 1;
+		log2LongwordsPerSubinventory = (int)in.readLong();
+		onesPerSub64 = 1 << in.readLong();
+		log2OnesPerSub16 = (int)in.readLong();
+		onesPerSub16Mask = (1 << log2OnesPerSub16) - 1;
+		inventory = in.readLongs();
+		inventoryLength = data.getLong(inventory - 1);
+		subinventory = in.readLongs();
+		subinventoryLength = data.getLong(subinventory - 1);
+		exactSpill = in.readLongs();
+		exactSpillLength = data.getLong(exactSpill - 1);
+	}
+
+	private MappedSimpleSelect(final MappedSimpleSelect s) {
+		data = s.data.copy();
+		bitVector = new MappedBitVector(data, s.bits, s.bitVector.length());
+		bits = s.bits;
+		numOnes = s.numOnes;
+		inventory = s.inventory;
+		inventoryLength = s.inventoryLength;
+		subinventory = s.subinventory;
+		subinventoryLength = s.subinventoryLength;
+		exactSpill = s.exactSpill;
+		exactSpillLength = s.exactSpillLength;
+		log2OnesPerInventory = s.log2OnesPerInventory;
+		onesPerInventoryMask = s.onesPerInventoryMask;
+		log2LongwordsPerSubinventory = s.log2LongwordsPerSubinventory;
+		onesPerSub64 = s.onesPerSub64;
+		log2OnesPerSub16 = s.log2OnesPerSub16;
+		onesPerSub16Mask = s.onesPerSub16Mask;
+	}
+
+	/** Maps a file containing a select structure written by {@link SimpleSelect#dump(MappedOutput)}.
+	 *
+	 * @param file a file.
+	 * @return a select structure backed by {@code file}.
+	 */
+	public static MappedSimpleSelect map(final File file) throws IOException {
+		return new MappedSimpleSelect(MappedInput.map(file));
+	}
+
+	/** Returns a copy of this structure sharing the same data, which can be used by a different thread.
+	 *
+	 * @return a copy of this structure.
+	 */
+	public MappedSimpleSelect copy() {
+		return new MappedSimpleSelect(this);
+	}
+
+	@Override
+	public long select(final long rank) {
+		if (rank >= numOnes) return -1;
+
+		final ByteBufferLongBigList data = this.data;
+		final long inventoryIndex = rank >>> log2OnesPerInventory;
+
+		final long inventoryRank = data.getLong(inventory + inventoryIndex);
+		final int subrank = (int)(rank & onesPerInventoryMask);
+
+		if (subrank == 0) return inventoryRank & ~(1L<<63);
+
+		long start;
+		int residual;
+
+		if (inventoryRank >= 0) {
+			final long index16 = (inventoryIndex << log2LongwordsPerSubinventory + 2) + (subrank >>> log2OnesPerSub16);
+			start = inventoryRank + (data.getLong(subinventory + index16 / 4) >>> (index16 % 4) * Short.SIZE & 0xFFFF);
+			residual = subrank & onesPerSub16Mask;
+		}
+		else {
+			if (onesPerSub64 == 1) return data.getLong(subinventory + (inventoryIndex << log2LongwordsPerSubinventory) + subrank);
+			return data.getLong(exactSpill + data.getLong(subinventory + (inventoryIndex << log2LongwordsPerSubinventory)) + subrank);
+		}
+
+		if (residual == 0) return start;
+
+		long wordIndex = start / Long.SIZE;
+		long word = data.getLong(bits + wordIndex) & -1L << start;
+
+		for(;;) {
+			final int bitCount = Long.bitCount(word);
+			if (residual < bitCount) break;
+			word = data.getLong(bits + ++wordIndex);
+			residual -= bitCount;
+		}
+
+		return wordIndex * Long.SIZE + Fast.select(word, residual);
+	}
+
+	/** Performs a bulk select of consecutive ranks into a given array fragment.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with {@code length} positions of consecutive bits starting at position {@code offset}.
+	 * @param offset the first bit position written in {@code dest}.
+	 * @param length the number of bit positions in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see SimpleSelect#select(long, long[], int, int)
+	 */
+	@Override
+	public long[] select(final long rank, final long[] dest, final int offset, final int length) {
+		if (length == 0) return dest;
+		final long s = select(rank);
+		dest[offset] = s;
+		long curr = s / Long.SIZE;
+
+		long window = data.getLong(bits + curr) & -1L << s;
+		window &= window - 1;
+
+		for(int i = 1; i < length; i++) {
+			while(window == 0) window = data.getLong(bits + ++curr);
+			dest[offset + i] = curr * Long.SIZE + Long.numberOfTrailingZeros(window);
+			window &= window - 1;
+		}
+
+		return dest;
+	}
+
+	/** Performs a bulk select of consecutive ranks into a given array.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with position of consecutive bits.
+	 * @return {@code dest}
+	 * @see #select(long, long[], int, int)
+	 */
+	@Override
+	public long[] select(final long rank, final long[] dest) {
+		return select(rank, dest, 0, dest.length);
+	}
+
+	@Override
+	public long numBits() {
+		return (inventoryLength + subinventoryLength + exactSpillLength) * Long.SIZE;
+	}
+
+	/** Returns a read-only view of the underlying bit vector.
+	 *
+	 * @return a read-only view of the underlying bit vector.
+	 */
+	@Override
+	public BitVector bitVector() {
+		return bitVector;
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.File;
+import java.io.IOException;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedInput;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.sux4j.util.MappedEliasFanoMonotoneLongBigList;
+import it.unimi.dsi.util.ByteBufferLongBigList;
+
+/** A read-only, memory-mapped version of {@link SparseSelect}.
+ *
+ * <p>Instances of this class access the data written by {@link SparseSelect#dump(MappedOutput)}
+ * directly from a {@link ByteBufferLongBigList}, usually obtained by {@linkplain MappedInput#map(File) memory-mapping a file}.
+ * Note that {@link #numBits()} always counts the whole structure, even if the original
+ * one was sharing data with a {@link SparseRank}.
+ *
+ * <p>Instances of this class are not thread safe. Use {@link #copy()} to obtain an
+ * instance sharing the same data that can be used by another thread.
+ */
+
+public class MappedSparseSelect implements Select {
+	private static final long serialVersionUID = 0L;
+
+	/** The length of the underlying bit array. */
+	private final long n;
+	/** The positions of the ones. */
+	private final MappedEliasFanoMonotoneLongBigList positions;
+
+	/** Reads a select structure from a mapped input.
+	 *
+	 * @param in a mapped input positioned on a structure written by {@link SparseSelect#dump(MappedOutput)}.
+	 */
+	public MappedSparseSelect(final MappedInput in) throws IOException {
+		in.readTag(MappedFormat.SPARSE_SELECT);
+		n = in.readLong();
+		positions = new MappedEliasFanoMonotoneLongBigList(in);
+	}
+
+	private MappedSparseSelect(final long n, final MappedEliasFanoMonotoneLongBigList positions) {
+		this.n = n;
+		this.positions = positions;
+	}
+
+	/** Maps a file containing a select structure written by {@link SparseSelect#dump(MappedOutput)}.
+	 *
+	 * @param file a file.
+	 * @return a select structure backed by {@code file}.
+	 */
+	public static MappedSparseSelect map(final File file) throws IOException {
+		return new MappedSparseSelect(MappedInput.map(file));
+	}
+
+	/** Returns a copy of this structure sharing the same data, which can be used by a different thread.
+	 *
+	 * @return a copy of this structure.
+	 */
+	public MappedSparseSelect copy() {
+		return new MappedSparseSelect(n, positions.copy());
+	}
+
+	@Override
+	public long select(final long rank) {
+		if (rank >= positions.size64()) return -1;
+		return positions.getLong(rank);
+	}
+
+	@Override
+	public long numBits() {
+		return positions.numBits();
+	}
+
+	/** Returns the bit vector indexed; since the bits are not stored in this data structure,
+	 * a copy is built on purpose and returned.
+	 *
+	 * @return a copy of the underlying bit vector.
+	 */
+	@Override
+	public BitVector bitVector() {
+		final LongArrayBitVector result = LongArrayBitVector.ofLength(n);
+		for(long i = positions.size64(); i-- != 0;) result.set(positions.getLong(i));
+		return result;
+	}
+}
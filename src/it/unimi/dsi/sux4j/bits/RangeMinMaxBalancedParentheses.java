@@ -0,0 +1,445 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package it.unimi.dsi.sux4j.bits;
+
+import static it.unimi.dsi.sux4j.bits.JacobsonBalancedParentheses.findFarClose;
+import static it.unimi.dsi.sux4j.bits.JacobsonBalancedParentheses.findNearClose;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.Arrays;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.LongArrayBitVector;
+
+/** An implementation of balanced parentheses based on a range min-max tree.
+ *
+ * <p>Instances of this class implement all operations of {@link BalancedParentheses}, and additionally
+ * {@linkplain #excess(long) excess}, {@linkplain #rmq(long, long) range-minimum queries} and
+ * {@linkplain #lca(long, long) lowest common ancestors}, in time logarithmic in the length of the bit vector,
+ * independently of the depth of the nesting.
+ *
+ * <p>The bit vector is divided in blocks of {@value #BLOCK_WORDS} longwords. We store the excess (the number
+ * of open parentheses minus the number of closed parentheses) at the start of each block, and a complete binary tree
+ * whose leaves contain the minimum excess reached inside each block, and whose internal nodes
+ * contain the minimum of their children (this is the range min-max tree of Gonzalo Navarro and Kunihiko Sadakane,
+ * &ldquo;Fully Functional Static and Dynamic Succinct Trees&rdquo;, <i>ACM Trans. Algorithms</i>, 10(3):16, 2014;
+ * since all operations of this class search for a smaller excess, we do not need to store maxima).
+ * Searches scan the block of the starting position word by word using
+ * {@link JacobsonBalancedParentheses#findNearClose(long)} and {@link JacobsonBalancedParentheses#findFarClose(long, int)}
+ * (backward searches apply the same methods to reversed and complemented words),
+ * and then move on the tree to the nearest block containing the target excess, which is scanned in the same way.
+ *
+ * <p>The structure uses a longword of excess per block and, since the tree is complete, two longwords of minima per leaf,
+ * where the number of leaves is the number of blocks rounded up to a power of two. On large bit vectors the additional space is thus
+ * 18.75% when the number of blocks is a power of two, and grows up to about 31.25% when it is just above a power of two.
+ *
+ * <p>In the following, the <em>excess</em> at a position is the number of open parentheses minus the number of closed parentheses
+ * up to that position, included.
+ */
+
+public class RangeMinMaxBalancedParentheses implements BalancedParentheses {
+	private static final long serialVersionUID = 0L;
+	/** The number of longwords in a block. */
+	public static final int BLOCK_WORDS = 16;
+	private static final int LOG2_BLOCK_BITS = 10;
+	private static final int BLOCK_BITS = 1 << LOG2_BLOCK_BITS;
+	/** The excess at the end of each byte. */
+	private static final byte[] BYTE_EXCESS = new byte[256];
+	/** The minimum excess reached inside each byte. */
+	private static final byte[] BYTE_MIN = new byte[256];
+
+	static {
+		for(int b = 0; b < 256; b++) {
+			int e = 0, min = Integer.MAX_VALUE;
+			for(int i = 0; i < Byte.SIZE; i++) {
+				e += (b & 1 << i) != 0 ? 1 : -1;
+				min = Math.min(min, e);
+			}
+			BYTE_EXCESS[b] = (byte)e;
+			BYTE_MIN[b] = (byte)min;
+		}
+	}
+
+	/** The underlying bit vector. */
+	protected final BitVector bitVector;
+	/** The bits of {@link #bitVector}. */
+	private transient long[] bits;
+	/** The length of {@link #bitVector}. */
+	private final long length;
+	/** The excess before each block, plus the final excess (i.e., zero). */
+	private final long[] blockExcess;
+	/** The range min tree: node 1 is the root, the children of node <var>i</var> are 2<var>i</var> and 2<var>i</var> + 1, and
+	 * the leaves start at {@link #numLeaves}. Empty leaves contain {@link Long#MAX_VALUE}. */
+	private final long[] min;
+	/** The number of leaves of the tree (a power of two). */
+	private final int numLeaves;
+
+	/** Creates a new range min-max tree for the balanced parentheses in a given bit vector.
+	 *
+	 * @param bitVector a bit vector containing a balanced string of parentheses (ones are open parentheses).
+	 */
+	public RangeMinMaxBalancedParentheses(final BitVector bitVector) {
+		this.bitVector = bitVector;
+		this.bits = bitVector.bits();
+		length = bitVector.length();
+		final int numBlocks = (int)((length + BLOCK_BITS - 1) >>> LOG2_BLOCK_BITS);
+		numLeaves = numBlocks <= 1 ? 1 : Integer.highestOneBit(numBlocks - 1) << 1;
+		blockExcess = new long[numBlocks + 1];
+		min = new long[2 * numLeaves];
+		Arrays.fill(min, Long.MAX_VALUE);
+
+		final long[] bits = this.bits;
+		long e = 0;
+		for(int block = 0; block < numBlocks; block++) {
+			blockExcess[block] = e;
+			long m = Long.MAX_VALUE;
+			for(long p = (long)block << LOG2_BLOCK_BITS, end = Math.min(length, p + BLOCK_BITS); p < end;) {
+				if (p + Byte.SIZE <= end) {
+					final int b = (int)(bits[(int)(p >>> 6)] >>> p) & 0xFF;
+					m = Math.min(m, e + BYTE_MIN[b]);
+					e += BYTE_EXCESS[b];
+					p += Byte.SIZE;
+				}
+				else {
+					e += (bits[(int)(p >>> 6)] & 1L << p) != 0 ? 1 : -1;
+					m = Math.min(m, e);
+					p++;
+				}
+			}
+			if (m < 0) throw new IllegalArgumentException("Unbalanced parentheses");
+			min[numLeaves + block] = m;
+		}
+		if (e != 0) throw new IllegalArgumentException("Unbalanced parentheses");
+		blockExcess[numBlocks] = e;
+		for(int i = numLeaves; i-- != 1;) min[i] = Math.min(min[2 * i], min[2 * i + 1]);
+	}
+
+	/** Creates a new range min-max tree for the balanced parentheses in a given bit array.
+	 *
+	 * @param bits a bit array containing a balanced string of parentheses (ones are open parentheses).
+	 * @param length the number of valid bits in {@code bits}.
+	 */
+	public RangeMinMaxBalancedParentheses(final long[] bits, final long length) {
+		this(LongArrayBitVector.wrap(bits, length));
+	}
+
+	/** Returns the number of open parentheses minus the number of closed parentheses before a position.
+	 *
+	 * @param b a position between 0 and the length of the bit vector (inclusive).
+	 * @return the excess before position {@code b}.
+	 */
+	private long excessBefore(final long b) {
+		final int block = (int)(b >>> LOG2_BLOCK_BITS);
+		final long start = (long)block << LOG2_BLOCK_BITS;
+		int c = 0;
+		final int to = (int)(b >>> 6);
+		for(int i = (int)(start >>> 6); i < to; i++) c += Long.bitCount(bits[i]);
+		if ((b & 63) != 0) c += Long.bitCount(bits[to] & (1L << b) - 1);
+		return blockExcess[block] + 2L * c - (b - start);
+	}
+
+	/** Returns the difference between the number of open and closed parentheses up to a given position, included.
+	 *
+	 * <p>If the parentheses represent an ordinal tree, the excess at an open parenthesis is the depth of the corresponding node (the roots having depth one).
+	 *
+	 * @param pos a position in the bit vector.
+	 * @return the excess at {@code pos}.
+	 */
+	public long excess(final long pos) {
+		if (pos < 0 || pos >= length) throw new IndexOutOfBoundsException(Long.toString(pos));
+		return excessBefore(pos + 1);
+	}
+
+	/** Returns the smallest boundary <var>c</var> &gt; {@code b} such that the excess before <var>c</var> is the excess before {@code b} minus {@code k} + 1.
+	 *
+	 * @param b a position between 0 and the length of the bit vector (inclusive).
+	 * @param k a nonnegative integer.
+	 * @return the smallest boundary <var>c</var> &gt; {@code b} at which the excess (before <var>c</var>) is the excess before {@code b} minus {@code k} + 1, or &minus;1.
+	 */
+	private long forward(final long b, long k) {
+		final long target = excessBefore(b) - k - 1;
+		if (b < length) {
+			final int block = (int)(b >>> LOG2_BLOCK_BITS);
+			final long c = scanForward(b, Math.min(length, (long)(block + 1) << LOG2_BLOCK_BITS), k);
+			if (c >= 0) return c;
+
+			int node = numLeaves + block;
+			for(;;) {
+				if (node == 1) return -1;
+				if ((node & 1) == 0 && min[node + 1] <= target) {
+					node++;
+					break;
+				}
+				node >>>= 1;
+			}
+			while(node < numLeaves) node = min[2 * node] <= target ? 2 * node : 2 * node + 1;
+			final long start = (long)(node - numLeaves) << LOG2_BLOCK_BITS;
+			k = blockExcess[node - numLeaves] - target - 1;
+			return scanForward(start, Math.min(length, start + BLOCK_BITS), k);
+		}
+		return -1;
+	}
+
+	/** Scans forward a range of bits looking for the first boundary at which the excess drops by {@code k} + 1.
+	 *
+	 * @param from the starting position.
+	 * @param to the ending position, exclusive.
+	 * @param k a nonnegative integer.
+	 * @return the boundary following the first position in [{@code from}..{@code to}) at which the excess
+	 * is the excess before {@code from} minus {@code k} + 1, or &minus;1.
+	 */
+	private long scanForward(long from, final long to, long k) {
+		final long[] bits = this.bits;
+		while(from < to) {
+			final int offset = (int)(from & 63);
+			final int l = (int)Math.min(Long.SIZE - offset, to - from);
+			final long word = bits[(int)(from >>> 6)] >>> offset & -1L >>> Long.SIZE - l;
+			if (k < Long.SIZE) {
+				final int q = findFarClose(word, (int)k);
+				if (q < l) return from + q + 1;
+			}
+			k += 2 * Long.bitCount(word) - l;
+			from += l;
+		}
+		return -1;
+	}
+
+	/** Returns the greatest boundary <var>j</var> &lt; {@code b} such that the excess before <var>j</var> is the excess before {@code b} minus {@code k} + 1.
+	 *
+	 * @param b a position between 0 and the length of the bit vector (inclusive).
+	 * @param k a nonnegative integer.
+	 * @return the greatest boundary <var>j</var> &lt; {@code b} at which the excess (before <var>j</var>) is the excess before {@code b} minus {@code k} + 1, or &minus;1.
+	 */
+	private long backward(final long b, long k) {
+		if (b == 0) return -1;
+		final long target = excessBefore(b) - k - 1;
+		final int block = (int)((b - 1) >>> LOG2_BLOCK_BITS);
+		final long j = scanBackward(b, (long)block << LOG2_BLOCK_BITS, k);
+		if (j >= 0) return j;
+
+		int node = numLeaves + block;
+		for(;;) {
+			if (node == 1) return target == 0 ? 0 : -1;
+			if ((node & 1) != 0 && min[node - 1] <= target) {
+				node--;
+				break;
+			}
+			node >>>= 1;
+		}
+		while(node < numLeaves) node = min[2 * node + 1] <= target ? 2 * node + 1 : 2 * node;
+		final int found = node - numLeaves;
+		final long end = Math.min(length, (long)(found + 1) << LOG2_BLOCK_BITS);
+		final long e = blockExcess[found + 1];
+		if (e == target) return end;
+		return scanBackward(end, (long)found << LOG2_BLOCK_BITS, e - target - 1);
+	}
+
+	/** Scans backward a range of bits looking for the last boundary at which the excess is smaller by {@code k} + 1.
+	 *
+	 * @param to the ending position, exclusive.
+	 * @param from the starting position.
+	 * @param k a nonnegative integer.
+	 * @return the greatest boundary in [{@code from}..{@code to}) at which the excess (before the boundary)
+	 * is the excess before {@code to} minus {@code k} + 1, or &minus;1.
+	 */
+	private long scanBackward(long to, final long from, long k) {
+		final long[] bits = this.bits;
+		while(to > from) {
+			final int r = (int)Math.min(((to - 1) & 63) + 1, to - from);
+			// Bit to - 1 becomes bit 0, and ones become zeroes: excess drops on open parentheses
+			final long word = ~Long.reverse(bits[(int)((to - 1) >>> 6)] << (Long.SIZE - 1 - (int)((to - 1) & 63))) & -1L >>> Long.SIZE - r;
+			if (k < Long.SIZE) {
+				final int q = findFarClose(word, (int)k);
+				if (q < r) return to - 1 - q;
+			}
+			k += 2 * Long.bitCount(word) - r;
+			to -= r;
+		}
+		return -1;
+	}
+
+	@Override
+	public long findClose(final long pos) {
+		if (pos < 0 || pos >= length) throw new IndexOutOfBoundsException(Long.toString(pos));
+		final int word = (int)(pos >>> 6);
+		final int bit = (int)(pos & 63);
+		if ((bits[word] & 1L << bit) == 0) throw new IllegalArgumentException();
+		final int result = findNearClose(bits[word] >>> bit);
+		if (result < Long.SIZE - bit) return pos + result;
+		return forward(pos + 1, 0) - 1;
+	}
+
+	@Override
+	public long findOpen(final long pos) {
+		if (pos < 0 || pos >= length) throw new IndexOutOfBoundsException(Long.toString(pos));
+		if ((bits[(int)(pos >>> 6)] & 1L << pos) != 0) throw new IllegalArgumentException();
+		return backward(pos, 0);
+	}
+
+	/** {@inheritDoc}
+	 *
+	 * <p>For an open parenthesis, this method returns the open parenthesis of the smallest pair strictly enclosing
+	 * the pair it belongs to; for a closed parenthesis, the result is the same as for the matching open parenthesis.
+	 * If the parentheses represent an ordinal tree, this method returns thus the parent of a node.
+	 *
+	 * @return the position of the open parenthesis of the pair that most tightly encloses the given position, or &minus;1 if no such pair exists.
+	 */
+	@Override
+	public long enclose(final long pos) {
+		if (pos < 0 || pos >= length) throw new IndexOutOfBoundsException(Long.toString(pos));
+		return backward(pos, (bits[(int)(pos >>> 6)] & 1L << pos) != 0 ? 0 : 1);
+	}
+
+	/** Returns the position of the open parenthesis of the pair enclosing a given position at a given nesting distance.
+	 *
+	 * <p>This method iterates {@link #enclose(long)} a given number of times, but its cost does not depend on the number of iterations.
+	 * If the parentheses represent an ordinal tree, this method returns thus a level ancestor of a node.
+	 *
+	 * @param pos a position in the bit vector.
+	 * @param levels a positive number of levels.
+	 * @return the position of the open parenthesis of the pair enclosing {@code pos} {@code levels} times, or &minus;1 if no such pair exists.
+	 */
+	public long enclose(final long pos, final long levels) {
+		if (pos < 0 || pos >= length) throw new IndexOutOfBoundsException(Long.toString(pos));
+		if (levels <= 0) throw new IllegalArgumentException("Nonpositive number of levels: " + levels);
+		return backward(pos, (bits[(int)(pos >>> 6)] & 1L << pos) != 0 ? levels - 1 : levels);
+	}
+
+	/** Returns the leftmost position of minimum excess in a range.
+	 *
+	 * @param from the starting position of the range.
+	 * @param to the ending position of the range, inclusive.
+	 * @return the leftmost position in [{@code from}..{@code to}] having minimum {@linkplain #excess(long) excess}.
+	 */
+	public long rmq(final long from, final long to) {
+		if (from < 0 || from > to || to >= length) throw new IndexOutOfBoundsException("[" + from + ".." + to + "]");
+		final int blockFrom = (int)(from >>> LOG2_BLOCK_BITS), blockTo = (int)(to >>> LOG2_BLOCK_BITS);
+		final long[] value = new long[1];
+		if (blockTo - blockFrom <= 1) return scanMin(from, to + 1, excessBefore(from), value);
+
+		long result = scanMin(from, (long)(blockFrom + 1) << LOG2_BLOCK_BITS, excessBefore(from), value);
+		long best = value[0];
+
+		// Canonical decomposition of the blocks strictly between, left to right
+		int l = numLeaves + blockFrom + 1, r = numLeaves + blockTo - 1;
+		int bestNode = -1;
+		long bestMin = best;
+		final int[] right = new int[Integer.SIZE];
+		int numRight = 0;
+		while(l <= r) {
+			if ((l & 1) != 0) {
+				if (min[l] < bestMin) bestMin = min[bestNode = l];
+				l++;
+			}
+			if ((r & 1) == 0) {
+				right[numRight++] = r;
+				r--;
+			}
+			l >>>= 1;
+			r >>>= 1;
+		}
+		while(numRight-- != 0) if (min[right[numRight]] < bestMin) bestMin = min[bestNode = right[numRight]];
+
+		if (bestNode != -1) {
+			int node = bestNode;
+			while(node < numLeaves) node = min[2 * node] == bestMin ? 2 * node : 2 * node + 1;
+			final int block = node - numLeaves;
+			final long start = (long)block << LOG2_BLOCK_BITS;
+			result = scanMin(start, start + BLOCK_BITS, blockExcess[block], value);
+			best = bestMin;
+		}
+
+		final long start = (long)blockTo << LOG2_BLOCK_BITS;
+		final long last = scanMin(start, to + 1, blockExcess[blockTo], value);
+		return value[0] < best ? last : result;
+	}
+
+	/** Returns the leftmost position of minimum excess in a range, and the minimum excess.
+	 *
+	 * @param from the starting position.
+	 * @param to the ending position, exclusive.
+	 * @param e the excess before {@code from}.
+	 * @param value a one-element array that will contain the minimum excess.
+	 * @return the leftmost position of minimum excess in [{@code from}..{@code to}).
+	 */
+	private long scanMin(long from, final long to, long e, final long[] value) {
+		final long[] bits = this.bits;
+		long best = Long.MAX_VALUE, result = -1;
+		while(from < to) {
+			if ((from & 7) == 0 && from + Byte.SIZE <= to) {
+				final int b = (int)(bits[(int)(from >>> 6)] >>> from) & 0xFF;
+				if (e + BYTE_MIN[b] < best) {
+					for(int i = 0, f = 0; i < Byte.SIZE; i++) {
+						f += (b & 1 << i) != 0 ? 1 : -1;
+						if (e + f < best) {
+							best = e + f;
+							result = from + i;
+						}
+					}
+				}
+				e += BYTE_EXCESS[b];
+				from += Byte.SIZE;
+			}
+			else {
+				e += (bits[(int)(from >>> 6)] & 1L << from) != 0 ? 1 : -1;
+				if (e < best) {
+					best = e;
+					result = from;
+				}
+				from++;
+			}
+		}
+		value[0] = best;
+		return result;
+	}
+
+	/** Returns the lowest common ancestor of two nodes.
+	 *
+	 * @param u the position of an open parenthesis.
+	 * @param v the position of an open parenthesis.
+	 * @return the position of the open parenthesis of the smallest pair enclosing both {@code u} and {@code v} (possibly one of them),
+	 * or &minus;1 if no such pair exists.
+	 */
+	public long lca(long u, long v) {
+		if (u > v) {
+			final long t = u;
+			u = v;
+			v = t;
+		}
+		if (v < findClose(u)) return u;
+		return enclose(rmq(u, v) + 1);
+	}
+
+	@Override
+	public BitVector bitVector() {
+		return bitVector;
+	}
+
+	@Override
+	public long numBits() {
+		return (blockExcess.length + (long)min.length) * Long.SIZE;
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		bits = bitVector.bits();
+	}
+}
@@ -62,6 +62,20 @@ public interface Rank extends Serializable {
 	 */
 	public long rank(long pos);
 
+	/** Returns the number of ones preceding each of the specified positions.
+	 *
+	 * <p>The default implementation calls {@link #rank(long)} for each position. Implementations
+	 * may interleave the computations so that independent memory accesses overlap.
+	 *
+	 * @param pos an array of positions in the bit vector.
+	 * @param dest an array of at least {@code pos.length} elements that will be filled with the number of ones preceding each position.
+	 * @return {@code dest}
+	 */
+	public default long[] rank(final long[] pos, final long[] dest) {
+		for(int i = 0; i < pos.length; i++) dest[i] = rank(pos[i]);
+		return dest;
+	}
+
 	/** Returns the number of ones in the specified interval.
 	 *
 	 * @param from a position in the bit vector.
@@ -52,6 +52,18 @@ public class Rank16 extends AbstractRank implements Rank {
 	}
 
 	public Rank16(final BitVector bitVector) {
+		this(bitVector, false);
+	}
+
+	/** Creates a new <code>rank16</code> structure, possibly building it in parallel.
+	 *
+	 * <p>Parallel construction splits the bit vector in chunks of words and fills the counts
+	 * of each chunk independently in the common fork/join pool; the result is identical to that of sequential construction.
+	 *
+	 * @param bitVector a bit vector.
+	 * @param parallel whether to build the structure in parallel.
+	 */
+	public Rank16(final BitVector bitVector, final boolean parallel) {
 		this.bitVector = bitVector;
 		this.bits = bitVector.bits();
 		numWords = (int)((bitVector.length() + Long.SIZE - 1) / Long.SIZE);
@@ -62,16 +74,34 @@ public class Rank16 extends AbstractRank implements Rank {
 		count = new short[numCounts];
 		superCount = new long[numSuperCounts];
 
-		long c = 0, l = -1;
-		for(int i = 0; i < numWords; i++) {
+		final int numChunks = Chunks.numChunks(numWords, parallel);
+		final long[] start = numChunks == 1 ? new long[1] : Chunks.prefixCounts(bits, numWords, numChunks, false, parallel);
+		final long[] end = new long[numChunks];
+		Chunks.stream(numChunks, parallel).forEach(t -> end[t] = fill(Chunks.start(t, numChunks, numWords), Chunks.start(t + 1, numChunks, numWords), start[t]));
+
+		int w = numWords;
+		while(w-- != 0 && bits[w] == 0);
+
+		numOnes = end[numChunks - 1];
+		lastOne = w == -1 ? -1 : w * 64L + Fast.mostSignificantBit(bits[w]);
+	}
+
+	/** Fills the counts associated with a range of words.
+	 *
+	 * @param from the first word (a multiple of {@link #BLOCK_LENGTH}).
+	 * @param to the last word, exclusive (a multiple of {@link #BLOCK_LENGTH}, or {@link #numWords}).
+	 * @param c the number of ones before <code>from</code>.
+	 * @return the number of ones before <code>to</code>.
+	 */
+	private long fill(final int from, final int to, long c) {
+		final long[] bits = this.bits, superCount = this.superCount;
+		final short[] count = this.count;
+		for(int i = from; i < to; i++) {
 			if (i % BLOCK_LENGTH == 0) superCount[i / BLOCK_LENGTH] = c;
 			if (i % 2 == 0) count[i / 2] = (short)(c - superCount[i / BLOCK_LENGTH]);
 			c += Long.bitCount(bits[i]);
-			if (bits[i] != 0) l = i * 64L + Fast.mostSignificantBit(bits[i]);
 		}
-
-		numOnes = c;
-		lastOne = l;
+		return c;
 	}
 
 
@@ -91,6 +121,33 @@ public class Rank16 extends AbstractRank implements Rank {
 				superCount[block] + (count[offset] & 0xFFFF) + Long.bitCount(bits[word - 1]) + Long.bitCount(bits[word] & (1L << pos % 64) - 1);
 	}
 
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation first reads the counts of all positions, and then the words containing
+	 * them, so that independent memory accesses overlap.
+	 */
+	@Override
+	public long[] rank(final long[] pos, final long[] dest) {
+		final long[] superCount = this.superCount, bits = this.bits;
+		final short[] count = this.count;
+		final long lastOne = this.lastOne;
+		for(int i = 0; i < pos.length; i++) {
+			final long p = pos[i];
+			if (p > lastOne) continue;
+			final int word = (int)(p / Long.SIZE);
+			dest[i] = superCount[word / BLOCK_LENGTH] + (count[word / 2] & 0xFFFF);
+		}
+		for(int i = 0; i < pos.length; i++) {
+			final long p = pos[i];
+			if (p > lastOne) dest[i] = numOnes;
+			else {
+				final int word = (int)(p / Long.SIZE);
+				dest[i] += word % 2 == 0 ? Long.bitCount(bits[word] & ((1L << p % 64) - 1)) : Long.bitCount(bits[word - 1]) + Long.bitCount(bits[word] & (1L << p % 64) - 1);
+			}
+		}
+		return dest;
+	}
+
 	@Override
 	public long numBits() {
 		return count.length * (long)Short.SIZE + superCount.length * (long)Long.SIZE;
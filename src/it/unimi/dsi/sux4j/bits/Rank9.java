@@ -26,13 +26,16 @@ import java.io.ObjectInputStream;
 import it.unimi.dsi.bits.BitVector;
 import it.unimi.dsi.bits.Fast;
 import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.sux4j.io.MappedDumpable;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedOutput;
 
 /** A <code>rank9</code> implementation.
  *
  * <p><code>rank9</code> is a ranking structure using 25% additional space and providing exceptionally fast ranking.
  */
 
-public class Rank9 extends AbstractRank implements Rank {
+public class Rank9 extends AbstractRank implements Rank, MappedDumpable {
 	private static final boolean ASSERTS = false;
 	private static final long serialVersionUID = 1L;
 
@@ -48,6 +51,18 @@ public class Rank9 extends AbstractRank implements Rank {
 	}
 
 	public Rank9(final BitVector bitVector) {
+		this(bitVector, false);
+	}
+
+	/** Creates a new <code>rank9</code> structure, possibly building it in parallel.
+	 *
+	 * <p>Parallel construction splits the bit vector in chunks of words and fills the counts
+	 * of each chunk independently in the common fork/join pool; the result is identical to that of sequential construction.
+	 *
+	 * @param bitVector a bit vector.
+	 * @param parallel whether to build the structure in parallel.
+	 */
+	public Rank9(final BitVector bitVector, final boolean parallel) {
 		this.bitVector = bitVector;
 		this.bits = bitVector.bits();
 		final long length = bitVector.length();
@@ -58,24 +73,38 @@ public class Rank9 extends AbstractRank implements Rank {
 		// Init rank/select structure
 		count = new long[numCounts + 1];
 
-		long c = 0, l = -1;
-		int pos = 0;
-		for(int i = 0; i < numWords; i += 8, pos += 2) {
+		final int numChunks = Chunks.numChunks(numWords, parallel);
+		final long[] start = numChunks == 1 ? new long[1] : Chunks.prefixCounts(bits, numWords, numChunks, false, parallel);
+		final long[] end = new long[numChunks];
+		Chunks.stream(numChunks, parallel).forEach(t -> end[t] = fill(Chunks.start(t, numChunks, numWords), Chunks.start(t + 1, numChunks, numWords), start[t]));
+
+		int w = numWords;
+		while(w-- != 0 && bits[w] == 0);
+
+		numOnes = end[numChunks - 1];
+		lastOne = w == -1 ? -1 : w * 64L + Fast.mostSignificantBit(bits[w]);
+		count[numCounts] = numOnes;
+	}
+
+	/** Fills the counts associated with a range of words.
+	 *
+	 * @param from the first word (a multiple of 8).
+	 * @param to the last word, exclusive (a multiple of 8, or {@link #numWords}).
+	 * @param c the number of ones before <code>from</code>.
+	 * @return the number of ones before <code>to</code>.
+	 */
+	private long fill(final int from, final int to, long c) {
+		final long[] bits = this.bits, count = this.count;
+		int pos = from / 4;
+		for(int i = from; i < to; i += 8, pos += 2) {
 			count[pos] = c;
 			c += Long.bitCount(bits[i]);
-			if (bits[i] != 0) l = i * 64L + Fast.mostSignificantBit(bits[i]);
 			for(int j = 1;  j < 8; j++) {
 				count[pos + 1] |= (i + j <= numWords ? c - count[pos] : 0x1FFL) << 9 * (j - 1);
-				if (i + j < numWords) {
-					c += Long.bitCount(bits[i + j]);
-					if (bits[i + j] != 0) l = (i + j) * 64L + Fast.mostSignificantBit(bits[i + j]);
-				}
+				if (i + j < numWords) c += Long.bitCount(bits[i + j]);
 			}
 		}
-
-		numOnes = c;
-		lastOne = l;
-		count[numCounts] = c;
+		return c;
 	}
 
 
@@ -93,6 +122,31 @@ public class Rank9 extends AbstractRank implements Rank {
 		return count[block] + (count[block + 1] >>> (offset + (offset >>> 32 - 4 & 0x8)) * 9 & 0x1FF) + Long.bitCount(bits[word] & ((1L << pos % 64) - 1));
 	}
 
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation first reads the counts of all positions, and then the words containing
+	 * them, so that independent memory accesses overlap.
+	 */
+	@Override
+	public long[] rank(final long[] pos, final long[] dest) {
+		final long[] count = this.count, bits = this.bits;
+		final long lastOne = this.lastOne;
+		for(int i = 0; i < pos.length; i++) {
+			final long p = pos[i];
+			if (p > lastOne) continue;
+			final int word = (int)(p / 64);
+			final int block = word / 4 & ~1;
+			final int offset = word % 8 - 1;
+			dest[i] = count[block] + (count[block + 1] >>> (offset + (offset >>> 32 - 4 & 0x8)) * 9 & 0x1FF);
+		}
+		for(int i = 0; i < pos.length; i++) {
+			final long p = pos[i];
+			if (p > lastOne) dest[i] = numOnes;
+			else dest[i] += Long.bitCount(bits[(int)(p / 64)] & ((1L << p % 64) - 1));
+		}
+		return dest;
+	}
+
 	@Override
 	public long numBits() {
 		return count.length * (long)Long.SIZE;
@@ -121,4 +175,18 @@ public class Rank9 extends AbstractRank implements Rank {
 	public BitVector bitVector() {
 		return bitVector;
 	}
+
+	/** Writes this structure, including the underlying bit vector, in the {@linkplain MappedFormat mapped format}.
+	 *
+	 * @param out a mapped output.
+	 * @see MappedRank9
+	 */
+	@Override
+	public void dump(final MappedOutput out) throws IOException {
+		out.writeLong(MappedFormat.RANK9);
+		out.writeBitVector(bitVector);
+		out.writeLong(numOnes);
+		out.writeLong(lastOne);
+		out.writeLongs(count);
+	}
 }
@@ -86,6 +86,11 @@ public class RankSelect implements Rank, Select, SelectZero, Serializable {
 		return rank.rank(pos);
 	}
 
+	@Override
+	public long[] rank(final long[] pos, final long[] dest) {
+		return rank.rank(pos, dest);
+	}
+
 	@Override
 	public long rankZero(final long from, final long to) {
 		return rank.rankZero(from, to);
@@ -101,6 +106,11 @@ public class RankSelect implements Rank, Select, SelectZero, Serializable {
 		return select.select(rank);
 	}
 
+	@Override
+	public long[] select(final long[] rank, final long[] dest) {
+		return select.select(rank, dest);
+	}
+
 	@Override
 	public long selectZero(final long rank) {
 		return selectZero.selectZero(rank);
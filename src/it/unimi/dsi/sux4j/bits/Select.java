@@ -56,6 +56,52 @@ public interface Select extends Serializable {
 	 */
 	public long select(long rank);
 
+	/** Returns the positions of the bits of given ranks.
+	 *
+	 * <p>The default implementation calls {@link #select(long)} for each rank. Implementations
+	 * may interleave the computations so that independent memory accesses overlap.
+	 *
+	 * <p>Note that the ranks need not be consecutive or sorted: to select consecutive ranks,
+	 * use {@link #select(long, long[], int, int)}.
+	 *
+	 * @param rank an array of ranks.
+	 * @param dest an array of at least {@code rank.length} elements that will be filled with the position of the bit of each rank
+	 * (or &minus;1 if no such position exists).
+	 * @return {@code dest}
+	 */
+	public default long[] select(final long[] rank, final long[] dest) {
+		for(int i = 0; i < rank.length; i++) dest[i] = select(rank[i]);
+		return dest;
+	}
+
+	/** Performs a bulk select of consecutive ranks into a given array fragment.
+	 *
+	 * <p>The default implementation calls {@link #select(long)} for each rank. Implementations
+	 * usually select just the first rank, and then enumerate the following ones directly in the bit vector.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with {@code length} positions of consecutive bits starting at position {@code offset}.
+	 * @param offset the first bit position written in {@code dest}.
+	 * @param length the number of bit positions in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #select(long, long[])
+	 */
+	public default long[] select(final long rank, final long[] dest, final int offset, final int length) {
+		for(int i = 0; i < length; i++) dest[offset + i] = select(rank + i);
+		return dest;
+	}
+
+	/** Performs a bulk select of consecutive ranks into a given array.
+	 *
+	 * @param rank the first rank to select.
+	 * @param dest the destination array; it will be filled with position of consecutive bits.
+	 * @return {@code dest}
+	 * @see #select(long, long[], int, int)
+	 */
+	public default long[] select(final long rank, final long[] dest) {
+		return select(rank, dest, 0, dest.length);
+	}
+
 	/** Returns the bit vector indexed by this structure.
 	 *
 	 * <p>Note that you are not supposed to modify the returned vector.
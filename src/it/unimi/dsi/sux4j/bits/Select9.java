@@ -49,6 +49,8 @@ public class Select9 implements Select {
 	private final static int LOG2_ONES_PER_INVENTORY = 9;
 	private final static int ONES_PER_INVENTORY = 1 << LOG2_ONES_PER_INVENTORY;
 	private final static int INVENTORY_MASK = ONES_PER_INVENTORY - 1;
+	/** The number of ranks processed together by {@link #select(long[], long[])}. */
+	private final static int BATCH_SIZE = 32;
 
 	private final long[] inventory;
 	private final long[] subinventory;
@@ -61,6 +63,20 @@ public class Select9 implements Select {
 	private final Rank9 rank9;
 
 	public Select9(final Rank9 rank9) {
+		this(rank9, false);
+	}
+
+	/** Creates a new <code>select9</code> structure, possibly building it in parallel.
+	 *
+	 * <p>Parallel construction splits the bit vector in chunks of words, uses the counts of <code>rank9</code>
+	 * to fill independently the inventory entries of each chunk, and then fills independently
+	 * the subinventories of the entries in each chunk, using the common fork/join pool;
+	 * the result is identical to that of sequential construction.
+	 *
+	 * @param rank9 a <code>rank9</code> structure.
+	 * @param parallel whether to build the structure in parallel.
+	 */
+	public Select9(final Rank9 rank9, final boolean parallel) {
 		this.rank9 = rank9;
 		numOnes = rank9.numOnes;
 		numWords = rank9.numWords;
@@ -71,111 +87,148 @@ public class Select9 implements Select {
 
 		inventory = new long[inventorySize + 1];
 		subinventory = new long[(numWords + 3) / 4];
+		final BitVector v = LongArrayBitVector.wrap(subinventory);
+		subinventoryAsShorts = v.asLongBigList(Short.SIZE);
+		subinventoryasInts = v.asLongBigList(Integer.SIZE);
 
-		long d = 0;
-		for (int i = 0; i < numWords; i++)
-			for (int j = 0; j < 64; j++)
-				if ((bits[i] & 1L << j) != 0) {
-					if ((d & INVENTORY_MASK) == 0) inventory[(int)(d >> LOG2_ONES_PER_INVENTORY)] = i * 64L + j;
+		// Chunk boundaries are multiples of 8 words, so the ones preceding them are available from rank9.
+		final int numChunks = Chunks.numChunks(numWords, parallel);
+		final long[] start = new long[numChunks + 1];
+		for(int t = 0; t < numChunks; t++) start[t] = count[Chunks.start(t, numChunks, numWords) / 4];
+		start[numChunks] = numOnes;
+
+		final long[] bits = this.bits, inventory = this.inventory;
+		Chunks.stream(numChunks, parallel).forEach(t -> {
+			long d = start[t];
+			for(int i = Chunks.start(t, numChunks, numWords), to = Chunks.start(t + 1, numChunks, numWords); i < to; i++) {
+				long word = bits[i];
+				final int c = Long.bitCount(word);
+				if ((d & INVENTORY_MASK) + c <= INVENTORY_MASK && (d & INVENTORY_MASK) != 0) d += c;
+				else for(; word != 0; word &= word - 1) {
+					if ((d & INVENTORY_MASK) == 0) inventory[(int)(d >> LOG2_ONES_PER_INVENTORY)] = i * 64L + Long.numberOfTrailingZeros(word);
 					d++;
 				}
-
+			}
+		});
 
 		inventory[inventorySize] = ((numWords + 3) & ~3L) * Long.SIZE;
 
-		d = 0;
-		int state = 0;
-		long firstBit = 0;
-		int index, span, subinventoryPosition = 0;
-		int blockSpan, blockLeft;
-		long countsAtStart;
-		final BitVector v = LongArrayBitVector.wrap(subinventory);
-		subinventoryAsShorts = v.asLongBigList(Short.SIZE);
-		subinventoryasInts = v.asLongBigList(Integer.SIZE);
-		LongBigList s;
-
-		for(int i = 0; i < numWords; i++)
-			for(int j = 0; j < 64; j++)
-				if ((bits[i] & 1L << j) != 0) {
-					if ((d & INVENTORY_MASK) == 0) {
-						firstBit = i * 64L + j;
-						index = (int)(d >> LOG2_ONES_PER_INVENTORY);
-						if (ASSERTS) assert inventory[index] == firstBit;
-
-						subinventoryPosition = (int)((inventory[index] / 64) / 4);
-
-						span = (int)((inventory[index + 1] / 64) / 4 - (inventory[index] / 64) / 4);
-						state = -1;
-						countsAtStart = count[(int)(((inventory[index] / 64) / 8) * 2)];
-						blockSpan = (int)((inventory[index + 1] / 64) / 8 - (inventory[index] / 64) / 8);
-						blockLeft = (int)((inventory[index] / 64) / 8);
-
-						if (span >= 512) state = 0;
-						else if (span >= 256) state = 1;
-						else if (span >= 128) state = 2;
-						else if (span >= 16) {
-							if (ASSERTS) assert (blockSpan + 8 & -8L) + 8 <= span * 4;
-							s = subinventoryAsShorts.subList(subinventoryPosition * 4, subinventoryAsShorts.size64());
-
-							int k;
-							for(k = 0; k < blockSpan; k++) {
-								if (ASSERTS) assert s.getLong(k + 8) == 0;
-								s.set(k + 8, count[(blockLeft + k + 1) * 2] - countsAtStart);
-							}
-
-							for(; k < (blockSpan + 8 & -8L); k++) {
-								if (ASSERTS) assert s.getLong(k + 8) == 0;
-								s.set(k + 8, 0xFFFF);
-							}
-
-							if (ASSERTS) assert blockSpan / 8 <= 8;
-
-							for(k = 0; k < blockSpan / 8; k++) {
-								if (ASSERTS) assert s.getLong(k) == 0;
-								s.set(k , count[(blockLeft + (k + 1) * 8) * 2] - countsAtStart);
-							}
-
-							for(; k < 8; k++) {
-								if (ASSERTS) assert s.getLong(k) == 0;
-								s.set(k, 0xFFFF);
-							}
-						}
-						else if (span >= 2) {
-							if (ASSERTS) assert (blockSpan + 8 & -8L) <= span * 4;
-							s = subinventoryAsShorts.subList(subinventoryPosition * 4, subinventoryAsShorts.size64());
-
-							int k;
-							for(k = 0; k < blockSpan; k++) {
-								if (ASSERTS) assert s.getLong(k) == 0;
-								s.set(k, count[(blockLeft + k + 1) * 2] - countsAtStart);
-							}
-
-							for(; k < (blockSpan + 8 & -8L); k++) {
-								if (ASSERTS) assert s.getLong(k) == 0;
-								s.set(k, 0xFFFF);
-							}
-						}
+		Chunks.stream(numChunks, parallel).forEach(t -> fill((int)((start[t] + INVENTORY_MASK) >> LOG2_ONES_PER_INVENTORY), (int)((start[t + 1] + INVENTORY_MASK) >> LOG2_ONES_PER_INVENTORY)));
+	}
+
+	/** Fills the subinventories associated with a range of inventory entries.
+	 *
+	 * <p>Subinventories of different entries occupy disjoint sets of longwords, so this method can be
+	 * invoked concurrently on disjoint ranges.
+	 *
+	 * @param from the first inventory entry.
+	 * @param to the last inventory entry, exclusive.
+	 */
+	private void fill(final int from, final int to) {
+		final long[] bits = this.bits, count = this.count, inventory = this.inventory, subinventory = this.subinventory;
+		for(int index = from; index < to; index++) {
+			final long firstBit = inventory[index];
+			final int subinventoryPosition = (int)((inventory[index] / 64) / 4);
+			final int span = (int)((inventory[index + 1] / 64) / 4 - (inventory[index] / 64) / 4);
+			final long countsAtStart = count[(int)(((inventory[index] / 64) / 8) * 2)];
+			final int blockSpan = (int)((inventory[index + 1] / 64) / 8 - (inventory[index] / 64) / 8);
+			final int blockLeft = (int)((inventory[index] / 64) / 8);
+			final int state;
+
+			if (span >= 512) state = 0;
+			else if (span >= 256) state = 1;
+			else if (span >= 128) state = 2;
+			else {
+				state = -1;
+				if (span >= 16) {
+					if (ASSERTS) assert (blockSpan + 8 & -8L) + 8 <= span * 4;
+					final LongBigList s = subinventoryAsShorts.subList(subinventoryPosition * 4, subinventoryAsShorts.size64());
+
+					int k;
+					for(k = 0; k < blockSpan; k++) {
+						if (ASSERTS) assert s.getLong(k + 8) == 0;
+						s.set(k + 8, count[(blockLeft + k + 1) * 2] - countsAtStart);
 					}
 
-					switch(state) {
-					case 0:
-						if (ASSERTS) assert subinventory[subinventoryPosition + (int)(d & INVENTORY_MASK)] == 0;
-						subinventory[subinventoryPosition + (int)(d & INVENTORY_MASK)] = i * 64L + j;
-						break;
-					case 1:
-						if (ASSERTS) assert subinventoryasInts.getLong(subinventoryPosition * 2 + (d & INVENTORY_MASK)) == 0;
-						if (ASSERTS) assert i * 64L + j - firstBit < (1L << 32);
-						subinventoryasInts.set(subinventoryPosition * 2 + (d & INVENTORY_MASK), i * 64L + j - firstBit);
-						break;
-					case 2:
-						if (ASSERTS) assert subinventoryAsShorts.getLong(subinventoryPosition * 4 + (d & INVENTORY_MASK)) == 0;
-						if (ASSERTS) assert i * 64L + j - firstBit < (1 << 16);
-						subinventoryAsShorts.set(subinventoryPosition * 4 + (d & INVENTORY_MASK), i * 64L + j - firstBit);
-						break;
+					for(; k < (blockSpan + 8 & -8L); k++) {
+						if (ASSERTS) assert s.getLong(k + 8) == 0;
+						s.set(k + 8, 0xFFFF);
 					}
 
-					d++;
+					if (ASSERTS) assert blockSpan / 8 <= 8;
+
+					for(k = 0; k < blockSpan / 8; k++) {
+						if (ASSERTS) assert s.getLong(k) == 0;
+						s.set(k , count[(blockLeft + (k + 1) * 8) * 2] - countsAtStart);
+					}
+
+					for(; k < 8; k++) {
+						if (ASSERTS) assert s.getLong(k) == 0;
+						s.set(k, 0xFFFF);
+					}
+				}
+				else if (span >= 2) {
+					if (ASSERTS) assert (blockSpan + 8 & -8L) <= span * 4;
+					final LongBigList s = subinventoryAsShorts.subList(subinventoryPosition * 4, subinventoryAsShorts.size64());
+
+					int k;
+					for(k = 0; k < blockSpan; k++) {
+						if (ASSERTS) assert s.getLong(k) == 0;
+						s.set(k, count[(blockLeft + k + 1) * 2] - countsAtStart);
+					}
+
+					for(; k < (blockSpan + 8 & -8L); k++) {
+						if (ASSERTS) assert s.getLong(k) == 0;
+						s.set(k, 0xFFFF);
+					}
 				}
+			}
+
+			if (state == -1) continue;
+
+			// We enumerate the ones of this entry
+			final int ones = (int)Math.min(ONES_PER_INVENTORY, numOnes - ((long)index << LOG2_ONES_PER_INVENTORY));
+			int i = (int)(firstBit / 64);
+			long word = bits[i] & -1L << firstBit;
+			for(int d = 0; d < ones; d++, word &= word - 1) {
+				while(word == 0) word = bits[++i];
+				final long bit = i * 64L + Long.numberOfTrailingZeros(word);
+				switch(state) {
+				case 0:
+					if (ASSERTS) assert subinventory[subinventoryPosition + d] == 0;
+					subinventory[subinventoryPosition + d] = bit;
+					break;
+				case 1:
+					if (ASSERTS) assert subinventoryasInts.getLong(subinventoryPosition * 2 + d) == 0;
+					if (ASSERTS) assert bit - firstBit < (1L << 32);
+					subinventoryasInts.set(subinventoryPosition * 2 + d, bit - firstBit);
+					break;
+				case 2:
+					if (ASSERTS) assert subinventoryAsShorts.getLong(subinventoryPosition * 4 + d) == 0;
+					if (ASSERTS) assert bit - firstBit < (1 << 16);
+					subinventoryAsShorts.set(subinventoryPosition * 4 + d, bit - firstBit);
+					break;
+				}
+			}
+		}
+	}
+
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation processes ranks in small batches; for each batch, it reads first the inventory entries
+	 * and the corresponding counts of the underlying {@link Rank9}, so that independent memory accesses overlap,
+	 * and then completes each selection, which will find in cache the data read previously.
+	 */
+	@Override
+	public long[] select(final long[] rank, final long[] dest) {
+		final long[] inventory = this.inventory, count = this.count;
+		for(int from = 0; from < rank.length; from += BATCH_SIZE) {
+			final int to = Math.min(rank.length, from + BATCH_SIZE);
+			for(int i = from; i < to; i++) if (rank[i] < numOnes) dest[i] = inventory[(int)(rank[i] >> LOG2_ONES_PER_INVENTORY)];
+			for(int i = from; i < to; i++) if (rank[i] < numOnes) dest[i] = count[(int)(dest[i] / 64 & ~7) / 4 & ~1];
+			for(int i = from; i < to; i++) dest[i] = select(rank[i]);
+		}
+		return dest;
 	}
 
 	@Override
@@ -44,6 +44,34 @@ public interface SelectZero extends Serializable {
 	 */
 	public long selectZero(long zeroRank);
 
+	/** Performs a bulk zero select of consecutive zero ranks into a given array fragment.
+	 *
+	 * <p>The default implementation calls {@link #selectZero(long)} for each zero rank. Implementations
+	 * usually select just the first zero rank, and then enumerate the following zeroes directly in the bit vector.
+	 *
+	 * @param rank the first zero rank to select.
+	 * @param dest the destination array; it will be filled with {@code length} positions of consecutive zeroes starting at position {@code offset}.
+	 * @param offset the first bit position written in {@code dest}.
+	 * @param length the number of bit positions in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #selectZero(long, long[])
+	 */
+	public default long[] selectZero(final long rank, final long[] dest, final int offset, final int length) {
+		for(int i = 0; i < length; i++) dest[offset + i] = selectZero(rank + i);
+		return dest;
+	}
+
+	/** Performs a bulk zero select of consecutive zero ranks into a given array.
+	 *
+	 * @param rank the first zero rank to select.
+	 * @param dest the destination array; it will be filled with position of consecutive zeroes.
+	 * @return {@code dest}
+	 * @see #selectZero(long, long[], int, int)
+	 */
+	public default long[] selectZero(final long rank, final long[] dest) {
+		return selectZero(rank, dest, 0, dest.length);
+	}
+
 	/** Returns the bit vector indexed by this structure.
 	 *
 	 * <p>Note that you are not supposed to modify the returned vector.
@@ -0,0 +1,274 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.longs.LongBigArrays;
+
+/** A simple zero-select implementation for {@linkplain LongBigArrayBitVector bit vectors backed by big arrays}.
+ *
+ * <p>This class is identical to {@link SimpleSelectZero}, except that bits, inventories and spills are stored
+ * in {@linkplain BigArrays big arrays}, so there is no limit on the length of the underlying bit vector.
+ */
+
+public class SimpleBigSelectZero implements SelectZero {
+	private static final long serialVersionUID = 1L;
+
+	private static final int MAX_ONES_PER_INVENTORY = 8192;
+	private static final int MAX_LOG2_LONGWORDS_PER_SUBINVENTORY = 3;
+
+	/** The maximum size of span to qualify for a subinventory made of 16-bit offsets. */
+	private static final int MAX_SPAN = (1 << 16);
+
+	/** The underlying bit vector. */
+	private final LongBigArrayBitVector bitVector;
+	/** The number of zeroes in {@link #bitVector}. */
+	private final long numOnes;
+	/** The number of words in {@link #bitVector}. */
+	private final long numWords;
+	/** The cached result of {@link LongBigArrayBitVector#bigBits() bitVector.bigBits()}. */
+	private transient long[][] bits;
+	/** The first-level inventory (see {@link SimpleSelectZero}). */
+	private final long[][] inventory;
+	/** The logarithm of the number of ones per {@link #inventory} entry. */
+	private final int log2OnesPerInventory;
+	/** The number of ones per {@link #inventory} entry. */
+	private final int onesPerInventory;
+	/** The mask associated to the number of ones per {@link #inventory} entry. */
+	private final int onesPerInventoryMask;
+	/** The second-level inventory, which contains either longwords or four 16-bit offsets per longword (see {@link SimpleSelectZero}). */
+	private final long[][] subinventory;
+	/** The logarithm of the number of longwords used in the part of the subinventory associated to an inventory entry. */
+	private final int log2LongwordsPerSubinventory;
+	/** The logarithm of the number of ones for each {@link #subinventory} longword. */
+	private final int log2OnesPerSub64;
+	/** The number of ones for each {@link #subinventory} longword. */
+	private final int onesPerSub64;
+	/** The logarithm of the number of ones for each {@link #subinventory} short. */
+	private final int log2OnesPerSub16;
+	/** The number of ones for each {@link #subinventory} short. */
+	private final int onesPerSub16;
+	/** The mask associated to number of ones for each {@link #subinventory} short. */
+	private final int onesPerSub16Mask;
+	/** The list of exact spills. */
+	private final long[][] exactSpill;
+
+	/** Creates a new zero-selection structure using the specified bit vector.
+	 *
+	 * @param bitVector a bit vector.
+	 */
+	public SimpleBigSelectZero(final LongBigArrayBitVector bitVector) {
+		this.bitVector = bitVector;
+		this.bits = bitVector.bigBits();
+		final long length = bitVector.length();
+
+		numWords = (length + 63) / 64;
+
+		// We compute quickly the number of zeroes (possibly counting spurious bits in the last word).
+		long d = 0;
+		for(long i = numWords; i-- != 0;) d += Long.bitCount(~BigArrays.get(bits, i));
+
+		onesPerInventory = 1 << (log2OnesPerInventory = Fast.mostSignificantBit(length == 0 ? 1 : (int)((d * MAX_ONES_PER_INVENTORY + length - 1) / length)));
+		onesPerInventoryMask = onesPerInventory - 1;
+		final long inventorySize = (d + onesPerInventory - 1) / onesPerInventory;
+
+		inventory = LongBigArrays.newBigArray(inventorySize + 1);
+
+		// First phase: we build an inventory for each zero out of onesPerInventory.
+		d = 0;
+		for(long i = 0; i < numWords; i++) {
+			long word = i == numWords - 1 && length % 64 != 0 ? ~BigArrays.get(bits, i) & (1L << length) - 1 : ~BigArrays.get(bits, i);
+			final int c = Long.bitCount(word);
+			if ((d & onesPerInventoryMask) + c <= onesPerInventoryMask && (d & onesPerInventoryMask) != 0) d += c;
+			else for(; word != 0; word &= word - 1) {
+				if ((d & onesPerInventoryMask) == 0) BigArrays.set(inventory, d >>> log2OnesPerInventory, i * 64L + Long.numberOfTrailingZeros(word));
+				d++;
+			}
+		}
+
+		numOnes = d;
+
+		BigArrays.set(inventory, inventorySize, length);
+
+		log2LongwordsPerSubinventory = Math.min(MAX_LOG2_LONGWORDS_PER_SUBINVENTORY, Math.max(0, log2OnesPerInventory - 2));
+		log2OnesPerSub64 = Math.max(0, log2OnesPerInventory - log2LongwordsPerSubinventory);
+		log2OnesPerSub16 = Math.max(0, log2OnesPerSub64 - 2);
+		onesPerSub64 = (1 << log2OnesPerSub64);
+		onesPerSub16 = (1 << log2OnesPerSub16);
+		onesPerSub16Mask = onesPerSub16 - 1;
+
+		if (onesPerInventory > 1) {
+			long diff16 = 0, spilled = 0;
+			// Spurious bits might have caused the allocation of unused inventory entries
+			final long usedInventorySize = (numOnes + onesPerInventory - 1) >>> log2OnesPerInventory;
+
+			// We estimate the subinventory and exact spill size
+			for(long inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++) {
+				final long span = BigArrays.get(inventory, inventoryIndex + 1) - BigArrays.get(inventory, inventoryIndex);
+				final int ones = (int)Math.min(numOnes - (inventoryIndex << log2OnesPerInventory), onesPerInventory);
+
+				// We must always count (possibly unused) diff16's. And we cannot store less then 4 diff16.
+				diff16 += Math.max(4, (ones + onesPerSub16 - 1) >>> log2OnesPerSub16);
+				if (span >= MAX_SPAN && onesPerSub64 > 1) spilled += ones;
+			}
+
+			subinventory = LongBigArrays.newBigArray((diff16 + 3) / 4);
+			exactSpill = LongBigArrays.newBigArray(spilled);
+
+			spilled = 0;
+			for(long inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++) {
+				final long start = BigArrays.get(inventory, inventoryIndex);
+				final long span = BigArrays.get(inventory, inventoryIndex + 1) - start;
+				final int ones = (int)Math.min(numOnes - (inventoryIndex << log2OnesPerInventory), onesPerInventory);
+				final long subinventoryStart = inventoryIndex << log2LongwordsPerSubinventory;
+				int offset = 0;
+
+				long i = start / 64;
+				long word = ~BigArrays.get(bits, i) & -1L << start;
+				for(int o = 0; o < ones; o++, word &= word - 1) {
+					while(word == 0) word = ~BigArrays.get(bits, ++i);
+					final long bit = i * 64L + Long.numberOfTrailingZeros(word);
+
+					if (span < MAX_SPAN) {
+						if ((o & onesPerSub16Mask) == 0) {
+							final long index16 = (subinventoryStart << 2) + offset++;
+							final long[] segment = subinventory[BigArrays.segment(index16 >>> 2)];
+							segment[BigArrays.displacement(index16 >>> 2)] |= bit - start << (index16 & 3) * Short.SIZE;
+						}
+					}
+					else {
+						if (onesPerSub64 == 1) BigArrays.set(subinventory, subinventoryStart + offset++, bit);
+						else BigArrays.set(exactSpill, spilled + o, bit);
+					}
+				}
+
+				// We record the start of the exact spills of this entry; the inventory is marked only at the end, as spans depend on the next entry
+				if (span >= MAX_SPAN && onesPerSub64 > 1) {
+					BigArrays.set(subinventory, subinventoryStart, spilled);
+					spilled += ones;
+				}
+			}
+
+			if (onesPerSub64 > 1) for(long inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++)
+				if (BigArrays.get(inventory, inventoryIndex + 1) - BigArrays.get(inventory, inventoryIndex) >= MAX_SPAN) BigArrays.set(inventory, inventoryIndex, BigArrays.get(inventory, inventoryIndex) | 1L << 63);
+		}
+		else {
+			subinventory = exactSpill = LongBigArrays.EMPTY_BIG_ARRAY;
+		}
+	}
+
+	/** Returns a zero-selection structure for a bit vector of any length.
+	 *
+	 * @param bitVector a bit vector.
+	 * @return an instance of this class, if {@code bitVector} is a {@link LongBigArrayBitVector}; a {@link SimpleSelectZero} otherwise.
+	 */
+	public static SelectZero getInstance(final BitVector bitVector) {
+		return bitVector instanceof LongBigArrayBitVector ? new SimpleBigSelectZero((LongBigArrayBitVector)bitVector) : new SimpleSelectZero(bitVector);
+	}
+
+	@Override
+	public long selectZero(final long rank) {
+		if (rank >= numOnes) return -1;
+
+		final long inventoryIndex = rank >>> log2OnesPerInventory;
+
+		final long inventoryRank = BigArrays.get(inventory, inventoryIndex);
+		final int subrank = (int)(rank & onesPerInventoryMask);
+
+		if (subrank == 0) return inventoryRank & ~(1L<<63);
+
+		long start;
+		int residual;
+
+		if (inventoryRank >= 0) {
+			final long index16 = (inventoryIndex << log2LongwordsPerSubinventory + 2) + (subrank >>> log2OnesPerSub16);
+			start = inventoryRank + (BigArrays.get(subinventory, index16 >>> 2) >>> (index16 & 3) * Short.SIZE & 0xFFFF);
+			residual = subrank & onesPerSub16Mask;
+		}
+		else {
+			if (onesPerSub64 == 1) return BigArrays.get(subinventory, (inventoryIndex << log2LongwordsPerSubinventory) + subrank);
+			return BigArrays.get(exactSpill, BigArrays.get(subinventory, inventoryIndex << log2LongwordsPerSubinventory) + subrank);
+		}
+
+		if (residual == 0) return start;
+
+		final long[][] bits = this.bits;
+		long wordIndex = start / 64;
+		long word = ~BigArrays.get(bits, wordIndex) & -1L << start;
+
+		for(;;) {
+			final int bitCount = Long.bitCount(word);
+			if (residual < bitCount) break;
+			word = ~BigArrays.get(bits, ++wordIndex);
+			residual -= bitCount;
+		}
+
+		return wordIndex * Long.SIZE + Fast.select(word, residual);
+	}
+
+	/** Performs a bulk zero select of consecutive zero ranks into a given array fragment.
+	 *
+	 * @param rank the first zero rank to select.
+	 * @param dest the destination array; it will be filled with {@code length} positions of consecutive zeroes starting at position {@code offset}.
+	 * @param offset the first bit position written in {@code dest}.
+	 * @param length the number of bit positions in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #selectZero(long, long[])
+	 */
+	@Override
+	public long[] selectZero(final long rank, final long[] dest, final int offset, final int length) {
+		if (length == 0) return dest;
+		final long s = selectZero(rank);
+		dest[offset] = s;
+		long curr = s / Long.SIZE;
+
+		long window = ~BigArrays.get(bits, curr) & -1L << s;
+		window &= window - 1;
+
+		for(int i = 1; i < length; i++) {
+			while(window == 0) window = ~BigArrays.get(bits, ++curr);
+			dest[offset + i] = curr * Long.SIZE + Long.numberOfTrailingZeros(window);
+			window &= window - 1;
+		}
+
+		return dest;
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		bits = bitVector.bigBits();
+	}
+
+	@Override
+	public long numBits() {
+		return (BigArrays.length(inventory) + BigArrays.length(subinventory) + BigArrays.length(exactSpill)) * Long.SIZE;
+	}
+
+	@Override
+	public BitVector bitVector() {
+		return bitVector;
+	}
+}
@@ -28,6 +28,9 @@ import it.unimi.dsi.bits.Fast;
 import it.unimi.dsi.bits.LongArrayBitVector;
 import it.unimi.dsi.fastutil.longs.LongArrays;
 import it.unimi.dsi.fastutil.longs.LongBigList;
+import it.unimi.dsi.sux4j.io.MappedDumpable;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedOutput;
 import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
 
 /** A simple select implementation based on a two-level inventory, a spill list and broadword bit search.
@@ -41,7 +44,7 @@ import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
  * the typical case when this structure is backing an {@link EliasFanoMonotoneLongBigList}.
  */
 
-public class SimpleSelect implements Select {
+public class SimpleSelect implements Select, MappedDumpable {
 	private static final boolean ASSERTS = true;
 
 	private static final long serialVersionUID = 1L;
@@ -51,6 +54,8 @@ public class SimpleSelect implements Select {
 
 	/** The maximum size of span to qualify for a subinventory made of 16-bit offsets. */
 	private static final int MAX_SPAN = (1 << 16);
+	/** The number of ranks processed together by {@link #select(long[], long[])}. */
+	private static final int BATCH_SIZE = 32;
 
 	/** The underlying bit vector. */
 	private final BitVector bitVector;
@@ -106,6 +111,20 @@ public class SimpleSelect implements Select {
 	 * @param bitVector a bit vector.
 	 */
 	public SimpleSelect(final BitVector bitVector) {
+		this(bitVector, false);
+	}
+
+	/** Creates a new selection structure using the specified bit vector, possibly building it in parallel.
+	 *
+	 * <p>Parallel construction splits the bit vector in chunks of words, computes in parallel the number of ones
+	 * preceding each chunk, fills independently the inventory entries of each chunk, and then fills
+	 * independently the subinventories and spills of the inventory entries in each chunk, using the common fork/join pool;
+	 * the result is identical to that of sequential construction.
+	 *
+	 * @param bitVector a bit vector.
+	 * @param parallel whether to build the structure in parallel.
+	 */
+	public SimpleSelect(final BitVector bitVector, final boolean parallel) {
 		this.bitVector = bitVector;
 		this.bits = bitVector.bits();
 		final long length = bitVector.length();
@@ -113,8 +132,9 @@ public class SimpleSelect implements Select {
 		numWords = (int)((length + 63) / 64);
 
 		// We compute quickly the number of ones (possibly counting spurious bits in the last word).
-		long d = 0;
-		for(int i = numWords; i-- != 0;) d += Long.bitCount(bits[i]);
+		final int numChunks = Chunks.numChunks(numWords, parallel);
+		final long[] start = Chunks.prefixCounts(bits, numWords, numChunks, false, parallel);
+		long d = start[numChunks];
 
 		onesPerInventory = 1 << (log2OnesPerInventory = Fast.mostSignificantBit(length == 0 ? 1 : (int)((d * MAX_ONES_PER_INVENTORY + length - 1) / length)));
 		onesPerInventoryMask = onesPerInventory - 1;
@@ -122,18 +142,25 @@ public class SimpleSelect implements Select {
 
 		inventory = new long[inventorySize + 1];
 
+		// Spurious bits in the last word can only be in the last chunk, so they do not alter the other counts.
+		if (length % 64 != 0) start[numChunks] -= Long.bitCount(bits[numWords - 1] & -1L << length);
+		numOnes = start[numChunks];
+
 		// First phase: we build an inventory for each one out of onesPerInventory.
-		d = 0;
-		for(int i = 0; i < numWords; i++)
-			for(int j = 0; j < 64; j++) {
-				if (i * 64L + j >= length) break;
-				if ((bits[i] & 1L << j) != 0) {
-					if ((d & onesPerInventoryMask) == 0) inventory[(int)(d >>> log2OnesPerInventory)] = i * 64L + j;
-					d++;
+		final long[] bits = this.bits, inventory = this.inventory;
+		final int log2OnesPerInventory = this.log2OnesPerInventory, onesPerInventoryMask = this.onesPerInventoryMask;
+		Chunks.stream(numChunks, parallel).forEach(t -> {
+			long e = start[t];
+			for(int i = Chunks.start(t, numChunks, numWords), to = Chunks.start(t + 1, numChunks, numWords); i < to; i++) {
+				long word = i == numWords - 1 && length % 64 != 0 ? bits[i] & (1L << length) - 1 : bits[i];
+				final int c = Long.bitCount(word);
+				if ((e & onesPerInventoryMask) + c <= onesPerInventoryMask && (e & onesPerInventoryMask) != 0) e += c;
+				else for(; word != 0; word &= word - 1) {
+					if ((e & onesPerInventoryMask) == 0) inventory[(int)(e >>> log2OnesPerInventory)] = i * 64L + Long.numberOfTrailingZeros(word);
+					e++;
 				}
 			}
-
-		numOnes = d;
+		});
 
 		inventory[inventorySize] = length;
 
@@ -145,29 +172,20 @@ public class SimpleSelect implements Select {
 		onesPerSub16Mask = onesPerSub16 - 1;
 
 		if (onesPerInventory > 1) {
-			d = 0;
-			int ones;
-			long diff16 = 0, start = 0, span = 0;
-			int spilled = 0, inventoryIndex = 0;
-
-			for(int i = 0; i < numWords; i++)
-				// We estimate the subinventory and exact spill size
-				for(int j = 0; j < 64; j++) {
-					if (i * 64L + j >= length) break;
-					if ((bits[i] & 1L << j) != 0) {
-						if ((d & onesPerInventoryMask) == 0) {
-							inventoryIndex = (int)(d >>> log2OnesPerInventory);
-							start = inventory[inventoryIndex];
-							span = inventory[inventoryIndex + 1] - start;
-							ones = (int)Math.min(numOnes - d, onesPerInventory);
-
-							// We must always count (possibly unused) diff16's. And we cannot store less then 4 diff16.
-							diff16 += Math.max(4, (ones + onesPerSub16 - 1) >>> log2OnesPerSub16);
-							if (span >= MAX_SPAN && onesPerSub64 > 1) spilled += ones;
-						}
-						d++;
-					}
-				}
+			long diff16 = 0;
+			int spilled = 0;
+			// Spurious bits might have caused the allocation of unused inventory entries
+			final int usedInventorySize = (int)((numOnes + onesPerInventory - 1) >>> log2OnesPerInventory);
+
+			// We estimate the subinventory and exact spill size
+			for(int inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++) {
+				final long span = inventory[inventoryIndex + 1] - inventory[inventoryIndex];
+				final int ones = (int)Math.min(numOnes - ((long)inventoryIndex << log2OnesPerInventory), onesPerInventory);
+
+				// We must always count (possibly unused) diff16's. And we cannot store less then 4 diff16.
+				diff16 += Math.max(4, (ones + onesPerSub16 - 1) >>> log2OnesPerSub16);
+				if (span >= MAX_SPAN && onesPerSub64 > 1) spilled += ones;
+			}
 
 			final int subinventorySize = (int)((diff16 + 3) / 4);
 			final int exactSpillSize = spilled;
@@ -175,43 +193,19 @@ public class SimpleSelect implements Select {
 			exactSpill = new long[exactSpillSize];
 			subinventory16 = LongArrayBitVector.wrap(subinventory).asLongBigList(Short.SIZE);
 
-			int offset = 0;
+			// We record the start of each list of exact spills, and only then mark the inventory entries
 			spilled = 0;
-			d = 0;
-
-			for(int i = 0; i < numWords; i++)
-				for(int j = 0; j < 64; j++) {
-					if (i * 64L + j >= length) break;
-					if ((bits[i] & 1L << j) != 0) {
-						if ((d & onesPerInventoryMask) == 0) {
-							inventoryIndex = (int)(d >>> log2OnesPerInventory);
-							start = inventory[inventoryIndex];
-							span = inventory[inventoryIndex + 1] - start;
-							offset = 0;
-						}
-
-						if (span < MAX_SPAN) {
-							if (ASSERTS) assert i * 64L + j - start <= MAX_SPAN;
-							if ((d & onesPerSub16Mask) == 0) {
-								subinventory16.set((inventoryIndex << log2LongwordsPerSubinventory + 2) +  offset++, i * 64L + j - start);
-							}
-						}
-						else {
-							if (onesPerSub64 == 1) {
-								subinventory[(inventoryIndex << log2LongwordsPerSubinventory) + offset++] = i * 64L + j;
-							}
-							else {
-								if ((d & onesPerInventoryMask) == 0) {
-									inventory[inventoryIndex] |= 1L << 63;
-									subinventory[inventoryIndex << log2LongwordsPerSubinventory] = spilled;
-								}
-								exactSpill[spilled++] = i * 64L + j;
-							}
-						}
-
-						d++;
-					}
+			if (onesPerSub64 > 1) for(int inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++) {
+				if (inventory[inventoryIndex + 1] - inventory[inventoryIndex] >= MAX_SPAN) {
+					subinventory[inventoryIndex << log2LongwordsPerSubinventory] = spilled;
+					spilled += (int)Math.min(numOnes - ((long)inventoryIndex << log2OnesPerInventory), onesPerInventory);
 				}
+			}
+
+			Chunks.stream(numChunks, parallel).forEach(t -> fill((int)((start[t] + onesPerInventoryMask) >>> log2OnesPerInventory), (int)((start[t + 1] + onesPerInventoryMask) >>> log2OnesPerInventory)));
+
+			if (onesPerSub64 > 1) for(int inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++)
+				if (inventory[inventoryIndex + 1] - inventory[inventoryIndex] >= MAX_SPAN) inventory[inventoryIndex] |= 1L << 63;
 		}
 		else {
 			subinventory = exactSpill = LongArrays.EMPTY_ARRAY;
@@ -220,6 +214,48 @@ public class SimpleSelect implements Select {
 
 	}
 
+	/** Fills the subinventories and the exact spills associated with a range of inventory entries.
+	 *
+	 * <p>The inventory must not contain spill marks yet, and the first subinventory longword of entries
+	 * with exact spills must contain the start of the respective list in {@link #exactSpill}.
+	 * Different entries write to disjoint sets of longwords, so this method can be invoked concurrently on disjoint ranges.
+	 *
+	 * @param from the first inventory entry.
+	 * @param to the last inventory entry, exclusive.
+	 */
+	private void fill(final int from, final int to) {
+		final long[] bits = this.bits, inventory = this.inventory, subinventory = this.subinventory, exactSpill = this.exactSpill;
+		for(int inventoryIndex = from; inventoryIndex < to; inventoryIndex++) {
+			final long start = inventory[inventoryIndex];
+			final long span = inventory[inventoryIndex + 1] - start;
+			final int ones = (int)Math.min(numOnes - ((long)inventoryIndex << log2OnesPerInventory), onesPerInventory);
+			final int spilled = (int)subinventory[inventoryIndex << log2LongwordsPerSubinventory];
+			int offset = 0;
+
+			int i = (int)(start / 64);
+			long word = bits[i] & -1L << start;
+			for(int d = 0; d < ones; d++, word &= word - 1) {
+				while(word == 0) word = bits[++i];
+				final long bit = i * 64L + Long.numberOfTrailingZeros(word);
+
+				if (span < MAX_SPAN) {
+					if (ASSERTS) assert bit - start <= MAX_SPAN;
+					if ((d & onesPerSub16Mask) == 0) {
+						subinventory16.set((inventoryIndex << log2LongwordsPerSubinventory + 2) +  offset++, bit - start);
+					}
+				}
+				else {
+					if (onesPerSub64 == 1) {
+						subinventory[(inventoryIndex << log2LongwordsPerSubinventory) + offset++] = bit;
+					}
+					else {
+						exactSpill[spilled + d] = bit;
+					}
+				}
+			}
+		}
+	}
+
 	@Override
 	public long select(final long rank) {
 		if (rank >= numOnes) return -1;
@@ -268,6 +304,7 @@ public class SimpleSelect implements Select {
 	 * @return {@code dest}
 	 * @see #select(long, long[])
 	 */
+	@Override
 	public long[] select(final long rank, final long[] dest, final int offset, final int length) {
 		if (length == 0) return dest;
 		final long s = select(rank);
@@ -293,10 +330,72 @@ public class SimpleSelect implements Select {
 	 * @return {@code dest}
 	 * @see #select(long, long[], int, int)
 	 */
+	@Override
 	public long[] select(final long rank, final long[] dest) {
 		return select(rank, dest, 0, dest.length);
 	}
 
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation processes ranks in small batches, and for each batch performs separately
+	 * the accesses to the inventory, to the subinventory (or the exact spill), and to the bit vector, so that
+	 * independent memory accesses overlap.
+	 */
+	@Override
+	public long[] select(final long[] rank, final long[] dest) {
+		final long[] inventory = this.inventory, subinventory = this.subinventory, exactSpill = this.exactSpill, bits = this.bits;
+		final int[] residual = new int[BATCH_SIZE];
+
+		for(int from = 0; from < rank.length; from += BATCH_SIZE) {
+			final int to = Math.min(rank.length, from + BATCH_SIZE);
+
+			for(int i = from; i < to; i++) {
+				final long r = rank[i];
+				if (r < numOnes) dest[i] = inventory[(int)(r >>> log2OnesPerInventory)];
+			}
+
+			for(int i = from, k = 0; i < to; i++, k++) {
+				final long r = rank[i];
+				residual[k] = 0;
+				if (r >= numOnes) {
+					dest[i] = -1;
+					continue;
+				}
+				final int inventoryIndex = (int)(r >>> log2OnesPerInventory);
+				final long inventoryRank = dest[i];
+				final int subrank = (int)(r & onesPerInventoryMask);
+
+				if (subrank == 0) dest[i] = inventoryRank & ~(1L<<63);
+				else if (inventoryRank >= 0) {
+					final int index16 = (inventoryIndex << log2LongwordsPerSubinventory + 2) + (subrank >>> log2OnesPerSub16);
+					dest[i] = inventoryRank + (subinventory[index16 >>> 2] >>> (index16 & 3) * Short.SIZE & 0xFFFF);
+					residual[k] = subrank & onesPerSub16Mask;
+				}
+				else if (onesPerSub64 == 1) dest[i] = subinventory[(inventoryIndex << log2LongwordsPerSubinventory) + subrank];
+				else dest[i] = exactSpill[(int)(subinventory[inventoryIndex << log2LongwordsPerSubinventory] + subrank)];
+			}
+
+			for(int i = from, k = 0; i < to; i++, k++) {
+				int res = residual[k];
+				if (res == 0) continue;
+				final long start = dest[i];
+				int wordIndex = (int)(start / 64);
+				long word = bits[wordIndex] & -1L << start;
+
+				for(;;) {
+					final int bitCount = Long.bitCount(word);
+					if (res < bitCount) break;
+					word = bits[++wordIndex];
+					res -= bitCount;
+				}
+
+				dest[i] = wordIndex * (long)Long.SIZE + Fast.select(word, res);
+			}
+		}
+
+		return dest;
+	}
+
 	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
 		s.defaultReadObject();
 		subinventory16 = LongArrayBitVector.wrap(subinventory).asLongBigList(Short.SIZE);
@@ -312,4 +411,23 @@ public class SimpleSelect implements Select {
 	public BitVector bitVector() {
 		return bitVector;
 	}
+
+	/** Writes this structure, including the underlying bit vector, in the {@linkplain MappedFormat mapped format}.
+	 *
+	 * @param out a mapped output.
+	 * @see MappedSimpleSelect
+	 */
+	@Override
+	public void dump(final MappedOutput out) throws IOException {
+		out.writeLong(MappedFormat.SIMPLE_SELECT);
+		out.writeBitVector(bitVector);
+		out.writeLong(numOnes);
+		out.writeLong(log2OnesPerInventory);
+		out.writeLong(log2LongwordsPerSubinventory);
+		out.writeLong(log2OnesPerSub64);
+		out.writeLong(log2OnesPerSub16);
+		out.writeLongs(inventory);
+		out.writeLongs(subinventory);
+		out.writeLongs(exactSpill);
+	}
 }
@@ -106,15 +106,30 @@ public class SimpleSelectZero implements SelectZero {
 	 * @param bitVector a bit vector.
 	 */
 	public SimpleSelectZero(final BitVector bitVector) {
+		this(bitVector, false);
+	}
+
+	/** Creates a new zero-selection structure using the specified bit vector, possibly building it in parallel.
+	 *
+	 * <p>Parallel construction splits the bit vector in chunks of words, computes in parallel the number of zeroes
+	 * preceding each chunk, fills independently the inventory entries of each chunk, and then fills
+	 * independently the subinventories and spills of the inventory entries in each chunk, using the common fork/join pool;
+	 * the result is identical to that of sequential construction.
+	 *
+	 * @param bitVector a bit vector.
+	 * @param parallel whether to build the structure in parallel.
+	 */
+	public SimpleSelectZero(final BitVector bitVector, final boolean parallel) {
 		this.bitVector = bitVector;
 		this.bits = bitVector.bits();
 		final long length = bitVector.length();
 
 		numWords = (int)((length + 63) / 64);
 
-		// We compute quickly the number of ones (possibly counting spurious bits in the last word).
-		long d = 0;
-		for(int i = numWords; i-- != 0;) d += Long.bitCount(~bits[i]);
+		// We compute quickly the number of zeroes (possibly counting spurious bits in the last word).
+		final int numChunks = Chunks.numChunks(numWords, parallel);
+		final long[] start = Chunks.prefixCounts(bits, numWords, numChunks, true, parallel);
+		long d = start[numChunks];
 
 		onesPerInventory = 1 << (log2OnesPerInventory = Fast.mostSignificantBit(length == 0 ? 1 : (int)((d * MAX_ONES_PER_INVENTORY + length - 1) / length)));
 		onesPerInventoryMask = onesPerInventory - 1;
@@ -122,18 +137,25 @@ public class SimpleSelectZero implements SelectZero {
 
 		inventory = new long[inventorySize + 1];
 
-		// First phase: we build an inventory for each one out of onesPerInventory.
-		d = 0;
-		for(int i = 0; i < numWords; i++)
-			for(int j = 0; j < 64; j++) {
-				if (i * 64L + j >= length) break;
-				if ((~bits[i] & 1L << j) != 0) {
-					if ((d & onesPerInventoryMask) == 0) inventory[(int)(d >>> log2OnesPerInventory)] = i * 64L + j;
-					d++;
+		// Spurious bits in the last word can only be in the last chunk, so they do not alter the other counts.
+		if (length % 64 != 0) start[numChunks] -= Long.bitCount(~bits[numWords - 1] & -1L << length);
+		numOnes = start[numChunks];
+
+		// First phase: we build an inventory for each zero out of onesPerInventory.
+		final long[] bits = this.bits, inventory = this.inventory;
+		final int log2OnesPerInventory = this.log2OnesPerInventory, onesPerInventoryMask = this.onesPerInventoryMask;
+		Chunks.stream(numChunks, parallel).forEach(t -> {
+			long e = start[t];
+			for(int i = Chunks.start(t, numChunks, numWords), to = Chunks.start(t + 1, numChunks, numWords); i < to; i++) {
+				long word = i == numWords - 1 && length % 64 != 0 ? ~bits[i] & (1L << length) - 1 : ~bits[i];
+				final int c = Long.bitCount(word);
+				if ((e & onesPerInventoryMask) + c <= onesPerInventoryMask && (e & onesPerInventoryMask) != 0) e += c;
+				else for(; word != 0; word &= word - 1) {
+					if ((e & onesPerInventoryMask) == 0) inventory[(int)(e >>> log2OnesPerInventory)] = i * 64L + Long.numberOfTrailingZeros(word);
+					e++;
 				}
 			}
-
-		numOnes = d;
+		});
 
 		inventory[inventorySize] = length;
 
@@ -145,29 +167,20 @@ public class SimpleSelectZero implements SelectZero {
 		onesPerSub16Mask = onesPerSub16 - 1;
 
 		if (onesPerInventory > 1) {
-			d = 0;
-			int ones;
-			long diff16 = 0, start = 0, span = 0;
-			int spilled = 0, inventoryIndex = 0;
-
-			for(int i = 0; i < numWords; i++)
-				// We estimate the subinventory and exact spill size
-				for(int j = 0; j < 64; j++) {
-					if (i * 64L + j >= length) break;
-					if ((~bits[i] & 1L << j) != 0) {
-						if ((d & onesPerInventoryMask) == 0) {
-							inventoryIndex = (int)(d >>> log2OnesPerInventory);
-							start = inventory[inventoryIndex];
-							span = inventory[inventoryIndex + 1] - start;
-							ones = (int)Math.min(numOnes - d, onesPerInventory);
-
-							// We must always count (possibly unused) diff16's. And we cannot store less then 4 diff16.
-							diff16 += Math.max(4, (ones + onesPerSub16 - 1) >>> log2OnesPerSub16);
-							if (span >= MAX_SPAN && onesPerSub64 > 1) spilled += ones;
-						}
-						d++;
-					}
-				}
+			long diff16 = 0;
+			int spilled = 0;
+			// Spurious bits might have caused the allocation of unused inventory entries
+			final int usedInventorySize = (int)((numOnes + onesPerInventory - 1) >>> log2OnesPerInventory);
+
+			// We estimate the subinventory and exact spill size
+			for(int inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++) {
+				final long span = inventory[inventoryIndex + 1] - inventory[inventoryIndex];
+				final int ones = (int)Math.min(numOnes - ((long)inventoryIndex << log2OnesPerInventory), onesPerInventory);
+
+				// We must always count (possibly unused) diff16's. And we cannot store less then 4 diff16.
+				diff16 += Math.max(4, (ones + onesPerSub16 - 1) >>> log2OnesPerSub16);
+				if (span >= MAX_SPAN && onesPerSub64 > 1) spilled += ones;
+			}
 
 			final int subinventorySize = (int)((diff16 + 3) / 4);
 			final int exactSpillSize = spilled;
@@ -175,43 +188,19 @@ public class SimpleSelectZero implements SelectZero {
 			exactSpill = new long[exactSpillSize];
 			subinventory16 = LongArrayBitVector.wrap(subinventory).asLongBigList(Short.SIZE);
 
-			int offset = 0;
+			// We record the start of each list of exact spills, and only then mark the inventory entries
 			spilled = 0;
-			d = 0;
-
-			for(int i = 0; i < numWords; i++)
-				for(int j = 0; j < 64; j++) {
-					if (i * 64L + j >= length) break;
-					if ((~bits[i] & 1L << j) != 0) {
-						if ((d & onesPerInventoryMask) == 0) {
-							inventoryIndex = (int)(d >>> log2OnesPerInventory);
-							start = inventory[inventoryIndex];
-							span = inventory[inventoryIndex + 1] - start;
-							offset = 0;
-						}
-
-						if (span < MAX_SPAN) {
-							if (ASSERTS) assert i * 64L + j - start <= MAX_SPAN;
-							if ((d & onesPerSub16Mask) == 0) {
-								subinventory16.set((inventoryIndex << log2LongwordsPerSubinventory + 2) +  offset++, i * 64L + j - start);
-							}
-						}
-						else {
-							if (onesPerSub64 == 1) {
-								subinventory[(inventoryIndex << log2LongwordsPerSubinventory) + offset++] = i * 64L + j;
-							}
-							else {
-								if ((d & onesPerInventoryMask) == 0) {
-									inventory[inventoryIndex] |= 1L << 63;
-									subinventory[inventoryIndex << log2LongwordsPerSubinventory] = spilled;
-								}
-								exactSpill[spilled++] = i * 64L + j;
-							}
-						}
-
-						d++;
-					}
+			if (onesPerSub64 > 1) for(int inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++) {
+				if (inventory[inventoryIndex + 1] - inventory[inventoryIndex] >= MAX_SPAN) {
+					subinventory[inventoryIndex << log2LongwordsPerSubinventory] = spilled;
+					spilled += (int)Math.min(numOnes - ((long)inventoryIndex << log2OnesPerInventory), onesPerInventory);
 				}
+			}
+
+			Chunks.stream(numChunks, parallel).forEach(t -> fill((int)((start[t] + onesPerInventoryMask) >>> log2OnesPerInventory), (int)((start[t + 1] + onesPerInventoryMask) >>> log2OnesPerInventory)));
+
+			if (onesPerSub64 > 1) for(int inventoryIndex = 0; inventoryIndex < usedInventorySize; inventoryIndex++)
+				if (inventory[inventoryIndex + 1] - inventory[inventoryIndex] >= MAX_SPAN) inventory[inventoryIndex] |= 1L << 63;
 		}
 		else {
 			subinventory = exactSpill = LongArrays.EMPTY_ARRAY;
@@ -220,6 +209,48 @@ public class SimpleSelectZero implements SelectZero {
 
 	}
 
+	/** Fills the subinventories and the exact spills associated with a range of inventory entries.
+	 *
+	 * <p>The inventory must not contain spill marks yet, and the first subinventory longword of entries
+	 * with exact spills must contain the start of the respective list in {@link #exactSpill}.
+	 * Different entries write to disjoint sets of longwords, so this method can be invoked concurrently on disjoint ranges.
+	 *
+	 * @param from the first inventory entry.
+	 * @param to the last inventory entry, exclusive.
+	 */
+	private void fill(final int from, final int to) {
+		final long[] bits = this.bits, inventory = this.inventory, subinventory = this.subinventory, exactSpill = this.exactSpill;
+		for(int inventoryIndex = from; inventoryIndex < to; inventoryIndex++) {
+			final long start = inventory[inventoryIndex];
+			final long span = inventory[inventoryIndex + 1] - start;
+			final int ones = (int)Math.min(numOnes - ((long)inventoryIndex << log2OnesPerInventory), onesPerInventory);
+			final int spilled = (int)subinventory[inventoryIndex << log2LongwordsPerSubinventory];
+			int offset = 0;
+
+			int i = (int)(start / 64);
+			long word = ~bits[i] & -1L << start;
+			for(int d = 0; d < ones; d++, word &= word - 1) {
+				while(word == 0) word = ~bits[++i];
+				final long bit = i * 64L + Long.numberOfTrailingZeros(word);
+
+				if (span < MAX_SPAN) {
+					if (ASSERTS) assert bit - start <= MAX_SPAN;
+					if ((d & onesPerSub16Mask) == 0) {
+						subinventory16.set((inventoryIndex << log2LongwordsPerSubinventory + 2) +  offset++, bit - start);
+					}
+				}
+				else {
+					if (onesPerSub64 == 1) {
+						subinventory[(inventoryIndex << log2LongwordsPerSubinventory) + offset++] = bit;
+					}
+					else {
+						exactSpill[spilled + d] = bit;
+					}
+				}
+			}
+		}
+	}
+
 	@Override
 	public long selectZero(final long rank) {
 		if (rank >= numOnes) return -1;
@@ -268,6 +299,7 @@ public class SimpleSelectZero implements SelectZero {
 	 * @return {@code dest}
 	 * @see #selectZero(long, long[])
 	 */
+	@Override
 	public long[] selectZero(final long rank, final long[] dest, final int offset, final int length) {
 		if (length == 0) return dest;
 		final long s = selectZero(rank);
@@ -293,6 +325,7 @@ public class SimpleSelectZero implements SelectZero {
 	 * @return {@code dest}
 	 * @see #selectZero(long, long[], int, int)
 	 */
+	@Override
 	public long[] selectZero(final long rank, final long[] dest) {
 		return selectZero(rank, dest, 0, dest.length);
 	}
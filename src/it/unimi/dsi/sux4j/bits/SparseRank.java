@@ -49,7 +49,7 @@ public class SparseRank extends AbstractRank {
 	/** The upper bits. */
 	protected final BitVector upperBits;
 	/** The rank structure used to extract the upper bits. */
-	protected final SimpleSelectZero selectZeroUpper;
+	protected final SelectZero selectZeroUpper;
 	/** Whether this structure was built from a {@link SparseSelect} structure, and thus shares part of its internal state. */
 	protected final boolean fromSelect;
 
@@ -92,7 +92,7 @@ public class SparseRank extends AbstractRank {
 		final LongArrayBitVector lowerBitsVector = LongArrayBitVector.getInstance();
 		final LongBigList lowerBitsList = lowerBitsVector.asLongBigList(l);
 		lowerBitsList.size(m);
-		upperBits = LongArrayBitVector.getInstance().length(m + (n >>> l) + 1);
+		upperBits = LongBigArrayBitVector.ofLengthFitting(m + (n >>> l) + 1);
 		long last = 0;
 		for(long i = 0; i < m; i++) {
 			pos = iterator.nextLong();
@@ -105,7 +105,7 @@ public class SparseRank extends AbstractRank {
 
 		if (iterator.hasNext()) throw new IllegalArgumentException("There are more than " + m + " positions in the provided iterator");
 		lowerBits = lowerBitsVector.bits();
-		selectZeroUpper = new SimpleSelectZero(upperBits);
+		selectZeroUpper = SimpleBigSelectZero.getInstance(upperBits);
 		fromSelect = false;
 	}
 
@@ -116,7 +116,7 @@ public class SparseRank extends AbstractRank {
 		this.lowerLBitsMask = (1L << l) - 1;
 		this.lowerBits = lowerBits;
 		this.upperBits = upperBits;
-		this.selectZeroUpper = new SimpleSelectZero(upperBits);
+		this.selectZeroUpper = SimpleBigSelectZero.getInstance(upperBits);
 		this.fromSelect = true;
 	}
 
@@ -160,7 +160,7 @@ public class SparseRank extends AbstractRank {
 	 * @return a new {@link SparseSelect} structure sharing data with this instance.
 	 */
 	public SparseSelect getSelect() {
-		return new SparseSelect(n, m, l, lowerBits, new SimpleSelect(upperBits));
+		return new SparseSelect(n, m, l, lowerBits, SimpleBigSelect.getInstance(upperBits));
 	}
 
 
@@ -174,7 +174,7 @@ public class SparseRank extends AbstractRank {
 	 */
 	@Override
 	public BitVector bitVector() {
-		final LongArrayBitVector result = LongArrayBitVector.getInstance().length(n);
+		final BitVector result = LongBigArrayBitVector.ofLengthFitting(n);
 		long prev = 0, rank;
 		for(long i = 1; i <= n; i++) {
 			if ((rank = rank(i)) != prev) result.set(i - 1);
@@ -20,11 +20,15 @@ package it.unimi.dsi.sux4j.bits;
  *
  */
 
+import java.io.IOException;
+
 import it.unimi.dsi.bits.BitVector;
 import it.unimi.dsi.bits.LongArrayBitVector;
 import it.unimi.dsi.fastutil.longs.LongBigList;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongList;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedOutput;
 import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
 
 /** A select implementation for sparse bit arrays based on the {@linkplain EliasFanoMonotoneLongBigList Elias&ndash;Fano representation of monotone functions}.
@@ -104,7 +108,7 @@ public class SparseSelect extends EliasFanoMonotoneLongBigList implements Select
 		fromRank = false;
 	}
 
-	protected SparseSelect(final long n, final long m, final int l, final long[] lowerBits, final SimpleSelect selectUpper) {
+	protected SparseSelect(final long n, final long m, final int l, final long[] lowerBits, final Select selectUpper) {
 		super(m, l, lowerBits, selectUpper);
 		this.n = n;
 		this.fromRank = true;
@@ -134,6 +138,11 @@ public class SparseSelect extends EliasFanoMonotoneLongBigList implements Select
 		throw new UnsupportedOperationException();
 	}
 
+	@Override
+	public EliasFanoMonotoneLongBigListIterator listIterator(final long from) {
+		throw new UnsupportedOperationException();
+	}
+
 	@Override
 	public long numBits() {
 		return selectUpper.numBits() + (fromRank ? 0 : selectUpper.bitVector().length() + lowerBits.length * (long)Long.SIZE);
@@ -154,6 +163,34 @@ public class SparseSelect extends EliasFanoMonotoneLongBigList implements Select
 		return upperBits << l | (totalOffset <= Long.SIZE ? result : result | lowerBits[startWord + 1] << -startBit) & lowerBitsMask;
 	}
 
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation uses the {@linkplain Select#select(long[], long[]) batch selection} of the upper bits,
+	 * and then retrieves all lower bits.
+	 */
+	@Override
+	public long[] select(final long[] rank, final long[] dest) {
+		selectUpper.select(rank, dest);
+		final int l = this.l;
+		final long[] lowerBits = this.lowerBits;
+		for(int i = 0; i < rank.length; i++) {
+			if (dest[i] == -1) continue;
+			final long r = rank[i];
+			final long upperBits = dest[i] - r;
+			if (l == 0) {
+				dest[i] = upperBits;
+				continue;
+			}
+			final long position = r * l;
+			final int startWord = (int)(position / Long.SIZE);
+			final int startBit = (int)(position % Long.SIZE);
+			final int totalOffset = startBit + l;
+			final long result = lowerBits[startWord] >>> startBit;
+			dest[i] = upperBits << l | (totalOffset <= Long.SIZE ? result : result | lowerBits[startWord + 1] << -startBit) & lowerBitsMask;
+		}
+		return dest;
+	}
+
 	/** Returns the bit vector indexed; since the bits are not stored in this data structure,
 	 * a copy is built on purpose and returned.
 	 *
@@ -161,11 +198,23 @@ public class SparseSelect extends EliasFanoMonotoneLongBigList implements Select
 	 */
 	@Override
 	public BitVector bitVector() {
-		final LongArrayBitVector result = LongArrayBitVector.ofLength(n);
+		final BitVector result = LongBigArrayBitVector.ofLengthFitting(n);
 		for(long i = length; i-- != 0;) result.set(select(i));
 		return result;
 	}
 
+	/** Writes this structure in the {@linkplain MappedFormat mapped format}.
+	 *
+	 * @param out a mapped output.
+	 * @see MappedSparseSelect
+	 */
+	@Override
+	public void dump(final MappedOutput out) throws IOException {
+		out.writeLong(MappedFormat.SPARSE_SELECT);
+		out.writeLong(n);
+		super.dump(out);
+	}
+
 	@Override
 	public int hashCode() {
 		return System.identityHashCode(this);
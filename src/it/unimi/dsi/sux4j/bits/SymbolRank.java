@@ -0,0 +1,231 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.bits;
+
+import java.io.Serializable;
+
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.fastutil.longs.LongBigList;
+
+/** A ranking structure for sequences of symbols of 2, 3 or 4 bits interleaving counts and symbols.
+ *
+ * <p>Instances of this class answer {@linkplain #rank(int, long) rank queries} for each symbol of a small alphabet
+ * (e.g., the four nucleotides of a DNA sequence) without resorting to a wavelet structure, which would cause
+ * a cache miss per level. As in {@link InterleavedRankSelect}, symbols are stored in blocks of 64 bytes (128 bytes for 4-bit symbols)
+ * starting with a header: the header contains, for each symbol, a 16-bit count of its occurrences before the block within its <em>superblock</em>,
+ * and the rest of the block contains the symbols, packed in longwords (3-bit symbols are packed 21 to a longword, leaving the top bit unused).
+ * A small separate table records, for each symbol, the number of its occurrences before each superblock (about
+ * 2<sup>16</sup> symbols); it is accessed once per query, and it is usually resident in cache for all but very large sequences.
+ *
+ * <p>The rank of a symbol is computed adding up the counts in the superblock table and in the header, and the number of occurrences
+ * of the symbol in the preceding longwords of the block, which are computed in a broadword fashion: the longword is xor'd with
+ * a copy of the symbol replicated in every field, so that occurrences become zero fields, and zero fields are counted by collapsing each field
+ * on its lowest bit (as in {@link it.unimi.dsi.sux4j.mph.GOVMinimalPerfectHashFunction#countNonzeroPairs(long)}).
+ * All accesses to the sequence thus happen in the same block.
+ *
+ * <p>The headers use 1/7 &#x2248; 14.3% additional space for 2-bit symbols, and 1/3 &#x2248; 33.3% additional space for 3- and 4-bit symbols;
+ * the superblock table adds at most about 0.5%.
+ *
+ * <p>Construction can be performed in parallel, as superblocks are independent: in this case, the list of symbols
+ * must support concurrent reads.
+ */
+
+public class SymbolRank implements Serializable {
+	private static final long serialVersionUID = 0L;
+	/** The maximum number of symbols in a superblock, so that relative counts fit 16 bits. */
+	private static final int MAX_SUPERBLOCK_SYMBOLS = (1 << 16) - 1;
+
+	/** The width of a symbol in bits. */
+	private final int width;
+	/** The number of symbols of the alphabet (2<sup>{@link #width}</sup>). */
+	private final int numSymbols;
+	/** The number of symbols in the sequence. */
+	private final long length;
+	/** The number of words in a block. */
+	private final int blockWords;
+	/** The number of header words in a block. */
+	private final int headerWords;
+	/** The number of symbols in a longword. */
+	private final int symbolsPerWord;
+	/** The number of symbols in a block. */
+	private final int symbolsPerBlock;
+	/** The base-2 logarithm of the number of blocks in a superblock. */
+	private final int log2BlocksPerSuperblock;
+	/** A mask containing the lowest bit of each field of a longword. */
+	private final long lsb;
+	/** The interleaved headers and symbols: the block of index <var>b</var> starts at position {@link #blockWords}<var>b</var>. */
+	private final long[] data;
+	/** The number of occurrences of symbol <var>c</var> before superblock <var>s</var> is stored at position {@link #numSymbols}<var>s</var> + <var>c</var>. */
+	private final long[] superblockCount;
+
+	/** Creates a new symbol-ranking structure for a given sequence of symbols.
+	 *
+	 * @param symbols a list of symbols.
+	 * @param width the width in bits of the symbols (2, 3 or 4).
+	 */
+	public SymbolRank(final LongBigList symbols, final int width) {
+		this(symbols, width, false);
+	}
+
+	/** Creates a new symbol-ranking structure for a given sequence of symbols, possibly building it in parallel.
+	 *
+	 * <p>Parallel construction fills independently the blocks of each superblock, using the common fork/join pool,
+	 * and then computes sequentially the superblock table; the result is identical to that of sequential construction.
+	 *
+	 * @param symbols a list of symbols; if {@code parallel} is true, it must support concurrent reads.
+	 * @param width the width in bits of the symbols (2, 3 or 4).
+	 * @param parallel whether to build the structure in parallel.
+	 */
+	public SymbolRank(final LongBigList symbols, final int width, final boolean parallel) {
+		if (width < 2 || width > 4) throw new IllegalArgumentException("Unsupported symbol width: " + width);
+		this.width = width;
+		numSymbols = 1 << width;
+		length = symbols.size64();
+		headerWords = numSymbols / 4;
+		blockWords = width == 4 ? 16 : 8;
+		symbolsPerWord = Long.SIZE / width;
+		symbolsPerBlock = (blockWords - headerWords) * symbolsPerWord;
+		log2BlocksPerSuperblock = Fast.mostSignificantBit(MAX_SUPERBLOCK_SYMBOLS / symbolsPerBlock);
+		long lsb = 0;
+		for(int i = 0; i < symbolsPerWord; i++) lsb |= 1L << i * width;
+		this.lsb = lsb;
+
+		// There is always an additional (possibly empty) block, so we can rank length
+		final long numBlocks = length / symbolsPerBlock + 1;
+		if (numBlocks > (Integer.MAX_VALUE - 16) / blockWords) throw new IllegalArgumentException("Sequence too long: " + length);
+		data = new long[(int)numBlocks * blockWords];
+		final int numSuperblocks = (int)((numBlocks + (1 << log2BlocksPerSuperblock) - 1) >>> log2BlocksPerSuperblock);
+		superblockCount = new long[(numSuperblocks + 1) * numSymbols];
+
+		// Each superblock stores its own counts in the entries of the following one
+		Chunks.stream(numSuperblocks, parallel).forEach(s -> fill(symbols, s, (int)numBlocks));
+		for(int i = numSymbols; i < superblockCount.length; i++) superblockCount[i] += superblockCount[i - numSymbols];
+	}
+
+	/** Fills the blocks of a superblock, and stores the number of occurrences of each symbol in the superblock in the entries of the following one.
+	 *
+	 * @param symbols the list of symbols.
+	 * @param superblock a superblock.
+	 * @param numBlocks the number of blocks.
+	 */
+	private void fill(final LongBigList symbols, final int superblock, final int numBlocks) {
+		final long[] data = this.data;
+		final int[] count = new int[numSymbols];
+		final int dataWords = blockWords - headerWords;
+		for(int b = superblock << log2BlocksPerSuperblock, end = Math.min(numBlocks, b + (1 << log2BlocksPerSuperblock)); b < end; b++) {
+			final int base = b * blockWords;
+			for(int c = 0; c < numSymbols; c++) data[base + (c >>> 2)] |= (long)count[c] << ((c & 3) << 4);
+			long p = (long)b * symbolsPerBlock;
+			for(int j = 0; j < dataWords; j++) {
+				long word = 0;
+				for(int i = 0; i < symbolsPerWord && p < length; i++, p++) {
+					final long symbol = symbols.getLong(p);
+					if (symbol < 0 || symbol >= numSymbols) throw new IllegalArgumentException("Symbol at position " + p + " out of range: " + symbol);
+					word |= symbol << i * width;
+					count[(int)symbol]++;
+				}
+				data[base + headerWords + j] = word;
+			}
+		}
+		for(int c = 0; c < numSymbols; c++) superblockCount[(superblock + 1) * numSymbols + c] = count[c];
+	}
+
+	/** Returns a mask containing the lowest bit of each nonzero field of a longword.
+	 *
+	 * @param x a longword.
+	 * @return a mask containing the lowest bit of each nonzero field of {@code x}.
+	 */
+	private long nonzero(final long x) {
+		switch(width) {
+		case 2: return (x | x >>> 1) & lsb;
+		case 3: return (x | x >>> 1 | x >>> 2) & lsb;
+		default: return (x | x >>> 1 | x >>> 2 | x >>> 3) & lsb;
+		}
+	}
+
+	/** Returns the number of occurrences of a symbol before a given position.
+	 *
+	 * @param symbol a symbol.
+	 * @param pos a position in the sequence between 0 and the {@linkplain #length() length} (inclusive).
+	 * @return the number of occurrences of {@code symbol} in the sequence before position {@code pos}.
+	 */
+	public long rank(final int symbol, final long pos) {
+		final long[] data = this.data;
+		final int block = (int)(pos / symbolsPerBlock);
+		final int offset = (int)(pos - block * (long)symbolsPerBlock);
+		final int word = offset / symbolsPerWord;
+		final int k = offset - word * symbolsPerWord;
+		final int base = block * blockWords;
+		final long pattern = symbol * lsb;
+
+		final long rank = superblockCount[(block >>> log2BlocksPerSuperblock) * numSymbols + symbol] + (data[base + (symbol >>> 2)] >>> ((symbol & 3) << 4) & 0xFFFF);
+		final int first = base + headerWords;
+		int zeroes = word * symbolsPerWord + k;
+		for(int j = first; j < first + word; j++) zeroes -= Long.bitCount(nonzero(data[j] ^ pattern));
+		return rank + zeroes - Long.bitCount(nonzero(data[first + word] ^ pattern) & (1L << k * width) - 1);
+	}
+
+	/** Returns the symbol at a given position.
+	 *
+	 * @param pos a position in the sequence.
+	 * @return the symbol at position {@code pos}.
+	 */
+	public int getSymbol(final long pos) {
+		if (pos < 0 || pos >= length) throw new IndexOutOfBoundsException(Long.toString(pos));
+		final int block = (int)(pos / symbolsPerBlock);
+		final int offset = (int)(pos - block * (long)symbolsPerBlock);
+		final int word = offset / symbolsPerWord;
+		return (int)(data[block * blockWords + headerWords + word] >>> (offset - word * symbolsPerWord) * width) & numSymbols - 1;
+	}
+
+	/** Returns the number of occurrences of a symbol.
+	 *
+	 * @param symbol a symbol.
+	 * @return the number of occurrences of {@code symbol} in the sequence.
+	 */
+	public long count(final int symbol) {
+		return rank(symbol, length);
+	}
+
+	/** Returns the number of symbols in the sequence.
+	 *
+	 * @return the number of symbols in the sequence.
+	 */
+	public long length() {
+		return length;
+	}
+
+	/** Returns the width in bits of the symbols.
+	 *
+	 * @return the width in bits of the symbols.
+	 */
+	public int width() {
+		return width;
+	}
+
+	/** Returns the number of bits used by this structure, excluding the symbols.
+	 *
+	 * @return the number of bits used by the headers and by the superblock table.
+	 */
+	public long numBits() {
+		return (data.length / blockWords * (long)headerWords + superblockCount.length) * Long.SIZE;
+	}
+}
@@ -0,0 +1,104 @@
+package it.unimi.dsi.sux4j.io;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import it.unimi.dsi.bits.AbstractBitVector;
+import it.unimi.dsi.util.ByteBufferLongBigList;
+
+/** A read-only bit vector whose words are stored in a {@link ByteBufferLongBigList}.
+ *
+ * <p>Instances of this class are returned by {@link MappedInput#readBitVector()}. Mapped
+ * structures usually access directly the underlying list using {@link #data()} and {@link #offset()}.
+ */
+
+public class MappedBitVector extends AbstractBitVector {
+	/** The underlying list. */
+	private final ByteBufferLongBigList data;
+	/** The position in {@link #data} of the first word. */
+	private final long offset;
+	/** The length in bits. */
+	private final long length;
+
+	/** Creates a new mapped bit vector.
+	 *
+	 * @param data a list of longs.
+	 * @param offset the position in {@code data} of the first word.
+	 * @param length the length in bits.
+	 */
+	public MappedBitVector(final ByteBufferLongBigList data, final long offset, final long length) {
+		this.data = data;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	/** Returns the underlying list of longs.
+	 *
+	 * @return the underlying list of longs.
+	 */
+	public ByteBufferLongBigList data() {
+		return data;
+	}
+
+	/** Returns the position of the first word in the underlying list.
+	 *
+	 * @return the position of the first word in the underlying list.
+	 */
+	public long offset() {
+		return offset;
+	}
+
+	/** Returns a word of this bit vector.
+	 *
+	 * @param index the index of a word.
+	 * @return the word of index {@code index}.
+	 */
+	public long getWord(final long index) {
+		return data.getLong(offset + index);
+	}
+
+	@Override
+	public boolean getBoolean(final long index) {
+		ensureRestrictedIndex(index);
+		return (data.getLong(offset + index / Long.SIZE) & 1L << index) != 0;
+	}
+
+	@Override
+	public long getLong(final long from, final long to) {
+		final int l = (int)(to - from);
+		if (l == 0) return 0;
+		final long startWord = offset + from / Long.SIZE;
+		final int startBit = (int)(from % Long.SIZE);
+		if (startBit + l <= Long.SIZE) return data.getLong(startWord) << -startBit - l >>> -l;
+		return data.getLong(startWord) >>> startBit | data.getLong(startWord + 1) << -startBit - l >>> -l;
+	}
+
+	@Override
+	public long count() {
+		long c = 0;
+		for(long i = (length + Long.SIZE - 1) / Long.SIZE; i-- != 0;) c += Long.bitCount(data.getLong(offset + i));
+		return c;
+	}
+
+	@Override
+	public long length() {
+		return length;
+	}
+}
@@ -0,0 +1,38 @@
+package it.unimi.dsi.sux4j.io;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.IOException;
+
+/** A structure that can be written in the {@linkplain MappedFormat mapped format}.
+ *
+ * <p>Structures containing other structures (e.g., the select structure of an {@linkplain it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList Elias&ndash;Fano list})
+ * use this interface to dump them, independently of their actual class.
+ */
+
+public interface MappedDumpable {
+
+	/** Writes this structure in the {@linkplain MappedFormat mapped format}.
+	 *
+	 * @param out a mapped output.
+	 */
+	public void dump(MappedOutput out) throws IOException;
+}
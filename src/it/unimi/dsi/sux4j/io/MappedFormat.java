@@ -0,0 +1,55 @@
+package it.unimi.dsi.sux4j.io;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+/** Constants describing the on-disk format used by {@link MappedOutput} and {@link MappedInput}.
+ *
+ * <p>A file in this format is a sequence of big-endian longs. The first long is {@link #MAGIC},
+ * the second one is {@link #VERSION}; then, a structure follows, in the format written by its {@code dump()}
+ * method. Each structure starts with a tag identifying its type (e.g., {@link #SIMPLE_SELECT}), so that
+ * structures can be nested (e.g., an {@linkplain it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList Elias&ndash;Fano list}
+ * contains a {@linkplain it.unimi.dsi.sux4j.bits.SimpleSelect select structure}) and checked when mapped.
+ * Arrays are written as their length followed by their elements; bit vectors as their
+ * length in bits followed by an array containing their words.
+ *
+ * <p>Since all data is stored as longs, arrays are always aligned, and can be accessed directly
+ * from memory-mapped buffers.
+ */
+
+public final class MappedFormat {
+	private MappedFormat() {}
+
+	/** The magic number starting every file ({@code SUX4JMAP} in ASCII). */
+	public static final long MAGIC = 0x535558344A4D4150L;
+	/** The current version of the format. */
+	public static final long VERSION = 1;
+
+	/** The tag of a {@link it.unimi.dsi.sux4j.bits.SimpleSelect}. */
+	public static final long SIMPLE_SELECT = 1;
+	/** The tag of a {@link it.unimi.dsi.sux4j.bits.Rank9}. */
+	public static final long RANK9 = 2;
+	/** The tag of an {@link it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList}. */
+	public static final long ELIAS_FANO_MONOTONE_LONG_BIG_LIST = 3;
+	/** The tag of a {@link it.unimi.dsi.sux4j.bits.SparseSelect}. */
+	public static final long SPARSE_SELECT = 4;
+	/** The tag of an {@link it.unimi.dsi.sux4j.util.EliasFanoLongBigList}. */
+	public static final long ELIAS_FANO_LONG_BIG_LIST = 5;
+}
@@ -0,0 +1,131 @@
+package it.unimi.dsi.sux4j.io;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.StandardOpenOption;
+
+import it.unimi.dsi.util.ByteBufferLongBigList;
+
+/** A sequential reader for structures in the {@linkplain MappedFormat mapped format}.
+ *
+ * <p>An instance of this class wraps a {@link ByteBufferLongBigList} (usually, one obtained by
+ * memory-mapping a file written by a {@link MappedOutput}) and keeps track of a current position.
+ * Mapped structures read their scalar fields using {@link #readLong()}, but record just the
+ * position of their arrays using {@link #readLongs()}: data is accessed directly from the
+ * underlying list, and it is never copied on the heap.
+ *
+ * @see MappedOutput
+ */
+
+public class MappedInput {
+	/** The underlying list. */
+	private final ByteBufferLongBigList data;
+	/** The current position in {@link #data}. */
+	private long position;
+
+	/** Creates a new mapped input for the given list of longs, checking the header.
+	 *
+	 * @param data a list of longs starting with a {@linkplain MappedFormat mapped-format} header.
+	 */
+	public MappedInput(final ByteBufferLongBigList data) throws IOException {
+		this.data = data;
+		if (data.size64() < 2 || readLong() != MappedFormat.MAGIC) throw new IOException("Missing magic number");
+		final long version = readLong();
+		if (version != MappedFormat.VERSION) throw new IOException("Unsupported version " + version + " (expected " + MappedFormat.VERSION + ")");
+	}
+
+	/** Maps a file written by a {@link MappedOutput} in read-only mode.
+	 *
+	 * <p>The file is memory-mapped, and its content lives outside the heap;
+	 * pages are loaded lazily by the operating system, and they are shared among all processes mapping the same file.
+	 *
+	 * @param file a file.
+	 * @return a mapped input for {@code file}.
+	 */
+	public static MappedInput map(final File file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+			return new MappedInput(ByteBufferLongBigList.map(channel, ByteOrder.BIG_ENDIAN, MapMode.READ_ONLY));
+		}
+	}
+
+	/** Returns the underlying list of longs.
+	 *
+	 * @return the underlying list of longs.
+	 */
+	public ByteBufferLongBigList data() {
+		return data;
+	}
+
+	/** Returns the current position.
+	 *
+	 * @return the current position.
+	 */
+	public long position() {
+		return position;
+	}
+
+	/** Reads a long.
+	 *
+	 * @return the long at the current position.
+	 */
+	public long readLong() throws IOException {
+		if (position >= data.size64()) throw new IOException("Unexpected end of data");
+		return data.getLong(position++);
+	}
+
+	/** Skips an array of longs written by {@link MappedOutput#writeLongs(long[])}.
+	 *
+	 * @return the position of the first element of the array; its length is
+	 * the long preceding the first element.
+	 */
+	public long readLongs() throws IOException {
+		final long length = readLong();
+		final long start = position;
+		if (length < 0 || length > data.size64() - start) throw new IOException("Invalid array length " + length);
+		position += length;
+		return start;
+	}
+
+	/** Reads a bit vector written by {@link MappedOutput#writeBitVector(it.unimi.dsi.bits.BitVector)}.
+	 *
+	 * @return a read-only bit vector backed by the underlying list.
+	 */
+	public MappedBitVector readBitVector() throws IOException {
+		final long length = readLong();
+		final long start = readLongs();
+		if (data.getLong(start - 1) != (length + Long.SIZE - 1) / Long.SIZE) throw new IOException("Bit vector length mismatch");
+		return new MappedBitVector(data, start, length);
+	}
+
+	/** Reads a tag and checks that it is equal to a given value.
+	 *
+	 * @param tag the expected tag, usually a constant from {@link MappedFormat}.
+	 */
+	public void readTag(final long tag) throws IOException {
+		final long t = readLong();
+		if (t != tag) throw new IOException("Wrong structure tag " + t + " (expected " + tag + ")");
+	}
+}
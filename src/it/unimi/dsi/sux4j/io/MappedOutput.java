@@ -0,0 +1,127 @@
+package it.unimi.dsi.sux4j.io;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.io.FastBufferedOutputStream;
+import it.unimi.dsi.sux4j.bits.LongBigArrayBitVector;
+
+/** An output stream writing structures in the {@linkplain MappedFormat mapped format}.
+ *
+ * <p>Instances of this class are passed to the {@code dump()} method of the structures supporting
+ * the mapped format, for instance:
+ * <pre>
+ * try (MappedOutput out = new MappedOutput(file)) {
+ *     simpleSelect.dump(out);
+ * }
+ * MappedSimpleSelect mapped = MappedSimpleSelect.map(file);
+ * </pre>
+ *
+ * @see MappedInput
+ */
+
+public class MappedOutput implements Closeable {
+	/** The underlying stream. */
+	private final DataOutputStream dos;
+
+	/** Creates a new mapped output writing to a given file, and writes the file header.
+	 *
+	 * @param file the output file.
+	 */
+	public MappedOutput(final File file) throws IOException {
+		dos = new DataOutputStream(new FastBufferedOutputStream(new FileOutputStream(file)));
+		writeLong(MappedFormat.MAGIC);
+		writeLong(MappedFormat.VERSION);
+	}
+
+	/** Writes a long.
+	 *
+	 * @param x a long.
+	 */
+	public void writeLong(final long x) throws IOException {
+		dos.writeLong(x);
+	}
+
+	/** Writes a prefix of an array of longs, preceded by its length.
+	 *
+	 * @param a an array.
+	 * @param length the number of elements of {@code a} to write.
+	 */
+	public void writeLongs(final long[] a, final long length) throws IOException {
+		writeLong(length);
+		for(int i = 0; i < length; i++) dos.writeLong(a[i]);
+	}
+
+	/** Writes an array of longs, preceded by its length.
+	 *
+	 * @param a an array.
+	 */
+	public void writeLongs(final long[] a) throws IOException {
+		writeLongs(a, a.length);
+	}
+
+	/** Writes a prefix of a big array of longs, preceded by its length.
+	 *
+	 * @param a a big array.
+	 * @param length the number of elements of {@code a} to write.
+	 */
+	public void writeLongs(final long[][] a, final long length) throws IOException {
+		writeLong(length);
+		for(long i = 0; i < length; i++) dos.writeLong(a[BigArrays.segment(i)][BigArrays.displacement(i)]);
+	}
+
+	/** Writes a big array of longs, preceded by its length.
+	 *
+	 * @param a a big array.
+	 */
+	public void writeLongs(final long[][] a) throws IOException {
+		writeLongs(a, BigArrays.length(a));
+	}
+
+	/** Writes a bit vector: its length, and then the array of its words.
+	 *
+	 * @param v a bit vector.
+	 */
+	public void writeBitVector(final BitVector v) throws IOException {
+		final long length = v.length();
+		final long numWords = (length + Long.SIZE - 1) / Long.SIZE;
+		writeLong(length);
+		if (v instanceof LongArrayBitVector) writeLongs(v.bits(), numWords);
+		else if (v instanceof LongBigArrayBitVector) writeLongs(((LongBigArrayBitVector)v).bigBits(), numWords);
+		else {
+			writeLong(numWords);
+			for(long i = 0; i < numWords; i++) writeLong(v.getLong(i * Long.SIZE, Math.min(length, (i + 1) * Long.SIZE)));
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		dos.close();
+	}
+}
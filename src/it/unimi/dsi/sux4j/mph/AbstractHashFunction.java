@@ -20,6 +20,8 @@ package it.unimi.dsi.sux4j.mph;
  *
  */
 
+import java.util.Iterator;
+
 import it.unimi.dsi.fastutil.Size64;
 import it.unimi.dsi.fastutil.objects.AbstractObject2LongFunction;
 
@@ -27,6 +29,10 @@ import it.unimi.dsi.fastutil.objects.AbstractObject2LongFunction;
  * by {@link Size64}. Moreover, it provides a deprecated <code>size()</code> method that returns
  * -1 if {@link #size64()} is -1 or greater than {@link Integer#MAX_VALUE}, a {@link #size64()} returning -1 (that
  * you are invited to override), and a {@link #containsKey(Object)} implementation that returns true.
+ *
+ * <p>Finally, it provides a {@linkplain #getLongs(Iterator, long[]) batch method} that by default
+ * just calls {@link #getLong(Object)} on each key, but that is overridden by implementations that can
+ * share work among consecutive keys.
  */
 
 public abstract class AbstractHashFunction<K> extends AbstractObject2LongFunction<K> implements Size64 {
@@ -48,4 +54,22 @@ public abstract class AbstractHashFunction<K> extends AbstractObject2LongFunctio
 	public long size64() {
 		return -1;
 	}
+
+	/** Computes the values associated with a sequence of keys.
+	 *
+	 * <p>Keys are read from the given iterator until either the iterator is exhausted or
+	 * {@code out} is full. The result is always the same as calling {@link #getLong(Object)}
+	 * on each key, but implementations might be significantly faster when the keys are sorted
+	 * (e.g., in the case of monotone functions, in the order of the original keys), as work
+	 * can be shared among keys with a long common prefix.
+	 *
+	 * @param keys an iterator returning the keys to be hashed, preferably in sorted order.
+	 * @param out an array that will be filled with the values associated with the keys.
+	 * @return the number of keys read from {@code keys} (and of values stored in {@code out}).
+	 */
+	public int getLongs(final Iterator<? extends K> keys, final long[] out) {
+		int i = 0;
+		while (i < out.length && keys.hasNext()) out[i++] = getLong(keys.next());
+		return i;
+	}
 }
@@ -20,6 +20,8 @@ package it.unimi.dsi.sux4j.mph;
  *
  */
 
+import java.util.Arrays;
+
 import it.unimi.dsi.bits.BitVector;
 import it.unimi.dsi.bits.LongArrayBitVector;
 import it.unimi.dsi.logging.ProgressLogger;
@@ -2239,6 +2241,126 @@ public class Hashes {
 		}
 	}
 
+	/**
+	 * Preprocesses a bit vector so that SpookyHash 4-word-state can be computed
+	 * in constant time on all prefixes, reusing the state computed for a
+	 * previous bit vector sharing a common prefix with {@code bv}.
+	 *
+	 * <p>Only the part of the state depending on bits beyond {@code lcp} is
+	 * recomputed: when preprocessing a sorted sequence of bit vectors, the cost
+	 * is thus proportional to the length of the suffix that does not appear in
+	 * the previous vector.
+	 *
+	 * @param bv
+	 *            a bit vector.
+	 * @param seed
+	 *            a seed for the hash.
+	 * @param state
+	 *            the state vector returned by a previous call to this method
+	 *            or to {@link #preprocessSpooky4(BitVector, long)} with the same
+	 *            {@code seed}, or {@code null}.
+	 * @param lcp
+	 *            the length of the longest common prefix between
+	 *            <code>bv</code> and the vector over which <code>state</code>
+	 *            was computed (must be zero if {@code state} is {@code null}).
+	 * @return a state vector for {@code bv}, which might be {@code state}
+	 *         itself if it is large enough, or {@code null} if {@code bv} is
+	 *         shorter than two longs.
+	 * @see #preprocessSpooky4(BitVector, long)
+	 */
+	public static long[] preprocessSpooky4(final BitVector bv, final long seed, long[] state, final long lcp) {
+		final long length = bv.length();
+		if (length < Long.SIZE * 2) return state;
+		final int stateLength = 4 * (int) ((length + Long.SIZE * 2) / (4 * Long.SIZE));
+		// The number of state blocks depending only on the first lcp bits
+		final int reusable = state == null || lcp < Long.SIZE * 2 ? 0 : (int) ((lcp - Long.SIZE * 2) / (4 * Long.SIZE)) + 1;
+		if (state == null || state.length < stateLength) state = state == null ? new long[stateLength] : Arrays.copyOf(state, stateLength);
+
+		long h0, h1, h2, h3;
+		long remaining, pos;
+		int p;
+
+		if (reusable == 0) {
+			h0 = seed;
+			h1 = seed;
+			h2 = ARBITRARY_BITS;
+			h3 = ARBITRARY_BITS;
+			remaining = length;
+			pos = 0;
+			p = 0;
+		}
+		else {
+			p = 4 * (reusable - 1);
+			h0 = state[p + 0];
+			h1 = state[p + 1];
+			h2 = state[p + 2];
+			h3 = state[p + 3];
+			p += 4;
+			pos = (reusable - 1) * 4L * Long.SIZE;
+			remaining = length - pos;
+			if (remaining < Long.SIZE * 6) return state;
+			h0 += bv.getLong(pos + 2 * Long.SIZE, pos + 3 * Long.SIZE);
+			h1 += bv.getLong(pos + 3 * Long.SIZE, pos + 4 * Long.SIZE);
+			remaining -= 4 * Long.SIZE;
+			pos += 4 * Long.SIZE;
+		}
+
+		for (;;) {
+			h2 += bv.getLong(pos + 0 * Long.SIZE, pos + 1 * Long.SIZE);
+			h3 += bv.getLong(pos + 1 * Long.SIZE, pos + 2 * Long.SIZE);
+
+			h2 = Long.rotateLeft(h2, 50);
+			h2 += h3;
+			h0 ^= h2;
+			h3 = Long.rotateLeft(h3, 52);
+			h3 += h0;
+			h1 ^= h3;
+			h0 = Long.rotateLeft(h0, 30);
+			h0 += h1;
+			h2 ^= h0;
+			h1 = Long.rotateLeft(h1, 41);
+			h1 += h2;
+			h3 ^= h1;
+			h2 = Long.rotateLeft(h2, 54);
+			h2 += h3;
+			h0 ^= h2;
+			h3 = Long.rotateLeft(h3, 48);
+			h3 += h0;
+			h1 ^= h3;
+			h0 = Long.rotateLeft(h0, 38);
+			h0 += h1;
+			h2 ^= h0;
+			h1 = Long.rotateLeft(h1, 37);
+			h1 += h2;
+			h3 ^= h1;
+			h2 = Long.rotateLeft(h2, 62);
+			h2 += h3;
+			h0 ^= h2;
+			h3 = Long.rotateLeft(h3, 34);
+			h3 += h0;
+			h1 ^= h3;
+			h0 = Long.rotateLeft(h0, 5);
+			h0 += h1;
+			h2 ^= h0;
+			h1 = Long.rotateLeft(h1, 36);
+			h1 += h2;
+			h3 ^= h1;
+
+			state[p + 0] = h0;
+			state[p + 1] = h1;
+			state[p + 2] = h2;
+			state[p + 3] = h3;
+			p += 4;
+
+			if (remaining >= Long.SIZE * 6) {
+				h0 += bv.getLong(pos + 2 * Long.SIZE, pos + 3 * Long.SIZE);
+				h1 += bv.getLong(pos + 3 * Long.SIZE, pos + 4 * Long.SIZE);
+				remaining -= 4 * Long.SIZE;
+				pos += 4 * Long.SIZE;
+			} else return state;
+		}
+	}
+
 	/**
 	 * Constant-time SpookyHash 4-word-state hashing reusing precomputed state
 	 * partially.
@@ -4,6 +4,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.zip.GZIPInputStream;
@@ -52,6 +53,7 @@ import it.unimi.dsi.fastutil.Size64;
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.ints.IntBigArrayBigList;
 import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongArrays;
 import it.unimi.dsi.fastutil.longs.LongIterable;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
@@ -134,6 +136,129 @@ public class HollowTrieMonotoneMinimalPerfectHashFunction<T> extends AbstractHas
 		}
 	}
 
+	/** Performs a weak prefix search.
+	 *
+	 * <p>This method returns the interval of ranks of the keys having a given prefix,
+	 * provided that at least one key has such a prefix; otherwise, the result is unpredictable.
+	 * The prefix must be a prefix of the bit vectors generated by the transformation strategy: in the
+	 * common case of a {@linkplain TransformationStrategies#prefixFreeIso() prefix-free strategy} on
+	 * character sequences, you should pass the bit vector generated by the corresponding
+	 * non-prefix-free strategy (e.g., {@link TransformationStrategies#iso()}).
+	 *
+	 * <p>The search descends the trie just like {@link #getLong(Object)} until the prefix is exhausted: at that point,
+	 * all leaves of the current subtree contain keys having the prefix.
+	 *
+	 * @param prefix a prefix of some (transformed) key.
+	 * @return a two-element array containing the rank of the first key having {@code prefix} as a prefix,
+	 * and the rank of the last key having {@code prefix} as a prefix plus one, provided that some key has
+	 * {@code prefix} as a prefix.
+	 */
+	public long[] prefixRange(final BitVector prefix) {
+		if (size <= 1) return new long[] { 0, size };
+		final BitVector bitVector = prefix.fast();
+		long p = 1;
+		final long length = bitVector.length();
+		long index = 0;
+		long s = 0, r = 0;
+		// The position of the node of which we are visiting the right border, or 0 for the root
+		long parent = 0;
+
+		for (;;) {
+			if ((s += (int)skips.getLong(r)) >= length) {
+				// The subtree is made of the nodes between p and the parenthesis closing parent
+				final long end = parent == 0 ? trie.length() - 1 : balParen.findClose(parent);
+				return new long[] { index, index + (end - p) / 2 + 1 };
+			}
+
+			if (bitVector.getBoolean(s)) {
+				final long q = balParen.findClose(p) + 1;
+				r += (q - p) / 2;
+				index += (q - p) / 2;
+				if (!trie.getBoolean(q)) return new long[] { index, index + 1 };
+				p = q;
+			}
+			else {
+				parent = p;
+				if (!trie.getBoolean(++p)) return new long[] { index, index + 1 };
+				r++;
+			}
+
+			s++;
+		}
+	}
+
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation records the descent of each key, and resumes the descent of the
+	 * next key from the first node whose discriminating bit lies beyond the common prefix of the two keys.
+	 */
+	@Override
+	public int getLongs(final Iterator<? extends T> keys, final long[] out) {
+		if (size <= 1) return super.getLongs(keys, out);
+		final LongArrayBitVector prev = LongArrayBitVector.getInstance();
+		// For each step of the last descent, the values of p, r, index and s before the step, and the bit tested
+		long[] stepP = new long[16], stepR = new long[16], stepIndex = new long[16], stepS = new long[16], tested = new long[16];
+		stepP[0] = 1;
+		int depth = 0;
+		int i;
+		for (i = 0; i < out.length && keys.hasNext(); i++) {
+			final BitVector bitVector = transform.toBitVector(keys.next()).fast();
+			final long length = bitVector.length();
+			final long lcp = bitVector.longestCommonPrefixLength(prev);
+			// Steps testing a bit in the common prefix take the same decisions
+			int d = Arrays.binarySearch(tested, 0, depth, lcp);
+			if (d < 0) d = -d - 1;
+			if (d == depth) d = Math.max(0, depth - 1);
+			long p = stepP[d], r = stepR[d], index = stepIndex[d], s = stepS[d];
+			long result;
+
+			for (;;) {
+				if (d == stepP.length) {
+					stepP = LongArrays.grow(stepP, d + 1);
+					stepR = LongArrays.grow(stepR, d + 1);
+					stepIndex = LongArrays.grow(stepIndex, d + 1);
+					stepS = LongArrays.grow(stepS, d + 1);
+					tested = LongArrays.grow(tested, d + 1);
+				}
+				stepP[d] = p;
+				stepR[d] = r;
+				stepIndex[d] = index;
+				stepS[d] = s;
+				s += (int)skips.getLong(r);
+				tested[d++] = s;
+				if (s >= length) {
+					result = defRetValue;
+					break;
+				}
+
+				if (bitVector.getBoolean(s)) {
+					final long q = balParen.findClose(p) + 1;
+					r += (q - p) / 2;
+					index += (q - p) / 2;
+					if (!trie.getBoolean(q)) {
+						result = index;
+						break;
+					}
+					p = q;
+				}
+				else {
+					if (!trie.getBoolean(++p)) {
+						result = index;
+						break;
+					}
+					r++;
+				}
+
+				s++;
+			}
+
+			depth = d;
+			out[i] = result;
+			prev.replace(bitVector);
+		}
+		return i;
+	}
+
 	public HollowTrieMonotoneMinimalPerfectHashFunction(final Iterable<? extends T> iterable, final TransformationStrategy<? super T> transform) {
 		this(iterable.iterator(), transform);
 	}
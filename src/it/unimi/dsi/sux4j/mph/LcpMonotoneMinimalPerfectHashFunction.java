@@ -361,6 +361,46 @@ public class LcpMonotoneMinimalPerfectHashFunction<T> extends AbstractHashFuncti
 		return result < 0 || result >= n ? defRetValue : result;
 	}
 
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation computes the hash state of each key incrementally starting from that
+	 * of the previous key, and looks up the bucket of a longest common prefix only if it
+	 * differs from that of the previous key.
+	 */
+	@Override
+	public int getLongs(final Iterator<? extends T> keys, final long[] out) {
+		if (n == 0) return super.getLongs(keys, out);
+		final LongArrayBitVector prev = LongArrayBitVector.getInstance();
+		final long[] signature = new long[2];
+		long[] state = null;
+		// The length of the longest common prefix of the bucket of the previous key, or -1
+		long prevPrefix = -1;
+		long prevBucket = 0;
+		int i;
+		for (i = 0; i < out.length && keys.hasNext(); i++) {
+			final BitVector bitVector = transform.toBitVector(keys.next()).fast();
+			final long lcp = bitVector.longestCommonPrefixLength(prev);
+			state = Hashes.preprocessSpooky4(bitVector, seed, state, lcp);
+			Hashes.spooky4(bitVector, bitVector.length(), seed, state, signature);
+			final long value = offsetLcpLength.getLongBySignature(signature);
+			final long prefix = value >>> log2BucketSize;
+			prev.replace(bitVector);
+			if (prefix > bitVector.length()) {
+				prevPrefix = -1;
+				out[i] = defRetValue;
+				continue;
+			}
+			if (prefix != prevPrefix || lcp < prefix) {
+				prevBucket = lcp2Bucket.getLong(bitVector.subVector(0, prefix));
+				prevPrefix = prefix;
+			}
+			final long result = (prevBucket << log2BucketSize) + (value & bucketSizeMask);
+			if (signatureMask != 0) out[i] = result < 0 || result >= n || signatures.getLong(result) != (signature[0] & signatureMask) ? defRetValue : result;
+			else out[i] = result < 0 || result >= n ? defRetValue : result;
+		}
+		return i;
+	}
+
 	@Override
 	public long size64() {
 		return n;
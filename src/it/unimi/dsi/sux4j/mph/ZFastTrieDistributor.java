@@ -620,10 +620,88 @@ public class ZFastTrieDistributor<T> extends AbstractObject2LongFunction<T> impl
 
 	}
 
+	/** The state of a batch computation, which records the fat binary search and the exit of the last
+	 * key so that they can be partially reused by the next key.
+	 *
+	 * @see #getLongByBitVectorSignatureAndState(BitVector, long[], long[], long, Descent)
+	 */
+	static final class Descent {
+		/** The prefix lengths tested by the fat binary search of the last key. */
+		private final long[] prefix = new long[Long.SIZE + 1];
+		/** The result of {@link ZFastTrieDistributor#signatures} on the corresponding tested prefix. */
+		private final long[] data = new long[Long.SIZE + 1];
+		/** The number of valid entries in {@link #prefix} and {@link #data}. */
+		private int tests;
+		/** The length of the node string of the last key, or -1 if the last key did not reach the ranker. */
+		private long exitLength = -1;
+		/** The behaviour of the last key. */
+		private int exitBehaviour;
+		/** The bucket of the last key. */
+		private long bucket;
+	}
+
 	private long getNodeStringLength(final BitVector v) {
 		return getNodeStringLength(v, Hashes.preprocessSpooky4(v, seed));
 	}
 
+	/** Computes the node string length of a key during a batch computation, reusing the
+	 * lookups of the fat binary search of the previous key on prefixes shorter than the common prefix.
+	 *
+	 * @param v the key.
+	 * @param signature the signature of {@code v}.
+	 * @param state the state returned by {@link Hashes#preprocessSpooky4(BitVector, long)}.
+	 * @param lcp the length of the longest common prefix between {@code v} and the previous key.
+	 * @param descent the state of the batch computation.
+	 * @return the node string length of {@code v}.
+	 */
+	private long getNodeStringLength(final BitVector v, final long[] signature, final long[] state, final long lcp, final Descent descent) {
+		if (mistakeSignatures.contains((int)signature[0])) {
+			descent.tests = 0;
+			return corrections.getLong(v);
+		}
+
+		final long[] prefix = descent.prefix;
+		final long[] data = descent.data;
+		final int prevTests = descent.tests;
+		int t = 0;
+		long r = v.length();
+		long l = 0;
+		int i = Fast.mostSignificantBit(r);
+		long mask = 1L << i;
+		final long prefixSignature[] = new long[2];
+		while(r - l > 1) {
+			if ((l & mask) != (r - 1 & mask)) {
+				final long f = (r - 1) & (-1L << i);
+				final long d;
+				if (t < prevTests && prefix[t] == f && f <= lcp) d = data[t];
+				else {
+					Hashes.spooky4(v, f, seed, state, prefixSignature);
+					d = signatures.getLongBySignature(prefixSignature);
+					prefix[t] = f;
+					data[t] = d;
+				}
+				t++;
+
+				if (d == -1) r = f;
+				else {
+					final long g = d & logWMask;
+					if (g > v.length()) r = f;
+					else {
+						final long h = Hashes.spooky4(v, g, seed, state);
+						if ((d >>> logW) == (h & signatureMask) && g >= f) l = g;
+						else r = f;
+					}
+				}
+			}
+
+			i--;
+			mask >>= 1;
+		}
+
+		descent.tests = t;
+		return l;
+	}
+
 	private long getNodeStringLength(final BitVector v, final long[] state) {
 		if (DEBUG) System.err.println("getNodeStringLength(" + v + ")...");
 
@@ -696,6 +774,17 @@ public class ZFastTrieDistributor<T> extends AbstractObject2LongFunction<T> impl
 		final long length = getNodeStringLength(v, state);
 		if (DDDEBUG) System.err.println("getNodeStringLength(v)=" + length);
 		if (length >= v.length()) return -1;
+		return exitBucket(v, length, b);
+	}
+
+	/** Returns the bucket of a key given its node string length and behaviour.
+	 *
+	 * @param v the key.
+	 * @param length the node string length of {@code v}.
+	 * @param b the behaviour of {@code v}.
+	 * @return the bucket of {@code v}.
+	 */
+	private long exitBucket(final BitVector v, final long length, final int b) {
 		final BitVector key = v.subVector(0, length).copy();
 		final boolean bit = v.getBoolean(length);
 
@@ -726,6 +815,36 @@ public class ZFastTrieDistributor<T> extends AbstractObject2LongFunction<T> impl
 		}
 	}
 
+	/** Returns the bucket of a key during a batch computation on a sequence of keys.
+	 *
+	 * <p>The result is the same as that of {@link #getLongByBitVectorSignatureAndState(BitVector, long[], long[])},
+	 * but signature lookups performed by the fat binary search of the previous key of the batch on
+	 * prefixes shorter than {@code lcp}, as well as the final ranking of the exit node, are reused whenever possible.
+	 *
+	 * @param v the key.
+	 * @param signature the signature of {@code v}.
+	 * @param state the state returned by {@link Hashes#preprocessSpooky4(BitVector, long)}.
+	 * @param lcp the length of the longest common prefix between {@code v} and the previous key of the batch (0 for the first key).
+	 * @param descent the state of the batch computation, which will be updated.
+	 * @return the bucket of {@code v}.
+	 */
+	long getLongByBitVectorSignatureAndState(final BitVector v, final long[] signature, final long[] state, final long lcp, final Descent descent) {
+		if (noDelimiters) return 0;
+		final int b = (int)behaviour.getLongBySignature(signature);
+		if (emptyTrie) return b;
+		final long length = getNodeStringLength(v, signature, state, lcp, descent);
+		if (length >= v.length()) {
+			descent.exitLength = -1;
+			return -1;
+		}
+		// Same exit node, same exit direction and same behaviour imply the same bucket.
+		if (length == descent.exitLength && lcp > length && b == descent.exitBehaviour) return descent.bucket;
+
+		descent.exitLength = length;
+		descent.exitBehaviour = b;
+		return descent.bucket = exitBucket(v, length, b);
+	}
+
 	private long numBitsForMistakes() {
 		if (emptyTrie) return 0;
 		return corrections.numBits() + mistakeSignatures.size() * (long)Integer.SIZE;
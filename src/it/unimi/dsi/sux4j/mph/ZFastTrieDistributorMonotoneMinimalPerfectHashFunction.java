@@ -30,6 +30,7 @@ import java.io.InputStreamReader;
 import java.io.Serializable;
 import java.nio.charset.Charset;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.zip.GZIPInputStream;
 
 import org.apache.commons.math3.random.RandomGenerator;
@@ -50,6 +51,7 @@ import com.martiansoftware.jsap.stringparsers.ForNameStringParser;
 import it.unimi.dsi.bits.BitVector;
 import it.unimi.dsi.bits.Fast;
 import it.unimi.dsi.bits.HuTuckerTransformationStrategy;
+import it.unimi.dsi.bits.LongArrayBitVector;
 import it.unimi.dsi.bits.TransformationStrategies;
 import it.unimi.dsi.bits.TransformationStrategy;
 import it.unimi.dsi.fastutil.io.BinIO;
@@ -265,6 +267,36 @@ public class ZFastTrieDistributorMonotoneMinimalPerfectHashFunction<T> extends A
 		return result < 0 || result >= size ? defRetValue : result;
 	}
 
+	/** {@inheritDoc}
+	 *
+	 * <p>This implementation computes the hash state of each key incrementally starting from that
+	 * of the previous key, and reuses the part of the fat binary search of the previous key
+	 * on their common prefix, and the bucket of the previous key if they exit the
+	 * trie at the same node in the same direction.
+	 */
+	@Override
+	public int getLongs(final Iterator<? extends T> keys, final long[] out) {
+		if (size == 0) return super.getLongs(keys, out);
+		final LongArrayBitVector prev = LongArrayBitVector.getInstance();
+		final ZFastTrieDistributor.Descent descent = new ZFastTrieDistributor.Descent();
+		final long[] signature = new long[2];
+		long[] state = null;
+		int i;
+		for (i = 0; i < out.length && keys.hasNext(); i++) {
+			final BitVector bv = transform.toBitVector(keys.next()).fast();
+			final long lcp = bv.longestCommonPrefixLength(prev);
+			state = Hashes.preprocessSpooky4(bv, seed, state, lcp);
+			Hashes.spooky4(bv, bv.length(), seed, state, signature);
+
+			final long bucket = distributor.getLongByBitVectorSignatureAndState(bv, signature, state, lcp, descent);
+			final long result = (bucket << log2BucketSize) + offset.getLongBySignature(signature);
+			if (signatureMask != 0) out[i] = result < 0 || result >= size || signatures.getLong(result) != (signature[0] & signatureMask) ? defRetValue : result;
+			else out[i] = result < 0 || result >= size ? defRetValue : result;
+			prev.replace(bv);
+		}
+		return i;
+	}
+
 	@Override
 	public long size64() {
 		return size;
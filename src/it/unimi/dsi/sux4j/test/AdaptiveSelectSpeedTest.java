@@ -0,0 +1,105 @@
+package it.unimi.dsi.sux4j.test;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+import com.martiansoftware.jsap.UnflaggedOption;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.sux4j.bits.AdaptiveSelect;
+import it.unimi.dsi.sux4j.bits.HintedBsearchSelect;
+import it.unimi.dsi.sux4j.bits.Rank9;
+import it.unimi.dsi.sux4j.bits.Select;
+import it.unimi.dsi.sux4j.bits.Select9;
+import it.unimi.dsi.sux4j.bits.SimpleSelect;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+/** Compares the space and speed of {@link AdaptiveSelect}, {@link SimpleSelect}, {@link Select9} and {@link HintedBsearchSelect}
+ * on uniform, clustered and power-law bit vectors. The space of {@link Select9} and {@link HintedBsearchSelect} includes the underlying {@link Rank9}. */
+
+public class AdaptiveSelectSpeedTest {
+
+	public static void main(final String[] arg) throws JSAPException {
+
+		final SimpleJSAP jsap = new SimpleJSAP(AdaptiveSelectSpeedTest.class.getName(), "Compares select implementations on uniform, clustered and power-law bit vectors.",
+				new Parameter[] {
+					new UnflaggedOption("numBits", JSAP.LONGSIZE_PARSER, "64Mi", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The number of bits."),
+					new FlaggedOption("density", JSAP.DOUBLE_PARSER, ".5", JSAP.NOT_REQUIRED, 'd', "density", "The density of the uniform bit vector."),
+					new FlaggedOption("exponent", JSAP.DOUBLE_PARSER, "1.1", JSAP.NOT_REQUIRED, 'e', "exponent", "The exponent of the power law of gaps."),
+					new FlaggedOption("numPos", JSAP.INTSIZE_PARSER, "1Mi", JSAP.NOT_REQUIRED, 'p', "positions", "The number of positions to test"),
+		});
+
+		final JSAPResult jsapResult = jsap.parse(arg);
+		if (jsap.messagePrinted()) return;
+
+		final long numBits = jsapResult.getLong("numBits");
+		final double density = jsapResult.getDouble("density");
+		final double exponent = jsapResult.getDouble("exponent");
+		final int numPos = jsapResult.getInt("numPos");
+
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+
+		final LongArrayBitVector uniform = LongArrayBitVector.getInstance().length(numBits);
+		for(long i = 0; i < numBits; i++) if (r.nextDouble() < density) uniform.set(i);
+
+		// Dense clusters of random density separated by long empty gaps
+		final LongArrayBitVector clustered = LongArrayBitVector.getInstance().length(numBits);
+		for(long p = 0; p < numBits;) {
+			final long end = Math.min(numBits, p + r.nextInt(1 << 20));
+			final double d = r.nextDouble();
+			for(; p < end; p++) if (r.nextDouble() < d) clustered.set(p);
+			p += r.nextInt(1 << 21);
+		}
+
+		final LongArrayBitVector powerLaw = LongArrayBitVector.getInstance().length(numBits);
+		for(long p = 0; p < numBits; p += (long)Math.pow(1 - r.nextDouble(), -1 / exponent)) powerLaw.set(p);
+
+		final String[] name = { "uniform", "clustered", "power-law" };
+		final LongArrayBitVector[] bitVector = { uniform, clustered, powerLaw };
+
+		for(int v = 0; v < bitVector.length; v++) {
+			final long numOnes = bitVector[v].count();
+			System.err.println("=== " + name[v] + " (" + numOnes + " ones) ===");
+			if (numOnes == 0) continue;
+			final long[] rank = new long[numPos];
+			for(int i = numPos; i-- != 0;) rank[i] = (r.nextLong() & 0x7FFFFFFFFFFFFFFFL) % numOnes;
+
+			final Rank9 rank9 = new Rank9(bitVector[v]);
+			final Select[] select = { new AdaptiveSelect(bitVector[v]), new SimpleSelect(bitVector[v]), new Select9(rank9), new HintedBsearchSelect(rank9) };
+			final long[] space = { select[0].numBits(), select[1].numBits(), select[2].numBits() + rank9.numBits(), select[3].numBits() + rank9.numBits() };
+
+			for(int k = 5; k-- != 0;) {
+				long u = 0;
+				for(int s = 0; s < select.length; s++) {
+					long time = -System.nanoTime();
+					for(int i = 0; i < numPos; i++) u += select[s].select(rank[i]);
+					time += System.nanoTime();
+					System.err.println(select[s].getClass().getSimpleName() + ": " + 100.0 * space[s] / numBits + "% space, " + time / (double)numPos + " ns/select" + (u == 0 ? " " : ""));
+				}
+			}
+		}
+	}
+}
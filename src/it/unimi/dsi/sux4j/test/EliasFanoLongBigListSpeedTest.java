@@ -84,5 +84,34 @@ public class EliasFanoLongBigListSpeedTest {
 			time += System.nanoTime();
 			System.err.println(time / 1E9 + "s, " + time / (double)(numPos * bulk) + " ns/element");
 		}
+
+		final long n = eliasFanoLongBigList.size64();
+		System.err.println("Full scan using getLong():");
+		for(int k = 10; k-- != 0;) {
+			time = - System.nanoTime();
+			long u = 0;
+			for(long i = 0; i < n; i++) u += eliasFanoLongBigList.getLong(i);
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + time / (double)n + " ns/element" + (u == 0 ? " " : ""));
+		}
+
+		System.err.println("Full scan using an iterator:");
+		for(int k = 10; k-- != 0;) {
+			time = - System.nanoTime();
+			long u = 0;
+			for(final EliasFanoLongBigList.EliasFanoLongBigListIterator iterator = eliasFanoLongBigList.iterator(); iterator.hasNext();) u += iterator.nextLong();
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + time / (double)n + " ns/element" + (u == 0 ? " " : ""));
+		}
+
+		System.err.println("Full scan using block decoding:");
+		for(int k = 10; k-- != 0;) {
+			time = - System.nanoTime();
+			long u = 0;
+			final EliasFanoLongBigList.EliasFanoLongBigListIterator iterator = eliasFanoLongBigList.iterator();
+			for(int d; (d = iterator.next(dest)) != 0;) for(int i = 0; i < d; i++) u += dest[i];
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + time / (double)n + " ns/element" + (u == 0 ? " " : ""));
+		}
 	}
 }
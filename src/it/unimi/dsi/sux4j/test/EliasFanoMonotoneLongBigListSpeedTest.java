@@ -21,6 +21,8 @@ package it.unimi.dsi.sux4j.test;
  */
 
 
+import java.util.Arrays;
+
 import org.apache.commons.math3.random.RandomGenerator;
 
 import com.martiansoftware.jsap.FlaggedOption;
@@ -33,6 +35,7 @@ import com.martiansoftware.jsap.UnflaggedOption;
 
 import it.unimi.dsi.fastutil.ints.IntArrayList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.sux4j.util.EliasFanoIndexedMonotoneLongBigList;
 import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
 import it.unimi.dsi.util.XoRoShiRo128PlusRandomGenerator;
 
@@ -84,5 +87,64 @@ public class EliasFanoMonotoneLongBigListSpeedTest {
 			time += System.nanoTime();
 			System.err.println(time / 1E9 + "s, " + time / (double)(numPos * bulk) + " ns/element");
 		}
+
+		final long n = eliasFanoMonotoneLongBigList.size64();
+		System.err.println("Full scan using getLong():");
+		for(int k = 10; k-- != 0;) {
+			time = - System.nanoTime();
+			long u = 0;
+			for(long i = 0; i < n; i++) u += eliasFanoMonotoneLongBigList.getLong(i);
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + time / (double)n + " ns/element" + (u == 0 ? " " : ""));
+		}
+
+		System.err.println("Full scan using an iterator:");
+		for(int k = 10; k-- != 0;) {
+			time = - System.nanoTime();
+			long u = 0;
+			for(final EliasFanoMonotoneLongBigList.EliasFanoMonotoneLongBigListIterator iterator = eliasFanoMonotoneLongBigList.iterator(); iterator.hasNext();) u += iterator.nextLong();
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + time / (double)n + " ns/element" + (u == 0 ? " " : ""));
+		}
+
+		System.err.println("Full scan using block decoding:");
+		for(int k = 10; k-- != 0;) {
+			time = - System.nanoTime();
+			long u = 0;
+			final EliasFanoMonotoneLongBigList.EliasFanoMonotoneLongBigListIterator iterator = eliasFanoMonotoneLongBigList.iterator();
+			for(int d; (d = iterator.next(dest)) != 0;) for(int i = 0; i < d; i++) u += dest[i];
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + time / (double)n + " ns/element" + (u == 0 ? " " : ""));
+		}
+
+		// Increasing lower bounds, as in a list intersection
+		final long[] lowerBound = new long[numPos];
+		for(int i = numPos; i-- != 0;) lowerBound[i] = elements[position[i]] + 1;
+		Arrays.sort(lowerBound);
+		final EliasFanoIndexedMonotoneLongBigList eliasFanoIndexedMonotoneLongBigList = new EliasFanoIndexedMonotoneLongBigList(LongArrayList.wrap(elements));
+		System.err.println("First element greater than or equal to a bound using getLong():");
+		for(int k = 10; k-- != 0;) {
+			time = - System.nanoTime();
+			long from = 0;
+			for(int i = 0; i < numPos; i++) {
+				long to = n;
+				while(from < to) {
+					final long mid = (from + to) >>> 1;
+					if (eliasFanoMonotoneLongBigList.getLong(mid) < lowerBound[i]) from = mid + 1;
+					else to = mid;
+				}
+			}
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + time / (double)numPos + " ns/element");
+		}
+
+		System.err.println("First element greater than or equal to a bound using nextGEQ():");
+		for(int k = 10; k-- != 0;) {
+			time = - System.nanoTime();
+			final EliasFanoIndexedMonotoneLongBigList.SkippingIterator iterator = eliasFanoIndexedMonotoneLongBigList.skippingIterator();
+			for(int i = 0; i < numPos; i++) iterator.nextGEQ(lowerBound[i]);
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + time / (double)numPos + " ns/element");
+		}
 	}
 }
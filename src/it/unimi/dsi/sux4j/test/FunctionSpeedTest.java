@@ -44,6 +44,7 @@ import it.unimi.dsi.fastutil.longs.LongArrays;
 import it.unimi.dsi.fastutil.objects.Object2LongFunction;
 import it.unimi.dsi.io.FileLinesCollection;
 import it.unimi.dsi.lang.MutableString;
+import it.unimi.dsi.sux4j.mph.AbstractHashFunction;
 
 public class FunctionSpeedTest {
 	private final static int NUM_WARMUPS = 4;
@@ -60,6 +61,7 @@ public class FunctionSpeedTest {
 					new FlaggedOption("n", JSAP.INTSIZE_PARSER, "1000000", JSAP.NOT_REQUIRED, 'n',  "number-of-strings", "The (maximum) number of strings used for random testing."),
 					new FlaggedOption("save", JSAP.STRING_PARSER, JSAP.NO_DEFAULT, JSAP.NOT_REQUIRED, 's', "save", "In case of a random test, save to this file the strings used."),
 					new Switch("check", 'c', "check", "Check that each string in the list is mapped to its ordinal position."),
+					new FlaggedOption("batch", JSAP.INTSIZE_PARSER, "0", JSAP.NOT_REQUIRED, 'b', "batch", "If nonzero, in sequential tests compute values in batches of this size using AbstractHashFunction.getLongs()."),
 					new UnflaggedOption("function", JSAP.STRING_PARSER, JSAP.NO_DEFAULT, JSAP.REQUIRED, JSAP.NOT_GREEDY, "The filename for the serialised function."),
 					new UnflaggedOption("stringFile", JSAP.STRING_PARSER, JSAP.NO_DEFAULT, JSAP.REQUIRED, JSAP.NOT_GREEDY, "Read strings from this file."),
 		});
@@ -76,16 +78,19 @@ public class FunctionSpeedTest {
 		final boolean random = jsapResult.getBoolean("random");
 		final String save = jsapResult.getString("save");
 		final int maxStrings = jsapResult.getInt("n");
+		final int batch = jsapResult.getInt("batch");
 
 		if (check && random) throw new IllegalArgumentException("You cannot perform checks in random tests");
 		if (shuffle && !random) throw new IllegalArgumentException("You can shuffle random tests only");
 		if (jsapResult.userSpecified("n") && ! random) throw new IllegalArgumentException("The number of string is meaningful for random tests only");
 		if (save != null && ! random) throw new IllegalArgumentException("You can save test string only for random tests");
+		if (batch != 0 && random) throw new IllegalArgumentException("Batches are meaningful for sequential tests only");
 
 		@SuppressWarnings("unchecked")
 		final Object2LongFunction<? extends CharSequence> function = (Object2LongFunction<? extends CharSequence>)BinIO.loadObject(functionName);
 		final FileLinesCollection flc = new FileLinesCollection(stringFile, encoding.name(), zipped);
 		final long size = flc.size();
+		if (batch != 0 && ! (function instanceof AbstractHashFunction)) throw new IllegalArgumentException("Batches are supported by instances of AbstractHashFunction only");
 
 		if (random) {
 			final int n = (int)Math.min(maxStrings, size);
@@ -149,7 +154,21 @@ public class FunctionSpeedTest {
 
 				long time = -System.nanoTime();
 				long index;
-				for(long i = 0; i < size; i++) {
+				if (batch != 0) {
+					@SuppressWarnings("unchecked")
+					final AbstractHashFunction<CharSequence> hashFunction = (AbstractHashFunction<CharSequence>)function;
+					final long[] out = new long[batch];
+					for(long i = 0; i < size;) {
+						final int c = hashFunction.getLongs(iterator, out);
+						for(int j = 0; j < c; j++, i++) {
+							index = out[j];
+							t ^= index;
+							if (check && index != i) throw new AssertionError(index + " != " + i);
+							if ((i & 0xFFFFF) == 0) System.err.print('.');
+						}
+					}
+				}
+				else for(long i = 0; i < size; i++) {
 					index = function.getLong(iterator.next());
 					t ^= index;
 					if (check && index != i) throw new AssertionError(index + " != " + i);
@@ -0,0 +1,99 @@
+package it.unimi.dsi.sux4j.test;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2016-2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+import com.martiansoftware.jsap.UnflaggedOption;
+
+import it.unimi.dsi.fastutil.longs.LongAVLTreeSet;
+import it.unimi.dsi.fastutil.longs.LongBidirectionalIterator;
+import it.unimi.dsi.fastutil.longs.LongRBTreeSet;
+import it.unimi.dsi.fastutil.longs.LongSortedSet;
+import it.unimi.dsi.sux4j.util.LongYFastTrie;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+/** Compares the speed of a {@link LongYFastTrie} with that of fastutil's {@link LongRBTreeSet} and {@link LongAVLTreeSet}. */
+
+public class LongYFastTrieSpeedTest {
+
+	public static void main(final String[] arg) throws JSAPException {
+
+		final SimpleJSAP jsap = new SimpleJSAP(LongYFastTrieSpeedTest.class.getName(), "Compares the speed of a y-fast trie on longs with red-black and AVL trees.",
+				new Parameter[] {
+					new UnflaggedOption("n", JSAP.INTSIZE_PARSER, "1Mi", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The number of elements."),
+					new FlaggedOption("bits", JSAP.INTEGER_PARSER, "64", JSAP.NOT_REQUIRED, 'b', "bits", "The number of random bits of each element."),
+					new FlaggedOption("times", JSAP.INTSIZE_PARSER, "5", JSAP.NOT_REQUIRED, 't', "times", "The number of times the test must be repeated."),
+		});
+
+		final JSAPResult jsapResult = jsap.parse(arg);
+		if (jsap.messagePrinted()) return;
+
+		final int n = jsapResult.getInt("n");
+		final int bits = jsapResult.getInt("bits");
+		final int times = jsapResult.getInt("times");
+
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final long[] element = new long[n], query = new long[n];
+		for(int i = n; i-- != 0;) {
+			element[i] = r.nextLong() >>> 64 - bits;
+			query[i] = r.nextLong() >>> 64 - bits;
+		}
+
+		for(int k = times; k-- != 0;) {
+			for(int type = 0; type < 3; type++) {
+				final LongSortedSet set = type == 0 ? new LongYFastTrie() : type == 1 ? new LongRBTreeSet() : new LongAVLTreeSet();
+				final LongYFastTrie trie = type == 0 ? (LongYFastTrie)set : null;
+				final String name = type == 0 ? "Y-fast trie: " : type == 1 ? "RB tree:     " : "AVL tree:    ";
+				long u = 0;
+
+				long time = -System.nanoTime();
+				for(int i = 0; i < n; i++) set.add(element[i]);
+				time += System.nanoTime();
+				System.err.print(name + "add " + (double)time / n + " ns/element, ");
+
+				time = -System.nanoTime();
+				for(int i = 0; i < n; i++) if (set.contains(query[i])) u++;
+				time += System.nanoTime();
+				System.err.print("contains " + (double)time / n + " ns/element, ");
+
+				// On trees, we use iterators positioned at the query, as this is the only way to get a successor without creating a view
+				time = -System.nanoTime();
+				if (trie != null) for(int i = 0; i < n; i++) u += trie.succ(query[i]);
+				else for(int i = 0; i < n; i++) {
+					final LongBidirectionalIterator iterator = set.iterator(query[i]);
+					if (iterator.hasNext()) u += iterator.nextLong();
+				}
+				time += System.nanoTime();
+				System.err.print("succ " + (double)time / n + " ns/element, ");
+
+				time = -System.nanoTime();
+				for(int i = 0; i < n; i++) set.remove(element[i]);
+				time += System.nanoTime();
+				System.err.println("remove " + (double)time / n + " ns/element" + (u == 0 ? " " : ""));
+			}
+		}
+	}
+}
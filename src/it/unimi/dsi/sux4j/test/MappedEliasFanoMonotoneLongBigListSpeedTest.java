@@ -0,0 +1,102 @@
+package it.unimi.dsi.sux4j.test;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+import com.martiansoftware.jsap.UnflaggedOption;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
+import it.unimi.dsi.sux4j.util.MappedEliasFanoMonotoneLongBigList;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+/** Compares loading time and access speed of a deserialized {@link EliasFanoMonotoneLongBigList} and of a {@link MappedEliasFanoMonotoneLongBigList}. */
+
+public class MappedEliasFanoMonotoneLongBigListSpeedTest {
+
+	public static void main(final String[] arg) throws JSAPException, IOException, ClassNotFoundException {
+
+		final SimpleJSAP jsap = new SimpleJSAP(MappedEliasFanoMonotoneLongBigListSpeedTest.class.getName(), "Compares deserialized and memory-mapped Elias-Fano monotone lists.",
+				new Parameter[] {
+					new UnflaggedOption("numElements", JSAP.INTSIZE_PARSER, "10Mi", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The number of elements."),
+					new FlaggedOption("numPos", JSAP.INTSIZE_PARSER, "1Mi", JSAP.NOT_REQUIRED, 'p', "positions", "The number of positions to test"),
+		});
+
+		final JSAPResult jsapResult = jsap.parse(arg);
+		if (jsap.messagePrinted()) return;
+
+		final int numElements = jsapResult.getInt("numElements");
+		final int numPos = jsapResult.getInt("numPos");
+
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		final long[] elements = new long[numElements];
+		for(int i = 1; i < numElements; i++) elements[i] = elements[i - 1] + random.nextInt(100);
+		final long[] position = new long[numPos];
+		for(int i = numPos; i-- != 0;) position[i] = random.nextInt(numElements);
+
+		final EliasFanoMonotoneLongBigList list = new EliasFanoMonotoneLongBigList(LongArrayList.wrap(elements));
+		final File serialized = File.createTempFile(MappedEliasFanoMonotoneLongBigListSpeedTest.class.getSimpleName(), "ser");
+		serialized.deleteOnExit();
+		BinIO.storeObject(list, serialized);
+		final File mapped = File.createTempFile(MappedEliasFanoMonotoneLongBigListSpeedTest.class.getSimpleName(), "map");
+		mapped.deleteOnExit();
+		try (MappedOutput out = new MappedOutput(mapped)) {
+			list.dump(out);
+		}
+
+		long time;
+		EliasFanoMonotoneLongBigList deserializedList = null;
+		MappedEliasFanoMonotoneLongBigList mappedList = null;
+
+		for(int k = 5; k-- != 0;) {
+			time = - System.nanoTime();
+			deserializedList = (EliasFanoMonotoneLongBigList)BinIO.loadObject(serialized);
+			time += System.nanoTime();
+			System.err.print("Deserialization: " + time / 1E6 + "ms, ");
+			time = - System.nanoTime();
+			mappedList = MappedEliasFanoMonotoneLongBigList.map(mapped);
+			time += System.nanoTime();
+			System.err.println("mapping: " + time / 1E6 + "ms");
+		}
+
+		for(int k = 10; k-- != 0;) {
+			long u = 0;
+			time = - System.nanoTime();
+			for(int i = 0; i < numPos; i++) u += deserializedList.getLong(position[i]);
+			time += System.nanoTime();
+			System.err.print("getLong(): on-heap " + time / (double)numPos + " ns/element, ");
+			time = - System.nanoTime();
+			for(int i = 0; i < numPos; i++) u -= mappedList.getLong(position[i]);
+			time += System.nanoTime();
+			System.err.println("mapped " + time / (double)numPos + " ns/element" + (u == 0 ? "" : " (mismatch!)"));
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package it.unimi.dsi.sux4j.test;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2016-2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.util.Arrays;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+import com.martiansoftware.jsap.UnflaggedOption;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.sux4j.util.EliasFanoIndexedMonotoneLongBigList;
+import it.unimi.dsi.sux4j.util.PartitionedEliasFanoMonotoneLongBigList;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+/** Compares the space and speed of {@link PartitionedEliasFanoMonotoneLongBigList} and {@link EliasFanoIndexedMonotoneLongBigList}
+ * on a clustered sequence made of regions with different densities. */
+
+public class PartitionedEliasFanoMonotoneLongBigListSpeedTest {
+
+	public static void main(final String[] arg) throws JSAPException {
+
+		final SimpleJSAP jsap = new SimpleJSAP(PartitionedEliasFanoMonotoneLongBigListSpeedTest.class.getName(), "Compares partitioned and plain Elias-Fano monotone lists on clustered data.",
+				new Parameter[] {
+					new UnflaggedOption("numElements", JSAP.INTSIZE_PARSER, "1Mi", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The number of elements."),
+					new FlaggedOption("cluster", JSAP.INTSIZE_PARSER, "1000", JSAP.NOT_REQUIRED, 'c', "cluster", "The average size of a cluster."),
+					new FlaggedOption("numPos", JSAP.INTSIZE_PARSER, "1Mi", JSAP.NOT_REQUIRED, 'p', "positions", "The number of positions to test"),
+		});
+
+		final JSAPResult jsapResult = jsap.parse(arg);
+		if (jsap.messagePrinted()) return;
+
+		final int numElements = jsapResult.getInt("numElements");
+		final int cluster = jsapResult.getInt("cluster");
+		final int numPos = jsapResult.getInt("numPos");
+
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final long[] elements = new long[numElements];
+		long v = 0;
+		for(int i = 0; i < numElements;) {
+			// Alternate dense, medium and sparse clusters
+			final int gap = 1 << 2 * r.nextInt(8);
+			for(int j = 1 + r.nextInt(2 * cluster); j-- != 0 && i < numElements;) elements[i++] = v += r.nextInt(gap) + 1;
+		}
+
+		final long[] position = new long[numPos];
+		for(int i = numPos; i-- != 0;) position[i] = r.nextInt(numElements);
+		final long[] lowerBound = new long[numPos];
+		for(int i = numPos; i-- != 0;) lowerBound[i] = elements[r.nextInt(numElements)];
+		Arrays.sort(lowerBound);
+
+		final EliasFanoIndexedMonotoneLongBigList eliasFano = new EliasFanoIndexedMonotoneLongBigList(LongArrayList.wrap(elements));
+		long time = -System.nanoTime();
+		final PartitionedEliasFanoMonotoneLongBigList partitioned = new PartitionedEliasFanoMonotoneLongBigList(LongArrayList.wrap(elements));
+		time += System.nanoTime();
+		System.err.println("Partitioned construction: " + time / 1E9 + "s");
+		System.err.println("Elias-Fano:             " + (double)eliasFano.numBits() / numElements + " bits/element");
+		System.err.println("Partitioned Elias-Fano: " + (double)partitioned.numBits() / numElements + " bits/element");
+
+		for(int k = 5; k-- != 0;) {
+			long u = 0;
+			time = -System.nanoTime();
+			for(int i = 0; i < numPos; i++) u += eliasFano.getLong(position[i]);
+			time += System.nanoTime();
+			System.err.print("Elias-Fano: getLong() " + time / (double)numPos + " ns/element, ");
+
+			time = -System.nanoTime();
+			final EliasFanoIndexedMonotoneLongBigList.SkippingIterator i0 = eliasFano.skippingIterator();
+			for(int i = 0; i < numPos; i++) u += i0.nextGEQ(lowerBound[i]);
+			time += System.nanoTime();
+			System.err.println("nextGEQ() " + time / (double)numPos + " ns/element");
+
+			time = -System.nanoTime();
+			for(int i = 0; i < numPos; i++) u += partitioned.getLong(position[i]);
+			time += System.nanoTime();
+			System.err.print("Partitioned: getLong() " + time / (double)numPos + " ns/element, ");
+
+			time = -System.nanoTime();
+			final PartitionedEliasFanoMonotoneLongBigList.SkippingIterator i1 = partitioned.skippingIterator();
+			for(int i = 0; i < numPos; i++) u += i1.nextGEQ(lowerBound[i]);
+			time += System.nanoTime();
+			System.err.println("nextGEQ() " + time / (double)numPos + " ns/element" + (u == 0 ? " " : ""));
+		}
+	}
+}
@@ -33,6 +33,8 @@ import com.martiansoftware.jsap.UnflaggedOption;
 
 import it.unimi.dsi.bits.LongArrayBitVector;
 import it.unimi.dsi.sux4j.bits.HintedBsearchSelect;
+import it.unimi.dsi.sux4j.bits.InterleavedRankSelect;
+import it.unimi.dsi.sux4j.bits.RRRRankSelect;
 import it.unimi.dsi.sux4j.bits.Rank16;
 import it.unimi.dsi.sux4j.bits.Rank9;
 import it.unimi.dsi.sux4j.bits.Select9;
@@ -75,49 +77,100 @@ public class RankSelectSpeedTest {
 			selectPosition[i] = (random.nextLong() & 0x7FFFFFFFFFFFFFFFL) % c;
 		}
 
+		final long[] dest = new long[numPos];
 		long time;
 		for(int k = 10; k-- != 0;) {
 			System.out.println("=== Rank 9 ===");
 			final Rank9 rank9 = new Rank9(bitVector);
 			time = - System.currentTimeMillis();
-			for(int i = 0; i < numPos; i++) rank9.rank(rankPosition[i]);
+			for(int i = 0; i < numPos; i++) dest[i] = rank9.rank(rankPosition[i]);
 			time += System.currentTimeMillis();
 			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/rank");
 
+			time = - System.currentTimeMillis();
+			rank9.rank(rankPosition, dest);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/rank (batch)");
+
 			System.out.println("=== Rank 16 ===");
 			final Rank16 rank16 = new Rank16(bitVector);
 			time = - System.currentTimeMillis();
-			for(int i = 0; i < numPos; i++) rank16.rank(rankPosition[i]);
+			for(int i = 0; i < numPos; i++) dest[i] = rank16.rank(rankPosition[i]);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/rank");
+
+			time = - System.currentTimeMillis();
+			rank16.rank(rankPosition, dest);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/rank (batch)");
+
+			System.out.println("=== Interleaved ===");
+			final InterleavedRankSelect interleaved = new InterleavedRankSelect(bitVector);
+			time = - System.currentTimeMillis();
+			for(int i = 0; i < numPos; i++) dest[i] = interleaved.rank(rankPosition[i]);
 			time += System.currentTimeMillis();
 			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/rank");
 
+			time = - System.currentTimeMillis();
+			for(int i = 0; i < numPos; i++) dest[i] = interleaved.select(selectPosition[i]);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select");
+
+			System.out.println("=== RRR ===");
+			final RRRRankSelect rrr = new RRRRankSelect(bitVector);
+			System.err.println(rrr.numBits() / (double)numBits + " bits/bit");
+			time = - System.currentTimeMillis();
+			for(int i = 0; i < numPos; i++) dest[i] = rrr.rank(rankPosition[i]);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/rank");
+
+			time = - System.currentTimeMillis();
+			for(int i = 0; i < numPos; i++) dest[i] = rrr.select(selectPosition[i]);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select");
+
 			System.out.println("=== Hinted bsearch ===");
 			final HintedBsearchSelect hintedBsearchSelect = new HintedBsearchSelect(rank9);
 			time = - System.currentTimeMillis();
-			for(int i = 0; i < numPos; i++) hintedBsearchSelect.select(selectPosition[i]);
+			for(int i = 0; i < numPos; i++) dest[i] = hintedBsearchSelect.select(selectPosition[i]);
 			time += System.currentTimeMillis();
 			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select");
 
 			System.out.println("=== Select9 ===");
 			final Select9 select9 = new Select9(rank9);
 			time = - System.currentTimeMillis();
-			for(int i = 0; i < numPos; i++) select9.select(selectPosition[i]);
+			for(int i = 0; i < numPos; i++) dest[i] = select9.select(selectPosition[i]);
 			time += System.currentTimeMillis();
 			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select");
 
+			time = - System.currentTimeMillis();
+			select9.select(selectPosition, dest);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select (batch)");
+
 			System.out.println("=== Simple ===");
 			final SimpleSelect simpleSelect = new SimpleSelect(bitVector);
 			time = - System.currentTimeMillis();
-			for(int i = 0; i < numPos; i++) simpleSelect.select(selectPosition[i]);
+			for(int i = 0; i < numPos; i++) dest[i] = simpleSelect.select(selectPosition[i]);
 			time += System.currentTimeMillis();
 			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select");
 
+			time = - System.currentTimeMillis();
+			simpleSelect.select(selectPosition, dest);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select (batch)");
+
 			System.out.println("=== Sparse ===");
 			final SparseSelect sparseSelect = new SparseSelect(bitVector);
 			time = - System.currentTimeMillis();
-			for(int i = 0; i < numPos; i++) sparseSelect.select(selectPosition[i]);
+			for(int i = 0; i < numPos; i++) dest[i] = sparseSelect.select(selectPosition[i]);
 			time += System.currentTimeMillis();
 			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select");
+
+			time = - System.currentTimeMillis();
+			sparseSelect.select(selectPosition, dest);
+			time += System.currentTimeMillis();
+			System.err.println(time / 1000.0 + "s, " + (time * 1E6) / numPos + " ns/select (batch)");
 		}
 	}
 }
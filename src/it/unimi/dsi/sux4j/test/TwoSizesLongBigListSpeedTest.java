@@ -27,10 +27,13 @@ import com.martiansoftware.jsap.JSAPException;
 import com.martiansoftware.jsap.JSAPResult;
 import com.martiansoftware.jsap.Parameter;
 import com.martiansoftware.jsap.SimpleJSAP;
+import com.martiansoftware.jsap.Switch;
 import com.martiansoftware.jsap.UnflaggedOption;
 
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.sux4j.scratch.EliasFanoMonotoneLongBigListTables;
+import it.unimi.dsi.sux4j.util.BlockPackedLongBigList;
+import it.unimi.dsi.sux4j.util.DacLongBigList;
 import it.unimi.dsi.sux4j.util.EliasFanoLongBigList;
 import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
 import it.unimi.dsi.sux4j.util.EliasFanoPrefixSumLongBigList;
@@ -46,6 +49,7 @@ public class TwoSizesLongBigListSpeedTest {
 					new UnflaggedOption("numElements", JSAP.INTSIZE_PARSER, "1Mi", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The number of elements."),
 					new UnflaggedOption("density", JSAP.DOUBLE_PARSER, ".5", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The density."),
 					new FlaggedOption("numPos", JSAP.INTSIZE_PARSER, "1Mi", JSAP.NOT_REQUIRED, 'p', "positions", "The number of positions to test"),
+					new Switch("powerLaw", 'P', "power-law", "Use power-law distributed values (the density is used as exponent) instead of zeroes and hundreds."),
 		});
 
 		final JSAPResult jsapResult = jsap.parse(arg);
@@ -54,16 +58,21 @@ public class TwoSizesLongBigListSpeedTest {
 		final int numElements = jsapResult.getInt("numElements");
 		final double density = jsapResult.getDouble("density");
 		final int numPos = jsapResult.getInt("numPos");
+		final boolean powerLaw = jsapResult.getBoolean("powerLaw");
 
 		final XoRoShiRo128PlusRandomGenerator random = new XoRoShiRo128PlusRandomGenerator(0);
 		final LongArrayList list = new LongArrayList(numElements);
-		for(long i = numElements; i-- != 0;) list.add(random.nextDouble() < density ? 0 : 100);
+		if (powerLaw) for(long i = numElements; i-- != 0;) list.add((long)(1 / Math.pow(1 - random.nextDouble(), 1 / density)) - 1);
+		else for(long i = numElements; i-- != 0;) list.add(random.nextDouble() < density ? 0 : 100);
 
 		final int[] position = new int[numPos];
 
 		for(int i = numPos; i-- != 0;) position[i] = (random.nextInt() & 0x7FFFFFFF) % numElements;
 		final TwoSizesLongBigList twoSizes = new TwoSizesLongBigList(list);
 		final EliasFanoLongBigList eliasFano = new EliasFanoLongBigList(list);
+		final DacLongBigList dac = new DacLongBigList(list);
+		final BlockPackedLongBigList blockPacked = new BlockPackedLongBigList(list);
+		final long[] buffer = new long[BlockPackedLongBigList.BLOCK_SIZE];
 		final EliasFanoPrefixSumLongBigList eliasFanoPrefixSum = new EliasFanoPrefixSumLongBigList(list);
 		final long[] elements = list.elements();
 		for(int i = 1; i < list.size(); i++) elements[i] += elements[i - 1];
@@ -85,6 +94,39 @@ public class TwoSizesLongBigListSpeedTest {
 			time += System.nanoTime();
 			System.err.println(time / 1E9 + "s, " + (double)time / numPos + " ns/get");
 
+			System.out.println("=== DacLongBigList === (" + dac.numBits() + " bits, " + dac.levels() + " levels)");
+			time = - System.nanoTime();
+			for(int i = 0; i < numPos; i++) dac.getLong(position[i]);
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + (double)time / numPos + " ns/get");
+
+			time = - System.nanoTime();
+			long u = 0;
+			for(final DacLongBigList.DacLongBigListIterator iterator = dac.iterator(); iterator.hasNext();) u += iterator.nextLong();
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + (double)time / numElements + " ns/element (sequential)" + (u == 0 ? " " : ""));
+
+			System.out.println("=== BlockPackedLongBigList === (" + blockPacked.numBits() + " bits)");
+			time = - System.nanoTime();
+			for(int i = 0; i < numPos; i++) blockPacked.getLong(position[i]);
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + (double)time / numPos + " ns/get");
+
+			time = - System.nanoTime();
+			u = 0;
+			for(final BlockPackedLongBigList.BlockPackedLongBigListIterator iterator = blockPacked.iterator(); iterator.hasNext();) u += iterator.nextLong();
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + (double)time / numElements + " ns/element (sequential)" + (u == 0 ? " " : ""));
+
+			time = - System.nanoTime();
+			u = 0;
+			for(final BlockPackedLongBigList.BlockPackedLongBigListIterator iterator = blockPacked.iterator(); iterator.hasNext();) {
+				final int n = iterator.next(buffer);
+				for(int i = 0; i < n; i++) u += buffer[i];
+			}
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + (double)time / numElements + " ns/element (bulk)" + (u == 0 ? " " : ""));
+
 			System.out.println("=== EliasFanoPrefixSumLongBigList === (" + eliasFanoPrefixSum.numBits() + " bits)");
 			time = - System.nanoTime();
 			for(int i = 0; i < numPos; i++) eliasFanoPrefixSum.getLong(position[i]);
@@ -97,6 +139,12 @@ public class TwoSizesLongBigListSpeedTest {
 			time += System.nanoTime();
 			System.err.println(time / 1E9 + "s, " + (double)time / numPos + " ns/get");
 
+			time = - System.nanoTime();
+			u = 0;
+			for(final EliasFanoLongBigList.EliasFanoLongBigListIterator iterator = eliasFano.iterator(); iterator.hasNext();) u += iterator.nextLong();
+			time += System.nanoTime();
+			System.err.println(time / 1E9 + "s, " + (double)time / numElements + " ns/element (sequential)" + (u == 0 ? " " : ""));
+
 			System.out.println("=== EliasFanoMonotoneLongBigListTables === (" + tables.numBits() + " bits)");
 			time = - System.nanoTime();
 			for(int i = 0; i < numPos; i++) tables.getLong(position[i]);
@@ -0,0 +1,120 @@
+package it.unimi.dsi.sux4j.test;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.zip.GZIPInputStream;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+import com.martiansoftware.jsap.Switch;
+import com.martiansoftware.jsap.UnflaggedOption;
+import com.martiansoftware.jsap.stringparsers.ForNameStringParser;
+
+import it.unimi.dsi.bits.TransformationStrategies;
+import it.unimi.dsi.bits.TransformationStrategy;
+import it.unimi.dsi.io.FastBufferedReader;
+import it.unimi.dsi.io.LineIterator;
+import it.unimi.dsi.lang.MutableString;
+import it.unimi.dsi.sux4j.util.ZFastTrie;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+/** Measures the cost of maintaining order statistics in a {@link ZFastTrie}, and the speed of
+ * {@link ZFastTrie#rank(Object)} and {@link ZFastTrie#select(long)}. */
+
+public class ZFastTrieOrderStatisticsSpeedTest {
+
+	public static void main(final String[] arg) throws NoSuchMethodException, IOException, JSAPException {
+
+		final SimpleJSAP jsap = new SimpleJSAP(ZFastTrieOrderStatisticsSpeedTest.class.getName(), "Tests the speed of a z-fast trie with and without order statistics.",
+				new Parameter[] {
+					new FlaggedOption("encoding", ForNameStringParser.getParser(Charset.class), "UTF-8", JSAP.NOT_REQUIRED, 'e', "encoding", "The term file encoding."),
+					new Switch("iso", 'i', "iso", "Use ISO-8859-1 coding internally (i.e., just use the lower eight bits of each character)."),
+					new Switch("zipped", 'z', "zipped", "The term list is compressed in gzip format."),
+					new FlaggedOption("times", JSAP.INTSIZE_PARSER, "5", JSAP.NOT_REQUIRED, 't', "times", "The number of times the test must be repeated."),
+					new UnflaggedOption("stringFile", JSAP.STRING_PARSER, "-", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The name of a file containing a newline-separated list of strings, or - for standard input."),
+		});
+
+		final JSAPResult jsapResult = jsap.parse(arg);
+		if (jsap.messagePrinted()) return;
+
+		final String stringFile = jsapResult.getString("stringFile");
+		final Charset encoding = (Charset)jsapResult.getObject("encoding");
+		final boolean zipped = jsapResult.getBoolean("zipped");
+		final boolean iso = jsapResult.getBoolean("iso");
+		final int times = jsapResult.getInt("times");
+
+		final InputStream inputStream = "-".equals(stringFile) ? System.in : new FileInputStream(stringFile);
+		final LineIterator lineIterator = new LineIterator(new FastBufferedReader(new InputStreamReader(zipped ? new GZIPInputStream(inputStream) : inputStream, encoding)));
+		final TransformationStrategy<CharSequence> transformationStrategy = iso ? TransformationStrategies.prefixFreeIso() : TransformationStrategies.prefixFreeUtf16();
+
+		System.out.println("Loading strings...");
+		final MutableString[] test = lineIterator.allLines().toArray(new MutableString[0]);
+		inputStream.close();
+		final int n = test.length;
+		Collections.shuffle(Arrays.asList(test), new XoRoShiRo128PlusRandom(0));
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+
+		for(int k = times; k-- != 0;) {
+			for(final boolean orderStatistics : new boolean[] { false, true }) {
+				final ZFastTrie<CharSequence> zFastTrie = new ZFastTrie<>(transformationStrategy, orderStatistics);
+				final String name = orderStatistics ? "With order statistics:    " : "Without order statistics: ";
+
+				long time = -System.nanoTime();
+				for(int j = n; j-- != 0;) zFastTrie.add(test[j]);
+				time += System.nanoTime();
+				System.err.print(name + "add " + (double)time / n + " ns/string, ");
+
+				time = -System.nanoTime();
+				for(int j = n; j-- != 0;) zFastTrie.contains(test[j]);
+				time += System.nanoTime();
+				System.err.print("contains " + (double)time / n + " ns/string, ");
+
+				if (orderStatistics) {
+					time = -System.nanoTime();
+					for(int j = n; j-- != 0;) zFastTrie.rank(test[j]);
+					time += System.nanoTime();
+					System.err.print("rank " + (double)time / n + " ns/string, ");
+
+					time = -System.nanoTime();
+					for(int j = n; j-- != 0;) zFastTrie.select(r.nextInt(n));
+					time += System.nanoTime();
+					System.err.print("select " + (double)time / n + " ns/string, ");
+				}
+
+				time = -System.nanoTime();
+				for(int j = n; j-- != 0;) zFastTrie.remove(test[j]);
+				time += System.nanoTime();
+				System.err.println("remove " + (double)time / n + " ns/string");
+			}
+		}
+	}
+}
@@ -27,6 +27,7 @@ import java.io.InputStreamReader;
 import java.nio.charset.Charset;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.zip.GZIPInputStream;
 
 import com.martiansoftware.jsap.FlaggedOption;
@@ -43,15 +44,59 @@ import it.unimi.dsi.bits.LongArrayBitVector;
 import it.unimi.dsi.bits.TransformationStrategies;
 import it.unimi.dsi.bits.TransformationStrategy;
 import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.objects.ObjectSortedSet;
 import it.unimi.dsi.io.FastBufferedReader;
 import it.unimi.dsi.io.LineIterator;
+import it.unimi.dsi.sux4j.util.ConcurrentZFastTrie;
 import it.unimi.dsi.sux4j.util.ZFastTrie;
 
 public class ZFastTrieSpeedTest {
 
-	public static void main(final String[] arg) throws NoSuchMethodException, IOException, JSAPException, ClassNotFoundException {
+	/** Tests the given elements using several reader threads, possibly while a writer thread removes and adds back elements.
+	 *
+	 * @param zFastTrie a (possibly compact) z-fast trie; it must be a {@link ConcurrentZFastTrie} if {@code writer} is true.
+	 * @param test the elements to test.
+	 * @param threads the number of reader threads.
+	 * @param writer whether to start a writer thread.
+	 * @param times the number of repetitions.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private static void concurrentTest(final ObjectSortedSet zFastTrie, final Object[] test, final int threads, final boolean writer, final int times) throws InterruptedException {
+		if (writer && ! (zFastTrie instanceof ConcurrentZFastTrie)) throw new IllegalArgumentException("A writer thread requires a concurrent z-fast trie");
+		final int n = test.length;
+		for(int k = times; k-- != 0;) {
+			final AtomicBoolean stop = new AtomicBoolean();
+			final long[] writes = new long[1];
+			final Thread writerThread = new Thread(() -> {
+				for(int j = 0; ! stop.get(); j++) {
+					final Object o = test[j % n];
+					if (zFastTrie.remove(o)) zFastTrie.add(o);
+					writes[0]++;
+				}
+			});
+			final Thread[] reader = new Thread[threads];
+			for(int t = threads; t-- != 0;) {
+				final int offset = (int)((long)n * t / threads);
+				reader[t] = new Thread(() -> {
+					for(int j = n; j-- != 0;) zFastTrie.contains(test[(j + offset) % n]);
+				});
+			}
+
+			if (writer) writerThread.start();
+			long time = -System.nanoTime();
+			for(final Thread t : reader) t.start();
+			for(final Thread t : reader) t.join();
+			time += System.nanoTime();
+			stop.set(true);
+			if (writer) writerThread.join();
 
-		final SimpleJSAP jsap = new SimpleJSAP(ZFastTrieSpeedTest.class.getName(), "Tests the speed of a z-fast trie.",
+			System.err.println(time / 1E9 + "s, " + (double)time / n + " ns/vector/thread, " + ((double)n * threads * 1E3) / time + " Mqueries/s" + (writer ? ", " + writes[0] + " remove/add pairs" : ""));
+		}
+	}
+
+	public static void main(final String[] arg) throws NoSuchMethodException, IOException, JSAPException, ClassNotFoundException, InterruptedException {
+
+		final SimpleJSAP jsap = new SimpleJSAP(ZFastTrieSpeedTest.class.getName(), "Tests the speed of a z-fast trie (a ZFastTrie or a CompactZFastTrie).",
 				new Parameter[] {
 					new FlaggedOption("encoding", ForNameStringParser.getParser(Charset.class), "UTF-8", JSAP.NOT_REQUIRED, 'e', "encoding", "The term file encoding."),
 					new Switch("iso", 'i', "iso", "Use ISO-8859-1 coding internally (i.e., just use the lower eight bits of each character)."),
@@ -59,7 +104,9 @@ public class ZFastTrieSpeedTest {
 					new Switch("zipped", 'z', "zipped", "The term list is compressed in gzip format."),
 					new FlaggedOption("n", JSAP.INTSIZE_PARSER, "100000", JSAP.NOT_REQUIRED, 'n', "n", "The number of elements to test."),
 					new FlaggedOption("times", JSAP.INTSIZE_PARSER, "10", JSAP.NOT_REQUIRED, 't', "times", "The number of times the set must be repeated."),
-					new UnflaggedOption("trie", JSAP.STRING_PARSER, JSAP.NO_DEFAULT, JSAP.REQUIRED, JSAP.NOT_GREEDY, "The filename for the serialised z-fast trie."),
+					new FlaggedOption("threads", JSAP.INTSIZE_PARSER, "1", JSAP.NOT_REQUIRED, 'T', "threads", "The number of reader threads."),
+					new Switch("writer", 'w', "writer", "Run a writer thread removing and adding back the test elements (requires a trie built with --concurrent)."),
+					new UnflaggedOption("trie", JSAP.STRING_PARSER, JSAP.NO_DEFAULT, JSAP.REQUIRED, JSAP.NOT_GREEDY, "The filename for the serialised (possibly compact) z-fast trie."),
 					new UnflaggedOption("stringFile", JSAP.STRING_PARSER, "-", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The name of a file containing a newline-separated list of strings, or - for standard input."),
 		});
 
@@ -74,10 +121,12 @@ public class ZFastTrieSpeedTest {
 		final boolean bitVector = jsapResult.getBoolean("bitVector");
 		final int n = jsapResult.getInt("n");
 		final int times = jsapResult.getInt("times");
+		final int threads = jsapResult.getInt("threads");
+		final boolean writer = jsapResult.getBoolean("writer");
 
 		System.out.println("Loading trie...");
 		@SuppressWarnings("rawtypes")
-		final ZFastTrie zFastTrie = (ZFastTrie)BinIO.loadObject(trieName);
+		final ObjectSortedSet zFastTrie = (ObjectSortedSet)BinIO.loadObject(trieName);
 
 		final InputStream inputStream = "-".equals(stringFile) ? System.in : new FileInputStream(stringFile);
 
@@ -99,6 +148,10 @@ public class ZFastTrieSpeedTest {
 
 			Collections.shuffle(Arrays.asList(test));
 			System.out.println("Testing...");
+			if (threads > 1 || writer) {
+				concurrentTest(zFastTrie, test, threads, writer, times);
+				return;
+			}
 			for(int k = times; k-- != 0;) {
 				long time = -System.currentTimeMillis();
 				for(int j = n; j-- != 0;) {
@@ -121,6 +174,10 @@ public class ZFastTrieSpeedTest {
 
 			Collections.shuffle(Arrays.asList(test));
 			System.out.println("Testing...");
+			if (threads > 1 || writer) {
+				concurrentTest(zFastTrie, test, threads, writer, times);
+				return;
+			}
 			for(int k = times; k-- != 0;) {
 				long time = -System.currentTimeMillis();
 				for(int j = n; j-- != 0;) {
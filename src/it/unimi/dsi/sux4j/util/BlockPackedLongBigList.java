@@ -0,0 +1,456 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.util;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.bytes.ByteIterable;
+import it.unimi.dsi.fastutil.ints.IntIterable;
+import it.unimi.dsi.fastutil.longs.AbstractLongBigList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongBigListIterator;
+import it.unimi.dsi.fastutil.longs.LongIterable;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongIterators;
+import it.unimi.dsi.fastutil.shorts.ShortIterable;
+
+/** A compressed big list of longs based on block-wise frame-of-reference coding with patched exceptions.
+ *
+ * <p>Instances of this class store in a compacted form a list of longs. Values are provided either through an {@linkplain Iterable iterable object}.
+ * Values are divided in blocks of {@link #BLOCK_SIZE} elements, and each block is coded separately, so this class
+ * is very effective when values are locally clustered.
+ * Sequential access through {@linkplain #listIterator(long) iterators} or the {@linkplain #get(long, long[], int, int) bulk method}
+ * decodes a whole block at a time, and it is much faster than access through {@link #getLong(long)}.
+ *
+ * <h2>Implementation details</h2>
+ *
+ * <p>For each block we store its minimum (the <em>base</em>) and a bit width <var>w</var>. Each value of the block is represented by the lowest
+ * <var>w</var> bits of its difference with the base; values whose difference does not fit in <var>w</var> bits are
+ * <em>exceptions</em>, and the remaining upper bits of their difference are stored after the block, together with their positions
+ * in the block (this technique is known as <em>patched frame of reference</em>, or PFOR). The width <var>w</var> is chosen
+ * so to minimise the space occupied by the block.
+ *
+ * <p>A per-block long contains the bit offset of the block, its bit width, the bit width of exceptions and the number of exceptions.
+ * Thus, {@link #getLong(long)} requires a constant number of memory accesses, plus a binary search on the positions
+ * of the exceptions of the block.
+ */
+public class BlockPackedLongBigList extends AbstractLongBigList implements Serializable {
+	private static final long serialVersionUID = 0L;
+	/** The base-2 logarithm of {@link #BLOCK_SIZE}. */
+	public static final int LOG2_BLOCK_SIZE = 7;
+	/** The number of values in a block. */
+	public static final int BLOCK_SIZE = 1 << LOG2_BLOCK_SIZE;
+	private static final int BLOCK_MASK = BLOCK_SIZE - 1;
+	/** The number of bits used to store widths in {@link #info}. */
+	private static final int WIDTH_BITS = 7;
+	private static final int WIDTH_MASK = (1 << WIDTH_BITS) - 1;
+	/** The number of bits used to store the number of exceptions in {@link #info}. */
+	private static final int COUNT_BITS = LOG2_BLOCK_SIZE + 1;
+	private static final int COUNT_MASK = (1 << COUNT_BITS) - 1;
+	/** The shift of the bit offset in {@link #info}. */
+	private static final int OFFSET_SHIFT = 2 * WIDTH_BITS + COUNT_BITS;
+
+	/** The number of elements in this list. */
+	private final long length;
+	/** The bit array containing the blocks. */
+	private final long[] bits;
+	/** The base of each block. */
+	private final long[] base;
+	/** For each block, its bit offset, the number of exceptions, the width of exceptions and the width of values (from most to least significant bits). */
+	private final long[] info;
+
+	/** Builds a new block-packed big list using a given iterable object.
+	 *
+	 * @param elements an iterable object.
+	 */
+	public BlockPackedLongBigList(final IntIterable elements) {
+		this(LongIterators.wrap(elements.iterator()));
+	}
+
+	/** Builds a new block-packed big list using a given iterable object.
+	 *
+	 * @param elements an iterable object.
+	 */
+	public BlockPackedLongBigList(final ShortIterable elements) {
+		this(LongIterators.wrap(elements.iterator()));
+	}
+
+	/** Builds a new block-packed big list using a given iterable object.
+	 *
+	 * @param elements an iterable object.
+	 */
+	public BlockPackedLongBigList(final ByteIterable elements) {
+		this(LongIterators.wrap(elements.iterator()));
+	}
+
+	/** Builds a new block-packed big list using a given iterable object.
+	 *
+	 * @param elements an iterable object.
+	 */
+	public BlockPackedLongBigList(final LongIterable elements) {
+		this(elements.iterator());
+	}
+
+	/** Builds a new block-packed big list using a given iterator.
+	 *
+	 * @param iterator an iterator.
+	 */
+	public BlockPackedLongBigList(final LongIterator iterator) {
+		final LongArrayBitVector bits = LongArrayBitVector.getInstance();
+		final LongArrayList base = new LongArrayList(), info = new LongArrayList();
+		final long[] block = new long[BLOCK_SIZE];
+		final int[] count = new int[Long.SIZE + 1];
+		long length = 0;
+
+		while(iterator.hasNext()) {
+			int n = 0;
+			while(n < BLOCK_SIZE && iterator.hasNext()) block[n++] = iterator.nextLong();
+			length += n;
+
+			long min = block[0];
+			for(int i = 1; i < n; i++) min = Math.min(min, block[i]);
+			Arrays.fill(count, 0);
+			int maxWidth = 0;
+			for(int i = 0; i < n; i++) {
+				final int w = bitLength(block[i] - min);
+				count[w]++;
+				maxWidth = Math.max(maxWidth, w);
+			}
+
+			// Choose the width minimising the size of the block
+			int width = maxWidth, exceptions = 0;
+			long minCost = (long)n * maxWidth;
+			for(int w = maxWidth, e = 0; w-- != 0;) {
+				e += count[w + 1];
+				final long cost = (long)n * w + (long)e * (LOG2_BLOCK_SIZE + maxWidth - w);
+				if (cost < minCost) {
+					minCost = cost;
+					width = w;
+					exceptions = e;
+				}
+			}
+			final int exceptionWidth = exceptions == 0 ? 0 : maxWidth - width;
+
+			base.add(min);
+			info.add(bits.length() << OFFSET_SHIFT | (long)exceptions << 2 * WIDTH_BITS | exceptionWidth << WIDTH_BITS | width);
+			final long mask = width == 0 ? 0 : -1L >>> -width;
+			for(int i = 0; i < n; i++) bits.append(block[i] - min & mask, width);
+			if (exceptions != 0) {
+				for(int i = 0; i < n; i++) if (bitLength(block[i] - min) > width) bits.append(i, LOG2_BLOCK_SIZE);
+				for(int i = 0; i < n; i++) if (bitLength(block[i] - min) > width) bits.append(block[i] - min >>> width, exceptionWidth);
+			}
+		}
+
+		this.length = length;
+		bits.trim();
+		this.bits = bits.bits();
+		this.base = base.toLongArray();
+		this.info = info.toLongArray();
+	}
+
+	/** Returns the number of significant bits of a long, interpreted as an unsigned value.
+	 *
+	 * @param x a long.
+	 * @return the number of significant bits of {@code x}.
+	 */
+	private static int bitLength(final long x) {
+		return Fast.mostSignificantBit(x) + 1;
+	}
+
+	/** Extracts bits from a bit array.
+	 *
+	 * @param bits a bit array.
+	 * @param position the position of the first bit to extract.
+	 * @param w the number of bits to extract (positive).
+	 * @return the extracted bits.
+	 */
+	private static long extract(final long[] bits, final long position, final int w) {
+		final int startWord = (int)(position / Long.SIZE);
+		final int startBit = (int)(position % Long.SIZE);
+		final long result = bits[startWord] >>> startBit;
+		return (startBit + w <= Long.SIZE ? result : result | bits[startWord + 1] << -startBit) & -1L >>> -w;
+	}
+
+	@Override
+	public long getLong(final long index) {
+		if (index < 0 || index >= length) throw new IndexOutOfBoundsException(Long.toString(index));
+		final int block = (int)(index >>> LOG2_BLOCK_SIZE);
+		final int r = (int)(index & BLOCK_MASK);
+		final long info = this.info[block];
+		final int width = (int)(info & WIDTH_MASK);
+		final long offset = info >>> OFFSET_SHIFT;
+		long result = width == 0 ? 0 : extract(bits, offset + (long)r * width, width);
+
+		final int exceptions = (int)(info >>> 2 * WIDTH_BITS & COUNT_MASK);
+		if (exceptions != 0) {
+			final long positions = offset + (long)blockSize(block) * width;
+			// Binary search among the (sorted) positions of the exceptions
+			int from = 0, to = exceptions;
+			while(from < to) {
+				final int k = from + to >>> 1;
+				final long p = extract(bits, positions + k * LOG2_BLOCK_SIZE, LOG2_BLOCK_SIZE);
+				if (p < r) from = k + 1;
+				else if (p > r) to = k;
+				else {
+					final int exceptionWidth = (int)(info >>> WIDTH_BITS & WIDTH_MASK);
+					result |= extract(bits, positions + exceptions * LOG2_BLOCK_SIZE + (long)k * exceptionWidth, exceptionWidth) << width;
+					break;
+				}
+			}
+		}
+
+		return base[block] + result;
+	}
+
+	/** Returns the number of elements in a block.
+	 *
+	 * @param block the index of a block.
+	 * @return the number of elements in the block.
+	 */
+	private int blockSize(final int block) {
+		return (int)Math.min(BLOCK_SIZE, length - ((long)block << LOG2_BLOCK_SIZE));
+	}
+
+	/** Decodes a range of elements of a block.
+	 *
+	 * @param block the index of a block.
+	 * @param from the index in the block of the first element to decode (inclusive).
+	 * @param to the index in the block of the last element to decode (exclusive).
+	 * @param dest an array that will contain the values of the elements in the given range.
+	 * @param pos the first position written in {@code dest}.
+	 */
+	private void decode(final int block, final int from, final int to, final long[] dest, final int pos) {
+		final long[] bits = this.bits;
+		final long info = this.info[block];
+		final int width = (int)(info & WIDTH_MASK);
+		final long base = this.base[block];
+		final long offset = info >>> OFFSET_SHIFT;
+		final int n = to - from;
+
+		if (width == 0) Arrays.fill(dest, pos, pos + n, base);
+		else {
+			final long mask = -1L >>> -width;
+			final long start = offset + (long)from * width;
+			int word = (int)(start / Long.SIZE);
+			int bit = (int)(start % Long.SIZE);
+			if (width == Long.SIZE) for(int i = 0; i < n; i++) dest[pos + i] = base + (bit == 0 ? bits[word + i] : bits[word + i] >>> bit | bits[word + i + 1] << -bit);
+			else for(int i = 0; i < n; i++) {
+				final long result = bits[word] >>> bit;
+				dest[pos + i] = base + ((bit + width <= Long.SIZE ? result : result | bits[word + 1] << -bit) & mask);
+				bit += width;
+				word += bit >>> 6;
+				bit &= 63;
+			}
+		}
+
+		final int exceptions = (int)(info >>> 2 * WIDTH_BITS & COUNT_MASK);
+		if (exceptions != 0) {
+			final int exceptionWidth = (int)(info >>> WIDTH_BITS & WIDTH_MASK);
+			long position = offset + (long)blockSize(block) * width;
+			long high = position + exceptions * LOG2_BLOCK_SIZE;
+			for(int k = 0; k < exceptions; k++, position += LOG2_BLOCK_SIZE, high += exceptionWidth) {
+				// Exceptions are sorted by position
+				final int p = (int)extract(bits, position, LOG2_BLOCK_SIZE);
+				if (p >= to) break;
+				if (p >= from) dest[pos + p - from] += extract(bits, high, exceptionWidth) << width;
+			}
+		}
+	}
+
+	/** Extracts a number of consecutive entries into a given array fragment.
+	 *
+	 * @param index the index of the first entry returned.
+	 * @param dest the destination array; it will be filled with {@code length} consecutive entries starting at position {@code offset}.
+	 * @param offset the first position written in {@code dest}.
+	 * @param length the number of elements written in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #get(long, long[])
+	 */
+	public long[] get(final long index, final long dest[], int offset, int length) {
+		if (index < 0 || index + length > this.length) throw new IndexOutOfBoundsException();
+		int block = (int)(index >>> LOG2_BLOCK_SIZE);
+		int r = (int)(index & BLOCK_MASK);
+		while(length > 0) {
+			// Each block is decoded directly into the destination array
+			final int l = Math.min(length, blockSize(block) - r);
+			decode(block, r, r + l, dest, offset);
+			offset += l;
+			length -= l;
+			block++;
+			r = 0;
+		}
+		return dest;
+	}
+
+	/** Extracts a number of consecutive entries into a given array.
+	 *
+	 * @param index the index of the first entry returned.
+	 * @param dest the destination array; it will be filled with consecutive entries.
+	 * @return {@code dest}
+	 * @see #get(long, long[], int, int)
+	 */
+	public long[] get(final long index, final long dest[]) {
+		return get(index, dest, 0, dest.length);
+	}
+
+	@Override
+	public long size64() {
+		return length;
+	}
+
+	public long numBits() {
+		return bits.length * (long)Long.SIZE + base.length * (long)Long.SIZE + info.length * (long)Long.SIZE;
+	}
+
+	@Override
+	public BlockPackedLongBigListIterator iterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public BlockPackedLongBigListIterator listIterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public BlockPackedLongBigListIterator listIterator(final long from) {
+		return new BlockPackedLongBigListIterator(from);
+	}
+
+	/** A list iterator over the values of a {@link BlockPackedLongBigList}.
+	 *
+	 * <p>Instances of this class decode a block at a time into an internal buffer.
+	 */
+	public final class BlockPackedLongBigListIterator implements LongBigListIterator {
+		/** The decoded current block. */
+		private final long[] buffer = new long[BLOCK_SIZE];
+		/** The index of the block in {@link #buffer}, or -1. */
+		private int block = -1;
+		/** The index of the next element. */
+		private long index;
+
+		private BlockPackedLongBigListIterator(final long from) {
+			if (from < 0 || from > length) throw new IndexOutOfBoundsException(Long.toString(from));
+			index = from;
+		}
+
+		/** Makes sure that the buffer contains the block of a given element.
+		 *
+		 * @param index the index of an element.
+		 * @return the position of the element in the buffer.
+		 */
+		private int load(final long index) {
+			final int b = (int)(index >>> LOG2_BLOCK_SIZE);
+			if (b != block) decode(block = b, 0, blockSize(b), buffer, 0);
+			return (int)(index & BLOCK_MASK);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < length;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return index > 0;
+		}
+
+		@Override
+		public long nextLong() {
+			if (! hasNext()) throw new NoSuchElementException();
+			return buffer[load(index++)];
+		}
+
+		@Override
+		public long previousLong() {
+			if (! hasPrevious()) throw new NoSuchElementException();
+			return buffer[load(--index)];
+		}
+
+		@Override
+		public long nextIndex() {
+			return index;
+		}
+
+		@Override
+		public long previousIndex() {
+			return index - 1;
+		}
+
+		/** Returns the next elements.
+		 *
+		 * @param dest an array.
+		 * @param offset the first position written in {@code dest}.
+		 * @param length the maximum number of elements to be written in {@code dest}.
+		 * @return the number of elements written in {@code dest}, which is smaller than {@code length} only if there are no
+		 * more elements.
+		 */
+		public int next(final long[] dest, final int offset, final int length) {
+			final int n = (int)Math.min(length, BlockPackedLongBigList.this.length - index);
+			for(int i = 0; i < n;) {
+				final int r = load(index);
+				final int l = Math.min(n - i, BLOCK_SIZE - r);
+				System.arraycopy(buffer, r, dest, offset + i, l);
+				i += l;
+				index += l;
+			}
+			return n;
+		}
+
+		/** Returns the next elements.
+		 *
+		 * @param dest an array.
+		 * @return the number of elements written in {@code dest}.
+		 * @see #next(long[], int, int)
+		 */
+		public int next(final long[] dest) {
+			return next(dest, 0, dest.length);
+		}
+
+		@Override
+		public long skip(final long n) {
+			final long skipped = Math.max(0, Math.min(n, length - index));
+			index += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int skip(final int n) {
+			return (int)skip((long)n);
+		}
+
+		@Override
+		public long back(final long n) {
+			final long skipped = Math.max(0, Math.min(n, index));
+			index -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int back(final int n) {
+			return (int)back((long)n);
+		}
+	}
+}
@@ -0,0 +1,1059 @@
+package it.unimi.dsi.sux4j.util;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Serializable;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.GZIPInputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.martiansoftware.jsap.FlaggedOption;
+import com.martiansoftware.jsap.JSAP;
+import com.martiansoftware.jsap.JSAPException;
+import com.martiansoftware.jsap.JSAPResult;
+import com.martiansoftware.jsap.Parameter;
+import com.martiansoftware.jsap.SimpleJSAP;
+import com.martiansoftware.jsap.Switch;
+import com.martiansoftware.jsap.UnflaggedOption;
+import com.martiansoftware.jsap.stringparsers.ForNameStringParser;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.bits.TransformationStrategies;
+import it.unimi.dsi.bits.TransformationStrategy;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.objects.AbstractObjectSortedSet;
+import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
+import it.unimi.dsi.fastutil.objects.ObjectSortedSet;
+import it.unimi.dsi.io.FastBufferedReader;
+import it.unimi.dsi.io.LineIterator;
+import it.unimi.dsi.lang.MutableString;
+import it.unimi.dsi.logging.ProgressLogger;
+import it.unimi.dsi.sux4j.mph.Hashes;
+
+/** A {@linkplain ZFastTrie z-fast trie} whose nodes are stored in parallel primitive arrays.
+ *
+ * <p>This class implements the same algorithms of {@link ZFastTrie}, but instead of allocating an object for each node
+ * it identifies nodes with integers, and stores their fields in parallel arrays of integers; analogously, the
+ * dictionary mapping handles to nodes is made of a table of signatures and a table of node identifiers. The
+ * only arrays of references are the ones containing the keys.
+ *
+ * <p>As a result, the heap footprint is about half that of a {@link ZFastTrie} (an internal node uses seven integers, and a leaf
+ * four integers plus the reference to the key), and the work of the garbage collector does not depend
+ * any longer on the number of nodes, as primitive arrays need not be scanned.
+ *
+ * <p>Internal nodes and leaves have separate identifier spaces. In the fields representing pointers, a nonnegative
+ * value <var>x</var> represents the internal node of identifier <var>x</var>, whereas a negative
+ * value <var>x</var> represents the leaf of identifier <code>~</code><var>x</var>. Identifiers of deleted nodes
+ * are recycled using free lists. Like in the case of a {@link ZFastTrie}, the number of keys is limited by {@link Integer#MAX_VALUE};
+ * moreover, the length of the bit vectors associated with keys is limited by {@link Integer#MAX_VALUE}, too.
+ */
+
+public class CompactZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializable {
+	private static final long serialVersionUID = 1L;
+	private static final Logger LOGGER = LoggerFactory.getLogger(CompactZFastTrie.class);
+	/** The mask used to extract the actual signature (the high bit marks duplicates). */
+	private static final long SIGNATURE_MASK = 0x7FFFFFFFFFFFFFFFL;
+	/** The mask for the high bit (which marks duplicates). */
+	private static final long DUPLICATE_MASK = 0x8000000000000000L;
+	/** The initial length of the handle table. */
+	private static final int INITIAL_TABLE_LENGTH = 64;
+	/** The initial number of nodes. */
+	private static final int INITIAL_CAPACITY = 16;
+	/** A pointer to no node. */
+	private static final int NIL = Integer.MIN_VALUE;
+	/** The identifier of the head of the doubly linked list of leaves. */
+	private static final int HEAD = 0;
+	/** The identifier of the tail of the doubly linked list of leaves. */
+	private static final int TAIL = 1;
+
+	/** The number of elements in the trie. */
+	private int size;
+	/** A pointer to the root node, or {@link #NIL} for an empty trie. */
+	private int root = NIL;
+	/** The transformation strategy. */
+	private final TransformationStrategy<? super T> transform;
+
+	/** The name length of each internal node. */
+	private int[] nameLength;
+	/** The extent length of each internal node. */
+	private int[] extentLength;
+	/** The left child of each internal node; for free internal nodes, the next free internal node. */
+	private int[] left;
+	/** The right child of each internal node. */
+	private int[] right;
+	/** The left jump pointer of each internal node. */
+	private int[] jumpLeft;
+	/** The right jump pointer of each internal node. */
+	private int[] jumpRight;
+	/** The leaf whose key each internal node refers to. */
+	private int[] reference;
+	/** The number of internal node identifiers ever used. */
+	private int internalNodes;
+	/** The first free internal node identifier, or -1. */
+	private int freeInternal = -1;
+
+	/** The key of each leaf. */
+	private Object[] key;
+	/** The name length of each leaf. */
+	private int[] leafNameLength;
+	/** The previous leaf of each leaf. */
+	private int[] prev;
+	/** The next leaf of each leaf; for free leaves, the next free leaf. */
+	private int[] next;
+	/** The internal node referring to the key of each leaf, or -1. */
+	private int[] leafReference;
+	/** The number of leaf identifiers ever used (including {@link #HEAD} and {@link #TAIL}). */
+	private int leaves;
+	/** The first free leaf identifier, or -1. */
+	private int freeLeaf = -1;
+
+	/** The signatures of the handles in the handle table (the high bit marks duplicates). */
+	private long[] signature;
+	/** The internal node associated with each signature in {@link #signature}, or -1. */
+	private int[] handleNode;
+	/** The number of entries in the handle table. */
+	private int tableSize;
+	/** The length of the handle table minus one (the length is always a power of two). */
+	private int tableMask;
+
+	/** Creates a new compact z-fast trie using the given transformation strategy.
+	 *
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 */
+	public CompactZFastTrie(final TransformationStrategy<? super T> transform) {
+		this.transform = transform;
+		nameLength = new int[INITIAL_CAPACITY];
+		extentLength = new int[INITIAL_CAPACITY];
+		left = new int[INITIAL_CAPACITY];
+		right = new int[INITIAL_CAPACITY];
+		jumpLeft = new int[INITIAL_CAPACITY];
+		jumpRight = new int[INITIAL_CAPACITY];
+		reference = new int[INITIAL_CAPACITY];
+		key = new Object[INITIAL_CAPACITY];
+		leafNameLength = new int[INITIAL_CAPACITY];
+		prev = new int[INITIAL_CAPACITY];
+		next = new int[INITIAL_CAPACITY];
+		leafReference = new int[INITIAL_CAPACITY];
+		signature = new long[INITIAL_TABLE_LENGTH];
+		handleNode = new int[INITIAL_TABLE_LENGTH];
+		Arrays.fill(handleNode, -1);
+		tableMask = INITIAL_TABLE_LENGTH - 1;
+
+		leaves = 2;
+		next[HEAD] = TAIL;
+		prev[TAIL] = HEAD;
+	}
+
+	/** Creates a new compact z-fast trie using the given elements and transformation strategy.
+	 *
+	 * @param elements an iterator returning the elements to be inserted in the trie.
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 */
+	public CompactZFastTrie(final Iterator<? extends T> elements, final TransformationStrategy<? super T> transform) {
+		this(transform);
+		while(elements.hasNext()) add(elements.next());
+	}
+
+	/** Creates a new compact z-fast trie using the given elements and transformation strategy.
+	 *
+	 * @param elements an iterable returning the elements to be inserted in the trie.
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 */
+	public CompactZFastTrie(final Iterable<? extends T> elements, final TransformationStrategy<? super T> transform) {
+		this(elements.iterator(), transform);
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/* Node allocation. */
+
+	private int newInternal() {
+		if (freeInternal != -1) {
+			final int n = freeInternal;
+			freeInternal = left[n];
+			return n;
+		}
+		if (internalNodes == left.length) {
+			final int length = (int)Math.min(Integer.MAX_VALUE - 8, 2L * internalNodes);
+			if (length == internalNodes) throw new IllegalStateException("Too many internal nodes");
+			nameLength = Arrays.copyOf(nameLength, length);
+			extentLength = Arrays.copyOf(extentLength, length);
+			left = Arrays.copyOf(left, length);
+			right = Arrays.copyOf(right, length);
+			jumpLeft = Arrays.copyOf(jumpLeft, length);
+			jumpRight = Arrays.copyOf(jumpRight, length);
+			reference = Arrays.copyOf(reference, length);
+		}
+		return internalNodes++;
+	}
+
+	private void freeInternal(final int n) {
+		left[n] = freeInternal;
+		freeInternal = n;
+	}
+
+	private int newLeaf() {
+		if (freeLeaf != -1) {
+			final int l = freeLeaf;
+			freeLeaf = next[l];
+			return l;
+		}
+		if (leaves == key.length) {
+			final int length = (int)Math.min(Integer.MAX_VALUE - 8, 2L * leaves);
+			if (length == leaves) throw new IllegalStateException("Too many leaves");
+			key = Arrays.copyOf(key, length);
+			leafNameLength = Arrays.copyOf(leafNameLength, length);
+			prev = Arrays.copyOf(prev, length);
+			next = Arrays.copyOf(next, length);
+			leafReference = Arrays.copyOf(leafReference, length);
+		}
+		return leaves++;
+	}
+
+	private void freeLeaf(final int l) {
+		key[l] = null;
+		next[l] = freeLeaf;
+		freeLeaf = l;
+	}
+
+	private void removeLeaf(final int l) {
+		prev[next[l]] = prev[l];
+		next[prev[l]] = next[l];
+	}
+
+	private void addAfter(final int pred, final int l) {
+		next[l] = next[pred];
+		prev[l] = pred;
+		prev[next[pred]] = l;
+		next[pred] = l;
+	}
+
+	private void addBefore(final int succ, final int l) {
+		prev[l] = prev[succ];
+		next[l] = succ;
+		next[prev[succ]] = l;
+		prev[succ] = l;
+	}
+
+	/* Node fields. */
+
+	@SuppressWarnings("unchecked")
+	private T key(final int l) {
+		return (T)key[l];
+	}
+
+	/** Returns the key of a node (i.e., the key of the leaf itself, or the key of the leaf referred by an internal node). */
+	private BitVector bits(final int node) {
+		return transform.toBitVector(key(node >= 0 ? reference[node] : ~node));
+	}
+
+	private long nameLength(final int node) {
+		return node >= 0 ? nameLength[node] : leafNameLength[~node];
+	}
+
+	private void nameLength(final int node, final long length) {
+		if (node >= 0) nameLength[node] = (int)length;
+		else leafNameLength[~node] = (int)length;
+	}
+
+	private long extentLength(final int node) {
+		return node >= 0 ? extentLength[node] : transform.length(key(~node));
+	}
+
+	private long handleLength(final int node) {
+		return ZFastTrie.twoFattest(nameLength(node) - 1, extentLength(node));
+	}
+
+	private long jumpLength(final int n) {
+		final long handleLength = handleLength(n);
+		if (handleLength == 0) return Long.MAX_VALUE; // This only happens on a root node with empty extent.
+		return handleLength + (handleLength & -handleLength);
+	}
+
+	private boolean intercepts(final int node, final long h) {
+		return node >= 0 ? h >= nameLength[node] && h <= extentLength[node] : h >= leafNameLength[~node];
+	}
+
+	/** Returns the length of the longest common prefix between a bit vector and the extent of a node. */
+	private long lcp(final LongArrayBitVector v, final int node) {
+		return Math.min(extentLength(node), v.longestCommonPrefixLength(bits(node)));
+	}
+
+	private boolean isExitNodeOf(final int node, final long length, final long lcp) {
+		return nameLength(node) <= lcp && (lcp < extentLength(node) || lcp == length);
+	}
+
+	private int leftLeaf(int node) {
+		while(node >= 0) node = jumpLeft[node];
+		return ~node;
+	}
+
+	private int rightLeaf(int node) {
+		while(node >= 0) node = jumpRight[node];
+		return ~node;
+	}
+
+	/** Sets the jump pointers of an internal node by searching exhaustively for
+	 * handles that are jumps of the node handle length.
+	 *
+	 * @param n the internal node whose jump pointers must be set.
+	 */
+	private void setJumps(final int n) {
+		final long jumpLength = jumpLength(n);
+		int jump;
+		for(jump = left[n]; jump >= 0 && jumpLength > extentLength[jump];) jump = jumpLeft[jump];
+		jumpLeft[n] = jump;
+		for(jump = right[n]; jump >= 0 && jumpLength > extentLength[jump];) jump = jumpRight[jump];
+		jumpRight[n] = jump;
+	}
+
+	/* The handle table (see ZFastTrie.Handle2NodeMap). */
+
+	private int hash(final long s) {
+		return (int)(s ^ s >>> 32) & tableMask;
+	}
+
+	private int findPos(final BitVector v, final long handleLength, final long s) {
+		int pos = hash(s);
+		while(signature[pos] != 0) { // Position is not empty
+			if ((signature[pos] & SIGNATURE_MASK) == s // Same signature
+					&& ((signature[pos] & DUPLICATE_MASK) == 0 // It's not a duplicate
+							|| (handleLength == handleLength(handleNode[pos]) && // Same handle length (it's a duplicate)
+								v.equals(bits(handleNode[pos]), 0, handleLength)))) // Same handle
+				return pos;
+			pos = (pos + 1) & tableMask;
+		}
+		return -1;
+	}
+
+	private int findExactPos(final BitVector v, final long handleLength, final long s) {
+		int pos = hash(s);
+		while(handleNode[pos] != -1) { // Position is not empty
+			if ((signature[pos] & SIGNATURE_MASK) == s && // Same signature
+					handleLength == handleLength(handleNode[pos]) && // Same handle length
+						v.equals(bits(handleNode[pos]), 0, handleLength)) // Same handle
+				return pos;
+			pos = (pos + 1) & tableMask;
+		}
+		return -1;
+	}
+
+	private void replaceExisting(final int oldNode, final int newNode, final long s) {
+		int pos = hash(s);
+		while(handleNode[pos] != oldNode) {
+			if (handleNode[pos] == -1) throw new IllegalStateException();
+			pos = (pos + 1) & tableMask;
+		}
+		handleNode[pos] = newNode;
+	}
+
+	private void removeExisting(final int n, final long s) {
+		int pos = hash(s);
+		int lastDup = -1; // Keeps track of the last duplicate entry with the same signature.
+
+		while (handleNode[pos] != n) {
+			if (handleNode[pos] == -1) throw new IllegalStateException();
+			if ((signature[pos] & SIGNATURE_MASK) == s) lastDup = pos;
+			pos = (pos + 1) & tableMask;
+		}
+
+		if ((signature[pos] & DUPLICATE_MASK) == 0 && lastDup != -1) signature[lastDup] &= SIGNATURE_MASK;  // We are removing the only non-duplicate entry.
+
+		// Move entries, compatibly with their hash code, to fill the hole.
+		int candidateHole, h;
+		do {
+			candidateHole = pos;
+			// Find candidate for a move (possibly empty).
+			do {
+				pos = (pos + 1) & tableMask;
+				if (handleNode[pos] == -1) break;
+				h = hash(signature[pos] & SIGNATURE_MASK);
+				/* The hash h must lie cyclically between candidateHole and pos: more precisely, h must be after candidateHole
+				 * but before the first free entry in the table (which is equivalent to the previous statement). */
+			} while(candidateHole <= pos ? candidateHole < h && h <= pos : candidateHole < h || h <= pos);
+
+			handleNode[candidateHole] = handleNode[pos];
+			signature[candidateHole] = signature[pos];
+		} while(handleNode[pos] != -1);
+
+		tableSize--;
+	}
+
+	private void addNew(final int n, long s) {
+		int pos = hash(s);
+
+		/* Finds a free position, marking the only non-duplicate key (if any) with
+		 * the same signature along the search path as a duplicate. */
+		while(handleNode[pos] != -1) {
+			if (signature[pos] == s) signature[pos] |= DUPLICATE_MASK;
+			pos = (pos + 1) & tableMask;
+		}
+
+		tableSize++;
+		signature[pos] = s;
+		handleNode[pos] = n;
+
+		if (3L * tableSize > 2L * (tableMask + 1)) {
+			final int length = (tableMask + 1) * 2;
+			tableMask = length - 1;
+			final long[] newSignature = new long[length];
+			final int[] newNode = new int[length];
+			Arrays.fill(newNode, -1);
+
+			for(int i = signature.length; i-- != 0;) {
+				if (handleNode[i] != -1) {
+					s = signature[i] & SIGNATURE_MASK;
+					pos = hash(s);
+					while(newNode[pos] != -1) {
+						if ((newSignature[pos] & SIGNATURE_MASK) == s) newSignature[pos] |= DUPLICATE_MASK;
+						pos = (pos + 1) & tableMask;
+					}
+					newSignature[pos] = s;
+					newNode[pos] = handleNode[i];
+				}
+			}
+
+			signature = newSignature;
+			handleNode = newNode;
+		}
+	}
+
+	/* Jump fixes (see the corresponding methods of ZFastTrie). */
+
+	private void fixRightJumpsAfterInsertion(final int internal, int exitNode, final boolean rightChild, final int leaf, final IntArrayList stack) {
+		final long leafNameLength = this.leafNameLength[leaf];
+		int toBeFixed;
+
+		if (! rightChild) {
+			/* Nodes jumping to the left into the exit node but above the lcp must point to internal. */
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.popInt();
+				if (jumpLeft[toBeFixed] != exitNode) break;
+				if (jumpLength(toBeFixed) < leafNameLength) jumpLeft[toBeFixed] = internal;
+			}
+		}
+		else {
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.topInt();
+				if (jumpRight[toBeFixed] != exitNode || jumpLength(toBeFixed) >= leafNameLength) break;
+				jumpRight[toBeFixed] = internal;
+				stack.popInt();
+			}
+
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.popInt();
+				while(exitNode >= 0 && jumpRight[toBeFixed] != exitNode) exitNode = jumpRight[exitNode];
+				if (jumpRight[toBeFixed] != exitNode) return;
+				jumpRight[toBeFixed] = ~leaf;
+			}
+		}
+	}
+
+	private void fixLeftJumpsAfterInsertion(final int internal, int exitNode, final boolean rightChild, final int leaf, final IntArrayList stack) {
+		final long leafNameLength = this.leafNameLength[leaf];
+		int toBeFixed;
+
+		if (rightChild) {
+			/* Nodes jumping to the right into the exit node but above the lcp must point to internal. */
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.popInt();
+				if (jumpRight[toBeFixed] != exitNode) break;
+				if (jumpLength(toBeFixed) < leafNameLength) jumpRight[toBeFixed] = internal;
+			}
+		}
+		else {
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.topInt();
+				if (jumpLeft[toBeFixed] != exitNode || jumpLength(toBeFixed) >= leafNameLength) break;
+				jumpLeft[toBeFixed] = internal;
+				stack.popInt();
+			}
+
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.popInt();
+				while(exitNode >= 0 && jumpLeft[toBeFixed] != exitNode) exitNode = jumpLeft[exitNode];
+				if (jumpLeft[toBeFixed] != exitNode) return;
+				jumpLeft[toBeFixed] = ~leaf;
+			}
+		}
+	}
+
+	private void fixRightJumpsAfterDeletion(final int parentExitNode, final int exitNode, int otherNode, final boolean rightChild, final IntArrayList stack) {
+		int toBeFixed;
+
+		if (! rightChild) {
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.popInt();
+				if (jumpLeft[toBeFixed] != parentExitNode) break;
+				jumpLeft[toBeFixed] = otherNode;
+			}
+		}
+		else {
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.topInt();
+				if (jumpRight[toBeFixed] != parentExitNode) break;
+				jumpRight[toBeFixed] = otherNode;
+				stack.popInt();
+			}
+
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.popInt();
+				if (jumpRight[toBeFixed] != exitNode) break;
+				final long jumpLength = jumpLength(toBeFixed);
+				while(! intercepts(otherNode, jumpLength)) otherNode = jumpRight[otherNode];
+				jumpRight[toBeFixed] = otherNode;
+			}
+		}
+	}
+
+	private void fixLeftJumpsAfterDeletion(final int parentExitNode, final int exitNode, int otherNode, final boolean rightChild, final IntArrayList stack) {
+		int toBeFixed;
+
+		if (rightChild) {
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.popInt();
+				if (jumpRight[toBeFixed] != parentExitNode) break;
+				jumpRight[toBeFixed] = otherNode;
+			}
+		}
+		else {
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.topInt();
+				if (jumpLeft[toBeFixed] != parentExitNode) break;
+				jumpLeft[toBeFixed] = otherNode;
+				stack.popInt();
+			}
+
+			while(! stack.isEmpty()) {
+				toBeFixed = stack.popInt();
+				if (jumpLeft[toBeFixed] != exitNode) break;
+				final long jumpLength = jumpLength(toBeFixed);
+				while(! intercepts(otherNode, jumpLength)) otherNode = jumpLeft[otherNode];
+				jumpLeft[toBeFixed] = otherNode;
+			}
+		}
+	}
+
+	/* Searches. */
+
+	/** The result of a search: a node, the length of the longest common prefix between the searched string and the
+	 * extent of the node, and possibly the parent of the node. */
+	private static final class ExitData {
+		/** The parent of the exit node, or {@link #NIL}. */
+		private final int parexNode;
+		private final int exitNode;
+		private final long lcp;
+
+		private ExitData(final int parexNode, final int exitNode, final long lcp) {
+			this.parexNode = parexNode;
+			this.exitNode = exitNode;
+			this.lcp = lcp;
+		}
+	}
+
+	private int fatBinarySearch(final LongArrayBitVector v, final long[] state, final IntArrayList stack, final boolean exact, long a, long b) {
+		b--;
+		int top = stack == null || stack.isEmpty() ? NIL : stack.topInt();
+
+		if (a == -1) {
+			top = root;
+			if (stack != null) stack.push(top);
+			a = extentLength[top];
+		}
+
+		long checkMask = -1L << Fast.ceilLog2(b - a);
+
+		while(b - a > 0) {
+			final long f = b & checkMask;
+			if ((a & checkMask) != f) {
+				final long s = Hashes.murmur(v, f, state) & SIGNATURE_MASK;
+				final int pos = exact ? findExactPos(v, f, s) : findPos(v, f, s);
+				final long g;
+				// The second test is just to catch false positives.
+				if (pos == -1 || (g = extentLength[handleNode[pos]]) < f) b = f - 1;
+				else {
+					top = handleNode[pos];
+					if (stack != null) stack.push(top);
+					a = g;
+				}
+			}
+
+			checkMask >>= 1;
+		}
+
+		return top;
+	}
+
+	private ExitData getExitNode(final LongArrayBitVector v, final long[] state) {
+		if (size == 1) return new ExitData(NIL, root, lcp(v, root));
+		final long length = v.length();
+
+		// This can be the exit node of v, the parex node of v, or something completely wrong.
+		int parexOrExitNode = fatBinarySearch(v, state, null, false, -1, length);
+
+		// This will contain the exit node if parexOrExitNode contains the correct parex node.
+		int candidateExitNode = extentLength[parexOrExitNode] < length && v.getBoolean(extentLength[parexOrExitNode]) ? right[parexOrExitNode] : left[parexOrExitNode];
+		long lcpLength = lcp(v, candidateExitNode);
+
+		// In this case the fat binary search gave us the correct parex node.
+		if (isExitNodeOf(candidateExitNode, length, lcpLength)) return new ExitData(parexOrExitNode, candidateExitNode, lcpLength);
+
+		// In this case the fat binary search gave us the correct exit node.
+		lcpLength = Math.min(extentLength[parexOrExitNode], lcpLength);
+		if (isExitNodeOf(parexOrExitNode, length, lcpLength)) return new ExitData(NIL, parexOrExitNode, lcpLength);
+
+		// Otherwise, something went horribly wrong. We restart in exact mode.
+		parexOrExitNode = fatBinarySearch(v, state, null, true, -1, length);
+		final long e = extentLength[parexOrExitNode];
+		candidateExitNode = e < length && lcp(v, parexOrExitNode) == e ? v.getBoolean(e) ? right[parexOrExitNode] : left[parexOrExitNode] : parexOrExitNode;
+		return new ExitData(NIL, candidateExitNode, lcp(v, candidateExitNode));
+	}
+
+	private ExitData getParentExitNode(final LongArrayBitVector v, final long[] state, final IntArrayList stack) {
+		if (size == 1) return new ExitData(NIL, root, lcp(v, root));
+		final long length = v.length();
+
+		// This can be the exit node of v, the parex node of v, or something completely wrong.
+		int parexOrExitNode = fatBinarySearch(v, state, stack, false, -1, length);
+
+		// This will contain the exit node if parexOrExitNode contains the correct parex node.
+		int candidateExitNode = extentLength[parexOrExitNode] < length && v.getBoolean(extentLength[parexOrExitNode]) ? right[parexOrExitNode] : left[parexOrExitNode];
+		long lcpLength = lcp(v, candidateExitNode);
+
+		// In this case the fat binary search gave us the correct parex node, and we have all the data we need.
+		if (isExitNodeOf(candidateExitNode, length, lcpLength)) return new ExitData(parexOrExitNode, candidateExitNode, lcpLength);
+
+		// Now this is the length of the longest common prefix between v and the extent of parexOrExitNode.
+		lcpLength = Math.min(extentLength[parexOrExitNode], lcpLength);
+
+		if (isExitNodeOf(parexOrExitNode, length, lcpLength)) {
+			// In this case the fat binary search gave us the correct *exit* node. We must pop it from the stack and maybe restart the search.
+			stack.popInt();
+
+			// If the exit node is the root, there is no parent.
+			if (parexOrExitNode == root) return new ExitData(NIL, parexOrExitNode, lcpLength);
+
+			final long startingPoint = extentLength[stack.topInt()];
+			// We're lucky: the second element on the stack is the parex node.
+			if (startingPoint == nameLength[parexOrExitNode] - 1) return new ExitData(stack.topInt(), parexOrExitNode, lcpLength);
+			final int stackSize = stack.size();
+			// Unless there are mistakes, this is really the parex node.
+			final int parexNode = fatBinarySearch(v, state, stack, false, startingPoint, nameLength[parexOrExitNode]);
+			if (left[parexNode] == parexOrExitNode || right[parexNode] == parexOrExitNode) return new ExitData(parexNode, parexOrExitNode, lcpLength);
+			// Something went wrong with the last search. We can just, at this point, restart in exact mode.
+			stack.size(stackSize);
+			return new ExitData(fatBinarySearch(v, state, stack, true, startingPoint, nameLength[parexOrExitNode]), parexOrExitNode, lcpLength);
+		}
+
+		// The search failed. This even is so rare that we can afford to handle it inefficiently.
+		stack.clear();
+		parexOrExitNode = fatBinarySearch(v, state, stack, true, -1, length);
+		candidateExitNode = extentLength[parexOrExitNode] < length && v.getBoolean(extentLength[parexOrExitNode]) ? right[parexOrExitNode] : left[parexOrExitNode];
+		lcpLength = lcp(v, candidateExitNode);
+
+		// In this case the fat binary search gave us the correct parex node, and we have all the data we need.
+		if (isExitNodeOf(candidateExitNode, length, lcpLength)) return new ExitData(parexOrExitNode, candidateExitNode, lcpLength);
+
+		// In this case the fat binary search gave us the correct *exit* node. We must pop it from the stack and maybe restart the search.
+		stack.popInt();
+
+		// If the exit node is the root, there is no parent.
+		if (parexOrExitNode == root) return new ExitData(NIL, parexOrExitNode, lcpLength);
+
+		final long startingPoint = extentLength[stack.topInt()];
+		// We're lucky: the second element on the stack is the parex node.
+		if (startingPoint == nameLength[parexOrExitNode] - 1) return new ExitData(stack.topInt(), parexOrExitNode, lcpLength);
+		// The fat binary search will certainly return the parex node.
+		return new ExitData(fatBinarySearch(v, state, stack, true, startingPoint, nameLength[parexOrExitNode]), parexOrExitNode, lcpLength);
+	}
+
+	private int getGrandParentExitNode(final LongArrayBitVector v, final long[] state, final IntArrayList stack) {
+		final int parentExitNode = stack.popInt();
+		// If the parent of the exit node is the root, there is no grandparent.
+		if (parentExitNode == root) return NIL;
+
+		final long startingPoint = extentLength[stack.topInt()];
+		// We're lucky: the second element on the stack is the grandparent of the exit node.
+		if (startingPoint == nameLength[parentExitNode] - 1) return stack.topInt();
+
+		final int stackSize = stack.size();
+		// Unless there are mistakes, this is really the grandparent of the exit node.
+		final int grandParentExitNode = fatBinarySearch(v, state, stack, false, startingPoint, nameLength[parentExitNode]);
+		if (left[grandParentExitNode] == parentExitNode || right[grandParentExitNode] == parentExitNode) return grandParentExitNode;
+		// Something went wrong with the last search. We can just, at this point, restart in exact mode.
+		stack.size(stackSize);
+		return fatBinarySearch(v, state, stack, true, startingPoint, nameLength[parentExitNode]);
+	}
+
+	/* Updates. */
+
+	@Override
+	public boolean add(final T k) {
+		final LongArrayBitVector v = LongArrayBitVector.copy(transform.toBitVector(k));
+
+		if (size == 0) {
+			final int leaf = newLeaf();
+			key[leaf] = k;
+			leafNameLength[leaf] = 0;
+			leafReference[leaf] = -1;
+			addAfter(HEAD, leaf);
+			root = ~leaf;
+			size++;
+			return true;
+		}
+
+		final IntArrayList stack = new IntArrayList(64);
+		final long[] state = Hashes.preprocessMurmur(v, 42);
+		final ExitData parexData = getParentExitNode(v, state, stack);
+
+		final int parentExitNode = parexData.parexNode;
+		final int exitNode = parexData.exitNode;
+		final long lcp = parexData.lcp;
+		final boolean rightChild = parentExitNode != NIL && right[parentExitNode] == exitNode;
+
+		if (exitNode < 0 && transform.length(key(~exitNode)) == lcp) return false; // Already there
+
+		final boolean exitDirection = v.getBoolean(lcp);
+		final long exitNodeHandleLength = handleLength(exitNode);
+		final boolean cutLow = lcp >= exitNodeHandleLength;
+		final boolean exitNodeIsInternal = exitNode >= 0;
+
+		final int leaf = newLeaf();
+		final int internal = newInternal();
+
+		key[leaf] = k;
+		leafNameLength[leaf] = (int)(lcp + 1);
+		leafReference[leaf] = internal;
+
+		reference[internal] = leaf;
+		nameLength[internal] = (int)nameLength(exitNode);
+		extentLength[internal] = (int)lcp;
+
+		if (exitDirection) {
+			jumpRight[internal] = right[internal] = ~leaf;
+			left[internal] = exitNode;
+			jumpLeft[internal] = cutLow && exitNodeIsInternal ? jumpLeft[exitNode] : exitNode;
+		}
+		else {
+			jumpLeft[internal] = left[internal] = ~leaf;
+			right[internal] = exitNode;
+			jumpRight[internal] = cutLow && exitNodeIsInternal ? jumpRight[exitNode] : exitNode;
+		}
+
+		if (exitNode == root) root = internal; // Update root
+		else {
+			if (rightChild) right[parentExitNode] = internal;
+			else left[parentExitNode] = internal;
+		}
+
+		if (exitDirection) fixRightJumpsAfterInsertion(internal, exitNode, rightChild, leaf, stack);
+		else fixLeftJumpsAfterInsertion(internal, exitNode, rightChild, leaf, stack);
+
+		if (cutLow && exitNodeIsInternal) {
+			replaceExisting(exitNode, internal, Hashes.murmur(v, exitNodeHandleLength, state) & SIGNATURE_MASK);
+			nameLength[exitNode] = (int)(lcp + 1);
+			addNew(exitNode, Hashes.murmur(bits(exitNode), handleLength(exitNode), state, lcp) & SIGNATURE_MASK);
+			setJumps(exitNode);
+		}
+		else {
+			nameLength(exitNode, lcp + 1);
+			addNew(internal, Hashes.murmur(v, handleLength(internal), state) & SIGNATURE_MASK);
+		}
+
+		size++;
+
+		/* We find a predecessor or successor to insert the new leaf in the doubly linked list. */
+		if (exitDirection) addAfter(rightLeaf(exitNode), leaf);
+		else addBefore(leftLeaf(exitNode), leaf);
+
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean remove(final Object k) {
+		if (size == 0) return false;
+		final LongArrayBitVector v = LongArrayBitVector.copy(transform.toBitVector((T)k));
+
+		if (size == 1) {
+			if (! key[~root].equals(k)) return false;
+			removeLeaf(~root);
+			freeLeaf(~root);
+			root = NIL;
+			size = 0;
+			return true;
+		}
+
+		final IntArrayList stack = new IntArrayList(64);
+		final long[] state = Hashes.preprocessMurmur(v, 42);
+		final ExitData parexData = getParentExitNode(v, state, stack);
+
+		final int parentExitNode = parexData.parexNode;
+		final int exitNode = parexData.exitNode;
+		final boolean rightLeaf = parentExitNode != NIL && right[parentExitNode] == exitNode;
+
+		if (! (exitNode < 0 && transform.length(key(~exitNode)) == parexData.lcp)) return false; // Not found
+
+		final int otherNode = rightLeaf ? left[parentExitNode] : right[parentExitNode];
+		final boolean otherNodeIsInternal = otherNode >= 0;
+		boolean rightChild = false;
+
+		if (parentExitNode != root) {
+			// Let us fix grandpa's child pointer and update the stack.
+			final int grandParentExitNode = getGrandParentExitNode(v, state, stack);
+			if (rightChild = (right[grandParentExitNode] == parentExitNode)) right[grandParentExitNode] = otherNode;
+			else left[grandParentExitNode] = otherNode;
+		}
+
+		final long parentExitNodeHandleLength = handleLength(parentExitNode);
+		final long otherNodeHandleLength = handleLength(otherNode);
+		final long t = parentExitNodeHandleLength | otherNodeHandleLength;
+		final boolean cutLow = (t & -t & otherNodeHandleLength) != 0;
+
+		if (parentExitNode == root) root = otherNode;
+
+		// Fix leaf reference if not null
+		final int exitLeaf = ~exitNode;
+		final int refersToExitNode = leafReference[exitLeaf];
+		if (refersToExitNode == -1) leafReference[reference[parentExitNode]] = -1;
+		else {
+			reference[refersToExitNode] = reference[parentExitNode];
+			leafReference[reference[refersToExitNode]] = refersToExitNode;
+		}
+
+		// Fix doubly-linked list
+		removeLeaf(exitLeaf);
+
+		if (rightLeaf) fixRightJumpsAfterDeletion(parentExitNode, exitNode, otherNode, rightChild, stack);
+		else fixLeftJumpsAfterDeletion(parentExitNode, exitNode, otherNode, rightChild, stack);
+
+		if (cutLow && otherNodeIsInternal) {
+			removeExisting(otherNode, Hashes.murmur(bits(otherNode), otherNodeHandleLength, state, extentLength[parentExitNode]) & SIGNATURE_MASK);
+			nameLength[otherNode] = nameLength[parentExitNode];
+			replaceExisting(parentExitNode, otherNode, Hashes.murmur(v, parentExitNodeHandleLength, state) & SIGNATURE_MASK);
+			setJumps(otherNode);
+		}
+		else {
+			nameLength(otherNode, nameLength[parentExitNode]);
+			removeExisting(parentExitNode, Hashes.murmur(v, parentExitNodeHandleLength, state) & SIGNATURE_MASK);
+		}
+
+		freeInternal(parentExitNode);
+		freeLeaf(exitLeaf);
+		size--;
+		return true;
+	}
+
+	/* Queries. */
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public boolean contains(final Object o) {
+		if (size == 0) return false;
+		final LongArrayBitVector v = LongArrayBitVector.copy(transform.toBitVector((T)o));
+		final ExitData exitData = getExitNode(v, Hashes.preprocessMurmur(v, 42));
+		return exitData.exitNode < 0 && exitData.lcp == transform.length(key(~exitData.exitNode));
+	}
+
+	/** Returns whether a bit vector is smaller than or equal to the extent of a node.
+	 *
+	 * @param v a bit vector.
+	 * @param exitData the exit data of {@code v}.
+	 * @return true if {@code v} is smaller than or equal to the extent of the exit node.
+	 */
+	private boolean lessThanOrEqualToExtent(final LongArrayBitVector v, final ExitData exitData) {
+		final long lcp = exitData.lcp, extentLength = extentLength(exitData.exitNode);
+		if (lcp == extentLength || lcp == v.length()) return v.length() <= extentLength;
+		return ! v.getBoolean(lcp);
+	}
+
+	@SuppressWarnings("unchecked")
+	private int predLeaf(final Object o) {
+		final LongArrayBitVector v = LongArrayBitVector.copy(transform.toBitVector((T)o));
+		final ExitData exitData = getExitNode(v, Hashes.preprocessMurmur(v, 42));
+		if (lessThanOrEqualToExtent(v, exitData)) return rightLeaf(exitData.exitNode);
+		else return prev[leftLeaf(exitData.exitNode)];
+	}
+
+	@SuppressWarnings("unchecked")
+	private int succLeaf(final Object o) {
+		final LongArrayBitVector v = LongArrayBitVector.copy(transform.toBitVector((T)o));
+		final ExitData exitData = getExitNode(v, Hashes.preprocessMurmur(v, 42));
+		if (lessThanOrEqualToExtent(v, exitData)) return leftLeaf(exitData.exitNode);
+		else return next[rightLeaf(exitData.exitNode)];
+	}
+
+	/** Returns the predecessor of an element, with the same semantics of {@link ZFastTrie#pred(Object)}.
+	 *
+	 * @param o an element.
+	 * @return the predecessor of {@code o}, or {@code null}.
+	 */
+	public T pred(final Object o) {
+		if (size == 0) return null;
+		return key(predLeaf(o));
+	}
+
+	/** Returns the successor of an element, that is, the smallest element of the trie greater than or equal to {@code o}.
+	 *
+	 * @param o an element.
+	 * @return the successor of {@code o}, or {@code null} if there is no such element.
+	 */
+	public T succ(final Object o) {
+		if (size == 0) return null;
+		return key(succLeaf(o));
+	}
+
+	@Override
+	public ObjectBidirectionalIterator<T> iterator() {
+		return iteratorFromLeaf(next[HEAD]);
+	}
+
+	@Override
+	public ObjectBidirectionalIterator<T> iterator(final T from) {
+		return iteratorFromLeaf(size == 0 ? TAIL : succLeaf(from));
+	}
+
+	private ObjectBidirectionalIterator<T> iteratorFromLeaf(final int from) {
+		return new ObjectBidirectionalIterator<T>() {
+			private int curr = from;
+
+			@Override
+			public boolean hasNext() {
+				return curr != TAIL;
+			}
+
+			@Override
+			public T next() {
+				if (! hasNext()) throw new NoSuchElementException();
+				final T result = key(curr);
+				curr = next[curr];
+				return result;
+			}
+
+			@Override
+			public boolean hasPrevious() {
+				return prev[curr] != HEAD;
+			}
+
+			@Override
+			public T previous() {
+				if (! hasPrevious()) throw new NoSuchElementException();
+				curr = prev[curr];
+				return key(curr);
+			}
+		};
+	}
+
+	@Override
+	public Comparator<? super T> comparator() {
+		return null;
+	}
+
+	@Override
+	public T first() {
+		return key(next[HEAD]);
+	}
+
+	@Override
+	public T last() {
+		return key(prev[TAIL]);
+	}
+
+	@Override
+	public ObjectSortedSet<T> headSet(final T to) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public ObjectSortedSet<T> subSet(final T from, final T to) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public ObjectSortedSet<T> tailSet(final T from) {
+		throw new UnsupportedOperationException();
+	}
+
+	public static void main(final String[] arg) throws NoSuchMethodException, IOException, JSAPException {
+
+		final SimpleJSAP jsap = new SimpleJSAP(CompactZFastTrie.class.getName(), "Builds a compact z-fast trie reading a newline-separated list of strings.",
+				new Parameter[] {
+			new FlaggedOption("encoding", ForNameStringParser.getParser(Charset.class), "UTF-8", JSAP.NOT_REQUIRED, 'e', "encoding", "The string file encoding."),
+			new Switch("iso", 'i', "iso", "Use ISO-8859-1 coding internally (i.e., just use the lower eight bits of each character)."),
+			new Switch("utf32", JSAP.NO_SHORTFLAG, "utf-32", "Use UTF-32 internally (handles surrogate pairs)."),
+			new Switch("zipped", 'z', "zipped", "The string list is compressed in gzip format."),
+			new UnflaggedOption("trie", JSAP.STRING_PARSER, JSAP.NO_DEFAULT, JSAP.REQUIRED, JSAP.NOT_GREEDY, "The filename for the serialised compact z-fast trie."),
+			new UnflaggedOption("stringFile", JSAP.STRING_PARSER, "-", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The name of a file containing a newline-separated list of strings, or - for standard input."),
+		});
+
+		final JSAPResult jsapResult = jsap.parse(arg);
+		if (jsap.messagePrinted()) return;
+
+		final String trieName = jsapResult.getString("trie");
+		final String stringFile = jsapResult.getString("stringFile");
+		final Charset encoding = (Charset)jsapResult.getObject("encoding");
+		final boolean zipped = jsapResult.getBoolean("zipped");
+		final boolean iso = jsapResult.getBoolean("iso");
+		final boolean utf32 = jsapResult.getBoolean("utf32");
+
+		final InputStream inputStream = "-".equals(stringFile) ? System.in : new FileInputStream(stringFile);
+		final Iterator<MutableString> lineIterator = new LineIterator(new FastBufferedReader(new InputStreamReader(zipped ? new GZIPInputStream(inputStream) : inputStream, encoding)));
+
+		final TransformationStrategy<CharSequence> transformationStrategy = iso
+					? TransformationStrategies.prefixFreeIso()
+					: utf32
+						? TransformationStrategies.prefixFreeUtf32()
+						: TransformationStrategies.prefixFreeUtf16();
+
+		final ProgressLogger pl = new ProgressLogger();
+		pl.displayLocalSpeed = true;
+		pl.displayFreeMemory = true;
+		pl.itemsName = "keys";
+		pl.start("Adding keys...");
+
+		final CompactZFastTrie<CharSequence> zFastTrie = new CompactZFastTrie<>(transformationStrategy);
+		while(lineIterator.hasNext()) {
+			zFastTrie.add(lineIterator.next().copy());
+			pl.lightUpdate();
+		}
+		pl.done();
+		BinIO.storeObject(zFastTrie, trieName);
+
+		inputStream.close();
+		LOGGER.info("Completed.");
+	}
+}
@@ -0,0 +1,351 @@
+package it.unimi.dsi.sux4j.util;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.util.Iterator;
+import java.util.concurrent.locks.StampedLock;
+
+import it.unimi.dsi.bits.TransformationStrategy;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
+import it.unimi.dsi.fastutil.objects.ObjectIterators;
+
+/** A thread-safe {@linkplain ZFastTrie z-fast trie} for many readers and a few writers.
+ *
+ * <p>Writers ({@link #add(Object)} and {@link #remove(Object)}) are serialized by the write lock of a {@link StampedLock}.
+ * Readers ({@link #contains(Object)}, {@link #pred(Object)}, {@link #succ(Object)}, {@link #first()}, {@link #last()},
+ * {@link #size()} and, if order statistics are maintained, {@link #rank(Object)}, {@link #select(long)} and {@link #count(Object, Object)}) perform first an <em>optimistic read</em>, which
+ * does not write to shared memory and thus does not serialize readers: the search is performed on the live trie, and
+ * its result is returned only if no writer modified the trie in the meantime. If the validation fails (or if the
+ * search fails because it observed an inconsistent state) the search is repeated under the read lock.
+ *
+ * <p>Optimistic reads are safe because every search of a z-fast trie terminates even on an inconsistent
+ * structure: the fat binary search performs a bounded number of probes, and since the extent of an internal node
+ * never changes, child and jump pointers always lead to nodes with a strictly longer extent.
+ * In a read-mostly scenario, thus, readers run at the speed of a plain {@link ZFastTrie}, and
+ * they wait only if they happen to overlap with a writer.
+ *
+ * <p>Iterators are built on a snapshot of the keys taken under the read lock, and thus they are not affected
+ * by later modifications. Note that the transformation strategy must be thread-safe (as it is the case
+ * for all strategies in {@link it.unimi.dsi.bits.TransformationStrategies}).
+ */
+
+public class ConcurrentZFastTrie<T> extends ZFastTrie<T> {
+	private static final long serialVersionUID = 1L;
+
+	/** The lock protecting the trie. */
+	private final StampedLock lock = new StampedLock();
+
+	/** Creates a new concurrent z-fast trie using the given transformation strategy.
+	 *
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 */
+	public ConcurrentZFastTrie(final TransformationStrategy<? super T> transform) {
+		super(transform);
+	}
+
+	/** Creates a new concurrent z-fast trie using the given transformation strategy, possibly maintaining order statistics.
+	 *
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 * @param orderStatistics whether the trie should maintain order statistics.
+	 * @see ZFastTrie#ZFastTrie(TransformationStrategy, boolean)
+	 */
+	public ConcurrentZFastTrie(final TransformationStrategy<? super T> transform, final boolean orderStatistics) {
+		super(transform, orderStatistics);
+	}
+
+	/** Creates a new concurrent z-fast trie using the given elements and transformation strategy.
+	 *
+	 * @param elements an iterator returning the elements to be inserted in the trie.
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 */
+	public ConcurrentZFastTrie(final Iterator<? extends T> elements, final TransformationStrategy<? super T> transform) {
+		this(transform);
+		while(elements.hasNext()) add(elements.next());
+	}
+
+	/** Creates a new concurrent z-fast trie using the given elements and transformation strategy.
+	 *
+	 * @param elements an iterator returning the elements to be inserted in the trie.
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 */
+	public ConcurrentZFastTrie(final Iterable<? extends T> elements, final TransformationStrategy<? super T> transform) {
+		this(elements.iterator(), transform);
+	}
+
+	/** Creates a new concurrent z-fast trie using the given elements and transformation strategy, possibly loading in bulk sorted elements.
+	 *
+	 * @param elements an iterator returning the elements to be inserted in the trie.
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 * @param sorted whether {@code elements} returns the elements in strictly increasing order.
+	 * @see ZFastTrie#ZFastTrie(Iterator, TransformationStrategy, boolean)
+	 */
+	public ConcurrentZFastTrie(final Iterator<? extends T> elements, final TransformationStrategy<? super T> transform, final boolean sorted) {
+		this(elements, transform, sorted, false);
+	}
+
+	/** Creates a new concurrent z-fast trie using the given elements and transformation strategy, possibly loading in bulk sorted elements
+	 * and maintaining order statistics.
+	 *
+	 * @param elements an iterator returning the elements to be inserted in the trie.
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 * @param sorted whether {@code elements} returns the elements in strictly increasing order.
+	 * @param orderStatistics whether the trie should maintain order statistics.
+	 * @see ZFastTrie#ZFastTrie(Iterator, TransformationStrategy, boolean, boolean)
+	 */
+	public ConcurrentZFastTrie(final Iterator<? extends T> elements, final TransformationStrategy<? super T> transform, final boolean sorted, final boolean orderStatistics) {
+		// The superclass constructor must not call add(), as the lock is not initialized yet
+		super(sorted ? elements : ObjectIterators.emptyIterator(), transform, true, orderStatistics);
+		if (! sorted) while(elements.hasNext()) add(elements.next());
+	}
+
+	@Override
+	public boolean add(final T k) {
+		final long stamp = lock.writeLock();
+		try {
+			return super.add(k);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean remove(final Object k) {
+		final long stamp = lock.writeLock();
+		try {
+			return super.remove(k);
+		}
+		finally {
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	@Override
+	public boolean contains(final Object o) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				final boolean result = super.contains(o);
+				if (lock.validate(stamp)) return result;
+			}
+			catch(final RuntimeException e) {
+				// We observed an inconsistent state: we retry under the read lock
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return super.contains(o);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public T pred(final Object o) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				final T result = super.pred(o);
+				if (lock.validate(stamp)) return result;
+			}
+			catch(final RuntimeException e) {
+				// We observed an inconsistent state: we retry under the read lock
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return super.pred(o);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public T succ(final Object o) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				final T result = super.succ(o);
+				if (lock.validate(stamp)) return result;
+			}
+			catch(final RuntimeException e) {
+				// We observed an inconsistent state: we retry under the read lock
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return super.succ(o);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public long rank(final Object o) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				final long result = super.rank(o);
+				if (lock.validate(stamp)) return result;
+			}
+			catch(final RuntimeException e) {
+				// We observed an inconsistent state: we retry under the read lock
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return super.rank(o);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public T select(final long rank) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				final T result = super.select(rank);
+				if (lock.validate(stamp)) return result;
+			}
+			catch(final RuntimeException e) {
+				// We observed an inconsistent state (or an out-of-bounds rank): we retry under the read lock
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return super.select(rank);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public long count(final Object from, final Object to) {
+		long stamp = lock.tryOptimisticRead();
+		if (stamp != 0) {
+			try {
+				final long result = super.count(from, to);
+				if (lock.validate(stamp)) return result;
+			}
+			catch(final RuntimeException e) {
+				// We observed an inconsistent state: we retry under the read lock
+			}
+		}
+
+		stamp = lock.readLock();
+		try {
+			return super.count(from, to);
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public T first() {
+		long stamp = lock.tryOptimisticRead();
+		final T result = super.first();
+		if (lock.validate(stamp)) return result;
+		stamp = lock.readLock();
+		try {
+			return super.first();
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public T last() {
+		long stamp = lock.tryOptimisticRead();
+		final T result = super.last();
+		if (lock.validate(stamp)) return result;
+		stamp = lock.readLock();
+		try {
+			return super.last();
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	@Override
+	public int size() {
+		long stamp = lock.tryOptimisticRead();
+		final int result = super.size();
+		if (lock.validate(stamp)) return result;
+		stamp = lock.readLock();
+		try {
+			return super.size();
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/** Returns a snapshot of the keys of this trie greater than or equal to a given key.
+	 *
+	 * @param from the first key, or {@code null} for all keys.
+	 * @return a list containing the keys greater than or equal to {@code from}, in order.
+	 */
+	private ObjectArrayList<T> snapshot(final T from) {
+		final long stamp = lock.readLock();
+		try {
+			final ObjectArrayList<T> keys = new ObjectArrayList<>(super.size());
+			for(final Iterator<T> iterator = from == null ? super.iterator() : super.iterator(from); iterator.hasNext();) keys.add(iterator.next());
+			return keys;
+		}
+		finally {
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/** {@inheritDoc}
+	 *
+	 * <p>The returned iterator scans a snapshot of the keys of this trie.
+	 */
+	@Override
+	public ObjectBidirectionalIterator<T> iterator() {
+		return snapshot(null).iterator();
+	}
+
+	/** {@inheritDoc}
+	 *
+	 * <p>The returned iterator scans a snapshot of the keys of this trie greater than or equal to {@code from};
+	 * thus, {@linkplain ObjectBidirectionalIterator#previous() moving backwards} is not possible past {@code from}.
+	 */
+	@Override
+	public ObjectBidirectionalIterator<T> iterator(final T from) {
+		return snapshot(from).iterator();
+	}
+}
@@ -0,0 +1,425 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.bytes.ByteIterable;
+import it.unimi.dsi.fastutil.ints.IntIterable;
+import it.unimi.dsi.fastutil.longs.AbstractLongBigList;
+import it.unimi.dsi.fastutil.longs.LongBigList;
+import it.unimi.dsi.fastutil.longs.LongBigListIterator;
+import it.unimi.dsi.fastutil.longs.LongIterable;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongIterators;
+import it.unimi.dsi.fastutil.shorts.ShortIterable;
+import it.unimi.dsi.sux4j.bits.Rank9;
+
+/** A compressed big list of longs based on <em>directly addressable codes</em>.
+ *
+ * <p>Instances of this class store in a compacted form a list of longs. Values are provided through an {@linkplain Iterable iterable object} returning longs, integers, shorts or bytes.
+ * You will obtain a reduction in size only if the distribution of the values of the list is skewed towards small values
+ * (e.g., power-law distributions); negative values are stored using 64 bits.
+ *
+ * <p>This class generalises {@link TwoSizesLongBigList} to an arbitrary number of levels, and it is
+ * based on the directly addressable codes described by Nieves R. Brisaboa, Susana Ladra and Gonzalo Navarro
+ * in &ldquo;DACs: Bringing direct access to variable-length codes&rdquo;, <i>Information Processing &amp; Management</i>, 49(1):392&minus;404, 2013.
+ *
+ * <h2>Implementation details</h2>
+ *
+ * <p>The binary representation of each value is split into <em>chunks</em>: the first chunk contains the lowest
+ * {@code w}<sub>0</sub> bits, the second chunk the next {@code w}<sub>1</sub> bits, and so on; the number of chunks of a value
+ * is the minimum number necessary to represent its significant bits (but it is at least one).
+ * Level <var>j</var> stores, in a fixed-width list, the <var>j</var>-th chunk of the values having at least <var>j</var> + 1 chunks,
+ * in the same order as in the list. Each level but the last stores also a <em>continuation</em> bit vector,
+ * recording which values have further chunks; a {@link Rank9} structure on the continuation bits maps the
+ * position of a value in a level to its position in the next level. Thus, {@link #getLong(long)} costs a number of
+ * rank operations equal to the number of chunks of the retrieved value, minus one.
+ *
+ * <p>The chunk widths are chosen so to minimise the space occupancy (including the space used by the ranking structures)
+ * using the dynamic-programming algorithm described in the paper (see {@link #optimalWidths(long[], int)}),
+ * possibly under a bound on the number of levels.
+ *
+ * <p>The {@linkplain #listIterator(long) iterators} returned by this class decode values sequentially, keeping track of the current position at each level,
+ * and thus avoid the rank operations entirely.
+ */
+public class DacLongBigList extends AbstractLongBigList implements Serializable {
+	private static final long serialVersionUID = 0L;
+	/** The default maximum number of levels. */
+	public static final int DEFAULT_MAX_LEVELS = Long.SIZE;
+	/** The number of elements in this list. */
+	private final long length;
+	/** The width of the chunks stored at each level. */
+	private final int[] width;
+	/** The chunks stored at each level, concatenated in a bit array. */
+	private final long[][] chunks;
+	/** The ranking structures on the continuation bits of each level but the last. */
+	private final Rank9[] rank;
+	/** The continuation bits of each level but the last (cached from {@link #rank}). */
+	private transient long[][] continuation;
+	/** The number of bits used by this structure. */
+	private final long numBits;
+
+	/** Builds a new directly addressable big list using a given iterable object.
+	 *
+	 * @param elements an iterable object.
+	 */
+	public DacLongBigList(final IntIterable elements) {
+		this((LongIterable) () -> LongIterators.wrap(elements.iterator()));
+	}
+
+	/** Builds a new directly addressable big list using a given iterable object.
+	 *
+	 * @param elements an iterable object.
+	 */
+	public DacLongBigList(final ShortIterable elements) {
+		this((LongIterable) () -> LongIterators.wrap(elements.iterator()));
+	}
+
+	/** Builds a new directly addressable big list using a given iterable object.
+	 *
+	 * @param elements an iterable object.
+	 */
+	public DacLongBigList(final ByteIterable elements) {
+		this((LongIterable) () -> LongIterators.wrap(elements.iterator()));
+	}
+
+	/** Builds a new directly addressable big list using a given iterable object.
+	 *
+	 * @param elements an iterable object.
+	 */
+	public DacLongBigList(final LongIterable elements) {
+		this(elements, DEFAULT_MAX_LEVELS);
+	}
+
+	/** Builds a new directly addressable big list using a given iterable object and a maximum number of levels.
+	 *
+	 * <p>Fewer levels imply faster access to large values, at the cost of some space.
+	 *
+	 * @param elements an iterable object.
+	 * @param maxLevels the maximum number of levels.
+	 */
+	public DacLongBigList(final LongIterable elements, final int maxLevels) {
+		if (maxLevels < 1) throw new IllegalArgumentException("The maximum number of levels must be positive: " + maxLevels);
+		// count[b] is the number of values of bit length b
+		final long[] count = new long[Long.SIZE + 1];
+		long n = 0;
+		for(final LongIterator i = elements.iterator(); i.hasNext();) {
+			count[bitLength(i.nextLong())]++;
+			n++;
+		}
+		length = n;
+
+		width = optimalWidths(count, maxLevels);
+		final int levels = width.length;
+
+		// The number of values stored at each level
+		final long[] size = new long[levels];
+		for(int j = 0, s = 0; j < levels; s += width[j++]) for(int b = j == 0 ? 0 : s + 1; b <= Long.SIZE; b++) size[j] += count[b];
+
+		final LongArrayBitVector[] chunkVector = new LongArrayBitVector[levels];
+		final LongBigList[] chunkList = new LongBigList[levels];
+		final LongArrayBitVector[] continuationVector = new LongArrayBitVector[levels - 1];
+		for(int j = 0; j < levels; j++) {
+			chunkList[j] = (chunkVector[j] = LongArrayBitVector.getInstance()).asLongBigList(width[j]);
+			chunkList[j].size(size[j]);
+			if (j < levels - 1) continuationVector[j] = LongArrayBitVector.ofLength(size[j]);
+		}
+
+		final long[] p = new long[levels];
+		final LongIterator iterator = elements.iterator();
+		for(long i = 0; i < length; i++) {
+			long value = iterator.nextLong();
+			final int bitLength = bitLength(value);
+			for(int j = 0, s = 0;; j++) {
+				final int w = width[j];
+				if (w != 0) chunkList[j].set(p[j], value & -1L >>> Long.SIZE - w);
+				s += w;
+				if (j == levels - 1 || bitLength <= s) {
+					p[j]++;
+					break;
+				}
+				continuationVector[j].set(p[j]++);
+				value >>>= w;
+			}
+		}
+
+		chunks = new long[levels][];
+		rank = new Rank9[levels - 1];
+		long numBits = 0;
+		for(int j = 0; j < levels; j++) {
+			chunkVector[j].trim();
+			chunks[j] = chunkVector[j].bits();
+			numBits += size[j] * width[j];
+			if (j < levels - 1) {
+				rank[j] = new Rank9(continuationVector[j]);
+				numBits += size[j] + rank[j].numBits();
+			}
+		}
+		this.numBits = numBits;
+		initContinuation();
+	}
+
+	private void initContinuation() {
+		continuation = new long[rank.length][];
+		for(int j = 0; j < rank.length; j++) continuation[j] = rank[j].bitVector().bits();
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		initContinuation();
+	}
+
+	/** Returns the number of significant bits of a long.
+	 *
+	 * @param x a long.
+	 * @return the number of significant bits of {@code x} (0 for zero, 64 for negative numbers).
+	 */
+	private static int bitLength(final long x) {
+		return Fast.mostSignificantBit(x) + 1;
+	}
+
+	/** Computes the chunk widths minimising the space occupancy of a list.
+	 *
+	 * <p>The cost of a level includes the chunks, the continuation bits and the associated {@link Rank9}
+	 * structure (25% of the continuation bits). The widths sum up to the maximum bit length of a value,
+	 * except for lists containing just zeroes, which use a single level of width zero.
+	 *
+	 * @param count an array of length 65 whose entry of index <var>b</var> is the number of values of bit length <var>b</var>
+	 * (that is, for <var>b</var> &gt; 0, in the interval [2<sup><var>b</var> &minus; 1</sup>..2<sup><var>b</var></sup>), and 0 for <var>b</var> = 0).
+	 * @param maxLevels the maximum number of levels.
+	 * @return the optimal chunk widths.
+	 */
+	public static int[] optimalWidths(final long[] count, final int maxLevels) {
+		int maxBitLength = 0;
+		for(int b = 0; b <= Long.SIZE; b++) if (count[b] != 0) maxBitLength = b;
+		if (maxBitLength == 0) return new int[1];
+
+		// values[s] is the number of values having at least one chunk starting at bit s
+		final long[] values = new long[maxBitLength + 1];
+		for(int b = 0; b <= Long.SIZE; b++) values[0] += count[b];
+		for(int s = maxBitLength; s-- != 1;) values[s] = values[s + 1] + count[s + 1];
+
+		final int levels = Math.min(maxLevels, maxBitLength);
+		// cost[k][s] is the minimum cost, in quarters of bit, of representing bits from s onwards using at most k + 1 levels.
+		final long[][] cost = new long[levels][maxBitLength + 1];
+		final int[][] choice = new int[levels][maxBitLength + 1];
+		for(int k = 0; k < levels; k++) {
+			for(int s = maxBitLength; s-- != 0;) {
+				// A last level covering all remaining bits
+				cost[k][s] = 4 * values[s] * (maxBitLength - s);
+				choice[k][s] = maxBitLength - s;
+				if (k > 0) for(int w = 1; s + w < maxBitLength; w++) {
+					// Chunks, continuation bits and Rank9 structure (1.25 bits per continuation bit)
+					final long c = values[s] * (4L * w + 5) + cost[k - 1][s + w];
+					if (c < cost[k][s]) {
+						cost[k][s] = c;
+						choice[k][s] = w;
+					}
+				}
+			}
+		}
+
+		int n = 0;
+		final int[] w = new int[levels];
+		for(int s = 0, k = levels - 1; s < maxBitLength; k--) s += w[n++] = choice[k][s];
+		return Arrays.copyOf(w, n);
+	}
+
+	@Override
+	public long getLong(long index) {
+		if (index < 0 || index >= length) throw new IndexOutOfBoundsException(Long.toString(index));
+		final long[][] chunks = this.chunks;
+		final int[] width = this.width;
+		final int last = width.length - 1;
+		long result = 0;
+		for(int j = 0, shift = 0;; j++) {
+			final int w = width[j];
+			if (w != 0) result |= chunk(chunks[j], index, w) << shift;
+			if (j == last || (continuation[j][(int)(index / Long.SIZE)] & 1L << index) == 0) return result;
+			index = rank[j].rank(index);
+			shift += w;
+		}
+	}
+
+	/** Extracts a chunk.
+	 *
+	 * @param bits a bit array containing chunks.
+	 * @param index the index of a chunk.
+	 * @param w the width of a chunk (positive).
+	 * @return the chunk of given index.
+	 */
+	private static long chunk(final long[] bits, final long index, final int w) {
+		final long position = index * w;
+		final int startWord = (int)(position / Long.SIZE);
+		final int startBit = (int)(position % Long.SIZE);
+		final long result = bits[startWord] >>> startBit;
+		return (startBit + w <= Long.SIZE ? result : result | bits[startWord + 1] << -startBit) & -1L >>> Long.SIZE - w;
+	}
+
+	@Override
+	public long size64() {
+		return length;
+	}
+
+	/** Returns the number of levels of this list.
+	 *
+	 * @return the number of levels of this list.
+	 */
+	public int levels() {
+		return width.length;
+	}
+
+	public long numBits() {
+		return numBits;
+	}
+
+	@Override
+	public DacLongBigListIterator iterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public DacLongBigListIterator listIterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public DacLongBigListIterator listIterator(final long from) {
+		return new DacLongBigListIterator(from);
+	}
+
+	/** A list iterator over the values of a {@link DacLongBigList}.
+	 *
+	 * <p>Instances of this class keep track of the current position at each level, so
+	 * sequential access in either direction does not require any rank operation.
+	 */
+	public final class DacLongBigListIterator implements LongBigListIterator {
+		/** A cached copy of {@link DacLongBigList#width}. */
+		private final int[] width = DacLongBigList.this.width;
+		/** A cached copy of {@link DacLongBigList#chunks}. */
+		private final long[][] chunks = DacLongBigList.this.chunks;
+		/** A cached copy of {@link DacLongBigList#continuation}. */
+		private final long[][] continuation = DacLongBigList.this.continuation;
+		/** The index of the last level. */
+		private final int last = width.length - 1;
+		/** For each level, the position of the chunk of the next value having a chunk at that level. */
+		private final long[] position = new long[width.length];
+
+		private DacLongBigListIterator(final long from) {
+			if (from < 0 || from > length) throw new IndexOutOfBoundsException(Long.toString(from));
+			position(from);
+		}
+
+		private void position(final long index) {
+			position[0] = index;
+			for(int j = 0; j < rank.length; j++) position[j + 1] = rank[j].rank(position[j]);
+		}
+
+		@Override
+		public boolean hasNext() {
+			return position[0] < length;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return position[0] > 0;
+		}
+
+		@Override
+		public long nextLong() {
+			if (! hasNext()) throw new NoSuchElementException();
+			final long[] position = this.position;
+			final int[] width = this.width;
+			final long[][] chunks = this.chunks;
+			final long[][] continuation = this.continuation;
+			final int last = this.last;
+			long result = 0;
+			for(int j = 0, shift = 0;; j++) {
+				final int w = width[j];
+				final long index = position[j]++;
+				if (w != 0) result |= chunk(chunks[j], index, w) << shift;
+				if (j == last || (continuation[j][(int)(index / Long.SIZE)] & 1L << index) == 0) return result;
+				shift += w;
+			}
+		}
+
+		@Override
+		public long previousLong() {
+			if (! hasPrevious()) throw new NoSuchElementException();
+			final long[] position = this.position;
+			final int[] width = this.width;
+			final long[][] chunks = this.chunks;
+			final long[][] continuation = this.continuation;
+			final int last = this.last;
+			long result = 0;
+			for(int j = 0, shift = 0;; j++) {
+				final int w = width[j];
+				final long index = --position[j];
+				if (w != 0) result |= chunk(chunks[j], index, w) << shift;
+				if (j == last || (continuation[j][(int)(index / Long.SIZE)] & 1L << index) == 0) return result;
+				shift += w;
+			}
+		}
+
+		@Override
+		public long nextIndex() {
+			return position[0];
+		}
+
+		@Override
+		public long previousIndex() {
+			return position[0] - 1;
+		}
+
+		@Override
+		public long skip(final long n) {
+			final long skipped = Math.min(n, length - position[0]);
+			if (skipped <= 0) return 0;
+			position(position[0] + skipped);
+			return skipped;
+		}
+
+		@Override
+		public int skip(final int n) {
+			return (int)skip((long)n);
+		}
+
+		@Override
+		public long back(final long n) {
+			final long skipped = Math.min(n, position[0]);
+			if (skipped <= 0) return 0;
+			position(position[0] - skipped);
+			return skipped;
+		}
+
+		@Override
+		public int back(final int n) {
+			return (int)back((long)n);
+		}
+	}
+}
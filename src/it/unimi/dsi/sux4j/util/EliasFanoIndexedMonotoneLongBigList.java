@@ -0,0 +1,204 @@
+package it.unimi.dsi.sux4j.util;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import it.unimi.dsi.fastutil.longs.LongIterable;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.sux4j.bits.SelectZero;
+import it.unimi.dsi.sux4j.bits.SimpleBigSelectZero;
+import it.unimi.dsi.sux4j.bits.SimpleSelectZero;
+
+/** An {@link EliasFanoMonotoneLongBigList} with an additional zero-selection structure on the upper bits that
+ * makes it possible to skip quickly to the first element greater than or equal to a given bound.
+ *
+ * <p>The main access method is a {@linkplain #skippingIterator() skipping iterator}, which returns the elements
+ * of the list in order, and provides a {@link SkippingIterator#nextGEQ(long) nextGEQ()} method that moves the iterator
+ * to the first element greater than or equal to a given bound: the upper-bits array is zero-selected using
+ * a {@link SimpleSelectZero} to find the bucket of elements with the same upper bits as the bound, and then the
+ * bucket is scanned sequentially. Skipping iterators keep their state in a few primitive fields, and do not allocate
+ * objects during iteration.
+ *
+ * <p>A {@linkplain #intersection(EliasFanoIndexedMonotoneLongBigList...) static method} builds on skipping iterators to compute
+ * lazily the intersection of several lists.
+ */
+
+public class EliasFanoIndexedMonotoneLongBigList extends EliasFanoMonotoneLongBigList {
+	private static final long serialVersionUID = 0L;
+
+	/** The zero-select structure on the upper bits. */
+	protected final SelectZero selectUpperZero;
+
+	/** Creates an indexed Elias&ndash;Fano representation of the values returned by the given {@linkplain Iterable iterable object}.
+	 *
+	 * @param list an iterable object.
+	 */
+	public EliasFanoIndexedMonotoneLongBigList(final LongIterable list) {
+		super(list);
+		selectUpperZero = SimpleBigSelectZero.getInstance(selectUpper.bitVector());
+	}
+
+	/** Creates an indexed Elias&ndash;Fano representation of the values returned by an iterator, given that
+	 * the overall number of elements and an upper bound are provided, too.
+	 *
+	 * @param n the number of elements returned by <code>iterator</code>.
+	 * @param upperBound an upper bound to the values returned by <code>iterator</code>.
+	 * @param iterator an iterator returning nondecreasing elements.
+	 */
+	public EliasFanoIndexedMonotoneLongBigList(final long n, final long upperBound, final LongIterator iterator) {
+		super(n, upperBound, iterator);
+		selectUpperZero = SimpleBigSelectZero.getInstance(selectUpper.bitVector());
+	}
+
+	@Override
+	public long numBits() {
+		return super.numBits() + selectUpperZero.numBits();
+	}
+
+	/** Returns a skipping iterator over this list, positioned at the start of the list.
+	 *
+	 * @return a skipping iterator over this list.
+	 */
+	public SkippingIterator skippingIterator() {
+		return new SkippingIterator();
+	}
+
+	/** A skipping iterator over the elements of an {@link EliasFanoIndexedMonotoneLongBigList}.
+	 *
+	 * <p>Besides the standard methods of an {@link EliasFanoMonotoneLongBigListIterator}, instances of this class provide a
+	 * {@link #nextGEQ(long)} method returning the first unreturned element greater than or equal to a given bound. Since
+	 * elements are natural numbers, {@link #nextGEQ(long)} returns &minus;1 when there is no such element.
+	 */
+	public final class SkippingIterator extends EliasFanoMonotoneLongBigListIterator {
+
+		private SkippingIterator() {
+			super(0);
+		}
+
+		/** Returns the index of the next element that will be returned by this iterator.
+		 *
+		 * @return the index of the next element that will be returned by this iterator.
+		 */
+		public long index() {
+			return index;
+		}
+
+		/** Moves this iterator to the first unreturned element greater than or equal to a given bound, and returns it.
+		 *
+		 * <p>The element is returned as if by a call to {@link #nextLong()}: after this call, the iterator is positioned
+		 * on the following element.
+		 *
+		 * @param lowerBound a lower bound.
+		 * @return the first element greater than or equal to {@code lowerBound} among those not returned yet, or &minus;1
+		 * if there is no such element (in which case the iterator is exhausted).
+		 */
+		public long nextGEQ(final long lowerBound) {
+			final long upper = Math.max(0, lowerBound) >>> l;
+			if (upper != 0) {
+				// The number of zeroes is equal to the number of buckets (minus one, as the last one is never used)
+				if (upper > selectUpper.bitVector().length() - length - 1) {
+					index = length;
+					return -1;
+				}
+				// The bucket of lowerBound starts just after the upper-th zero
+				final long position = selectUpperZero.selectZero(upper - 1) + 1;
+				final long skipIndex = position - upper;
+				if (skipIndex > index) {
+					index = skipIndex;
+					lowerBitsPosition = skipIndex * l;
+					word = position / Long.SIZE;
+					window = upperWord(word) & -1L << position;
+				}
+			}
+
+			while(index < length) {
+				final long x = advance();
+				if (x >= lowerBound) return x;
+			}
+			return -1;
+		}
+	}
+
+	/** Returns a lazy iterator over the intersection of the given lists.
+	 *
+	 * <p>The iterator returns in increasing order the elements appearing in all lists (elements
+	 * repeated in all lists will be returned just once). It uses a skipping iterator for each list,
+	 * performing a leapfrog search: the current candidate is used as a lower bound for the next list, and
+	 * it is returned only when it is confirmed by all lists; otherwise, it is replaced by the larger element found.
+	 * Lists are scanned by increasing length, so that short lists drive the search. Apart from initialization,
+	 * the iterator does not allocate objects.
+	 *
+	 * @param list a nonempty array of lists.
+	 * @return an iterator returning, in increasing order, the elements appearing in all lists.
+	 */
+	public static LongIterator intersection(final EliasFanoIndexedMonotoneLongBigList... list) {
+		if (list.length == 0) throw new IllegalArgumentException("You must provide at least one list");
+		final EliasFanoIndexedMonotoneLongBigList[] sorted = list.clone();
+		Arrays.sort(sorted, (x, y) -> Long.compare(x.length, y.length));
+		final SkippingIterator[] iterator = new SkippingIterator[sorted.length];
+		for(int i = iterator.length; i-- != 0;) iterator[i] = sorted[i].skippingIterator();
+
+		return new LongIterator() {
+			/** The last element returned by each iterator (&minus;1 if none, or if the iterator is exhausted). */
+			private final long[] current = new long[iterator.length];
+			/** The next element to return, or &minus;1 if it must be computed. */
+			private long next = -1;
+			/** The lower bound for the next element to return. */
+			private long lowerBound;
+			/** Whether some iterator is exhausted. */
+			private boolean exhausted;
+			{
+				Arrays.fill(current, -1);
+			}
+
+			@Override
+			public boolean hasNext() {
+				if (next != -1) return true;
+				if (exhausted) return false;
+				long candidate = lowerBound;
+				for(int i = 0, agree = 0; agree < iterator.length; i = i + 1 == iterator.length ? 0 : i + 1) {
+					if (current[i] < candidate && (current[i] = iterator[i].nextGEQ(candidate)) == -1) {
+						exhausted = true;
+						return false;
+					}
+					if (current[i] == candidate) agree++;
+					else {
+						candidate = current[i];
+						agree = 1;
+					}
+				}
+				lowerBound = candidate + 1;
+				next = candidate;
+				return true;
+			}
+
+			@Override
+			public long nextLong() {
+				if (! hasNext()) throw new NoSuchElementException();
+				final long result = next;
+				next = -1;
+				return result;
+			}
+		};
+	}
+}
@@ -6,6 +6,7 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.Serializable;
 import java.util.Iterator;
+import java.util.NoSuchElementException;
 
 /*
  * Sux4J: Succinct data structures for Java
@@ -37,11 +38,15 @@ import it.unimi.dsi.fastutil.io.BinIO;
 import it.unimi.dsi.fastutil.io.FastBufferedOutputStream;
 import it.unimi.dsi.fastutil.longs.AbstractLongBigList;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongBigListIterator;
 import it.unimi.dsi.fastutil.longs.LongIterable;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.shorts.ShortIterable;
 import it.unimi.dsi.fastutil.shorts.ShortIterator;
+import it.unimi.dsi.sux4j.io.MappedDumpable;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedOutput;
 
 /** A compressed big list of longs; each element occupies a number of bits bounded by one plus its bit length plus the logarithm of the average bit length of an element.
  *
@@ -64,7 +69,7 @@ import it.unimi.dsi.fastutil.shorts.ShortIterator;
  * it might be useful to use a {@linkplain EliasFanoLongBigList#EliasFanoLongBigList(LongIterator, long, boolean)
  * constructor that provides offline storage for borders}.
  */
-public class EliasFanoLongBigList extends AbstractLongBigList implements Serializable {
+public class EliasFanoLongBigList extends AbstractLongBigList implements Serializable, MappedDumpable {
 	private static final long serialVersionUID = 2L;
 	/** The number of elements in this list. */
 	private final long length;
@@ -284,4 +289,169 @@ public class EliasFanoLongBigList extends AbstractLongBigList implements Seriali
 	public long numBits() {
 		return borders.numBits() + bits.length();
 	}
+
+	/** Writes this list in the {@linkplain MappedFormat mapped format}.
+	 *
+	 * @param out a mapped output.
+	 * @see MappedEliasFanoLongBigList
+	 */
+	@Override
+	public void dump(final MappedOutput out) throws IOException {
+		out.writeLong(MappedFormat.ELIAS_FANO_LONG_BIG_LIST);
+		out.writeLong(length);
+		out.writeLong(offset);
+		out.writeBitVector(bits);
+		borders.dump(out);
+	}
+
+	@Override
+	public EliasFanoLongBigListIterator iterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public EliasFanoLongBigListIterator listIterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public EliasFanoLongBigListIterator listIterator(final long from) {
+		return new EliasFanoLongBigListIterator(from);
+	}
+
+	/** A list iterator over the elements of an {@link EliasFanoLongBigList}.
+	 *
+	 * <p>Instances of this class scan sequentially the borders using an
+	 * {@link it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList.EliasFanoMonotoneLongBigListIterator EliasFanoMonotoneLongBigListIterator},
+	 * and do not allocate objects during the iteration. An additional {@linkplain #next(long[], int, int) block method} decodes
+	 * several consecutive elements into an array fragment.
+	 */
+	public final class EliasFanoLongBigListIterator implements LongBigListIterator {
+		/** An iterator on the borders, positioned after the border of the next element. */
+		private final EliasFanoMonotoneLongBigList.EliasFanoMonotoneLongBigListIterator bordersIterator;
+		/** The bits of {@link EliasFanoLongBigList#bits}. */
+		private final long[] words = bits.bits();
+		/** The index of the next element to be returned. */
+		private long index;
+		/** The border of the next element to be returned. */
+		private long from;
+
+		private EliasFanoLongBigListIterator(final long from) {
+			if (from < 0 || from > length) throw new IndexOutOfBoundsException(Long.toString(from));
+			index = from;
+			bordersIterator = borders.listIterator(from);
+			this.from = bordersIterator.nextLong();
+		}
+
+		/** Returns the element stored between two borders. */
+		private long value(final long from, final long to) {
+			final int width = (int)(to - from);
+			if (width == 0) return 1 - offset;
+			final int startWord = (int)(from / Long.SIZE);
+			final int startBit = (int)(from % Long.SIZE);
+			final long result = words[startWord] >>> startBit;
+			return (1L << width | (startBit + width <= Long.SIZE ? result : result | words[startWord + 1] << -startBit) & (1L << width) - 1) - offset;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < length;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return index > 0;
+		}
+
+		@Override
+		public long nextLong() {
+			if (! hasNext()) throw new NoSuchElementException();
+			final long to = bordersIterator.nextLong();
+			final long result = value(from, to);
+			from = to;
+			index++;
+			return result;
+		}
+
+		@Override
+		public long previousLong() {
+			if (! hasPrevious()) throw new NoSuchElementException();
+			final long to = from;
+			bordersIterator.back(2);
+			from = bordersIterator.nextLong();
+			index--;
+			return value(from, to);
+		}
+
+		@Override
+		public long nextIndex() {
+			return index;
+		}
+
+		@Override
+		public long previousIndex() {
+			return index - 1;
+		}
+
+		/** Decodes a number of consecutive elements into a given array fragment.
+		 *
+		 * @param dest the destination array.
+		 * @param offset the first position written in {@code dest}.
+		 * @param length the maximum number of elements to be decoded.
+		 * @return the number of elements actually decoded, which will be smaller than {@code length} only if the
+		 * iterator is exhausted.
+		 */
+		public int next(final long[] dest, final int offset, final int length) {
+			// We use the destination array to cache borders.
+			final int n = bordersIterator.next(dest, offset, (int)Math.min(length, EliasFanoLongBigList.this.length - index));
+			for(int i = 0; i < n; i++) {
+				final long to = dest[offset + i];
+				dest[offset + i] = value(from, to);
+				from = to;
+			}
+			index += n;
+			return n;
+		}
+
+		/** Decodes a number of consecutive elements into a given array.
+		 *
+		 * @param dest the destination array.
+		 * @return the number of elements actually decoded, which will be smaller than the length of {@code dest} only if the
+		 * iterator is exhausted.
+		 * @see #next(long[], int, int)
+		 */
+		public int next(final long[] dest) {
+			return next(dest, 0, dest.length);
+		}
+
+		@Override
+		public long skip(final long n) {
+			final long skipped = Math.min(n, length - index);
+			if (skipped <= 0) return 0;
+			bordersIterator.skip(skipped - 1);
+			from = bordersIterator.nextLong();
+			index += skipped;
+			return skipped;
+		}
+
+		@Override
+		public int skip(final int n) {
+			return (int)skip((long)n);
+		}
+
+		@Override
+		public long back(final long n) {
+			final long skipped = Math.min(n, index);
+			if (skipped <= 0) return 0;
+			bordersIterator.back(skipped + 1);
+			from = bordersIterator.nextLong();
+			index -= skipped;
+			return skipped;
+		}
+
+		@Override
+		public int back(final int n) {
+			return (int)back((long)n);
+		}
+	}
 }
@@ -1,6 +1,8 @@
 package it.unimi.dsi.sux4j.util;
 
+import java.io.IOException;
 import java.io.Serializable;
+import java.util.NoSuchElementException;
 
 /*
  * Sux4J: Succinct data structures for Java
@@ -25,18 +27,26 @@ import java.io.Serializable;
 import it.unimi.dsi.bits.BitVector;
 import it.unimi.dsi.bits.Fast;
 import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.BigArrays;
 import it.unimi.dsi.fastutil.bytes.ByteIterable;
 import it.unimi.dsi.fastutil.bytes.ByteIterator;
 import it.unimi.dsi.fastutil.ints.IntIterable;
 import it.unimi.dsi.fastutil.ints.IntIterator;
 import it.unimi.dsi.fastutil.longs.AbstractLongBigList;
 import it.unimi.dsi.fastutil.longs.LongBigList;
+import it.unimi.dsi.fastutil.longs.LongBigListIterator;
 import it.unimi.dsi.fastutil.longs.LongIterable;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.shorts.ShortIterable;
 import it.unimi.dsi.fastutil.shorts.ShortIterator;
+import it.unimi.dsi.sux4j.bits.LongBigArrayBitVector;
+import it.unimi.dsi.sux4j.bits.Select;
+import it.unimi.dsi.sux4j.bits.SimpleBigSelect;
 import it.unimi.dsi.sux4j.bits.SimpleSelect;
+import it.unimi.dsi.sux4j.io.MappedDumpable;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedOutput;
 
 /** An implementation of Elias&ndash;Fano's representation of monotone sequences; an element occupies a number of bits bounded by two plus the logarithm of the average gap.
  *
@@ -74,10 +84,11 @@ import it.unimi.dsi.sux4j.bits.SimpleSelect;
  *
  * <p>This implementation uses {@link SimpleSelect} to support selection inside the upper-bits array, and
  * exploits {@link SimpleSelect#select(long, long[], int, int)} to implement
- * {@link #get(long, long[], int, int)}.
+ * {@link #get(long, long[], int, int)}. If the upper-bits array does not fit a {@link LongArrayBitVector},
+ * it is stored in a {@link LongBigArrayBitVector} and indexed by a {@link SimpleBigSelect}.
  */
 
-public class EliasFanoMonotoneLongBigList extends AbstractLongBigList implements Serializable {
+public class EliasFanoMonotoneLongBigList extends AbstractLongBigList implements Serializable, MappedDumpable {
 	private static final long serialVersionUID = 4L;
 
 	/** The length of the sequence. */
@@ -87,7 +98,7 @@ public class EliasFanoMonotoneLongBigList extends AbstractLongBigList implements
 	/** The list of lower bits of each element, stored explicitly. */
 	protected final long[] lowerBits;
 	/** The select structure used to extract the upper bits. */
-	protected final SimpleSelect selectUpper;
+	protected final Select selectUpper;
 	/** The mask for the lower bits. */
 	protected final long lowerBitsMask;
 
@@ -101,7 +112,7 @@ public class EliasFanoMonotoneLongBigList extends AbstractLongBigList implements
 		return length * l < Long.SIZE * ((1L << 31) - 16);
 	}
 
-	protected EliasFanoMonotoneLongBigList(final long length, final int l, final long[] lowerBits, final SimpleSelect selectUpper) {
+	protected EliasFanoMonotoneLongBigList(final long length, final int l, final long[] lowerBits, final Select selectUpper) {
 		this.length = length;
 		this.l = l;
 		this.lowerBits = lowerBits;
@@ -242,7 +253,7 @@ public class EliasFanoMonotoneLongBigList extends AbstractLongBigList implements
 		final LongArrayBitVector lowerBitsVector = LongArrayBitVector.getInstance();
 		final LongBigList lowerBitsList = lowerBitsVector.asLongBigList(l);
 		lowerBitsList.size(length);
-		final BitVector upperBits = LongArrayBitVector.getInstance().length(length + (upperBound >>> l) + 1);
+		final BitVector upperBits = LongBigArrayBitVector.ofLengthFitting(length + (upperBound >>> l) + 1);
 		long last = Long.MIN_VALUE;
 		for(long i = 0; i < length; i++) {
 			v = iterator.nextLong();
@@ -255,7 +266,7 @@ public class EliasFanoMonotoneLongBigList extends AbstractLongBigList implements
 
 		if (iterator.hasNext()) throw new IllegalArgumentException("There are more than " + length + " values in the provided iterator");
 		this.lowerBits = lowerBitsVector.bits();
-		selectUpper = new SimpleSelect(upperBits);
+		selectUpper = SimpleBigSelect.getInstance(upperBits);
 	}
 
 
@@ -320,4 +331,229 @@ public class EliasFanoMonotoneLongBigList extends AbstractLongBigList implements
 	public long size64() {
 		return length;
 	}
+
+	/** Writes this list in the {@linkplain MappedFormat mapped format}.
+	 *
+	 * <p>The select structure of the upper bits must be {@linkplain MappedDumpable dumpable}.
+	 *
+	 * <p>Subclasses with a different semantics for {@link #getLong(long)} (e.g., {@link EliasFanoPrefixSumLongBigList})
+	 * write the underlying monotone sequence.
+	 *
+	 * @param out a mapped output.
+	 * @see MappedEliasFanoMonotoneLongBigList
+	 */
+	@Override
+	public void dump(final MappedOutput out) throws IOException {
+		if (! (selectUpper instanceof MappedDumpable)) throw new UnsupportedOperationException("The select structure of the upper bits (" + selectUpper.getClass().getName() + ") does not support the mapped format");
+		out.writeLong(MappedFormat.ELIAS_FANO_MONOTONE_LONG_BIG_LIST);
+		out.writeLong(length);
+		out.writeLong(l);
+		out.writeLongs(lowerBits);
+		((MappedDumpable)selectUpper).dump(out);
+	}
+
+	@Override
+	public EliasFanoMonotoneLongBigListIterator iterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public EliasFanoMonotoneLongBigListIterator listIterator() {
+		return listIterator(0);
+	}
+
+	@Override
+	public EliasFanoMonotoneLongBigListIterator listIterator(final long from) {
+		return new EliasFanoMonotoneLongBigListIterator(from);
+	}
+
+	/** A list iterator over the elements of an {@link EliasFanoMonotoneLongBigList}.
+	 *
+	 * <p>Instances of this class perform a single selection when they are created, and then decode
+	 * the upper bits word by word, extracting the lower bits in the same pass. No object is allocated during the
+	 * iteration. An additional {@linkplain #next(long[], int, int) block method} decodes several consecutive elements into an
+	 * array fragment. Moving backwards, or {@linkplain #skip(long) skipping} elements, requires instead a selection.
+	 */
+	public class EliasFanoMonotoneLongBigListIterator implements LongBigListIterator {
+		/** The bits of the upper-bits array, or {@code null} if the upper bits are stored in {@link #bigUpperBits}. */
+		protected final long[] upperBits = selectUpper.bitVector() instanceof LongBigArrayBitVector ? null : selectUpper.bitVector().bits();
+		/** The bits of the upper-bits array, if they are stored in a {@link LongBigArrayBitVector}, or {@code null}. */
+		protected final long[][] bigUpperBits = selectUpper.bitVector() instanceof LongBigArrayBitVector ? ((LongBigArrayBitVector)selectUpper.bitVector()).bigBits() : null;
+		/** The index of the next element to be returned. */
+		protected long index;
+		/** The index of the word of {@link #upperBits} containing the upper bits of the next element. */
+		protected long word;
+		/** The word of {@link #upperBits} of index {@link #word}, with the bits corresponding to already returned elements cleared. */
+		protected long window;
+		/** The position in {@link EliasFanoMonotoneLongBigList#lowerBits} of the lower bits of the next element. */
+		protected long lowerBitsPosition;
+
+		protected EliasFanoMonotoneLongBigListIterator(final long from) {
+			position(from);
+		}
+
+		/** Positions this iterator on a given index.
+		 *
+		 * @param index the index of the next element that will be returned.
+		 * @return the position of the upper bits of the element of given index, if {@code index} is smaller than the length of the list.
+		 */
+		protected final long position(final long index) {
+			if (index < 0 || index > length) throw new IndexOutOfBoundsException(Long.toString(index));
+			this.index = index;
+			lowerBitsPosition = index * l;
+			if (index == length) {
+				window = 0;
+				return -1;
+			}
+			final long position = selectUpper.select(index);
+			word = position / Long.SIZE;
+			window = upperWord(word) & -1L << position;
+			return position;
+		}
+
+		/** Returns a word of the upper-bits array.
+		 *
+		 * @param word the index of a word.
+		 * @return the word of given index of the upper-bits array.
+		 */
+		protected final long upperWord(final long word) {
+			return upperBits != null ? upperBits[(int)word] : BigArrays.get(bigUpperBits, word);
+		}
+
+		/** Extracts the lower bits at a given position, assuming {@link EliasFanoMonotoneLongBigList#l} is not zero. */
+		private long lowerBits(final long position) {
+			final int startWord = (int)(position / Long.SIZE);
+			final int startBit = (int)(position % Long.SIZE);
+			final long result = lowerBits[startWord] >>> startBit;
+			return (startBit + l <= Long.SIZE ? result : result | lowerBits[startWord + 1] << -startBit) & lowerBitsMask;
+		}
+
+		/** Returns the next element, assuming there is one.
+		 *
+		 * @return the next element.
+		 */
+		protected final long advance() {
+			while(window == 0) window = upperWord(++word);
+			final long upper = word * Long.SIZE + Long.numberOfTrailingZeros(window) - index++;
+			window &= window - 1;
+			if (l == 0) return upper;
+			final long lower = lowerBits(lowerBitsPosition);
+			lowerBitsPosition += l;
+			return upper << l | lower;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < length;
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return index > 0;
+		}
+
+		@Override
+		public long nextLong() {
+			if (! hasNext()) throw new NoSuchElementException();
+			return advance();
+		}
+
+		@Override
+		public long previousLong() {
+			if (! hasPrevious()) throw new NoSuchElementException();
+			final long position = position(index - 1);
+			final long upper = position - index;
+			return l == 0 ? upper : upper << l | lowerBits(lowerBitsPosition);
+		}
+
+		@Override
+		public long nextIndex() {
+			return index;
+		}
+
+		@Override
+		public long previousIndex() {
+			return index - 1;
+		}
+
+		/** Decodes a number of consecutive elements into a given array fragment.
+		 *
+		 * @param dest the destination array.
+		 * @param offset the first position written in {@code dest}.
+		 * @param length the maximum number of elements to be decoded.
+		 * @return the number of elements actually decoded, which will be smaller than {@code length} only if the
+		 * iterator is exhausted.
+		 */
+		public int next(final long[] dest, final int offset, final int length) {
+			final int n = (int)Math.min(length, EliasFanoMonotoneLongBigList.this.length - index);
+			final long[] lowerBits = EliasFanoMonotoneLongBigList.this.lowerBits;
+			final int l = EliasFanoMonotoneLongBigList.this.l;
+			final long lowerBitsMask = EliasFanoMonotoneLongBigList.this.lowerBitsMask;
+			long word = this.word;
+			long window = this.window;
+			long index = this.index;
+			long lowerBitsPosition = this.lowerBitsPosition;
+
+			if (l == 0) {
+				for(int i = offset; i < offset + n; i++) {
+					while(window == 0) window = upperWord(++word);
+					dest[i] = word * Long.SIZE + Long.numberOfTrailingZeros(window) - index++;
+					window &= window - 1;
+				}
+			}
+			else {
+				for(int i = offset; i < offset + n; i++) {
+					while(window == 0) window = upperWord(++word);
+					final long upper = word * Long.SIZE + Long.numberOfTrailingZeros(window) - index++;
+					window &= window - 1;
+					final int startWord = (int)(lowerBitsPosition >>> 6);
+					final int startBit = (int)(lowerBitsPosition & 63);
+					final long result = lowerBits[startWord] >>> startBit;
+					dest[i] = upper << l | (startBit + l <= Long.SIZE ? result : result | lowerBits[startWord + 1] << -startBit) & lowerBitsMask;
+					lowerBitsPosition += l;
+				}
+			}
+
+			this.word = word;
+			this.window = window;
+			this.index = index;
+			this.lowerBitsPosition = lowerBitsPosition;
+			return n;
+		}
+
+		/** Decodes a number of consecutive elements into a given array.
+		 *
+		 * @param dest the destination array.
+		 * @return the number of elements actually decoded, which will be smaller than the length of {@code dest} only if the
+		 * iterator is exhausted.
+		 * @see #next(long[], int, int)
+		 */
+		public int next(final long[] dest) {
+			return next(dest, 0, dest.length);
+		}
+
+		@Override
+		public long skip(final long n) {
+			final long skipped = Math.min(n, length - index);
+			if (skipped > 0) position(index + skipped);
+			return Math.max(0, skipped);
+		}
+
+		@Override
+		public int skip(final int n) {
+			return (int)skip((long)n);
+		}
+
+		@Override
+		public long back(final long n) {
+			final long skipped = Math.min(n, index);
+			if (skipped > 0) position(index - skipped);
+			return Math.max(0, skipped);
+		}
+
+		@Override
+		public int back(final int n) {
+			return (int)back((long)n);
+		}
+	}
 }
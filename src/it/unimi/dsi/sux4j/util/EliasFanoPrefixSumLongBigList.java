@@ -30,6 +30,10 @@ import it.unimi.dsi.fastutil.longs.LongIterable;
 import it.unimi.dsi.fastutil.longs.LongIterator;
 import it.unimi.dsi.fastutil.longs.LongIterators;
 import it.unimi.dsi.fastutil.shorts.ShortIterable;
+import it.unimi.dsi.sux4j.bits.LongBigArrayBitVector;
+import it.unimi.dsi.sux4j.bits.SelectZero;
+import it.unimi.dsi.sux4j.bits.SimpleBigSelectZero;
+import it.unimi.dsi.sux4j.bits.SimpleSelectZero;
 
 /** A compressed big list of longs providing prefix sums; an element occupies a number of bits bounded by two plus the logarithm of the average value.
  *
@@ -43,9 +47,13 @@ import it.unimi.dsi.fastutil.shorts.ShortIterable;
  * storing the prefix sums. The {@link #getLong(long)} method has been optimised so to avoid two calls
  * to the {@link #getLong(long)} method of the {@link EliasFanoMonotoneLongBigList}.
  *
+ * <p>The inverse operation, that is, finding the element whose prefix-sum interval contains
+ * a given value ({@link #rankOfSum(long)}), is performed using a {@link SimpleSelectZero} structure on the upper bits:
+ * a selection of a zero locates the bucket of the value, and a short scan of the bucket completes the search.
+ *
  */
 public class EliasFanoPrefixSumLongBigList extends EliasFanoMonotoneLongBigList {
-	private static final long serialVersionUID = 2L;
+	private static final long serialVersionUID = 4L;
 
 	/** Wraps an iterator and returns prefix sums. */
 
@@ -85,6 +93,8 @@ public class EliasFanoPrefixSumLongBigList extends EliasFanoMonotoneLongBigList
 	}
 
 	private final BitVector upperBits;
+	/** The zero-selection structure on the upper bits, used by {@link #rankOfSum(long)}. */
+	private final SelectZero selectUpperZero;
 
 	/** Creates a new Elias&ndash;Fano prefix-sum long big list.
 	 *
@@ -93,6 +103,7 @@ public class EliasFanoPrefixSumLongBigList extends EliasFanoMonotoneLongBigList
 	public EliasFanoPrefixSumLongBigList(final LongIterable elements) {
 		super(new CumulativeLongIterable(elements));
 		this.upperBits = selectUpper.bitVector();
+		this.selectUpperZero = SimpleBigSelectZero.getInstance(upperBits);
 	}
 
 	/** Creates a new Elias&ndash;Fano prefix-sum long big list.
@@ -148,8 +159,193 @@ public class EliasFanoPrefixSumLongBigList extends EliasFanoMonotoneLongBigList
 		return super.getLong(index);
 	}
 
+	/** Returns the index of the element whose prefix-sum interval contains the given value.
+	 *
+	 * <p>The <em>prefix-sum interval</em> of the element of index <var>i</var> is [{@link #prefixSum(long) prefixSum(<var>i</var>)}..{@link #prefixSum(long) prefixSum(<var>i</var> + 1)});
+	 * if elements are record lengths, this method returns the index of the record containing a given offset.
+	 * Zero elements have an empty interval, and they are never returned.
+	 *
+	 * <p>This method requires a zero selection and a scan of the bucket of {@code sum}, so
+	 * its cost does not depend on the length of this list.
+	 *
+	 * @param sum a value.
+	 * @return the index of the element whose prefix-sum interval contains {@code sum}, or -1 if {@code sum}
+	 * is negative or not smaller than the sum of all elements.
+	 */
+	public long rankOfSum(final long sum) {
+		if (sum < 0) return -1;
+		final long upper = sum >>> l;
+		final long zeroes = upperBits.length() - length;
+		if (upper >= zeroes) return -1;
+		// The bucket of sum starts just after the upper-th zero
+		final long position = upper == 0 ? 0 : selectUpperZero.selectZero(upper - 1) + 1;
+		final long count = scan(position, position - upper, sum & lowerBitsMask);
+		return count == length ? -1 : count - 1;
+	}
+
+	/** Scans a bucket of the upper bits, returning the number of prefix sums smaller than or equal to a given value.
+	 *
+	 * @param position the position in the upper bits of the first prefix sum to examine.
+	 * @param index the index of the first prefix sum to examine.
+	 * @param lower the lower bits of the value (its upper bits are those of the bucket).
+	 * @return the number of prefix sums smaller than or equal to the value.
+	 */
+	private long scan(long position, long index, final long lower) {
+		final long[] bits = upperBits instanceof LongBigArrayBitVector ? null : upperBits.bits();
+		final long[] lowerBits = this.lowerBits;
+		final int l = this.l;
+		final long length = this.length;
+		while(index < length && (bits != null ? (bits[(int)(position / Long.SIZE)] & 1L << position) != 0 : upperBits.getBoolean(position))) {
+			if (l != 0) {
+				final long start = index * l;
+				final int startWord = (int)(start / Long.SIZE);
+				final int startBit = (int)(start % Long.SIZE);
+				final long result = lowerBits[startWord] >>> startBit;
+				if (((startBit + l <= Long.SIZE ? result : result | lowerBits[startWord + 1] << -startBit) & lowerBitsMask) > lower) break;
+			}
+			index++;
+			position++;
+		}
+		return index;
+	}
+
+	/** Computes {@link #rankOfSum(long)} for a number of values.
+	 *
+	 * <p>When values are nondecreasing, consecutive values falling in the same bucket
+	 * of the upper bits are located by continuing the scan of the previous one, without further selections.
+	 *
+	 * @param sum an array of values.
+	 * @param dest the destination array; it will be filled with the results of {@link #rankOfSum(long)} for the values
+	 * in {@code sum} at positions {@code offset} (inclusive) to {@code offset + length} (exclusive).
+	 * @param offset the first position of {@code sum} and {@code dest} to be used.
+	 * @param length the number of values.
+	 * @return {@code dest}
+	 * @see #rankOfSum(long[], long[])
+	 */
+	public long[] rankOfSum(final long[] sum, final long[] dest, final int offset, final int length) {
+		final long zeroes = upperBits.length() - this.length;
+		long lastUpper = -1, lastLower = -1, position = 0, count = 0;
+		for(int i = offset; i < offset + length; i++) {
+			final long s = sum[i];
+			final long upper = s >>> l;
+			if (s < 0 || upper >= zeroes) {
+				dest[i] = -1;
+				continue;
+			}
+			final long lower = s & lowerBitsMask;
+			if (upper != lastUpper || lower < lastLower) {
+				position = upper == 0 ? 0 : selectUpperZero.selectZero(upper - 1) + 1;
+				count = position - upper;
+			}
+			else position = count + upper;
+			lastUpper = upper;
+			lastLower = lower;
+			count = scan(position, count, lower);
+			dest[i] = count == this.length ? -1 : count - 1;
+		}
+		return dest;
+	}
+
+	/** Computes {@link #rankOfSum(long)} for a number of values.
+	 *
+	 * @param sum an array of values.
+	 * @param dest the destination array; it will be filled with the results of {@link #rankOfSum(long)} for the values in {@code sum}.
+	 * @return {@code dest}
+	 * @see #rankOfSum(long[], long[], int, int)
+	 */
+	public long[] rankOfSum(final long[] sum, final long[] dest) {
+		return rankOfSum(sum, dest, 0, sum.length);
+	}
+
+	@Override
+	public long numBits() {
+		return super.numBits() + selectUpperZero.numBits();
+	}
+
 	@Override
 	public long size64() {
 		return length - 1;
 	}
+
+	@Override
+	public EliasFanoPrefixSumLongBigListIterator listIterator(final long from) {
+		return new EliasFanoPrefixSumLongBigListIterator(from);
+	}
+
+	/** A list iterator over the elements of an {@link EliasFanoPrefixSumLongBigList}.
+	 *
+	 * <p>Instances of this class decode sequentially the underlying prefix sums, and return their differences.
+	 */
+	public final class EliasFanoPrefixSumLongBigListIterator extends EliasFanoMonotoneLongBigListIterator {
+		/** The last prefix sum decoded. */
+		private long last;
+
+		private EliasFanoPrefixSumLongBigListIterator(final long from) {
+			super(from);
+			if (from == length) throw new IndexOutOfBoundsException(Long.toString(from));
+			last = advance();
+		}
+
+		@Override
+		public boolean hasPrevious() {
+			return index > 1;
+		}
+
+		@Override
+		public long nextLong() {
+			if (! hasNext()) throw new NoSuchElementException();
+			final long prefixSum = advance();
+			final long result = prefixSum - last;
+			last = prefixSum;
+			return result;
+		}
+
+		@Override
+		public long previousLong() {
+			if (! hasPrevious()) throw new NoSuchElementException();
+			final long prefixSum = last;
+			position(index - 2);
+			last = advance();
+			return prefixSum - last;
+		}
+
+		@Override
+		public long nextIndex() {
+			return index - 1;
+		}
+
+		@Override
+		public long previousIndex() {
+			return index - 2;
+		}
+
+		@Override
+		public int next(final long[] dest, final int offset, final int length) {
+			final int n = super.next(dest, offset, length);
+			for(int i = 0; i < n; i++) {
+				final long prefixSum = dest[offset + i];
+				dest[offset + i] = prefixSum - last;
+				last = prefixSum;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(final long n) {
+			final long skipped = Math.min(n, length - index);
+			if (skipped <= 0) return 0;
+			position(index + skipped - 1);
+			last = advance();
+			return skipped;
+		}
+
+		@Override
+		public long back(final long n) {
+			final long skipped = Math.min(n, index - 1);
+			if (skipped <= 0) return 0;
+			position(index - skipped - 1);
+			last = advance();
+			return skipped;
+		}
+	}
 }
@@ -0,0 +1,443 @@
+package it.unimi.dsi.sux4j.util;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.AbstractLongSortedSet;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.fastutil.longs.LongBidirectionalIterator;
+import it.unimi.dsi.fastutil.longs.LongComparator;
+import it.unimi.dsi.fastutil.longs.LongSortedSet;
+import it.unimi.dsi.fastutil.objects.ObjectArrays;
+
+/** A y-fast trie, that is, a dynamic predecessor/successor data structure for primitive longs.
+ *
+ * <p>Elements are kept in sorted primitive <em>buckets</em> containing between {@link #MIN_BUCKET_SIZE}
+ * and {@link #MAX_BUCKET_SIZE} elements (except for the first bucket, which can contain fewer elements),
+ * linked in a doubly linked list. Each bucket but the first one has a <em>representative</em> (an integer that is smaller than or equal to
+ * the elements of the bucket, and larger than the elements of the previous bucket), and representatives are
+ * indexed by an x-fast trie: a single hash table mapping every prefix of every representative (seen as a
+ * 64-bit string) to the first and last bucket whose representative starts with that prefix.
+ *
+ * <p>Prefixes are hashed directly as raw longs, so to locate the bucket of an element it is sufficient
+ * to binary search over the possible prefix lengths, using at most seven hash-table lookups, followed by a binary search in a bucket.
+ * No operation allocates objects, except when buckets are split or merged, or when the hash table is resized.
+ * Since the representatives are at most one every {@link #MIN_BUCKET_SIZE} elements, the amortized cost of
+ * updating the hash table is constant.
+ *
+ * <p>Elements are ordered as signed longs. Since there is no value of type {@code long} that can be used to signal
+ * that {@link #pred(long)} or {@link #succ(long)} have no answer, those methods return in that case a
+ * {@linkplain #defaultReturnValue(long) settable default return value}, which is {@link Long#MIN_VALUE} by default.
+ */
+
+public class LongYFastTrie extends AbstractLongSortedSet implements Serializable {
+	private static final long serialVersionUID = 1L;
+	/** The maximum number of elements in a bucket: when a bucket reaches this size, it is split. */
+	public static final int MAX_BUCKET_SIZE = 128;
+	/** The minimum number of elements in a bucket: when a bucket falls below this size, it is merged with a neighbour. */
+	public static final int MIN_BUCKET_SIZE = 16;
+	/** The length of the array containing the elements of a bucket. */
+	private static final int BUCKET_CAPACITY = MAX_BUCKET_SIZE + MIN_BUCKET_SIZE;
+	/** The number of buckets that are allocated initially. */
+	private static final int INITIAL_BUCKETS = 16;
+
+	/** The number of elements in the trie. */
+	private int size;
+	/** The default return value of {@link #pred(long)} and {@link #succ(long)}. */
+	private long defRetValue = Long.MIN_VALUE;
+
+	/** The elements of each bucket. */
+	private long[][] bucket;
+	/** The number of elements in each bucket; for free buckets, the next free bucket. */
+	private int[] bucketSize;
+	/** The representative of each bucket. */
+	private long[] rep;
+	/** The previous bucket of each bucket, or -1. */
+	private int[] prev;
+	/** The next bucket of each bucket, or -1. */
+	private int[] next;
+	/** The number of bucket identifiers ever used. */
+	private int buckets;
+	/** The first free bucket identifier, or -1. */
+	private int freeBucket = -1;
+	/** The first bucket (it has no representative, and it is never removed). */
+	private final int head;
+	/** The last bucket. */
+	private int tail;
+
+	/** The x-fast trie: for each prefix of each representative, encoded by {@link #prefix(long, int)}, the
+	 * first (upper 32 bits) and last (lower 32 bits) bucket whose representative starts with the prefix. */
+	private final Long2LongOpenHashMap prefix2Buckets;
+
+	/** Creates a new empty y-fast trie. */
+	public LongYFastTrie() {
+		bucket = new long[INITIAL_BUCKETS][];
+		bucketSize = new int[INITIAL_BUCKETS];
+		rep = new long[INITIAL_BUCKETS];
+		prev = new int[INITIAL_BUCKETS];
+		next = new int[INITIAL_BUCKETS];
+		prefix2Buckets = new Long2LongOpenHashMap();
+		prefix2Buckets.defaultReturnValue(-1);
+		head = tail = newBucket();
+		prev[head] = next[head] = -1;
+	}
+
+	/** Creates a new y-fast trie containing the given elements.
+	 *
+	 * @param a an array of elements.
+	 */
+	public LongYFastTrie(final long[] a) {
+		this();
+		for(final long x : a) add(x);
+	}
+
+	/** Sets the value returned by {@link #pred(long)} and {@link #succ(long)} when there is no answer.
+	 *
+	 * @param rv the new default return value.
+	 */
+	public void defaultReturnValue(final long rv) {
+		defRetValue = rv;
+	}
+
+	/** Returns the value returned by {@link #pred(long)} and {@link #succ(long)} when there is no answer.
+	 *
+	 * @return the default return value.
+	 */
+	public long defaultReturnValue() {
+		return defRetValue;
+	}
+
+	@Override
+	public int size() {
+		return size;
+	}
+
+	/* Bucket management. */
+
+	private int newBucket() {
+		if (freeBucket != -1) {
+			final int b = freeBucket;
+			freeBucket = bucketSize[b];
+			bucketSize[b] = 0;
+			return b;
+		}
+		if (buckets == bucket.length) {
+			final int length = (int)Math.min(Integer.MAX_VALUE - 8, 2L * buckets);
+			bucket = ObjectArrays.setLength(bucket, length);
+			bucketSize = IntArrays.setLength(bucketSize, length);
+			rep = LongArrays.setLength(rep, length);
+			prev = IntArrays.setLength(prev, length);
+			next = IntArrays.setLength(next, length);
+		}
+		bucket[buckets] = new long[BUCKET_CAPACITY];
+		return buckets++;
+	}
+
+	private void freeBucket(final int b) {
+		bucketSize[b] = freeBucket;
+		freeBucket = b;
+	}
+
+	/** Splits a bucket in two halves, linking the new bucket after the given one and adding its representative to the x-fast trie. */
+	private void split(final int b) {
+		final int nb = newBucket();
+		final int half = bucketSize[b] / 2;
+		final int rest = bucketSize[b] - half;
+		System.arraycopy(bucket[b], half, bucket[nb], 0, rest);
+		bucketSize[nb] = rest;
+		bucketSize[b] = half;
+		rep[nb] = bucket[nb][0];
+
+		next[nb] = next[b];
+		prev[nb] = b;
+		if (next[b] != -1) prev[next[b]] = nb;
+		else tail = nb;
+		next[b] = nb;
+
+		addRep(nb);
+	}
+
+	/** Merges a bucket into the previous one, removing its representative from the x-fast trie.
+	 *
+	 * @param b a bucket different from {@link #head}.
+	 * @return the bucket in which {@code b} has been merged.
+	 */
+	private int mergeIntoPrev(final int b) {
+		removeRep(b);
+		final int p = prev[b];
+		System.arraycopy(bucket[b], 0, bucket[p], bucketSize[p], bucketSize[b]);
+		bucketSize[p] += bucketSize[b];
+
+		next[p] = next[b];
+		if (next[b] != -1) prev[next[b]] = p;
+		else tail = p;
+		freeBucket(b);
+		return p;
+	}
+
+	/* The x-fast trie. */
+
+	/** Returns the key associated in {@link #prefix2Buckets} with a prefix of a representative.
+	 *
+	 * <p>Representatives are mapped to 64-bit strings by flipping the sign bit, so that the lexicographical order of strings
+	 * is the signed order of longs. The prefix of length &#x2113; is stored in the lowest &#x2113; bits, and bit &#x2113;
+	 * is set to make prefixes of different length distinct.
+	 *
+	 * @param x a representative.
+	 * @param length the length of the prefix, between 0 and 63 (inclusive).
+	 * @return the key representing the prefix of {@code x} of given length.
+	 */
+	private static long prefix(final long x, final int length) {
+		return ((x ^ Long.MIN_VALUE) >>> 1 | Long.MIN_VALUE) >>> 63 - length;
+	}
+
+	/** Adds the representative of a bucket to the x-fast trie. */
+	private void addRep(final int b) {
+		final long x = rep[b];
+		for(int l = 0; l < 64; l++) {
+			final long p = prefix(x, l);
+			final long v = prefix2Buckets.get(p);
+			if (v == -1) prefix2Buckets.put(p, (long)b << 32 | b);
+			else {
+				int min = (int)(v >>> 32), max = (int)v;
+				if (x < rep[min]) min = b;
+				if (x > rep[max]) max = b;
+				prefix2Buckets.put(p, (long)min << 32 | max);
+			}
+		}
+	}
+
+	/** Removes the representative of a bucket from the x-fast trie; must be called while the bucket is still linked. */
+	private void removeRep(final int b) {
+		final long x = rep[b];
+		for(int l = 0; l < 64; l++) {
+			final long p = prefix(x, l);
+			final long v = prefix2Buckets.get(p);
+			int min = (int)(v >>> 32), max = (int)v;
+			if (min == b && max == b) prefix2Buckets.remove(p);
+			else {
+				// Representatives with the same prefix are contiguous, so the new extremes are the neighbours of b.
+				if (min == b) min = next[b];
+				if (max == b) max = prev[b];
+				prefix2Buckets.put(p, (long)min << 32 | max);
+			}
+		}
+	}
+
+	/** Returns the bucket that should contain a given element.
+	 *
+	 * @param x an element.
+	 * @return the bucket with the largest representative smaller than or equal to {@code x}, or {@link #head} if there is no such bucket.
+	 */
+	private int bucket(final long x) {
+		if (prefix2Buckets.isEmpty()) return head;
+		// The root (empty prefix) is always present: we look for the longest prefix of x in the table.
+		long v = prefix2Buckets.get(prefix(x, 0));
+		int a = 0, b = 63;
+		while(a < b) {
+			final int m = (a + b + 1) >>> 1;
+			final long w = prefix2Buckets.get(prefix(x, m));
+			if (w == -1) b = m - 1;
+			else {
+				a = m;
+				v = w;
+			}
+		}
+
+		final int min = (int)(v >>> 32), max = (int)v;
+		if (rep[max] <= x) return max;
+		// All representatives sharing the longest prefix with x are larger than x, unless x itself is a representative
+		if (rep[min] == x) return min;
+		return prev[min] == -1 ? head : prev[min];
+	}
+
+	/** Returns the position of an element in a bucket, in the same format as {@link Arrays#binarySearch(long[], int, int, long)}. */
+	private int find(final int b, final long x) {
+		return Arrays.binarySearch(bucket[b], 0, bucketSize[b], x);
+	}
+
+	/* Set operations. */
+
+	@Override
+	public boolean contains(final long x) {
+		return find(bucket(x), x) >= 0;
+	}
+
+	@Override
+	public boolean add(final long x) {
+		final int b = bucket(x);
+		int pos = find(b, x);
+		if (pos >= 0) return false;
+		pos = -pos - 1;
+		final long[] a = bucket[b];
+		System.arraycopy(a, pos, a, pos + 1, bucketSize[b] - pos);
+		a[pos] = x;
+		size++;
+		if (++bucketSize[b] >= MAX_BUCKET_SIZE) split(b);
+		return true;
+	}
+
+	@Override
+	public boolean remove(final long x) {
+		int b = bucket(x);
+		final int pos = find(b, x);
+		if (pos < 0) return false;
+		final long[] a = bucket[b];
+		System.arraycopy(a, pos + 1, a, pos, bucketSize[b] - pos - 1);
+		size--;
+		if (--bucketSize[b] < MIN_BUCKET_SIZE && head != tail) {
+			// We merge with a neighbour, and split again if necessary
+			b = next[b] != -1 ? mergeIntoPrev(next[b]) : mergeIntoPrev(b);
+			if (bucketSize[b] >= MAX_BUCKET_SIZE) split(b);
+		}
+		return true;
+	}
+
+	/** Returns the smallest element of this trie greater than or equal to a given value.
+	 *
+	 * @param x a value.
+	 * @return the smallest element greater than or equal to {@code x}, or the {@linkplain #defaultReturnValue() default return value}
+	 * if there is no such element.
+	 */
+	public long succ(final long x) {
+		int b = bucket(x);
+		int pos = find(b, x);
+		if (pos >= 0) return x;
+		pos = -pos - 1;
+		if (pos < bucketSize[b]) return bucket[b][pos];
+		// Only the head can be empty, and in that case it is the only bucket.
+		if ((b = next[b]) == -1) return defRetValue;
+		return bucket[b][0];
+	}
+
+	/** Returns the largest element of this trie smaller than a given value.
+	 *
+	 * @param x a value.
+	 * @return the largest element smaller than {@code x}, or the {@linkplain #defaultReturnValue() default return value}
+	 * if there is no such element.
+	 */
+	public long pred(final long x) {
+		int b = bucket(x);
+		int pos = find(b, x);
+		if (pos < 0) pos = -pos - 1;
+		if (pos > 0) return bucket[b][pos - 1];
+		if ((b = prev[b]) == -1) return defRetValue;
+		return bucket[b][bucketSize[b] - 1];
+	}
+
+	@Override
+	public long firstLong() {
+		if (size == 0) throw new NoSuchElementException();
+		return bucket[head][0];
+	}
+
+	@Override
+	public long lastLong() {
+		if (size == 0) throw new NoSuchElementException();
+		return bucket[tail][bucketSize[tail] - 1];
+	}
+
+	@Override
+	public LongComparator comparator() {
+		return null;
+	}
+
+	private LongBidirectionalIterator iterator(final int startBucket, final int startPos) {
+		return new LongBidirectionalIterator() {
+			/** The bucket of the next element to be returned by {@link #nextLong()}. */
+			private int b = startBucket;
+			/** The position in {@link #b} of the next element to be returned by {@link #nextLong()}. */
+			private int pos = startPos;
+
+			@Override
+			public boolean hasNext() {
+				while(pos == bucketSize[b]) {
+					if (next[b] == -1) return false;
+					b = next[b];
+					pos = 0;
+				}
+				return true;
+			}
+
+			@Override
+			public long nextLong() {
+				if (! hasNext()) throw new NoSuchElementException();
+				return bucket[b][pos++];
+			}
+
+			@Override
+			public boolean hasPrevious() {
+				while(pos == 0) {
+					if (prev[b] == -1) return false;
+					b = prev[b];
+					pos = bucketSize[b];
+				}
+				return true;
+			}
+
+			@Override
+			public long previousLong() {
+				if (! hasPrevious()) throw new NoSuchElementException();
+				return bucket[b][--pos];
+			}
+		};
+	}
+
+	/** {@inheritDoc}
+	 *
+	 * <p>The returned iterator does not support modifications of this trie during the iteration.
+	 */
+	@Override
+	public LongBidirectionalIterator iterator() {
+		return iterator(head, 0);
+	}
+
+	/** {@inheritDoc}
+	 *
+	 * <p>The returned iterator does not support modifications of this trie during the iteration.
+	 */
+	@Override
+	public LongBidirectionalIterator iterator(final long from) {
+		final int b = bucket(from);
+		final int pos = find(b, from);
+		return iterator(b, pos >= 0 ? pos + 1 : -pos - 1);
+	}
+
+	@Override
+	public LongSortedSet headSet(final long to) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public LongSortedSet subSet(final long from, final long to) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public LongSortedSet tailSet(final long from) {
+		throw new UnsupportedOperationException();
+	}
+}
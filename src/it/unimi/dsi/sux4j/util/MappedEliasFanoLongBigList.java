@@ -0,0 +1,136 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import it.unimi.dsi.fastutil.longs.AbstractLongBigList;
+import it.unimi.dsi.sux4j.io.MappedBitVector;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedInput;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.util.ByteBufferLongBigList;
+
+/** A read-only, memory-mapped version of {@link EliasFanoLongBigList}.
+ *
+ * <p>Instances of this class access the data written by {@link EliasFanoLongBigList#dump(MappedOutput)}
+ * directly from a {@link ByteBufferLongBigList}, usually obtained by {@linkplain MappedInput#map(File) memory-mapping a file}.
+ *
+ * <p>Instances of this class are not thread safe. Use {@link #copy()} to obtain an
+ * instance sharing the same data that can be used by another thread.
+ */
+
+public class MappedEliasFanoLongBigList extends AbstractLongBigList {
+	/** The number of elements in this list. */
+	private final long length;
+	/** The offset that must be subtracted from each value. */
+	private final long offset;
+	/** The concatenation of the binary representations of the elements (plus one) with their most significant bit removed. */
+	private final MappedBitVector bits;
+	/** The positions of the delimiters in {@link #bits}. */
+	private final MappedEliasFanoMonotoneLongBigList borders;
+
+	/** Reads a list from a mapped input.
+	 *
+	 * @param in a mapped input positioned on a list written by {@link EliasFanoLongBigList#dump(MappedOutput)}.
+	 */
+	public MappedEliasFanoLongBigList(final MappedInput in) throws IOException {
+		in.readTag(MappedFormat.ELIAS_FANO_LONG_BIG_LIST);
+		length = in.readLong();
+		offset = in.readLong();
+		bits = in.readBitVector();
+		borders = new MappedEliasFanoMonotoneLongBigList(in);
+	}
+
+	private MappedEliasFanoLongBigList(final MappedEliasFanoLongBigList list) {
+		length = list.length;
+		offset = list.offset;
+		bits = new MappedBitVector(list.bits.data().copy(), list.bits.offset(), list.bits.length());
+		borders = list.borders.copy();
+	}
+
+	/** Maps a file containing a list written by {@link EliasFanoLongBigList#dump(MappedOutput)}.
+	 *
+	 * @param file a file.
+	 * @return a list backed by {@code file}.
+	 */
+	public static MappedEliasFanoLongBigList map(final File file) throws IOException {
+		return new MappedEliasFanoLongBigList(MappedInput.map(file));
+	}
+
+	/** Returns a copy of this list sharing the same data, which can be used by a different thread.
+	 *
+	 * @return a copy of this list.
+	 */
+	public MappedEliasFanoLongBigList copy() {
+		return new MappedEliasFanoLongBigList(this);
+	}
+
+	@Override
+	public long getLong(final long index) {
+		final long from = borders.getLong(index), to = borders.getLong(index + 1);
+		return ((1L << (to - from)) | bits.getLong(from, to)) - offset;
+	}
+
+	/** Extracts a number of consecutive entries into a given array fragment.
+	 *
+	 * @param index the index of the first entry returned.
+	 * @param dest the destination array; it will be filled with {@code length} consecutive entries starting at position {@code offset}.
+	 * @param offset the first position written in {@code dest}.
+	 * @param length the number of elements written in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #get(long, long[])
+	 */
+	public long[] get(long index, final long dest[], final int offset, final int length) {
+		long from = borders.getLong(index++), to;
+		// We use the destination array to cache borders.
+		borders.get(index, dest, offset, length);
+
+		for(int i = 0; i < length; i++) {
+			to = dest[offset + i];
+			dest[offset + i] = ((1L << (to - from)) | bits.getLong(from, to)) - this.offset;
+			from = to;
+		}
+
+		return dest;
+	}
+
+	/** Extracts a number of consecutive entries into a given array.
+	 *
+	 * @param index the index of the first entry returned.
+	 * @param dest the destination array; it will be filled with consecutive entries.
+	 * @return {@code dest}
+	 * @see #get(long, long[], int, int)
+	 */
+	public long[] get(final long index, final long dest[]) {
+		return get(index, dest, 0, dest.length);
+	}
+
+	@Override
+	public long size64() {
+		return length;
+	}
+
+	public long numBits() {
+		return borders.numBits() + bits.length();
+	}
+}
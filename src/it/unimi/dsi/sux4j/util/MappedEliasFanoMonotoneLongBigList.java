@@ -0,0 +1,163 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+package it.unimi.dsi.sux4j.util;
+
+import java.io.File;
+import java.io.IOException;
+
+import it.unimi.dsi.fastutil.longs.AbstractLongBigList;
+import it.unimi.dsi.sux4j.bits.MappedSimpleSelect;
+import it.unimi.dsi.sux4j.io.MappedBitVector;
+import it.unimi.dsi.sux4j.io.MappedFormat;
+import it.unimi.dsi.sux4j.io.MappedInput;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.util.ByteBufferLongBigList;
+
+/** A read-only, memory-mapped version of {@link EliasFanoMonotoneLongBigList}.
+ *
+ * <p>Instances of this class access the data written by {@link EliasFanoMonotoneLongBigList#dump(MappedOutput)}
+ * directly from a {@link ByteBufferLongBigList}, usually obtained by {@linkplain MappedInput#map(File) memory-mapping a file}.
+ * Loading is thus instantaneous, no heap space is used, and the pages of the file are shared among
+ * all processes mapping it.
+ *
+ * <p>Instances of this class are not thread safe. Use {@link #copy()} to obtain an
+ * instance sharing the same data that can be used by another thread.
+ */
+
+public class MappedEliasFanoMonotoneLongBigList extends AbstractLongBigList {
+	/** The length of the underlying bit array. */
+	private final long length;
+	/** The number of lower bits. */
+	private final int l;
+	/** The mask for lower bits. */
+	private final long lowerBitsMask;
+	/** The underlying list. */
+	private final ByteBufferLongBigList data;
+	/** The position of the lower bits. */
+	private final long lowerBits;
+	/** The length of the lower bits. */
+	private final long lowerBitsLength;
+	/** The select structure used to extract the upper bits. */
+	private final MappedSimpleSelect selectUpper;
+
+	/** Reads a list from a mapped input.
+	 *
+	 * @param in a mapped input positioned on a list written by {@link EliasFanoMonotoneLongBigList#dump(MappedOutput)}.
+	 */
+	public MappedEliasFanoMonotoneLongBigList(final MappedInput in) throws IOException {
+		in.readTag(MappedFormat.ELIAS_FANO_MONOTONE_LONG_BIG_LIST);
+		data = in.data();
+		length = in.readLong();
+		l = (int)in.readLong();
+		lowerBitsMask = (1L << l) - 1;
+		lowerBits = in.readLongs();
+		lowerBitsLength = data.getLong(lowerBits - 1);
+		selectUpper = new MappedSimpleSelect(in);
+	}
+
+	private MappedEliasFanoMonotoneLongBigList(final MappedEliasFanoMonotoneLongBigList list) {
+		length = list.length;
+		l = list.l;
+		lowerBitsMask = list.lowerBitsMask;
+		lowerBits = list.lowerBits;
+		lowerBitsLength = list.lowerBitsLength;
+		selectUpper = list.selectUpper.copy();
+		data = ((MappedBitVector)selectUpper.bitVector()).data();
+	}
+
+	/** Maps a file containing a list written by {@link EliasFanoMonotoneLongBigList#dump(MappedOutput)}.
+	 *
+	 * @param file a file.
+	 * @return a list backed by {@code file}.
+	 */
+	public static MappedEliasFanoMonotoneLongBigList map(final File file) throws IOException {
+		return new MappedEliasFanoMonotoneLongBigList(MappedInput.map(file));
+	}
+
+	/** Returns a copy of this list sharing the same data, which can be used by a different thread.
+	 *
+	 * @return a copy of this list.
+	 */
+	public MappedEliasFanoMonotoneLongBigList copy() {
+		return new MappedEliasFanoMonotoneLongBigList(this);
+	}
+
+	public long numBits() {
+		return selectUpper.numBits() + selectUpper.bitVector().length() + lowerBitsLength * Long.SIZE;
+	}
+
+	@Override
+	public long getLong(final long index) {
+		final int l = this.l;
+		final long upperBits = selectUpper.select(index) - index;
+		if (l == 0) return upperBits;
+
+		final long position = index * l;
+		final long startWord = lowerBits + position / Long.SIZE;
+		final int startBit = (int)(position % Long.SIZE);
+		final int totalOffset = startBit + l;
+		final long result = data.getLong(startWord) >>> startBit;
+		return upperBits << l | (totalOffset <= Long.SIZE ? result : result | data.getLong(startWord + 1) << -startBit) & lowerBitsMask;
+	}
+
+	/** Extracts a number of consecutive entries into a given array fragment.
+	 *
+	 * @param index the index of the first entry returned.
+	 * @param dest the destination array; it will be filled with {@code length} consecutive entries starting at position {@code offset}.
+	 * @param offset the first position written in {@code dest}.
+	 * @param length the number of elements written in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #get(long, long[])
+	 */
+	public long[] get(long index, final long dest[], final int offset, final int length) {
+		selectUpper.select(index, dest, offset, length);
+		if (l == 0) for(int i = 0; i < length; i++) dest[offset + i] -= index++;
+		else {
+			long position = index * l;
+			for(int i = 0; i < length; i++) {
+				final long startWord = lowerBits + position / Long.SIZE;
+				final int startBit = (int)(position % Long.SIZE);
+				final int totalOffset = startBit + l;
+				final long result = data.getLong(startWord) >>> startBit;
+				dest[offset + i] = dest[offset + i] - index++ << l | (totalOffset <= Long.SIZE ? result : result | data.getLong(startWord + 1) << -startBit) & lowerBitsMask;
+				position += l;
+			}
+		}
+
+		return dest;
+	}
+
+	/** Extracts a number of consecutive entries into a given array.
+	 *
+	 * @param index the index of the first entry returned.
+	 * @param dest the destination array; it will be filled with consecutive entries.
+	 * @return {@code dest}
+	 * @see #get(long, long[], int, int)
+	 */
+	public long[] get(final long index, final long dest[]) {
+		return get(index, dest, 0, dest.length);
+	}
+
+	@Override
+	public long size64() {
+		return length;
+	}
+}
@@ -0,0 +1,613 @@
+package it.unimi.dsi.sux4j.util;
+
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.ints.IntIterable;
+import it.unimi.dsi.fastutil.longs.AbstractLongBigList;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterable;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongIterators;
+import it.unimi.dsi.sux4j.bits.SparseRank;
+import it.unimi.dsi.sux4j.bits.SparseSelect;
+
+/** A partitioned Elias&ndash;Fano representation of monotone sequences.
+ *
+ * <p>{@link EliasFanoMonotoneLongBigList} uses the same number of lower bits for the whole sequence, and thus
+ * cannot exploit local clustering of the elements. Instances of this class split the sequence into
+ * chunks of variable length, and represent each chunk with respect to the last element of the previous chunk, using
+ * the cheapest among three encodings:
+ * <ul>
+ * <li>a <em>run</em>, if the chunk is made of consecutive integers, which occupies no space at all;
+ * <li>a <em>dense bitmap</em> of the elements, if the chunk has no repeated elements;
+ * <li>a plain <em>Elias&ndash;Fano</em> representation.
+ * </ul>
+ *
+ * <p>The encoding of a chunk is not stored explicitly: it is deduced from the number of elements of the chunk, its last element
+ * and the number of bits it occupies. The starting index, the last element and the bit offset of each chunk are stored in turn using
+ * Elias&ndash;Fano representations.
+ *
+ * <p>Chunks are chosen by the approximation algorithm described by Giuseppe Ottaviano and Rossano Venturini in
+ * &ldquo;Partitioned Elias&ndash;Fano indexes&rdquo;, <i>Proc. SIGIR 2014</i>, pages 273&minus;282,
+ * which finds in linear time a partition whose cost is within a small factor of the optimal one, taking into
+ * account an estimate of the fixed cost of a chunk. Chunks contain at most {@link #MAX_CHUNK_SIZE} elements, so that the
+ * sequential scans performed inside a chunk are short.
+ *
+ * <p>Besides {@linkplain #getLong(long) random access} and {@linkplain #get(long, long[], int, int) bulk extraction},
+ * a {@linkplain #skippingIterator() skipping iterator} makes it possible to enumerate elements and to skip to the first element greater than
+ * or equal to a given bound.
+ *
+ * <p>Since construction requires random access to the elements, this class can represent at most
+ * {@link Integer#MAX_VALUE} &minus; 8 elements.
+ */
+
+public class PartitionedEliasFanoMonotoneLongBigList extends AbstractLongBigList implements Serializable {
+	private static final long serialVersionUID = 0L;
+
+	/** The maximum number of elements in a chunk. */
+	public static final int MAX_CHUNK_SIZE = 1024;
+	/** An estimate of the fixed cost of a chunk, in bits. */
+	private static final long CHUNK_COST = 64;
+	/** The bound on the relative loss due to the fixed cost of chunks in the partitioning algorithm. */
+	private static final double EPS1 = 0.03;
+	/** The ratio between successive cost bounds in the partitioning algorithm. */
+	private static final double EPS2 = 0.3;
+
+	/** Chunk type: consecutive integers. */
+	private static final int RUN = 0;
+	/** Chunk type: dense bitmap. */
+	private static final int BITMAP = 1;
+	/** Chunk type: Elias&ndash;Fano. */
+	private static final int ELIAS_FANO = 2;
+
+	/** The length of the sequence. */
+	protected final long length;
+	/** The number of chunks. */
+	protected final long numChunks;
+	/** The starting index of each chunk. */
+	protected final SparseSelect chunkStart;
+	/** A rank structure over {@link #chunkStart}, used to find the chunk of an index. */
+	protected final SparseRank chunkRank;
+	/** The last element of each chunk. */
+	protected final EliasFanoIndexedMonotoneLongBigList chunkLast;
+	/** The bit offset of each chunk in {@link #bits}, followed by the overall number of bits. */
+	protected final EliasFanoMonotoneLongBigList chunkOffset;
+	/** The concatenated representations of all chunks. */
+	protected final long[] bits;
+
+	/** Creates a partitioned Elias&ndash;Fano representation of the values returned by the given {@linkplain Iterable iterable object}.
+	 *
+	 * @param list an iterable object returning nondecreasing natural numbers.
+	 */
+	public PartitionedEliasFanoMonotoneLongBigList(final IntIterable list) {
+		this((LongIterable) () -> LongIterators.wrap(list.iterator()));
+	}
+
+	/** Creates a partitioned Elias&ndash;Fano representation of the values returned by the given {@linkplain Iterable iterable object}.
+	 *
+	 * @param list an iterable object returning nondecreasing natural numbers.
+	 */
+	public PartitionedEliasFanoMonotoneLongBigList(final LongIterable list) {
+		final LongArrayList values = new LongArrayList();
+		long prev = 0;
+		for(final LongIterator iterator = list.iterator(); iterator.hasNext();) {
+			final long v = iterator.nextLong();
+			if (v < 0) throw new IllegalArgumentException("Negative value: " + v);
+			if (v < prev) throw new IllegalArgumentException("The list of values is not monotone: " + prev + " > " + v);
+			values.add(v);
+			prev = v;
+		}
+
+		final long[] x = values.elements();
+		final int n = values.size();
+		length = n;
+
+		final int[] dup = duplicates(x, n);
+		final int[] cut = partition(x, dup, n);
+		final int c = cut.length - 1;
+		numChunks = c;
+
+		final long[] start = new long[c], last = new long[c], offset = new long[c + 1];
+		final LongArrayBitVector data = LongArrayBitVector.getInstance();
+		for(int k = 0; k < c; k++) {
+			final int a = cut[k], b = cut[k + 1];
+			final long m = b - a, base = a == 0 ? 0 : x[a - 1], u = x[b - 1] - base;
+			final long o = data.length();
+			start[k] = a;
+			last[k] = x[b - 1];
+			offset[k] = o;
+
+			final long numBits = cost(x, dup, a, b);
+			switch(type(m, u, numBits)) {
+			case RUN:
+				break;
+			case BITMAP:
+				data.length(o + u + 1);
+				for(int i = a; i < b; i++) data.set(o + x[i] - base);
+				break;
+			default:
+				final int l = lowerBits(m, u);
+				final long lowerBitsMask = (1L << l) - 1;
+				if (l != 0) for(int i = a; i < b; i++) data.append(x[i] - base & lowerBitsMask, l);
+				final long upperStart = data.length();
+				data.length(o + numBits);
+				for(int i = a; i < b; i++) data.set(upperStart + (x[i] - base >>> l) + i - a);
+			}
+			assert data.length() == o + numBits;
+		}
+		offset[c] = data.length();
+
+		chunkStart = new SparseSelect(n, c, LongIterators.wrap(start));
+		chunkRank = chunkStart.getRank();
+		chunkLast = new EliasFanoIndexedMonotoneLongBigList(LongArrayList.wrap(last));
+		chunkOffset = new EliasFanoMonotoneLongBigList(LongArrayList.wrap(offset));
+		data.trim();
+		bits = data.bits();
+	}
+
+	/** Returns the number of lower bits used by the Elias&ndash;Fano representation of a chunk.
+	 *
+	 * @param m the number of elements of the chunk.
+	 * @param u the last element of the chunk, relative to the base of the chunk.
+	 * @return the number of lower bits.
+	 */
+	private static int lowerBits(final long m, final long u) {
+		return Math.max(0, Fast.mostSignificantBit(u / m));
+	}
+
+	/** Returns the number of bits of the Elias&ndash;Fano representation of a chunk.
+	 *
+	 * @param m the number of elements of the chunk.
+	 * @param u the last element of the chunk, relative to the base of the chunk.
+	 * @return the number of bits of the Elias&ndash;Fano representation of the chunk.
+	 */
+	private static long eliasFanoBits(final long m, final long u) {
+		final int l = lowerBits(m, u);
+		return m * l + m + (u >>> l) + 1;
+	}
+
+	/** Returns the type of a chunk.
+	 *
+	 * @param m the number of elements of the chunk.
+	 * @param u the last element of the chunk, relative to the base of the chunk.
+	 * @param numBits the number of bits of the chunk.
+	 * @return the type of the chunk.
+	 */
+	private static int type(final long m, final long u, final long numBits) {
+		if (numBits == 0) return RUN;
+		// A bitmap is used only if strictly smaller than the Elias-Fano representation
+		return numBits == eliasFanoBits(m, u) ? ELIAS_FANO : BITMAP;
+	}
+
+	/** Computes, for each index, the number of preceding repeated elements.
+	 *
+	 * @param x the elements.
+	 * @param n the number of elements.
+	 * @return an array whose entry of index <var>t</var> is the number of positions 0 &lt; <var>p</var> &lt; <var>t</var> such that {@code x[p] == x[p - 1]}.
+	 */
+	private static int[] duplicates(final long[] x, final int n) {
+		final int[] dup = new int[n + 1];
+		for(int t = 1; t < n; t++) dup[t + 1] = dup[t] + (x[t] == x[t - 1] ? 1 : 0);
+		return dup;
+	}
+
+	/** Returns the number of bits used to represent a chunk (excluding fixed costs).
+	 *
+	 * @param x the elements.
+	 * @param dup the array returned by {@link #duplicates(long[], int)}.
+	 * @param a the first index of the chunk.
+	 * @param b the last index of the chunk, plus one.
+	 * @return the number of bits used to represent the chunk.
+	 */
+	private static long cost(final long[] x, final int[] dup, final int a, final int b) {
+		final long m = b - a, base = a == 0 ? 0 : x[a - 1], u = x[b - 1] - base;
+		final long eliasFanoBits = eliasFanoBits(m, u);
+		if (dup[b] == dup[a + 1]) {
+			if (x[b - 1] - x[a] == m - 1) return 0;
+			if (u + 1 < eliasFanoBits) return u + 1;
+		}
+		return eliasFanoBits;
+	}
+
+	/** Computes an approximately optimal partition of the elements.
+	 *
+	 * <p>For each of a geometric sequence of cost bounds we keep a window starting at the current index and ending at the largest index such that the cost of
+	 * the window is within the bound; it can be shown that only the endpoints of such windows need to be considered in the shortest-path
+	 * computation on the graph of all possible chunks. Since windows only move forward, each of them is processed in linear time.
+	 *
+	 * @param x the elements.
+	 * @param dup the array returned by {@link #duplicates(long[], int)}.
+	 * @param n the number of elements.
+	 * @return the boundaries of the chunks, starting with zero and ending with {@code n}.
+	 */
+	private static int[] partition(final long[] x, final int[] dup, final int n) {
+		final LongArrayList bounds = new LongArrayList();
+		for(double bound = CHUNK_COST; bound < CHUNK_COST / EPS1; bound *= 1 + EPS2) bounds.add((long)bound);
+		// The last window is limited only by the maximum chunk size
+		bounds.add(Long.MAX_VALUE);
+		final long[] bound = bounds.toLongArray();
+		final int[] windowEnd = new int[bound.length];
+
+		final long[] minCost = new long[n + 1];
+		final int[] path = new int[n + 1];
+		Arrays.fill(minCost, Long.MAX_VALUE);
+		minCost[0] = 0;
+
+		for(int i = 0; i < n; i++) {
+			int lastEnd = i + 1;
+			for(int w = 0; w < bound.length; w++) {
+				if (windowEnd[w] < lastEnd) windowEnd[w] = lastEnd;
+				for(;;) {
+					final int end = windowEnd[w];
+					final long cost = CHUNK_COST + cost(x, dup, i, end);
+					if (minCost[i] + cost < minCost[end]) {
+						minCost[end] = minCost[i] + cost;
+						path[end] = i;
+					}
+					lastEnd = end;
+					if (end == n || cost >= bound[w] || end - i == MAX_CHUNK_SIZE) break;
+					windowEnd[w]++;
+				}
+			}
+		}
+
+		int c = 0;
+		for(int i = n; i != 0; i = path[i]) c++;
+		final int[] cut = new int[c + 1];
+		for(int i = n; i != 0; i = path[i]) cut[c--] = i;
+		return cut;
+	}
+
+	/** Extracts bits from {@link #bits}.
+	 *
+	 * @param position the position of the first bit.
+	 * @param width the number of bits, between 1 and 64.
+	 * @return the bits of given width starting at {@code position}.
+	 */
+	private long getBits(final long position, final int width) {
+		final int startWord = (int)(position / Long.SIZE);
+		final int startBit = (int)(position % Long.SIZE);
+		final long result = bits[startWord] >>> startBit;
+		return (startBit + width <= Long.SIZE ? result : result | bits[startWord + 1] << -startBit) & -1L >>> -width;
+	}
+
+	/** Returns the position of a one in {@link #bits}.
+	 *
+	 * @param from the position from which the search starts.
+	 * @param rank the rank of the one to be found, starting from {@code from}; it must exist.
+	 * @return the position of the one of given rank, starting from {@code from}.
+	 */
+	private long select(final long from, long rank) {
+		int word = (int)(from / Long.SIZE);
+		long w = bits[word] & -1L << from;
+		for(;;) {
+			final int count = Long.bitCount(w);
+			if (rank < count) return word * (long)Long.SIZE + Fast.select(w, (int)rank);
+			rank -= count;
+			w = bits[++word];
+		}
+	}
+
+	/** Returns the position of a zero in {@link #bits}.
+	 *
+	 * @param from the position from which the search starts.
+	 * @param rank the rank of the zero to be found, starting from {@code from}; it must exist.
+	 * @return the position of the zero of given rank, starting from {@code from}.
+	 */
+	private long selectZero(final long from, long rank) {
+		int word = (int)(from / Long.SIZE);
+		long w = ~bits[word] & -1L << from;
+		for(;;) {
+			final int count = Long.bitCount(w);
+			if (rank < count) return word * (long)Long.SIZE + Fast.select(w, (int)rank);
+			rank -= count;
+			w = ~bits[++word];
+		}
+	}
+
+	/** Returns the number of ones in a range of {@link #bits}.
+	 *
+	 * @param from the first position of the range.
+	 * @param to the last position of the range, plus one.
+	 * @return the number of ones between {@code from} (inclusive) and {@code to} (exclusive).
+	 */
+	private long count(final long from, final long to) {
+		int word = (int)(from / Long.SIZE);
+		final int lastWord = (int)(to / Long.SIZE);
+		long w = bits[word] & -1L << from;
+		long count = 0;
+		while(word < lastWord) {
+			count += Long.bitCount(w);
+			w = bits[++word];
+		}
+		return count + Long.bitCount(w & (1L << to) - 1);
+	}
+
+	public long numBits() {
+		return chunkStart.numBits() + chunkRank.numBits() + chunkLast.numBits() + chunkOffset.numBits() + bits.length * (long)Long.SIZE;
+	}
+
+	@Override
+	public long getLong(final long index) {
+		final long k = chunkRank.rank(index + 1) - 1;
+		final long start = chunkStart.select(k);
+		final long m = (k + 1 == numChunks ? length : chunkStart.select(k + 1)) - start;
+		final long base = k == 0 ? 0 : chunkLast.getLong(k - 1);
+		final long u = chunkLast.getLong(k) - base;
+		final long offset = chunkOffset.getLong(k);
+		final long numBits = chunkOffset.getLong(k + 1) - offset;
+		final long j = index - start;
+
+		switch(type(m, u, numBits)) {
+		case RUN:
+			return base + u - m + 1 + j;
+		case BITMAP:
+			return base + select(offset, j) - offset;
+		default:
+			final int l = lowerBits(m, u);
+			final long upperStart = offset + m * l;
+			final long upper = select(upperStart, j) - upperStart - j;
+			return base + (l == 0 ? upper : upper << l | getBits(offset + j * l, l));
+		}
+	}
+
+	/** Extracts a number of consecutive entries into a given array fragment.
+	 *
+	 * @param index the index of the first entry returned.
+	 * @param dest the destination array; it will be filled with {@code length} consecutive entries starting at position {@code offset}.
+	 * @param offset the first position written in {@code dest}.
+	 * @param length the number of elements written in {@code dest} starting at {@code offset}.
+	 * @return {@code dest}
+	 * @see #get(long, long[])
+	 */
+	public long[] get(final long index, final long dest[], final int offset, final int length) {
+		final SkippingIterator iterator = skippingIterator(index);
+		for(int i = 0; i < length; i++) dest[offset + i] = iterator.advance();
+		return dest;
+	}
+
+	/** Extracts a number of consecutive entries into a given array.
+	 *
+	 * @param index the index of the first entry returned.
+	 * @param dest the destination array; it will be filled with consecutive entries.
+	 * @return {@code dest}
+	 * @see #get(long, long[], int, int)
+	 */
+	public long[] get(final long index, final long dest[]) {
+		return get(index, dest, 0, dest.length);
+	}
+
+	@Override
+	public long size64() {
+		return length;
+	}
+
+	/** Returns a skipping iterator over this list, positioned at the start of the list.
+	 *
+	 * @return a skipping iterator over this list.
+	 */
+	public SkippingIterator skippingIterator() {
+		return new SkippingIterator();
+	}
+
+	/** Returns a skipping iterator over this list, positioned at a given index.
+	 *
+	 * @param index the index of the first element that will be returned by the iterator.
+	 * @return a skipping iterator over this list.
+	 */
+	public SkippingIterator skippingIterator(final long index) {
+		final SkippingIterator iterator = new SkippingIterator();
+		iterator.position(index);
+		return iterator;
+	}
+
+	/** A skipping iterator over the elements of a {@link PartitionedEliasFanoMonotoneLongBigList}.
+	 *
+	 * <p>Besides the standard {@link #nextLong()} method, instances of this class provide a
+	 * {@link #nextGEQ(long)} method returning the first unreturned element greater than or equal to a given bound. Since
+	 * elements are natural numbers, {@link #nextGEQ(long)} returns &minus;1 when there is no such element. Skipping to a
+	 * different chunk is performed using a skipping iterator over the last elements of the chunks; inside a chunk,
+	 * the iterator moves directly to the bucket (Elias&ndash;Fano chunks) or bit (bitmap chunks) of the bound.
+	 */
+	public final class SkippingIterator implements LongIterator {
+		/** A skipping iterator on the last elements of the chunks. */
+		private final EliasFanoIndexedMonotoneLongBigList.SkippingIterator lastIterator = chunkLast.skippingIterator();
+		/** The index of the next element to be returned. */
+		private long index;
+		/** The current chunk, or &minus;1. */
+		private long k = -1;
+		/** The index of the first element of the current chunk. */
+		private long start;
+		/** The number of elements of the current chunk. */
+		private long m;
+		/** The base of the current chunk (i.e., the last element of the previous chunk, or zero). */
+		private long base;
+		/** The last element of the current chunk, relative to {@link #base}. */
+		private long u;
+		/** The type of the current chunk. */
+		private int type;
+		/** The bit offset of the current chunk. */
+		private long offset;
+		/** The number of lower bits, if the current chunk is an Elias&ndash;Fano chunk. */
+		private int l;
+		/** The bit offset of the upper bits, if the current chunk is an Elias&ndash;Fano chunk. */
+		private long upperStart;
+		/** The index of the next element to be returned, relative to {@link #start}. */
+		private long j;
+		/** The index of the word of {@link #bits} containing the bit of the next element to be returned. */
+		private int word;
+		/** The word of {@link #bits} of index {@link #word}, with the bits of already returned elements cleared. */
+		private long window;
+
+		private SkippingIterator() {}
+
+		/** Loads a chunk, positioning this iterator on its first element.
+		 *
+		 * @param k the chunk to be loaded.
+		 */
+		private void load(final long k) {
+			this.k = k;
+			index = start = chunkStart.select(k);
+			m = (k + 1 == numChunks ? length : chunkStart.select(k + 1)) - start;
+			base = k == 0 ? 0 : chunkLast.getLong(k - 1);
+			u = chunkLast.getLong(k) - base;
+			offset = chunkOffset.getLong(k);
+			type = type(m, u, chunkOffset.getLong(k + 1) - offset);
+			j = 0;
+			if (type == BITMAP) setWindow(offset);
+			else if (type == ELIAS_FANO) {
+				l = lowerBits(m, u);
+				upperStart = offset + m * l;
+				setWindow(upperStart);
+			}
+		}
+
+		/** Sets {@link #word} and {@link #window} so that the next bit examined is at a given position.
+		 *
+		 * @param position a bit position in {@link #bits}.
+		 */
+		private void setWindow(final long position) {
+			word = (int)(position / Long.SIZE);
+			window = bits[word] & -1L << position;
+		}
+
+		/** Positions this iterator on a given index.
+		 *
+		 * @param index the index of the next element that will be returned.
+		 */
+		private void position(final long index) {
+			if (index >= length) {
+				this.index = length;
+				return;
+			}
+			load(chunkRank.rank(index + 1) - 1);
+			j = index - start;
+			this.index = index;
+			if (type == BITMAP) setWindow(select(offset, j));
+			else if (type == ELIAS_FANO) setWindow(select(upperStart, j));
+		}
+
+		/** Returns the index of the next element that will be returned by this iterator.
+		 *
+		 * @return the index of the next element that will be returned by this iterator.
+		 */
+		public long index() {
+			return index;
+		}
+
+		@Override
+		public boolean hasNext() {
+			return index < length;
+		}
+
+		/** Returns the next element, assuming there is one. */
+		private long advance() {
+			if (j == m) load(k + 1);
+			final long v;
+			if (type == RUN) v = u - m + 1 + j;
+			else {
+				while(window == 0) window = bits[++word];
+				final long position = word * (long)Long.SIZE + Long.numberOfTrailingZeros(window);
+				window &= window - 1;
+				if (type == BITMAP) v = position - offset;
+				else {
+					final long upper = position - upperStart - j;
+					v = l == 0 ? upper : upper << l | getBits(offset + j * l, l);
+				}
+			}
+			j++;
+			index++;
+			return base + v;
+		}
+
+		@Override
+		public long nextLong() {
+			if (! hasNext()) throw new NoSuchElementException();
+			return advance();
+		}
+
+		/** Moves this iterator to the first unreturned element greater than or equal to a given bound, and returns it.
+		 *
+		 * <p>The element is returned as if by a call to {@link #nextLong()}: after this call, the iterator is positioned
+		 * on the following element.
+		 *
+		 * @param lowerBound a lower bound.
+		 * @return the first element greater than or equal to {@code lowerBound} among those not returned yet, or &minus;1
+		 * if there is no such element (in which case the iterator is exhausted).
+		 */
+		public long nextGEQ(final long lowerBound) {
+			if (index >= length) return -1;
+			if (k == -1 || lowerBound > base + u) {
+				// We look for the first chunk whose last element is greater than or equal to the bound
+				if (lastIterator.nextGEQ(lowerBound) == -1) {
+					index = length;
+					return -1;
+				}
+				final long chunk = lastIterator.index() - 1;
+				if (chunk > k) load(chunk);
+			}
+
+			final long r = lowerBound - base;
+			if (r > 0) {
+				// We skip inside the chunk, if possible
+				switch(type) {
+				case RUN:
+					final long target = r - (u - m + 1);
+					if (target > j) {
+						index += target - j;
+						j = target;
+					}
+					break;
+				case BITMAP:
+					final long count = count(offset, offset + r);
+					if (count > j) {
+						index += count - j;
+						j = count;
+						setWindow(offset + r);
+					}
+					break;
+				default:
+					final long upper = r >>> l;
+					if (upper != 0) {
+						final long position = selectZero(upperStart, upper - 1) + 1;
+						final long skip = position - upperStart - upper;
+						if (skip > j) {
+							index += skip - j;
+							j = skip;
+							setWindow(position);
+						}
+					}
+				}
+			}
+
+			for(;;) {
+				final long x = advance();
+				if (x >= lowerBound) return x;
+			}
+		}
+	}
+}
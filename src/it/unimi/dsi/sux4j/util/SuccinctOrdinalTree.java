@@ -0,0 +1,331 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package it.unimi.dsi.sux4j.util;
+
+import java.io.Serializable;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.sux4j.bits.RangeMinMaxBalancedParentheses;
+import it.unimi.dsi.sux4j.bits.Rank9;
+import it.unimi.dsi.sux4j.bits.Select9;
+
+/** A succinct ordinal tree (or forest) based on balanced parentheses.
+ *
+ * <p>An ordinal tree is represented by a string of balanced parentheses obtained by a depth-first visit:
+ * each node is represented by an open parenthesis (a one) emitted when the node is first visited, followed by the representation
+ * of its children, in order, followed by a closed parenthesis (a zero). A sequence of trees (a forest) is represented by the concatenation
+ * of their representations. Thus, a tree with <var>n</var> nodes is represented using 2<var>n</var> bits.
+ *
+ * <p>Nodes are identified by the position of their open parenthesis; the first root is thus node 0. All navigation operations
+ * are reduced to operations on a {@link RangeMinMaxBalancedParentheses}, and {@linkplain #preorderRank(long) preorder ranking}
+ * and {@linkplain #preorderSelect(long) selection} are delegated to a {@link Rank9} and a {@link Select9} structure. The overall space
+ * is between 3.5 and 3.75 bits per node, depending on the space used by {@link RangeMinMaxBalancedParentheses}.
+ *
+ * <p>Instances can be created {@linkplain #SuccinctOrdinalTree(BitVector) from a balanced-parentheses representation},
+ * {@linkplain #fromParents(int[], int[]) from an array of parents}, or by a {@link Builder} fed with a depth-first visit.
+ */
+
+public class SuccinctOrdinalTree implements Serializable {
+	private static final long serialVersionUID = 0L;
+	/** The balanced-parentheses representation of the tree. */
+	private final BitVector bitVector;
+	/** The balanced-parentheses structure on {@link #bitVector}. */
+	private final RangeMinMaxBalancedParentheses bp;
+	/** The ranking structure on {@link #bitVector}. */
+	private final Rank9 rank9;
+	/** The selection structure on {@link #bitVector}. */
+	private final Select9 select9;
+
+	/** A builder for succinct ordinal trees fed with the events of a depth-first visit.
+	 *
+	 * <p>Invoke {@link #open()} when a node is first visited, and {@link #close()} after all its children have been visited.
+	 */
+	public static class Builder {
+		/** The balanced-parentheses representation built so far. */
+		private final LongArrayBitVector bitVector = LongArrayBitVector.getInstance();
+		/** The number of open nodes. */
+		private long depth;
+
+		/** Starts a new node, child of the current node (or root of a new tree, if there is no current node).
+		 *
+		 * @return this builder.
+		 */
+		public Builder open() {
+			bitVector.add(true);
+			depth++;
+			return this;
+		}
+
+		/** Ends the current node.
+		 *
+		 * @return this builder.
+		 */
+		public Builder close() {
+			if (depth == 0) throw new IllegalStateException("No open node");
+			bitVector.add(false);
+			depth--;
+			return this;
+		}
+
+		/** Builds the tree.
+		 *
+		 * @return a succinct ordinal tree containing the nodes specified so far.
+		 */
+		public SuccinctOrdinalTree build() {
+			if (depth != 0) throw new IllegalStateException("There are " + depth + " open nodes");
+			bitVector.trim();
+			return new SuccinctOrdinalTree(bitVector);
+		}
+	}
+
+	/** Creates a new succinct ordinal tree using a given balanced-parentheses representation.
+	 *
+	 * @param bitVector a balanced-parentheses representation of an ordinal tree, or forest.
+	 */
+	public SuccinctOrdinalTree(final BitVector bitVector) {
+		this.bitVector = bitVector;
+		bp = new RangeMinMaxBalancedParentheses(bitVector);
+		rank9 = new Rank9(bitVector);
+		select9 = new Select9(rank9);
+	}
+
+	/** Creates a succinct ordinal tree using an array of parents.
+	 *
+	 * <p>The children of each node are ordered by their index in the array, and so are the roots.
+	 *
+	 * @param parent an array specifying the parent of each node, or a negative value for roots.
+	 * @return a succinct ordinal tree (or forest) with the structure specified by {@code parent}.
+	 * @see #fromParents(int[], int[])
+	 */
+	public static SuccinctOrdinalTree fromParents(final int[] parent) {
+		return fromParents(parent, null);
+	}
+
+	/** Creates a succinct ordinal tree using an array of parents, possibly storing the preorder number of each node.
+	 *
+	 * <p>The children of each node are ordered by their index in the array, and so are the roots. The preorder number
+	 * of each node can be used with {@link #preorderSelect(long)} to retrieve the corresponding node of the tree.
+	 *
+	 * @param parent an array specifying the parent of each node, or a negative value for roots.
+	 * @param preorder an array as long as {@code parent} that will be filled with the preorder number of each node, or {@code null}.
+	 * @return a succinct ordinal tree (or forest) with the structure specified by {@code parent}.
+	 */
+	public static SuccinctOrdinalTree fromParents(final int[] parent, final int[] preorder) {
+		final int n = parent.length;
+		// Children lists in compressed form: the children of node x are child[offset[x]..offset[x + 1])
+		final int[] offset = new int[n + 1];
+		for(int x = 0; x < n; x++) {
+			if (parent[x] >= n) throw new IllegalArgumentException("Parent of node " + x + " out of range: " + parent[x]);
+			if (parent[x] >= 0) offset[parent[x] + 1]++;
+		}
+		for(int x = 0; x < n; x++) offset[x + 1] += offset[x];
+		final int[] child = new int[offset[n]], next = new int[n];
+		System.arraycopy(offset, 0, next, 0, n);
+		for(int x = 0; x < n; x++) if (parent[x] >= 0) child[next[parent[x]]++] = x;
+		System.arraycopy(offset, 0, next, 0, n);
+
+		final LongArrayBitVector bitVector = LongArrayBitVector.ofLength(2L * n);
+		final int[] stack = new int[n];
+		long p = 0;
+		int visited = 0;
+		for(int r = 0; r < n; r++) {
+			if (parent[r] >= 0) continue;
+			int sp = 0;
+			stack[sp++] = r;
+			if (preorder != null) preorder[r] = visited;
+			visited++;
+			bitVector.set(p++);
+			while(sp != 0) {
+				final int x = stack[sp - 1];
+				if (next[x] < offset[x + 1]) {
+					final int c = child[next[x]++];
+					stack[sp++] = c;
+					if (preorder != null) preorder[c] = visited;
+					visited++;
+					bitVector.set(p++);
+				}
+				else {
+					sp--;
+					p++;
+				}
+			}
+		}
+		if (visited != n) throw new IllegalArgumentException("The parent array contains a cycle");
+		return new SuccinctOrdinalTree(bitVector);
+	}
+
+	/** Returns the balanced-parentheses representation of this tree.
+	 *
+	 * @return the balanced-parentheses representation of this tree.
+	 */
+	public BitVector bitVector() {
+		return bitVector;
+	}
+
+	/** Returns the number of nodes of this tree.
+	 *
+	 * @return the number of nodes of this tree.
+	 */
+	public long numNodes() {
+		return bitVector.length() / 2;
+	}
+
+	/** Returns the root of this tree (the first root, for a forest).
+	 *
+	 * @return the root of this tree, or &minus;1 if the tree is empty.
+	 */
+	public long root() {
+		return bitVector.length() == 0 ? -1 : 0;
+	}
+
+	/** Returns whether a node is a leaf.
+	 *
+	 * @param node a node.
+	 * @return true if {@code node} has no children.
+	 */
+	public boolean isLeaf(final long node) {
+		return ! bitVector.getBoolean(node + 1);
+	}
+
+	/** Returns the parent of a node.
+	 *
+	 * @param node a node.
+	 * @return the parent of {@code node}, or &minus;1 if {@code node} is a root.
+	 */
+	public long parent(final long node) {
+		return bp.enclose(node);
+	}
+
+	/** Returns the first child of a node.
+	 *
+	 * @param node a node.
+	 * @return the first child of {@code node}, or &minus;1 if {@code node} is a leaf.
+	 */
+	public long firstChild(final long node) {
+		return bitVector.getBoolean(node + 1) ? node + 1 : -1;
+	}
+
+	/** Returns the last child of a node.
+	 *
+	 * @param node a node.
+	 * @return the last child of {@code node}, or &minus;1 if {@code node} is a leaf.
+	 */
+	public long lastChild(final long node) {
+		if (isLeaf(node)) return -1;
+		return bp.findOpen(bp.findClose(node) - 1);
+	}
+
+	/** Returns the next sibling of a node.
+	 *
+	 * @param node a node.
+	 * @return the next sibling of {@code node}, or &minus;1 if {@code node} is the last child of its parent (or the last root).
+	 */
+	public long nextSibling(final long node) {
+		final long next = bp.findClose(node) + 1;
+		return next < bitVector.length() && bitVector.getBoolean(next) ? next : -1;
+	}
+
+	/** Returns the previous sibling of a node.
+	 *
+	 * @param node a node.
+	 * @return the previous sibling of {@code node}, or &minus;1 if {@code node} is the first child of its parent (or the first root).
+	 */
+	public long previousSibling(final long node) {
+		return node > 0 && ! bitVector.getBoolean(node - 1) ? bp.findOpen(node - 1) : -1;
+	}
+
+	/** Returns the number of nodes in the subtree rooted at a node.
+	 *
+	 * @param node a node.
+	 * @return the number of nodes in the subtree rooted at {@code node}, including {@code node}.
+	 */
+	public long subtreeSize(final long node) {
+		return (bp.findClose(node) - node + 1) / 2;
+	}
+
+	/** Returns the depth of a node.
+	 *
+	 * @param node a node.
+	 * @return the depth of {@code node} (roots have depth zero).
+	 */
+	public long depth(final long node) {
+		return bp.excess(node) - 1;
+	}
+
+	/** Returns an ancestor of a node.
+	 *
+	 * @param node a node.
+	 * @param distance a distance from {@code node}.
+	 * @return the ancestor of {@code node} at distance {@code distance} (that is, at depth {@link #depth(long) depth(node)} &minus; {@code distance}),
+	 * or &minus;1 if {@code distance} is larger than the depth of {@code node}.
+	 */
+	public long levelAncestor(final long node, final long distance) {
+		if (distance < 0) throw new IllegalArgumentException("Negative distance: " + distance);
+		return distance == 0 ? node : bp.enclose(node, distance);
+	}
+
+	/** Returns whether a node is an ancestor of another node.
+	 *
+	 * @param ancestor a node.
+	 * @param node a node.
+	 * @return true if {@code ancestor} is an ancestor of {@code node} (every node is an ancestor of itself).
+	 */
+	public boolean isAncestor(final long ancestor, final long node) {
+		return ancestor <= node && node < bp.findClose(ancestor);
+	}
+
+	/** Returns the lowest common ancestor of two nodes.
+	 *
+	 * @param u a node.
+	 * @param v a node.
+	 * @return the lowest common ancestor of {@code u} and {@code v}, or &minus;1 if they belong to different trees of a forest.
+	 */
+	public long lca(final long u, final long v) {
+		return bp.lca(u, v);
+	}
+
+	/** Returns the preorder number of a node.
+	 *
+	 * @param node a node.
+	 * @return the number of nodes preceding {@code node} in a preorder visit.
+	 */
+	public long preorderRank(final long node) {
+		return rank9.rank(node);
+	}
+
+	/** Returns the node with a given preorder number.
+	 *
+	 * @param rank a preorder number.
+	 * @return the node with preorder number {@code rank}, or &minus;1 if {@code rank} is not smaller than the number of nodes.
+	 */
+	public long preorderSelect(final long rank) {
+		return select9.select(rank);
+	}
+
+	/** Returns the number of bits used by this structure, including the balanced-parentheses representation.
+	 *
+	 * @return the number of bits used by this structure.
+	 */
+	public long numBits() {
+		// The selection structure includes the ranking structure
+		return bitVector.length() + bp.numBits() + select9.numBits();
+	}
+}
@@ -0,0 +1,400 @@
+/*
+ * Sux4J: Succinct data structures for Java
+ *
+ * Copyright (C) 2019 Sebastiano Vigna
+ *
+ *  This library is free software; you can redistribute it and/or modify it
+ *  under the terms of the GNU Lesser General Public License as published by the Free
+ *  Software Foundation; either version 3 of the License, or (at your option)
+ *  any later version.
+ *
+ *  This library is distributed in the hope that it will be useful, but
+ *  WITHOUT ANY WARRANTY; without even the implied warranty of MERCHANTABILITY
+ *  or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU Lesser General Public License
+ *  for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program; if not, see <http://www.gnu.org/licenses/>.
+ *
+ */
+package it.unimi.dsi.sux4j.util;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.BigArrays;
+import it.unimi.dsi.fastutil.longs.AbstractLongBigList;
+import it.unimi.dsi.fastutil.longs.LongBigArrays;
+import it.unimi.dsi.fastutil.longs.LongIterable;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.sux4j.bits.Rank9;
+import it.unimi.dsi.sux4j.bits.Select9;
+import it.unimi.dsi.sux4j.bits.SimpleSelectZero;
+
+/** A wavelet matrix: a big list of nonnegative longs supporting access, ranking, selection and range quantiles.
+ *
+ * <p>Instances of this class store a sequence of <var>n</var> nonnegative longs of at most <var>w</var> bits
+ * using <var>n</var><var>w</var> bits, plus the space of a {@link Rank9}, a {@link Select9} and a {@link SimpleSelectZero} structure
+ * for each of the <var>w</var> levels. Besides {@linkplain #getLong(long) accessing} an element, it is possible
+ * to compute the number of occurrences of a {@linkplain #rank(long, long) symbol before a position}, the position of the
+ * {@linkplain #select(long, long) <var>k</var>-th occurrence of a symbol}, and the {@linkplain #quantile(long, long, long) <var>k</var>-th smallest element
+ * in a range}, in time proportional to <var>w</var>. Batch versions of {@linkplain #getLong(long[], long[]) access},
+ * {@linkplain #rank(long, long[], long[]) ranking} and {@linkplain #select(long, long[], long[]) selection} process all queries
+ * level by level, using the batch methods of the underlying structures, so that independent memory accesses overlap.
+ *
+ * <p>The wavelet matrix has been described by Francisco Claude, Gonzalo Navarro and Alberto Ord&oacute;&ntilde;ez in
+ * &ldquo;The wavelet matrix: An efficient wavelet tree for large alphabets&rdquo;, <i>Information Systems</i>, 47:15&minus;32, 2015.
+ * Level <var>j</var> contains a bit vector recording bit <var>w</var> &minus; <var>j</var> &minus; 1 of each element, in the order obtained by stably
+ * partitioning the elements of the previous level by their bit at that level (zeroes first). Going down a level, a position
+ * is thus mapped by a rank operation (plus the number of zeroes at the level, for ones), and going up by a selection.
+ *
+ * <p>Construction requires two big arrays of longs of the size of the sequence. Each level is built by a stable partition
+ * that can be {@linkplain #WaveletMatrix(LongIterable, boolean) run in parallel} over chunks of elements,
+ * after which the ranking and selection structures of all levels are built in parallel.
+ */
+
+public class WaveletMatrix extends AbstractLongBigList implements Serializable {
+	private static final long serialVersionUID = 0L;
+	/** The base-2 logarithm of the number of elements in a chunk during parallel construction. */
+	private static final int LOG2_CHUNK_SIZE = 20;
+	/** The number of elements in this list. */
+	private final long length;
+	/** The number of levels (i.e., the number of bits of the largest element). */
+	private final int width;
+	/** The ranking structures of each level. */
+	private final Rank9[] rank;
+	/** The selection structures of each level. */
+	private final Select9[] select;
+	/** The zero-selection structures of each level. */
+	private final SimpleSelectZero[] selectZero;
+	/** The number of zeroes at each level. */
+	private final long[] zeroes;
+	/** The bits of each level (cached from {@link #rank}). */
+	private transient long[][] bits;
+
+	/** Builds a new wavelet matrix using a given iterable object.
+	 *
+	 * @param elements an iterable object returning nonnegative longs.
+	 */
+	public WaveletMatrix(final LongIterable elements) {
+		this(elements, false);
+	}
+
+	/** Builds a new wavelet matrix using a given iterable object, possibly in parallel.
+	 *
+	 * @param elements an iterable object returning nonnegative longs.
+	 * @param parallel whether to build the levels and their structures in parallel.
+	 */
+	public WaveletMatrix(final LongIterable elements, final boolean parallel) {
+		long count = 0, max = 0;
+		for(final LongIterator i = elements.iterator(); i.hasNext(); count++) {
+			final long x = i.nextLong();
+			if (x < 0) throw new IllegalArgumentException("Negative element: " + x);
+			max |= x;
+		}
+		final long n = length = count;
+		width = Fast.mostSignificantBit(max) + 1;
+
+		long[][] current = LongBigArrays.newBigArray(n), next = LongBigArrays.newBigArray(n);
+		final LongIterator iterator = elements.iterator();
+		for(long i = 0; i < n; i++) BigArrays.set(current, i, iterator.nextLong());
+
+		final int numChunks = (int)((n + (1 << LOG2_CHUNK_SIZE) - 1) >>> LOG2_CHUNK_SIZE);
+		final LongArrayBitVector[] level = new LongArrayBitVector[width];
+		zeroes = new long[width];
+		final long[] zeroesBefore = new long[numChunks + 1];
+
+		for(int j = 0; j < width; j++) {
+			final int shift = width - j - 1;
+			final long[] bits = (level[j] = LongArrayBitVector.ofLength(n)).bits();
+			final long[][] c = current, d = next;
+			// Chunks are multiples of a word long, so they write disjoint words
+			stream(numChunks, parallel).forEach(t -> {
+				long z = 0;
+				for(long i = (long)t << LOG2_CHUNK_SIZE, to = Math.min(n, i + (1 << LOG2_CHUNK_SIZE)); i < to; i++) {
+					final long bit = BigArrays.get(c, i) >>> shift & 1;
+					bits[(int)(i >>> 6)] |= bit << i;
+					z += bit ^ 1;
+				}
+				zeroesBefore[t + 1] = z;
+			});
+			for(int t = 0; t < numChunks; t++) zeroesBefore[t + 1] += zeroesBefore[t];
+			final long z = zeroes[j] = zeroesBefore[numChunks];
+			// Stable partition: zeroes first, then ones
+			stream(numChunks, parallel).forEach(t -> {
+				final long from = (long)t << LOG2_CHUNK_SIZE;
+				long p0 = zeroesBefore[t], p1 = z + from - zeroesBefore[t];
+				for(long i = from, to = Math.min(n, from + (1 << LOG2_CHUNK_SIZE)); i < to; i++) {
+					final long x = BigArrays.get(c, i);
+					if ((x >>> shift & 1) == 0) BigArrays.set(d, p0++, x);
+					else BigArrays.set(d, p1++, x);
+				}
+			});
+			next = current;
+			current = d;
+		}
+		current = next = null;
+
+		rank = new Rank9[width];
+		select = new Select9[width];
+		selectZero = new SimpleSelectZero[width];
+		stream(width, parallel).forEach(j -> {
+			rank[j] = new Rank9(level[j], parallel);
+			select[j] = new Select9(rank[j], parallel);
+			selectZero[j] = new SimpleSelectZero(level[j], parallel);
+		});
+		initBits();
+	}
+
+	private void initBits() {
+		bits = new long[width][];
+		for(int j = 0; j < width; j++) bits[j] = rank[j].bitVector().bits();
+	}
+
+	private void readObject(final ObjectInputStream s) throws IOException, ClassNotFoundException {
+		s.defaultReadObject();
+		initBits();
+	}
+
+	private static IntStream stream(final int n, final boolean parallel) {
+		final IntStream stream = IntStream.range(0, n);
+		return parallel ? stream.parallel() : stream;
+	}
+
+	@Override
+	public long size64() {
+		return length;
+	}
+
+	/** Returns the number of levels of this wavelet matrix, that is, the number of bits of the largest element.
+	 *
+	 * @return the number of levels of this wavelet matrix.
+	 */
+	public int width() {
+		return width;
+	}
+
+	@Override
+	public long getLong(long index) {
+		if (index < 0 || index >= length) throw new IndexOutOfBoundsException(Long.toString(index));
+		long result = 0;
+		for(int j = 0; j < width; j++) {
+			final long r = rank[j].rank(index);
+			if ((bits[j][(int)(index >>> 6)] & 1L << index) != 0) {
+				index = zeroes[j] + r;
+				result = result << 1 | 1;
+			}
+			else {
+				index -= r;
+				result <<= 1;
+			}
+		}
+		return result;
+	}
+
+	/** Retrieves the elements at given positions.
+	 *
+	 * @param index an array of positions.
+	 * @param dest an array of at least {@code index.length} elements that will be filled with the element at each position.
+	 * @return {@code dest}
+	 */
+	public long[] getLong(final long[] index, final long[] dest) {
+		final int n = index.length;
+		final long[] pos = index.clone(), r = new long[n];
+		for(int i = 0; i < n; i++) {
+			if (pos[i] < 0 || pos[i] >= length) throw new IndexOutOfBoundsException(Long.toString(pos[i]));
+			dest[i] = 0;
+		}
+		for(int j = 0; j < width; j++) {
+			final long[] bits = this.bits[j];
+			rank[j].rank(pos, r);
+			for(int i = 0; i < n; i++) {
+				if ((bits[(int)(pos[i] >>> 6)] & 1L << pos[i]) != 0) {
+					pos[i] = zeroes[j] + r[i];
+					dest[i] = dest[i] << 1 | 1;
+				}
+				else {
+					pos[i] -= r[i];
+					dest[i] <<= 1;
+				}
+			}
+		}
+		return dest;
+	}
+
+	/** Returns the number of occurrences of a symbol before a given position.
+	 *
+	 * @param symbol a symbol.
+	 * @param pos a position between 0 and {@link #size64()} (inclusive).
+	 * @return the number of occurrences of {@code symbol} before {@code pos}.
+	 */
+	public long rank(final long symbol, long pos) {
+		if (pos < 0 || pos > length) throw new IndexOutOfBoundsException(Long.toString(pos));
+		if (symbol >>> width != 0) return 0;
+		long start = 0;
+		for(int j = 0; j < width; j++) {
+			if ((symbol >>> width - j - 1 & 1) != 0) {
+				start = zeroes[j] + rank[j].rank(start);
+				pos = zeroes[j] + rank[j].rank(pos);
+			}
+			else {
+				start = rank[j].rankZero(start);
+				pos = rank[j].rankZero(pos);
+			}
+		}
+		return pos - start;
+	}
+
+	/** Returns the number of occurrences of a symbol before given positions.
+	 *
+	 * @param symbol a symbol.
+	 * @param pos an array of positions between 0 and {@link #size64()} (inclusive).
+	 * @param dest an array of at least {@code pos.length} elements that will be filled with the number of occurrences of {@code symbol} before each position.
+	 * @return {@code dest}
+	 */
+	public long[] rank(final long symbol, final long[] pos, final long[] dest) {
+		final int n = pos.length;
+		for(int i = 0; i < n; i++) if (pos[i] < 0 || pos[i] > length) throw new IndexOutOfBoundsException(Long.toString(pos[i]));
+		if (symbol >>> width != 0) {
+			Arrays.fill(dest, 0, n, 0);
+			return dest;
+		}
+		final long[] p = pos.clone(), r = new long[n];
+		long start = 0;
+		for(int j = 0; j < width; j++) {
+			rank[j].rank(p, r);
+			if ((symbol >>> width - j - 1 & 1) != 0) {
+				start = zeroes[j] + rank[j].rank(start);
+				for(int i = 0; i < n; i++) p[i] = zeroes[j] + r[i];
+			}
+			else {
+				start = rank[j].rankZero(start);
+				for(int i = 0; i < n; i++) p[i] -= r[i];
+			}
+		}
+		for(int i = 0; i < n; i++) dest[i] = p[i] - start;
+		return dest;
+	}
+
+	/** Returns the position of the first occurrence of a symbol at the last level and the number of its occurrences.
+	 *
+	 * @param symbol a symbol of at most {@link #width()} bits.
+	 * @param startAndCount a two-element array that will contain the position of the first occurrence of {@code symbol}
+	 * at the last level and the number of occurrences of {@code symbol}.
+	 */
+	private void startAndCount(final long symbol, final long[] startAndCount) {
+		long start = 0, end = length;
+		for(int j = 0; j < width; j++) {
+			if ((symbol >>> width - j - 1 & 1) != 0) {
+				start = zeroes[j] + rank[j].rank(start);
+				end = zeroes[j] + rank[j].rank(end);
+			}
+			else {
+				start = rank[j].rankZero(start);
+				end = rank[j].rankZero(end);
+			}
+		}
+		startAndCount[0] = start;
+		startAndCount[1] = end - start;
+	}
+
+	/** Returns the position of the occurrence of a symbol of given rank.
+	 *
+	 * @param symbol a symbol.
+	 * @param rank a rank.
+	 * @return the position of the occurrence of {@code symbol} of rank {@code rank}, or &minus;1 if no such occurrence exists.
+	 */
+	public long select(final long symbol, final long rank) {
+		if (symbol < 0 || symbol >>> width != 0 || rank < 0) return -1;
+		final long[] startAndCount = new long[2];
+		startAndCount(symbol, startAndCount);
+		if (rank >= startAndCount[1]) return -1;
+		long pos = startAndCount[0] + rank;
+		for(int j = width; j-- != 0;) {
+			if ((symbol >>> width - j - 1 & 1) != 0) pos = select[j].select(pos - zeroes[j]);
+			else pos = selectZero[j].selectZero(pos);
+		}
+		return pos;
+	}
+
+	/** Returns the positions of the occurrences of a symbol of given ranks.
+	 *
+	 * @param symbol a symbol.
+	 * @param rank an array of ranks.
+	 * @param dest an array of at least {@code rank.length} elements that will be filled with the position of the occurrence
+	 * of {@code symbol} of each rank (or &minus;1 if no such occurrence exists).
+	 * @return {@code dest}
+	 */
+	public long[] select(final long symbol, final long[] rank, final long[] dest) {
+		final int n = rank.length;
+		if (symbol < 0 || symbol >>> width != 0) {
+			Arrays.fill(dest, 0, n, -1);
+			return dest;
+		}
+		final long[] startAndCount = new long[2];
+		startAndCount(symbol, startAndCount);
+		final long start = startAndCount[0], count = startAndCount[1];
+		long[] pos = new long[n], t = new long[n];
+		// Invalid ranks are replaced by a valid one, and fixed at the end
+		for(int i = 0; i < n; i++) pos[i] = rank[i] >= 0 && rank[i] < count ? start + rank[i] : start;
+		if (count != 0) {
+			for(int j = width; j-- != 0;) {
+				if ((symbol >>> width - j - 1 & 1) != 0) {
+					for(int i = 0; i < n; i++) pos[i] -= zeroes[j];
+					final long[] u = select[j].select(pos, t);
+					t = pos;
+					pos = u;
+				}
+				else for(int i = 0; i < n; i++) pos[i] = selectZero[j].selectZero(pos[i]);
+			}
+		}
+		for(int i = 0; i < n; i++) dest[i] = rank[i] >= 0 && rank[i] < count ? pos[i] : -1;
+		return dest;
+	}
+
+	/** Returns the element of given rank in a range, that is, the element that would be at position {@code k}
+	 * if the elements in the range were sorted.
+	 *
+	 * @param from the starting position of the range.
+	 * @param to the ending position of the range, exclusive.
+	 * @param k a rank, smaller than {@code to} &minus; {@code from}.
+	 * @return the element of rank {@code k} among the elements in positions [{@code from}..{@code to}).
+	 */
+	public long quantile(long from, long to, long k) {
+		if (from < 0 || from > to || to > length) throw new IndexOutOfBoundsException("[" + from + ".." + to + ")");
+		if (k < 0 || k >= to - from) throw new IllegalArgumentException("Rank " + k + " out of range [0.." + (to - from) + ")");
+		long result = 0;
+		for(int j = 0; j < width; j++) {
+			final long rankFrom = rank[j].rank(from), rankTo = rank[j].rank(to);
+			final long z = to - from - (rankTo - rankFrom);
+			if (k < z) {
+				from -= rankFrom;
+				to -= rankTo;
+				result <<= 1;
+			}
+			else {
+				k -= z;
+				from = zeroes[j] + rankFrom;
+				to = zeroes[j] + rankTo;
+				result = result << 1 | 1;
+			}
+		}
+		return result;
+	}
+
+	/** Returns the number of bits used by this structure, including the bit vectors of each level.
+	 *
+	 * @return the number of bits used by this structure.
+	 */
+	public long numBits() {
+		long numBits = Long.SIZE * (long)zeroes.length;
+		// The selection structure of each level includes its ranking structure
+		for(int j = 0; j < width; j++) numBits += length + select[j].numBits() + selectZero[j].numBits();
+		return numBits;
+	}
+}
@@ -11,6 +11,7 @@ import java.nio.charset.Charset;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.stream.IntStream;
 import java.util.zip.GZIPInputStream;
 
 import org.slf4j.Logger;
@@ -83,6 +84,11 @@ import it.unimi.dsi.sux4j.mph.Hashes;
  * <p>The linear overhead of a z-fast trie is very low. For <var>n</var> keys we allocate 2<var>n</var> &minus; 1 nodes containing six references and
  * two longs, plus a dictionary containing <var>n</var> &minus; 1 nodes (thus using around 2<var>n</var> references and 2<var>n</var> longs).
  *
+ * <p>Optionally, a z-fast trie can {@linkplain #ZFastTrie(TransformationStrategy, boolean) maintain order statistics}: in that case,
+ * each internal node keeps track of the number of leaves in its subtrie, and {@link #rank(Object)}, {@link #select(long)}
+ * and {@link #count(Object, Object)} are available in time proportional to the depth of the trie. The price is
+ * that updates must walk the whole path from the root to the affected leaf.
+ *
  */
 
 @SuppressWarnings({"rawtypes"})
@@ -112,6 +118,8 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 	private transient Leaf<T> head;
 	/** The tail of the doubly linked list of leaves. */
 	private transient Leaf<T> tail;
+	/** Whether {@link InternalNode#count} is kept up-to-date by updates. */
+	private final boolean orderStatistics;
 
 	private final static long shortSignature(final long s) {
 		return Math.max(1, s & 3);
@@ -611,6 +619,8 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 		protected Node<U> jumpRight;
 		/** The leaf whose key this node refers to. */
 		protected Leaf<U> reference;
+		/** The number of leaves in the subtrie rooted at this node (kept up-to-date only if the trie maintains order statistics). */
+		protected int count;
 
 		public long handleLength() {
 			return twoFattest(nameLength - 1, extentLength);
@@ -710,7 +720,18 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
 	 */
 	public ZFastTrie(final TransformationStrategy<? super T> transform) {
+		this(transform, false);
+	}
+
+	/** Creates a new z-fast trie using the given transformation strategy, possibly maintaining order statistics.
+	 *
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 * @param orderStatistics whether the trie should maintain the number of leaves of each subtrie, so to support
+	 * {@link #rank(Object)}, {@link #select(long)} and {@link #count(Object, Object)}.
+	 */
+	public ZFastTrie(final TransformationStrategy<? super T> transform, final boolean orderStatistics) {
 		this.transform = transform;
+		this.orderStatistics = orderStatistics;
 		this.handle2Node = new Handle2NodeMap<>(transform);
 		initHeadTail();
 	}
@@ -741,6 +762,131 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 		this(elements.iterator(), transform);
 	}
 
+	/** Creates a new z-fast trie using the given elements and transformation strategy, possibly loading in bulk sorted elements.
+	 *
+	 * <p>If {@code sorted} is true, the elements must be returned in strictly increasing order (in the lexicographical
+	 * order of the associated bit vectors). In this case, the trie is built bottom-up in a single linear
+	 * pass, without any search: the map from handles to nodes is presized and filled at the end, computing the
+	 * signatures of handles in parallel (thus, the transformation strategy must be thread-safe, as it happens for all
+	 * strategies in {@link TransformationStrategies}).
+	 *
+	 * @param elements an iterator returning the elements to be inserted in the trie.
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 * @param sorted whether {@code elements} returns the elements in strictly increasing order.
+	 * @throws IllegalArgumentException if {@code sorted} is true but the elements are not in strictly increasing order, or
+	 * their associated bit vectors are not prefix-free.
+	 */
+	public ZFastTrie(final Iterator<? extends T> elements, final TransformationStrategy<? super T> transform, final boolean sorted) {
+		this(elements, transform, sorted, false);
+	}
+
+	/** Creates a new z-fast trie using the given elements and transformation strategy, possibly loading in bulk sorted elements
+	 * and maintaining order statistics.
+	 *
+	 * @param elements an iterator returning the elements to be inserted in the trie.
+	 * @param transform a transformation strategy that must turn distinct elements into distinct, prefix-free bit vectors.
+	 * @param sorted whether {@code elements} returns the elements in strictly increasing order.
+	 * @param orderStatistics whether the trie should maintain the number of leaves of each subtrie.
+	 * @see #ZFastTrie(Iterator, TransformationStrategy, boolean)
+	 * @see #ZFastTrie(TransformationStrategy, boolean)
+	 */
+	public ZFastTrie(final Iterator<? extends T> elements, final TransformationStrategy<? super T> transform, final boolean sorted, final boolean orderStatistics) {
+		this(transform, orderStatistics);
+		if (sorted) bulkLoad(elements);
+		else while(elements.hasNext()) add(elements.next());
+	}
+
+	/** Builds bottom-up the trie of a sequence of elements in strictly increasing order.
+	 *
+	 * <p>Internal nodes are the nodes of the Cartesian tree of the longest common prefixes between consecutive
+	 * elements: we keep a stack representing the right spine of the trie built so far, and each new element
+	 * pops the nodes whose extent is longer than its longest common prefix with the previous element.
+	 *
+	 * @param elements an iterator returning the elements in strictly increasing order.
+	 */
+	private void bulkLoad(final Iterator<? extends T> elements) {
+		final ObjectArrayList<InternalNode<T>> spine = new ObjectArrayList<>();
+		LongArrayBitVector prev = null, curr = LongArrayBitVector.getInstance();
+		Node<T> last = null;
+
+		while(elements.hasNext()) {
+			final T k = elements.next();
+			final Leaf<T> leaf = new Leaf<>();
+			leaf.key = k;
+			curr.replace(transform.toBitVector(k));
+
+			if (last != null) {
+				final long lcp = prev.longestCommonPrefixLength(curr);
+				if (lcp == prev.length() || lcp == curr.length()) throw new IllegalArgumentException("The bit vectors of elements " + tail.prev.key + " and " + k + " are not prefix-free");
+				if (! curr.getBoolean(lcp)) throw new IllegalArgumentException("The elements " + tail.prev.key + " and " + k + " are not in strictly increasing order");
+				while(! spine.isEmpty() && spine.top().extentLength > lcp) {
+					final InternalNode<T> internalNode = spine.pop();
+					internalNode.right = last;
+					last = internalNode;
+				}
+				final InternalNode<T> internalNode = new InternalNode<>();
+				internalNode.extentLength = lcp;
+				internalNode.left = last;
+				spine.push(internalNode);
+			}
+
+			addBefore(tail, leaf);
+			last = leaf;
+			size++;
+			final LongArrayBitVector t = curr;
+			curr = prev == null ? LongArrayBitVector.getInstance() : prev;
+			prev = t;
+		}
+
+		if (size == 0) return;
+
+		while(! spine.isEmpty()) {
+			final InternalNode<T> internalNode = spine.pop();
+			internalNode.right = last;
+			last = internalNode;
+		}
+
+		root = last;
+
+		final ObjectArrayList<InternalNode<T>> internalNodes = new ObjectArrayList<>(size - 1);
+		link(root, 0, new ObjectArrayList<Leaf<T>>(), internalNodes);
+
+		final long[] signature = new long[internalNodes.size()];
+		IntStream.range(0, signature.length).parallel().forEach(i -> signature[i] = internalNodes.get(i).handleHash(transform));
+		handle2Node = new Handle2NodeMap<>(size, transform);
+		for(int i = 0; i < signature.length; i++) handle2Node.addNew(internalNodes.get(i), signature[i]);
+
+		if (ASSERTS) assertTrie();
+	}
+
+	/** Completes recursively a trie whose nodes have just child pointers and extent lengths, setting
+	 * name lengths, references and jump pointers.
+	 *
+	 * @param node the root of the subtrie to be completed.
+	 * @param nameLength the name length of {@code node}.
+	 * @param leafStack a stack that cumulates leaves as they are found: internal nodes extract references from this stack when their visit is completed.
+	 * @param internalNodes a list that cumulates internal nodes in postorder.
+	 */
+	private static <U> void link(final Node<U> node, final long nameLength, final ObjectArrayList<Leaf<U>> leafStack, final ObjectArrayList<InternalNode<U>> internalNodes) {
+		node.nameLength = nameLength;
+		if (node.isLeaf()) {
+			leafStack.push((Leaf<U>)node);
+			return;
+		}
+
+		final InternalNode<U> internalNode = (InternalNode<U>)node;
+		link(internalNode.left, internalNode.extentLength + 1, leafStack, internalNodes);
+		link(internalNode.right, internalNode.extentLength + 1, leafStack, internalNodes);
+
+		/* We assign the reference leaf, and set the jump pointers (which requires the jump pointers of descendants). */
+		final Leaf<U> referenceLeaf = leafStack.pop();
+		internalNode.reference = referenceLeaf;
+		referenceLeaf.reference = internalNode;
+		internalNode.count = count(internalNode.left) + count(internalNode.right);
+		setJumps(internalNode);
+		internalNodes.add(internalNode);
+	}
+
 	@Override
 	public int size() {
 		return size > Integer.MAX_VALUE ? -1 : size;
@@ -1052,6 +1198,28 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 		}
 	}
 
+	/** Returns the number of leaves in the subtrie rooted at a node.
+	 *
+	 * @param node a node.
+	 * @return the number of leaves in the subtrie rooted at {@code node}.
+	 */
+	private static <U> int count(final Node<U> node) {
+		return node.isLeaf() ? 1 : ((InternalNode<U>)node).count;
+	}
+
+	/** Adds a given value to the counts of the internal nodes along the path from the root to the leaf of a string in the trie.
+	 *
+	 * @param v a string in the trie.
+	 * @param delta the value to be added to the counts.
+	 */
+	private void updateCounts(final LongArrayBitVector v, final int delta) {
+		for(Node<T> node = root; node.isInternal();) {
+			final InternalNode<T> internalNode = (InternalNode<T>)node;
+			internalNode.count += delta;
+			node = v.getBoolean(internalNode.extentLength) ? internalNode.right : internalNode.left;
+		}
+	}
+
 	@Override
 	public boolean add(final T k) {
 		if (DEBUG) System.err.println("add(" + k + ")");
@@ -1146,6 +1314,11 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 
 		if (DEBUG) System.err.println("After insertion, map: " + handle2Node + " root: " + root);
 
+		if (orderStatistics) {
+			internal.count = count(exitNode);
+			updateCounts(v, 1);
+		}
+
 		size++;
 
 		/* We find a predecessor or successor to insert the new leaf in the doubly linked list. */
@@ -1201,6 +1374,8 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 
 		if (! (exitNode.isLeaf() && transform.length(((Leaf<T>)exitNode).key) == parexData.lcp)) return false; // Not found
 
+		if (orderStatistics) updateCounts(v, -1);
+
 		final Node<T> otherNode = rightLeaf ? parentExitNode.left : parentExitNode.right;
 		final boolean otherNodeIsInternal = otherNode.isInternal();
 
@@ -1523,6 +1698,85 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 		return succNode((T)o).key;
 	}
 
+	/** Returns the number of elements of this trie smaller than a given element.
+	 *
+	 * <p>This method requires that the trie {@linkplain #ZFastTrie(TransformationStrategy, boolean) maintains order statistics}.
+	 *
+	 * @param o an element.
+	 * @return the number of elements of this trie strictly smaller than {@code o}.
+	 * @throws UnsupportedOperationException if this trie does not maintain order statistics.
+	 */
+	@SuppressWarnings("unchecked")
+	public long rank(final Object o) {
+		if (! orderStatistics) throw new UnsupportedOperationException("This trie does not maintain order statistics");
+		if (size == 0) return 0;
+		final LongArrayBitVector v = LongArrayBitVector.copy(transform.toBitVector((T)o));
+		final long length = v.length();
+
+		/* We first descend blindly to a leaf using just the branching bits, which gives us the
+		 * length of the longest common prefix between v and the keys in the trie. */
+		Node<T> node = root;
+		while(node.isInternal()) {
+			final InternalNode<T> internalNode = (InternalNode<T>)node;
+			node = internalNode.extentLength < length && v.getBoolean(internalNode.extentLength) ? internalNode.right : internalNode.left;
+		}
+		final long lcp = v.longestCommonPrefixLength(node.key(transform));
+
+		/* Then, we descend again to the exit node, adding up the sizes of the left subtries we skip. */
+		long rank = 0;
+		node = root;
+		while(node.isInternal() && ((InternalNode<T>)node).extentLength <= lcp && ((InternalNode<T>)node).extentLength < length) {
+			final InternalNode<T> internalNode = (InternalNode<T>)node;
+			if (v.getBoolean(internalNode.extentLength)) {
+				rank += count(internalNode.left);
+				node = internalNode.right;
+			}
+			else node = internalNode.left;
+		}
+
+		// If v is not a prefix of the extent of the exit node, it is smaller or larger than all elements in the subtrie.
+		if (lcp < length && (lcp == node.extentLength(transform) || v.getBoolean(lcp))) rank += count(node);
+		return rank;
+	}
+
+	/** Returns the element of given rank.
+	 *
+	 * <p>This method requires that the trie {@linkplain #ZFastTrie(TransformationStrategy, boolean) maintains order statistics}.
+	 *
+	 * @param rank a rank between 0 (inclusive) and the size of this trie (exclusive).
+	 * @return the element of this trie of rank {@code rank}, that is, the element preceded by exactly {@code rank} elements.
+	 * @throws UnsupportedOperationException if this trie does not maintain order statistics.
+	 * @throws IndexOutOfBoundsException if {@code rank} is negative or not smaller than the size of this trie.
+	 */
+	public T select(long rank) {
+		if (! orderStatistics) throw new UnsupportedOperationException("This trie does not maintain order statistics");
+		if (rank < 0 || rank >= size) throw new IndexOutOfBoundsException("Rank (" + rank + ") is not in [0.." + size + ")");
+		Node<T> node = root;
+		while(node.isInternal()) {
+			final InternalNode<T> internalNode = (InternalNode<T>)node;
+			final int leftCount = count(internalNode.left);
+			if (rank < leftCount) node = internalNode.left;
+			else {
+				rank -= leftCount;
+				node = internalNode.right;
+			}
+		}
+		return ((Leaf<T>)node).key;
+	}
+
+	/** Returns the number of elements of this trie in a given range.
+	 *
+	 * <p>This method requires that the trie {@linkplain #ZFastTrie(TransformationStrategy, boolean) maintains order statistics}.
+	 *
+	 * @param from the lower bound of the range (inclusive).
+	 * @param to the upper bound of the range (exclusive).
+	 * @return the number of elements of this trie greater than or equal to {@code from} and smaller than {@code to}.
+	 * @throws UnsupportedOperationException if this trie does not maintain order statistics.
+	 */
+	public long count(final Object from, final Object to) {
+		return Math.max(0, rank(to) - rank(from));
+	}
+
 	@Override
 	public ObjectBidirectionalIterator<T> iterator() {
 		return iteratorFromLeaf(head.next);
@@ -1700,6 +1954,7 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 			final Leaf<T> referenceLeaf = leafStack.pop();
 			internalNode.reference = referenceLeaf;
 			referenceLeaf.reference = internalNode;
+			internalNode.count = count(internalNode.left) + count(internalNode.right);
 
 			map.addNew(internalNode);
 
@@ -1732,6 +1987,8 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 			new Switch("iso", 'i', "iso", "Use ISO-8859-1 coding internally (i.e., just use the lower eight bits of each character)."),
 			new Switch("utf32", JSAP.NO_SHORTFLAG, "utf-32", "Use UTF-32 internally (handles surrogate pairs)."),
 			new Switch("bitVector", 'b', "bit-vector", "Build a trie of bit vectors, rather than a trie of strings."),
+			new Switch("concurrent", 'c', "concurrent", "Build a concurrent z-fast trie."),
+			new Switch("sorted", 's', "sorted", "The string list is sorted in strictly increasing order (of the transformed bit vectors): the trie will be built in bulk."),
 			new Switch("zipped", 'z', "zipped", "The string list is compressed in gzip format."),
 			new UnflaggedOption("trie", JSAP.STRING_PARSER, JSAP.NO_DEFAULT, JSAP.REQUIRED, JSAP.NOT_GREEDY, "The filename for the serialised z-fast trie."),
 			new UnflaggedOption("stringFile", JSAP.STRING_PARSER, "-", JSAP.NOT_REQUIRED, JSAP.NOT_GREEDY, "The name of a file containing a newline-separated list of strings, or - for standard input."),
@@ -1747,6 +2004,8 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 		final boolean iso = jsapResult.getBoolean("iso");
 		final boolean utf32 = jsapResult.getBoolean("utf32");
 		final boolean bitVector = jsapResult.getBoolean("bitVector");
+		final boolean concurrent = jsapResult.getBoolean("concurrent");
+		final boolean sorted = jsapResult.getBoolean("sorted");
 
 		final InputStream inputStream = "-".equals(stringFile) ? System.in : new FileInputStream(stringFile);
 
@@ -1766,20 +2025,38 @@ public class ZFastTrie<T> extends AbstractObjectSortedSet<T> implements Serializ
 		pl.start("Adding keys...");
 
 		if (bitVector) {
-			final ZFastTrie<LongArrayBitVector> zFastTrie = new ZFastTrie<>(TransformationStrategies.identity());
-			while(lineIterator.hasNext()) {
-				zFastTrie.add(LongArrayBitVector.copy(transformationStrategy.toBitVector(lineIterator.next().copy())));
-				pl.lightUpdate();
-			}
+			final Iterator<MutableString> lines = lineIterator;
+			final Iterator<LongArrayBitVector> elements = new ObjectIterator<LongArrayBitVector>() {
+				@Override
+				public boolean hasNext() {
+					return lines.hasNext();
+				}
+
+				@Override
+				public LongArrayBitVector next() {
+					pl.lightUpdate();
+					return LongArrayBitVector.copy(transformationStrategy.toBitVector(lines.next().copy()));
+				}
+			};
+			final ZFastTrie<LongArrayBitVector> zFastTrie = concurrent ? new ConcurrentZFastTrie<>(elements, TransformationStrategies.identity(), sorted) : new ZFastTrie<>(elements, TransformationStrategies.identity(), sorted);
 			pl.done();
 			BinIO.storeObject(zFastTrie, functionName);
 		}
 		else {
-			final ZFastTrie<CharSequence> zFastTrie = new ZFastTrie<>(transformationStrategy);
-			while(lineIterator.hasNext()) {
-				zFastTrie.add(lineIterator.next().copy());
-				pl.lightUpdate();
-			}
+			final Iterator<MutableString> lines = lineIterator;
+			final Iterator<CharSequence> elements = new ObjectIterator<CharSequence>() {
+				@Override
+				public boolean hasNext() {
+					return lines.hasNext();
+				}
+
+				@Override
+				public CharSequence next() {
+					pl.lightUpdate();
+					return lines.next().copy();
+				}
+			};
+			final ZFastTrie<CharSequence> zFastTrie = concurrent ? new ConcurrentZFastTrie<>(elements, transformationStrategy, sorted) : new ZFastTrie<>(elements, transformationStrategy, sorted);
 			pl.done();
 			BinIO.storeObject(zFastTrie, functionName);
 		}
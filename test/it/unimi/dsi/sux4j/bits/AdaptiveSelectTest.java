@@ -0,0 +1,132 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class AdaptiveSelectTest extends RankSelectTestCase {
+
+	/** Returns a bit vector made of dense clusters separated by long empty gaps. */
+	public static LongArrayBitVector clustered(final long length, final XoRoShiRo128PlusRandom r) {
+		final LongArrayBitVector v = LongArrayBitVector.getInstance().length(length);
+		for(long p = 0; p < length;) {
+			final long end = Math.min(length, p + r.nextInt(100000));
+			final double density = r.nextDouble();
+			for(; p < end; p++) if (r.nextDouble() < density) v.set(p);
+			p += r.nextInt(200000);
+		}
+		return v;
+	}
+
+	/** Returns a bit vector whose gaps between ones follow a power law. */
+	public static LongArrayBitVector powerLaw(final long length, final XoRoShiRo128PlusRandom r) {
+		final LongArrayBitVector v = LongArrayBitVector.getInstance().length(length);
+		for(long p = 0; p < length; p += (long)Math.pow(1 - r.nextDouble(), -1 / 1.1)) v.set(p);
+		return v;
+	}
+
+	@Test
+	public void testEmpty() {
+		AdaptiveSelect select;
+
+		select = new AdaptiveSelect(new long[0], 0);
+		assertEquals(-1, select.select(0));
+
+		select = new AdaptiveSelect(new long[1], 64);
+		assertEquals(-1, select.select(0));
+		assertEquals(-1, select.select(1));
+
+		select = new AdaptiveSelect(new long[3], 129);
+		assertEquals(-1, select.select(0));
+		assertEquals(-1, select.select(1));
+	}
+
+	@Test
+	public void testSingleton() {
+		AdaptiveSelect select;
+
+		select = new AdaptiveSelect(new long[] { 1L << 63, 0 }, 64);
+		assertSelect(select);
+		assertEquals(63, select.select(0));
+		assertEquals(-1, select.select(1));
+
+		select = new AdaptiveSelect(new long[] { 1L << 63, 0, 0 }, 129);
+		assertSelect(select);
+		assertEquals(63, select.select(0));
+		assertEquals(-1, select.select(1));
+
+		// Spurious bits beyond the length must be ignored
+		select = new AdaptiveSelect(new long[] { 1 | 1L << 40 }, 33);
+		assertSelect(select);
+		assertEquals(0, select.select(0));
+		assertEquals(-1, select.select(1));
+	}
+
+	@Test
+	public void testAllSizes() {
+		LongArrayBitVector v;
+		AdaptiveSelect r;
+		for (int size = 0; size <= 4096; size++) {
+			v = LongArrayBitVector.getInstance().length(size);
+			for (int i = (size + 1) / 2; i-- != 0;) v.set(i * 2);
+			r = new AdaptiveSelect(v);
+			for (int i = size / 2; i-- != 0;) assertEquals(i * 2, r.select(i));
+
+			v = LongArrayBitVector.getInstance().length(size);
+			v.fill(true);
+			r = new AdaptiveSelect(v);
+			for (int i = size; i-- != 0;) assertEquals(i, r.select(i));
+		}
+	}
+
+	@Test
+	public void testSparse() {
+		// Spans beyond 2^16 bits require 32-bit offsets
+		final LongArrayBitVector v = LongArrayBitVector.getInstance().length(1L << 26);
+		for(long i = 0; i < v.length(); i += 100000) v.set(i);
+		for(long i = 0; i < 1000; i++) v.set(1L << 25 | i * 3);
+		assertSelect(new AdaptiveSelect(v));
+	}
+
+	@Test
+	public void testDistributions() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final long length : new long[] { 1000, 100000, 10000000 }) {
+			final LongArrayBitVector uniform = LongArrayBitVector.getInstance().length(length);
+			for(long i = 0; i < length; i++) if (r.nextBoolean()) uniform.set(i);
+			for(final LongArrayBitVector v : new LongArrayBitVector[] { uniform, clustered(length, r), powerLaw(length, r) }) {
+				AdaptiveSelect select = new AdaptiveSelect(v);
+				assertSelect(select);
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				BinIO.storeObject(select, temp);
+				select = (AdaptiveSelect)BinIO.loadObject(temp);
+				assertBatchSelect(select);
+			}
+		}
+	}
+
+	@Test
+	public void testBulk() {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		final long[] s = new long[100000];
+		for(int i = s.length; i-- != 0;) s[i] = random.nextLong() & 0xF0F0F0F088884444L;
+		final AdaptiveSelect select = new AdaptiveSelect(s, s.length * Long.SIZE);
+
+		for(int i = 0; i < 1000; i++) {
+			final int from = random.nextInt(s.length - 100);
+			final int to = from + random.nextInt(100);
+			final int offset = random.nextInt(10);
+			final long[] dest = select.select(from, new long[to - from + offset + random.nextInt(10)], offset, to - from);
+			for(int j = from; j < to; j++) assertEquals("From: " + from + " to: " + to + " j: " + j, select.select(j), dest[offset + j - from]);
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class AdaptiveSelectZeroTest extends RankSelectTestCase {
+
+	@Test
+	public void testEmpty() {
+		AdaptiveSelectZero select;
+
+		select = new AdaptiveSelectZero(new long[0], 0);
+		assertEquals(-1, select.selectZero(0));
+
+		select = new AdaptiveSelectZero(new long[] { -1L }, 64);
+		assertEquals(-1, select.selectZero(0));
+		assertEquals(-1, select.selectZero(1));
+
+		select = new AdaptiveSelectZero(new long[] { -1L, -1L, 1 }, 129);
+		assertEquals(-1, select.selectZero(0));
+		assertEquals(-1, select.selectZero(1));
+	}
+
+	@Test
+	public void testSingleton() {
+		AdaptiveSelectZero select;
+
+		select = new AdaptiveSelectZero(new long[] { -1L >>> 1, -1L }, 128);
+		assertSelectZero(select);
+		assertEquals(63, select.selectZero(0));
+		assertEquals(-1, select.selectZero(1));
+
+		select = new AdaptiveSelectZero(new long[] { -1L >>> 1, 1 }, 65);
+		assertSelectZero(select);
+		assertEquals(63, select.selectZero(0));
+		assertEquals(-1, select.selectZero(1));
+	}
+
+	@Test
+	public void testAllSizes() {
+		LongArrayBitVector v;
+		AdaptiveSelectZero r;
+		for (int size = 0; size <= 4096; size++) {
+			v = LongArrayBitVector.getInstance().length(size);
+			v.fill(true);
+			for (int i = (size + 1) / 2; i-- != 0;) v.clear(i * 2);
+			r = new AdaptiveSelectZero(v);
+			for (int i = size / 2; i-- != 0;) assertEquals(i * 2, r.selectZero(i));
+
+			v = LongArrayBitVector.getInstance().length(size);
+			r = new AdaptiveSelectZero(v);
+			for (int i = size; i-- != 0;) assertEquals(i, r.selectZero(i));
+		}
+	}
+
+	@Test
+	public void testDistributions() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final long length : new long[] { 1000, 100000, 10000000 }) {
+			for(final LongArrayBitVector v : new LongArrayBitVector[] { AdaptiveSelectTest.clustered(length, r), AdaptiveSelectTest.powerLaw(length, r) }) {
+				v.flip();
+				assertSelectZero(new AdaptiveSelectZero(v));
+			}
+		}
+	}
+
+	@Test
+	public void testBulk() {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		final long[] s = new long[100000];
+		for(int i = s.length; i-- != 0;) s[i] = random.nextLong() | 0x0F0F0F0F77773333L;
+		final AdaptiveSelectZero select = new AdaptiveSelectZero(s, s.length * Long.SIZE);
+
+		for(int i = 0; i < 1000; i++) {
+			final int from = random.nextInt(s.length - 100);
+			final int to = from + random.nextInt(100);
+			final int offset = random.nextInt(10);
+			final long[] dest = select.selectZero(from, new long[to - from + offset + random.nextInt(10)], offset, to - from);
+			for(int j = from; j < to; j++) assertEquals("From: " + from + " to: " + to + " j: " + j, select.selectZero(j), dest[offset + j - from]);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.sux4j.util.EliasFanoMonotoneLongBigList;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class BigRankSelectTest {
+
+	private static LongArrayBitVector random(final long length, final double density, final XoRoShiRo128PlusRandom r) {
+		final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+		for(long i = length; i-- != 0;) if (r.nextDouble() < density) v.set(i);
+		return v;
+	}
+
+	private static LongBigArrayBitVector big(final BitVector v) {
+		final LongBigArrayBitVector b = LongBigArrayBitVector.getInstance();
+		for(long i = 0; i < v.length(); i++) b.add(v.getBoolean(i));
+		return b;
+	}
+
+	private byte[] dump(final Object o) throws IOException {
+		final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+		temp.deleteOnExit();
+		try (MappedOutput out = new MappedOutput(temp)) {
+			if (o instanceof SimpleSelect) ((SimpleSelect)o).dump(out);
+			else if (o instanceof SimpleBigSelect) ((SimpleBigSelect)o).dump(out);
+			else if (o instanceof Rank9) ((Rank9)o).dump(out);
+			else ((BigRank9)o).dump(out);
+		}
+		return Files.readAllBytes(temp.toPath());
+	}
+
+	@Test
+	public void testBitVector() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final LongArrayBitVector v = random(10000, .5, r);
+		final LongBigArrayBitVector b = big(v);
+		assertEquals(v, b);
+		assertEquals(v.count(), b.count());
+		for(int i = 0; i < 1000; i++) {
+			final long from = r.nextInt(10000), to = Math.min(10000, from + r.nextInt(65));
+			assertEquals(v.getLong(from, to), b.getLong(from, to));
+		}
+		b.append(0x3FF, 10);
+		v.append(0x3FF, 10);
+		assertEquals(v, b);
+		b.length(5000);
+		v.length(5000);
+		assertEquals(v, b);
+		assertEquals(v.count(), b.count());
+		b.length(6000);
+		v.length(6000);
+		assertEquals(v, b);
+
+		final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+		temp.deleteOnExit();
+		BinIO.storeObject(b, temp);
+		assertEquals(v, BinIO.loadObject(temp));
+		assertEquals(b, b.copy());
+
+		assertTrue(LongBigArrayBitVector.ofLengthFitting(100) instanceof LongArrayBitVector);
+		assertTrue(SimpleBigSelect.getInstance(v) instanceof SimpleSelect);
+		assertTrue(SimpleBigSelect.getInstance(b) instanceof SimpleBigSelect);
+		assertTrue(SimpleBigSelectZero.getInstance(v) instanceof SimpleSelectZero);
+		assertTrue(SimpleBigSelectZero.getInstance(b) instanceof SimpleBigSelectZero);
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final long length : new long[] { 0, 1, 63, 64, 65, 1000, 100000 }) {
+			for(final double density : new double[] { 0, .0001, .01, .5, .99, 1 }) {
+				final LongArrayBitVector v = random(length, density, r);
+				final LongBigArrayBitVector b = big(v);
+
+				final Rank9 rank9 = new Rank9(v);
+				final BigRank9 bigRank9 = new BigRank9(b);
+				final Select9 select9 = new Select9(rank9);
+				final BigSelect9 bigSelect9 = new BigSelect9(bigRank9);
+				final SimpleSelect simpleSelect = new SimpleSelect(v);
+				final SimpleBigSelect simpleBigSelect = new SimpleBigSelect(b);
+				final SimpleSelectZero simpleSelectZero = new SimpleSelectZero(v);
+				final SimpleBigSelectZero simpleBigSelectZero = new SimpleBigSelectZero(b);
+
+				assertEquals(rank9.count(), bigRank9.count());
+				assertEquals(rank9.lastOne(), bigRank9.lastOne());
+				assertEquals(rank9.numBits(), bigRank9.numBits());
+				assertEquals(simpleSelect.numBits(), simpleBigSelect.numBits());
+				assertEquals(simpleSelectZero.numBits(), simpleBigSelectZero.numBits());
+				for(long i = 0; i <= length; i++) assertEquals(rank9.rank(i), bigRank9.rank(i));
+
+				final long ones = v.count();
+				for(long i = 0; i <= ones; i++) {
+					assertEquals(select9.select(i), bigSelect9.select(i));
+					assertEquals(simpleSelect.select(i), simpleBigSelect.select(i));
+				}
+				final long zeroes = length - ones;
+				for(long i = 0; i <= zeroes; i++) assertEquals(simpleSelectZero.selectZero(i), simpleBigSelectZero.selectZero(i));
+
+				if (ones > 0) {
+					final int n = (int)Math.min(ones, 100);
+					final long start = ones - n;
+					assertArrayEquals(simpleSelect.select(start, new long[n]), simpleBigSelect.select(start, new long[n]));
+					assertArrayEquals(simpleSelect.select(start, new long[n]), select9.select(start, new long[n]));
+				}
+				if (zeroes > 0) {
+					final int n = (int)Math.min(zeroes, 100);
+					assertArrayEquals(simpleSelectZero.selectZero(zeroes - n, new long[n]), simpleBigSelectZero.selectZero(zeroes - n, new long[n]));
+				}
+
+				// Big structures must be dumped in the same format
+				assertArrayEquals(dump(rank9), dump(bigRank9));
+				assertArrayEquals(dump(simpleSelect), dump(simpleBigSelect));
+			}
+		}
+	}
+
+	@Test
+	public void testSparseWithBigUpperBits() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final double density : new double[] { .001, .1, .5, 1 }) {
+			final LongArrayBitVector v = random(100000, density, r);
+			final SparseRank sparseRank = new SparseRank(v);
+			// Replicates sparseRank with upper bits stored in a big array
+			final SparseRank bigSparseRank = new SparseRank(sparseRank.n, sparseRank.m, sparseRank.l, sparseRank.lowerBits, big(sparseRank.upperBits));
+			final SparseSelect sparseSelect = sparseRank.getSelect();
+			final SparseSelect bigSparseSelect = bigSparseRank.getSelect();
+
+			for(long i = 0; i <= v.length(); i++) assertEquals(sparseRank.rank(i), bigSparseRank.rank(i));
+			final long ones = v.count();
+			for(long i = 0; i < ones; i++) assertEquals(sparseSelect.select(i), bigSparseSelect.select(i));
+
+			final long[] a = new long[(int)ones], b = new long[(int)ones];
+			assertArrayEquals(sparseSelect.get(0, a), bigSparseSelect.get(0, b));
+
+			// An Elias-Fano list whose iterators scan the upper bits in a big array
+			final EliasFanoMonotoneLongBigList list = new EliasFanoMonotoneLongBigList(sparseRank.m, sparseRank.l, sparseRank.lowerBits, new SimpleBigSelect(big(sparseRank.upperBits))) {
+				private static final long serialVersionUID = 1L;
+			};
+			final LongIterator i = list.iterator();
+			for(long k = 0; k < ones; k++) assertEquals(sparseSelect.select(k), i.nextLong());
+			for(long k = ones; k-- != 0;) assertEquals(sparseSelect.select(k), list.listIterator(k).nextLong());
+			list.iterator().next(b, 0, b.length);
+			assertArrayEquals(a, b);
+		}
+	}
+}
@@ -0,0 +1,129 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class DynamicBitVectorTest extends RankSelectTestCase {
+
+	private static void assertAll(final LongArrayBitVector v, final DynamicBitVector d) {
+		assertEquals(v.length(), d.length());
+		assertEquals(v, d);
+		assertEquals(v, d.copy());
+		assertEquals(v.count(), d.count());
+		final long length = v.length();
+		long ones = 0, zeroes = 0;
+		for(long i = 0; i < length; i++) {
+			assertEquals("Ranking " + i, ones, d.rank(i));
+			if (v.getBoolean(i)) assertEquals("Selecting " + ones, i, d.select(ones++));
+			else assertEquals("Selecting zero " + zeroes, i, d.selectZero(zeroes++));
+		}
+		assertEquals(ones, d.rank(length));
+		assertEquals(-1, d.select(ones));
+		assertEquals(-1, d.selectZero(zeroes));
+	}
+
+	@Test
+	public void testEmpty() {
+		final DynamicBitVector d = new DynamicBitVector();
+		assertAll(LongArrayBitVector.getInstance(), d);
+		d.add(true);
+		d.removeBoolean(0);
+		assertAll(LongArrayBitVector.getInstance(), d);
+	}
+
+	@Test
+	public void testBuild() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final long length : new long[] { 0, 1, 63, 64, 65, 1535, 1536, 1537, 100000 }) {
+			for(final double density : new double[] { 0, .01, .5, 1 }) {
+				final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+				for(long i = length; i-- != 0;) if (r.nextDouble() < density) v.set(i);
+				DynamicBitVector d = new DynamicBitVector(v);
+				assertAll(v, d);
+				assertRankAndSelect(d, d);
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				BinIO.storeObject(d, temp);
+				d = (DynamicBitVector)BinIO.loadObject(temp);
+				assertAll(v, d);
+			}
+		}
+	}
+
+	@Test
+	public void testRandomOperations() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final double insertProbability : new double[] { .6, .5, .4 }) {
+			final LongArrayBitVector v = LongArrayBitVector.getInstance();
+			final DynamicBitVector d = new DynamicBitVector();
+			for(int i = 0; i < 200000; i++) {
+				final double p = r.nextDouble();
+				if (p < insertProbability || v.length() == 0) {
+					final long index = r.nextLong(v.length() + 1);
+					final boolean value = r.nextBoolean();
+					v.add(index, value);
+					d.add(index, value);
+				}
+				else if (p < .8) {
+					final long index = r.nextLong(v.length());
+					assertEquals(v.removeBoolean(index), d.removeBoolean(index));
+				}
+				else {
+					final long index = r.nextLong(v.length());
+					final boolean value = r.nextBoolean();
+					assertEquals(v.set(index, value), d.set(index, value));
+				}
+				if (i % 50000 == 0) assertAll(v, d);
+			}
+			assertAll(v, d);
+			// Delete everything to exercise merges up to the root
+			while(v.length() > 0) {
+				final long index = r.nextLong(v.length());
+				assertEquals(v.removeBoolean(index), d.removeBoolean(index));
+			}
+			assertAll(v, d);
+		}
+	}
+
+	@Test
+	public void testFreeze() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final DynamicBitVector d = new DynamicBitVector();
+		for(int i = 0; i < 100000; i++) d.add(r.nextLong(d.length() + 1), r.nextInt(3) == 0);
+		final RankSelect rs = d.freeze();
+		assertTrue(rs.rank instanceof Rank9);
+		assertTrue(rs.select instanceof Select9);
+		assertEquals(d, rs.rank.bitVector());
+		for(long i = 0; i <= d.length(); i += 7) assertEquals(d.rank(i), rs.rank.rank(i));
+		for(long i = 0; i < d.count(); i += 7) assertEquals(d.select(i), rs.select.select(i));
+	}
+
+	@Test
+	public void testLength() {
+		final LongArrayBitVector v = LongArrayBitVector.getInstance();
+		final DynamicBitVector d = new DynamicBitVector();
+		for(int i = 0; i < 5000; i++) {
+			v.add(i % 3 == 0);
+			d.add(i % 3 == 0);
+		}
+		v.length(1000);
+		d.length(1000);
+		assertAll(v, d);
+		v.length(3000);
+		d.length(3000);
+		assertAll(v, d);
+		v.clear();
+		d.clear();
+		assertAll(v, d);
+	}
+}
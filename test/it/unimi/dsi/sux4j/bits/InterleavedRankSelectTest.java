@@ -0,0 +1,89 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class InterleavedRankSelectTest extends RankSelectTestCase {
+
+	private static void assertAll(final LongArrayBitVector v, final InterleavedRankSelect s) {
+		assertEquals(v, s.bitVector());
+		assertEquals(v.count(), s.count());
+		final long length = v.length();
+		long ones = 0, zeroes = 0;
+		for(long i = 0; i < length; i++) {
+			assertEquals("Ranking " + i, ones, s.rank(i));
+			if (v.getBoolean(i)) assertEquals("Selecting " + ones, i, s.select(ones++));
+			else assertEquals("Selecting zero " + zeroes, i, s.selectZero(zeroes++));
+		}
+		assertEquals(ones, s.rank(length));
+		assertEquals(-1, s.select(ones));
+		assertEquals(-1, s.select(ones + 1));
+		assertEquals(-1, s.selectZero(zeroes));
+		assertEquals(-1, s.selectZero(zeroes + 1));
+	}
+
+	@Test
+	public void testEmpty() {
+		for(final long length : new long[] { 0, 1, 63, 64, 65, 447, 448, 449, 896 }) {
+			final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+			assertAll(v, new InterleavedRankSelect(v));
+			v.fill(true);
+			assertAll(v, new InterleavedRankSelect(v));
+		}
+	}
+
+	@Test
+	public void testSingleton() {
+		for(final long length : new long[] { 1, 64, 128, 447, 448, 1000 }) {
+			for(long i = 0; i < length; i += 13) {
+				final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+				v.set(i);
+				assertAll(v, new InterleavedRankSelect(v));
+				v.fill(true);
+				v.clear(i);
+				assertAll(v, new InterleavedRankSelect(v));
+			}
+		}
+	}
+
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final long length : new long[] { 1000, 100000, 1000000 }) {
+			for(final double density : new double[] { .00001, .001, .01, .5, .99, .9999 }) {
+				final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+				for(long i = length; i-- != 0;) if (r.nextDouble() < density) v.set(i);
+				InterleavedRankSelect s = new InterleavedRankSelect(v);
+				assertAll(v, s);
+				assertBatchRank(s);
+				assertBatchSelect(s);
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				BinIO.storeObject(s, temp);
+				s = (InterleavedRankSelect)BinIO.loadObject(temp);
+				assertAll(v, s);
+			}
+		}
+	}
+
+	@Test
+	public void testUneven() {
+		// Long runs of ones and zeroes put many blocks between samples
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final LongArrayBitVector v = LongArrayBitVector.getInstance();
+		for(int i = 0; i < 100; i++) {
+			final boolean bit = (i & 1) != 0;
+			for(int j = r.nextInt(50000); j-- != 0;) v.add(bit);
+		}
+		assertAll(v, new InterleavedRankSelect(v));
+	}
+}
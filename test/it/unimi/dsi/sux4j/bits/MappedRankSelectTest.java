@@ -0,0 +1,80 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class MappedRankSelectTest {
+
+	private static LongArrayBitVector random(final long length, final double density, final XoRoShiRo128PlusRandom r) {
+		final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+		for(long i = length; i-- != 0;) if (r.nextDouble() < density) v.set(i);
+		return v;
+	}
+
+	private File dump(final Object o) throws IOException {
+		final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+		temp.deleteOnExit();
+		try (MappedOutput out = new MappedOutput(temp)) {
+			if (o instanceof SimpleSelect) ((SimpleSelect)o).dump(out);
+			else if (o instanceof SparseSelect) ((SparseSelect)o).dump(out);
+			else ((Rank9)o).dump(out);
+		}
+		return temp;
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final long length : new long[] { 0, 1, 63, 64, 65, 1000, 100000 }) {
+			// Very sparse vectors exercise the spill paths of SimpleSelect
+			for(final double density : new double[] { 0, .0001, .01, .5, .99, 1 }) {
+				final LongArrayBitVector v = random(length, density, r);
+				final SimpleSelect simpleSelect = new SimpleSelect(v);
+				final Rank9 rank9 = new Rank9(v);
+				final SparseSelect sparseSelect = new SparseSelect(v);
+
+				final MappedSimpleSelect mappedSimpleSelect = MappedSimpleSelect.map(dump(simpleSelect));
+				final MappedRank9 mappedRank9 = MappedRank9.map(dump(rank9));
+				final MappedSparseSelect mappedSparseSelect = MappedSparseSelect.map(dump(sparseSelect));
+
+				assertEquals(v, mappedSimpleSelect.bitVector());
+				assertEquals(v, mappedRank9.bitVector());
+				assertEquals(v, mappedSparseSelect.bitVector());
+				assertEquals(simpleSelect.numBits(), mappedSimpleSelect.numBits());
+				assertEquals(rank9.numBits(), mappedRank9.numBits());
+				assertEquals(rank9.count(), mappedRank9.count());
+				assertEquals(rank9.lastOne(), mappedRank9.lastOne());
+
+				final long ones = v.count();
+				for(long i = 0; i <= ones; i++) {
+					assertEquals(simpleSelect.select(i), mappedSimpleSelect.select(i));
+					assertEquals(sparseSelect.select(i), mappedSparseSelect.select(i));
+				}
+				for(long i = 0; i <= length; i++) assertEquals(rank9.rank(i), mappedRank9.rank(i));
+
+				final MappedSimpleSelect copy = mappedSimpleSelect.copy();
+				for(int k = 0; k < 100 && ones > 0; k++) {
+					final long rank = r.nextLong(ones);
+					final int len = (int)Math.min(ones - rank, r.nextInt(100));
+					final long[] expected = new long[len], actual = new long[len];
+					simpleSelect.select(rank, expected);
+					copy.select(rank, actual);
+					for(int i = 0; i < len; i++) assertEquals(expected[i], actual[i]);
+				}
+			}
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void testWrongTag() throws IOException {
+		MappedRank9.map(dump(new SimpleSelect(LongArrayBitVector.ofLength(10))));
+	}
+}
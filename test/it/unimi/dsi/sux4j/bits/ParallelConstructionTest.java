@@ -0,0 +1,78 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class ParallelConstructionTest {
+
+	private static byte[] serialize(final Serializable o) throws IOException {
+		final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		final ObjectOutputStream oos = new ObjectOutputStream(bytes);
+		oos.writeObject(o);
+		oos.close();
+		return bytes.toByteArray();
+	}
+
+	private static void check(final LongArrayBitVector v) throws IOException {
+		final Rank9 rank9 = new Rank9(v), parallelRank9 = new Rank9(v, true);
+		assertEquals(rank9.count(), parallelRank9.count());
+		assertEquals(rank9.lastOne, parallelRank9.lastOne);
+		assertArrayEquals(rank9.count, parallelRank9.count);
+		assertArrayEquals(serialize(new Select9(rank9)), serialize(new Select9(parallelRank9, true)));
+
+		final Rank16 rank16 = new Rank16(v), parallelRank16 = new Rank16(v, true);
+		assertEquals(rank16.lastOne, parallelRank16.lastOne);
+		assertArrayEquals(serialize(rank16), serialize(parallelRank16));
+
+		final SimpleSelect simpleSelect = new SimpleSelect(v), parallelSimpleSelect = new SimpleSelect(v, true);
+		assertArrayEquals(serialize(simpleSelect), serialize(parallelSimpleSelect));
+		for(long r = 0; r < rank9.count(); r += 997) assertEquals(simpleSelect.select(r), parallelSimpleSelect.select(r));
+
+		assertArrayEquals(serialize(new SimpleSelectZero(v)), serialize(new SimpleSelectZero(v, true)));
+	}
+
+	@Test
+	public void testEmpty() throws IOException {
+		check(LongArrayBitVector.getInstance());
+		check(LongArrayBitVector.ofLength(1));
+		check(LongArrayBitVector.ofLength(3L * Chunks.WORDS_PER_CHUNK * Long.SIZE + 1));
+	}
+
+	@Test
+	public void testRandom() throws IOException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final long length : new long[] { 1000, 2L * Chunks.WORDS_PER_CHUNK * Long.SIZE, 3L * Chunks.WORDS_PER_CHUNK * Long.SIZE + 37 })
+			for(final double density : new double[] { .001, .1, .5, .999 }) {
+				final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+				for(long i = length; i-- != 0;) if (r.nextDouble() < density) v.set(i);
+				check(v);
+			}
+	}
+
+	@Test
+	public void testUneven() throws IOException {
+		// Dense and very sparse zones generate all kinds of subinventories and exact spills
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final long length = 5L * Chunks.WORDS_PER_CHUNK * Long.SIZE + 11;
+		final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+		for(long i = 0; i < length;) {
+			final long run = r.nextLong(1 << 20);
+			if (r.nextBoolean()) for(long j = Math.min(length, i + run); i < j; i++) v.set(i, r.nextInt(4) != 0);
+			else {
+				for(long j = Math.min(length, i + run); i < j; i += r.nextLong(1 << 16) + 1) v.set(i);
+				i = Math.min(i, length);
+			}
+		}
+		check(v);
+	}
+}
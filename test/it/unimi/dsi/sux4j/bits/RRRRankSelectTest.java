@@ -0,0 +1,82 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class RRRRankSelectTest extends RankSelectTestCase {
+
+	private static void assertAll(final LongArrayBitVector v, final RRRRankSelect s) {
+		assertEquals(v, s.bitVector());
+		assertEquals(v.count(), s.count());
+		final long length = v.length();
+		long ones = 0, zeroes = 0;
+		for(long i = 0; i < length; i++) {
+			assertEquals("Ranking " + i, ones, s.rank(i));
+			assertEquals("Getting " + i, v.getBoolean(i), s.getBoolean(i));
+			if (v.getBoolean(i)) assertEquals("Selecting " + ones, i, s.select(ones++));
+			else assertEquals("Selecting zero " + zeroes, i, s.selectZero(zeroes++));
+		}
+		assertEquals(ones, s.rank(length));
+		assertEquals(-1, s.select(ones));
+		assertEquals(-1, s.select(ones + 1));
+		assertEquals(-1, s.selectZero(zeroes));
+		assertEquals(-1, s.selectZero(zeroes + 1));
+	}
+
+	@Test
+	public void testEmpty() {
+		for(final long length : new long[] { 0, 1, 62, 63, 64, 126, 4032, 4033 }) {
+			final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+			assertAll(v, new RRRRankSelect(v));
+			v.fill(true);
+			assertAll(v, new RRRRankSelect(v));
+		}
+	}
+
+	@Test
+	public void testSingleton() {
+		for(final long length : new long[] { 1, 63, 64, 126, 1000, 5000 }) {
+			for(long i = 0; i < length; i += 17) {
+				final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+				v.set(i);
+				assertAll(v, new RRRRankSelect(v));
+				v.fill(true);
+				v.clear(i);
+				assertAll(v, new RRRRankSelect(v));
+			}
+		}
+	}
+
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final long length : new long[] { 1000, 100000, 1000000 }) {
+			for(final double density : new double[] { .00001, .01, .05, .1, .3, .5, .99 }) {
+				final LongArrayBitVector v = LongArrayBitVector.ofLength(length);
+				for(long i = length; i-- != 0;) if (r.nextDouble() < density) v.set(i);
+				RRRRankSelect s = new RRRRankSelect(v);
+				assertAll(v, s);
+				assertBatchRank(s);
+				assertBatchSelect(s);
+				// Entropy plus classes and samples: about 0.42 bits per bit at density .05, and 0.6 at density .1
+				if (length == 1000000 && density <= .05) assertTrue(Long.toString(s.numBits()), s.numBits() < length * .45);
+				if (length == 1000000 && density <= .1) assertTrue(Long.toString(s.numBits()), s.numBits() < length * .62);
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				BinIO.storeObject(s, temp);
+				s = (RRRRankSelect)BinIO.loadObject(temp);
+				assertAll(v, s);
+			}
+		}
+	}
+}
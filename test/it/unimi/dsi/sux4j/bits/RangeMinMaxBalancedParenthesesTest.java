@@ -0,0 +1,132 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class RangeMinMaxBalancedParenthesesTest extends BalancedParenthesesTestCase {
+
+	private static LongArrayBitVector random(final int pairs, final double openProbability, final XoRoShiRo128PlusRandom r) {
+		final LongArrayBitVector v = LongArrayBitVector.getInstance();
+		int open = 0, excess = 0;
+		while(open < pairs || excess > 0) {
+			if (open < pairs && (excess == 0 || r.nextDouble() < openProbability)) {
+				v.add(true);
+				open++;
+				excess++;
+			}
+			else {
+				v.add(false);
+				excess--;
+			}
+		}
+		return v;
+	}
+
+	private void assertAll(final LongArrayBitVector v, final RangeMinMaxBalancedParentheses bp, final XoRoShiRo128PlusRandom r) {
+		assertBalancedParentheses(bp);
+		final int length = (int)v.length();
+		final IntArrayList stack = new IntArrayList();
+		final int[] excess = new int[length], parent = new int[length], match = new int[length];
+		int e = 0;
+		for(int i = 0; i < length; i++) {
+			if (v.getBoolean(i)) {
+				parent[i] = stack.isEmpty() ? -1 : stack.topInt();
+				stack.push(i);
+				e++;
+			}
+			else {
+				match[i] = stack.popInt();
+				parent[i] = parent[match[i]];
+				e--;
+			}
+			excess[i] = e;
+		}
+
+		for(int i = 0; i < length; i++) {
+			assertEquals("Excess at " + i, excess[i], bp.excess(i));
+			if (! v.getBoolean(i)) assertEquals("Finding opening for position " + i, match[i], bp.findOpen(i));
+			assertEquals("Enclosing " + i, parent[i], bp.enclose(i));
+		}
+
+		for(int t = 0; t < 2000 && length > 0; t++) {
+			final int from = r.nextInt(length), to = from + r.nextInt(Math.min(length - from, t % 2 == 0 ? 100 : length));
+			int m = from;
+			for(int i = from; i <= to; i++) if (excess[i] < excess[m]) m = i;
+			assertEquals("rmq(" + from + ", " + to + ")", m, bp.rmq(from, to));
+
+			int u = r.nextInt(length), w = r.nextInt(length);
+			if (! v.getBoolean(u)) u = match[u];
+			if (! v.getBoolean(w)) w = match[w];
+			// Naive LCA: climb from the deeper node
+			int a = u, b = w;
+			while(a != b) {
+				if (a == -1 || b == -1) {
+					a = -1;
+					break;
+				}
+				if (excess[a] >= excess[b]) a = parent[a];
+				else b = parent[b];
+			}
+			assertEquals("lca(" + u + ", " + w + ")", a, bp.lca(u, w));
+		}
+	}
+
+	@Test
+	public void testSmall() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final String s : new String[] { "", "()", "(())", "()()", "(()())", "((()())())", "()(())()" }) {
+			final LongArrayBitVector v = parse(s, true);
+			assertAll(v, new RangeMinMaxBalancedParentheses(v), r);
+		}
+		final RangeMinMaxBalancedParentheses bp = new RangeMinMaxBalancedParentheses(parse("(()(()))", true));
+		assertEquals(7, bp.findClose(0));
+		assertEquals(0, bp.findOpen(7));
+		assertEquals(0, bp.enclose(1));
+		assertEquals(3, bp.enclose(4));
+		assertEquals(-1, bp.enclose(0));
+		assertEquals(0, bp.lca(1, 4));
+		assertEquals(3, bp.lca(3, 4));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnbalanced() {
+		new RangeMinMaxBalancedParentheses(parse("())(", false));
+	}
+
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final int pairs : new int[] { 10, 100, 1000, 10000, 50000 }) {
+			for(final double p : new double[] { .3, .5, .55, .9 }) {
+				final LongArrayBitVector v = random(pairs, p, r);
+				RangeMinMaxBalancedParentheses bp = new RangeMinMaxBalancedParentheses(v);
+				assertAll(v, bp, r);
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				BinIO.storeObject(bp, temp);
+				bp = (RangeMinMaxBalancedParentheses)BinIO.loadObject(temp);
+				assertBalancedParentheses(bp);
+			}
+		}
+	}
+
+	@Test
+	public void testDeep() {
+		// A path: the match of every parenthesis is far away
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final LongArrayBitVector v = LongArrayBitVector.getInstance();
+		for(int i = 0; i < 100000; i++) v.add(true);
+		for(int i = 0; i < 100000; i++) v.add(false);
+		assertAll(v, new RangeMinMaxBalancedParentheses(v), r);
+	}
+}
@@ -2,8 +2,38 @@ package it.unimi.dsi.sux4j.bits;
 
 import static org.junit.Assert.assertEquals;
 import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.fastutil.longs.LongArrays;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
 
 public abstract class RankSelectTestCase {
+	private static final int MAX_BATCH = 100000;
+
+	/** Returns all values from 0 to {@code n} (inclusive) in random order, or a random sample of them if there are too many. */
+	private static long[] sample(final long n) {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		final long[] a = new long[(int)Math.min(n + 1, MAX_BATCH)];
+		if (a.length == n + 1) {
+			for(int i = a.length; i-- != 0;) a[i] = i;
+			LongArrays.shuffle(a, random);
+		}
+		else for(int i = a.length; i-- != 0;) a[i] = random.nextLong(n + 1);
+		return a;
+	}
+
+	/** Checks batch ranking on positions (including the length of the bit vector) in random order. */
+	public void assertBatchRank(Rank rank) {
+		final long[] pos = sample(rank.bitVector().length());
+		final long[] dest = rank.rank(pos, new long[pos.length]);
+		for(int i = 0; i < pos.length; i++) assertEquals("Ranking " + pos[i], rank.rank(pos[i]), dest[i]);
+	}
+
+	/** Checks batch selection on ranks (including a few invalid ones) in random order. */
+	public void assertBatchSelect(Select select) {
+		final long[] rank = sample(select.bitVector().count() + 2);
+		final long[] dest = select.select(rank, new long[rank.length]);
+		for(int i = 0; i < rank.length; i++) assertEquals("Selecting " + rank[i], select.select(rank[i]), dest[i]);
+	}
+
 	public void assertRankAndSelect(Rank rank, Select select) {
 		final long length = rank.bitVector().length();
 		final BitVector bits = rank.bitVector();
@@ -16,6 +46,8 @@ public abstract class RankSelectTestCase {
 			}
 
 		}
+		assertBatchRank(rank);
+		assertBatchSelect(select);
 	}
 
 	public void assertSelect(Select s) {
@@ -29,6 +61,7 @@ public abstract class RankSelectTestCase {
 			}
 
 		}
+		assertBatchSelect(s);
 	}
 
 	public void assertSelectZero(SelectZero s) {
@@ -52,6 +85,7 @@ public abstract class RankSelectTestCase {
 			assertEquals("Ranking " + i, j, rank.rank(i));
 			if (bits.getBoolean(i)) j++;
 		}
+		assertBatchRank(rank);
 	}
 
 }
@@ -0,0 +1,92 @@
+package it.unimi.dsi.sux4j.bits;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongBigList;
+import it.unimi.dsi.fastutil.longs.LongBigLists;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class SymbolRankTest {
+
+	private static void assertAll(final LongBigList symbols, final int width, final SymbolRank s) {
+		final long length = symbols.size64();
+		assertEquals(length, s.length());
+		assertEquals(width, s.width());
+		final long[] count = new long[1 << width];
+		for(long i = 0; i < length; i++) {
+			for(int c = 0; c < count.length; c++) assertEquals("Ranking " + c + " at " + i, count[c], s.rank(c, i));
+			assertEquals("Getting " + i, symbols.getLong(i), s.getSymbol(i));
+			count[(int)symbols.getLong(i)]++;
+		}
+		for(int c = 0; c < count.length; c++) {
+			assertEquals(count[c], s.rank(c, length));
+			assertEquals(count[c], s.count(c));
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		for(int width = 2; width <= 4; width++) assertAll(LongBigLists.asBigList(new LongArrayList()), width, new SymbolRank(LongBigLists.asBigList(new LongArrayList()), width));
+	}
+
+	@Test
+	public void testConstant() {
+		for(int width = 2; width <= 4; width++) {
+			for(int c = 0; c < 1 << width; c++) {
+				for(final long length : new long[] { 1, 15, 16, 21, 32, 63, 126, 127, 192, 224, 225, 1000 }) {
+					final LongBigList symbols = LongArrayBitVector.getInstance().asLongBigList(width);
+					for(long i = 0; i < length; i++) symbols.add(c);
+					assertAll(symbols, width, new SymbolRank(symbols, width));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(int width = 2; width <= 4; width++) {
+			for(final long length : new long[] { 1000, 100000, 300000 }) {
+				final LongBigList symbols = LongArrayBitVector.getInstance().asLongBigList(width);
+				// Skewed distribution, so that some counts cross superblocks unevenly
+				for(long i = 0; i < length; i++) symbols.add(r.nextInt(4) == 0 ? r.nextInt(1 << width) : 1);
+				SymbolRank s = new SymbolRank(symbols, width);
+				assertAll(symbols, width, s);
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				BinIO.storeObject(s, temp);
+				s = (SymbolRank)BinIO.loadObject(temp);
+				assertAll(symbols, width, s);
+			}
+		}
+	}
+
+	@Test
+	public void testParallel() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(int width = 2; width <= 4; width++) {
+			final LongBigList symbols = LongArrayBitVector.getInstance().asLongBigList(width);
+			for(long i = 0; i < 2000000; i++) symbols.add(r.nextInt(1 << width));
+			final SymbolRank sequential = new SymbolRank(symbols, width), parallel = new SymbolRank(symbols, width, true);
+			for(int t = 0; t < 100000; t++) {
+				final long pos = (r.nextLong() >>> 1) % (symbols.size64() + 1);
+				final int c = r.nextInt(1 << width);
+				assertEquals(sequential.rank(c, pos), parallel.rank(c, pos));
+			}
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testUnsupportedWidth() {
+		new SymbolRank(LongArrayBitVector.getInstance().asLongBigList(5), 5);
+	}
+}
@@ -105,4 +105,29 @@ public class HashesTest {
 			}
 		}
 	}
+
+	@Test
+	public void testSpooky4IncrementalPreprocessing() {
+		final Random r = new XoRoShiRo128PlusRandom(1);
+		long[] state = null;
+		LongArrayBitVector prev = LongArrayBitVector.getInstance();
+		for (int t = 0; t < 1000; t++) {
+			// Keep a random prefix of the previous vector and append random bits
+			final LongArrayBitVector bv = prev.copy();
+			bv.length(prev.length() == 0 ? 0 : r.nextInt((int)prev.length()));
+			final int extra = r.nextInt(1200);
+			for (int i = 0; i < extra; i++) bv.add(r.nextBoolean());
+			state = Hashes.preprocessSpooky4(bv, 0, state, bv.longestCommonPrefixLength(prev));
+			final long[] expected = Hashes.preprocessSpooky4(bv, 0);
+			if (expected != null) for (int i = 0; i < 4 * ((bv.length() + 2 * Long.SIZE) / (4 * Long.SIZE)); i++) assertEquals("Vector " + t + ", state word " + i, expected[i], state[i]);
+			for (int i = 0; i < bv.length(); i += 17) {
+				final long[] h = new long[4];
+				Hashes.spooky4(bv, i, 0, state, h);
+				final long[] k = new long[4];
+				Hashes.spooky4(bv.subVector(0, i), 0, k);
+				assertArrayEquals("Prefix length " + i, k, h);
+			}
+			prev = bv;
+		}
+	}
 }
@@ -1,5 +1,6 @@
 package it.unimi.dsi.sux4j.mph;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.File;
@@ -14,6 +15,7 @@ import it.unimi.dsi.bits.LongArrayBitVector;
 import it.unimi.dsi.bits.TransformationStrategies;
 import it.unimi.dsi.fastutil.io.BinIO;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
 
 public class HollowTrieMonotoneMinimalPerfectHashFunctionTest {
@@ -116,4 +118,57 @@ public class HollowTrieMonotoneMinimalPerfectHashFunctionTest {
 		assertEquals(n, hollowTrie.size64());
 
 	}
+
+	@Test
+	public void testBatch() {
+		final Random r = new XoRoShiRo128PlusRandom(0);
+		final int n = 1000;
+		final ObjectOpenHashSet<String> set = new ObjectOpenHashSet<>();
+		while (set.size() < 2 * n) set.add(Integer.toBinaryString(r.nextInt(1 << 16)) + Integer.toBinaryString(r.nextInt(1 << 8)));
+		final String[] all = set.toArray(new String[0]);
+		Arrays.sort(all);
+		// Keys are the elements in even position
+		final String[] s = new String[n];
+		for (int i = 0; i < n; i++) s[i] = all[2 * i];
+
+		final HollowTrieMonotoneMinimalPerfectHashFunction<String> hollowTrie = new HollowTrieMonotoneMinimalPerfectHashFunction<>(Arrays.asList(s), TransformationStrategies.prefixFreeIso());
+
+		final long[] out = new long[n];
+		assertEquals(n, hollowTrie.getLongs(Arrays.asList(s).iterator(), out));
+		for (int i = 0; i < n; i++) assertEquals(i, out[i]);
+
+		final long[] allOut = new long[all.length];
+		assertEquals(all.length, hollowTrie.getLongs(Arrays.asList(all).iterator(), allOut));
+		for (int i = 0; i < all.length; i++) assertEquals(hollowTrie.getLong(all[i]), allOut[i]);
+
+		// Partial batches
+		final long[] small = new long[10];
+		assertEquals(10, hollowTrie.getLongs(Arrays.asList(s).iterator(), small));
+		for (int i = 0; i < 10; i++) assertEquals(i, small[i]);
+	}
+
+	@Test
+	public void testPrefixRange() {
+		final Random r = new XoRoShiRo128PlusRandom(0);
+		for (final int n : new int[] { 0, 1, 2, 10, 1000 }) {
+			final ObjectOpenHashSet<String> set = new ObjectOpenHashSet<>();
+			while (set.size() < n) set.add(Integer.toString(r.nextInt(1 << 12), 4) + Integer.toString(r.nextInt(1 << 6), 4));
+			final String[] s = set.toArray(new String[0]);
+			Arrays.sort(s);
+
+			final HollowTrieMonotoneMinimalPerfectHashFunction<String> hollowTrie = new HollowTrieMonotoneMinimalPerfectHashFunction<>(Arrays.asList(s), TransformationStrategies.prefixFreeIso());
+			assertArrayEquals(new long[] { 0, n }, hollowTrie.prefixRange(LongArrayBitVector.getInstance()));
+
+			for (int i = 0; i < n; i++) {
+				final BitVector key = TransformationStrategies.iso().toBitVector(s[i]);
+				for (long l = 0; l <= key.length(); l++) {
+					final BitVector prefix = key.subVector(0, l);
+					int from = i, to = i + 1;
+					while (from > 0 && TransformationStrategies.prefixFreeIso().toBitVector(s[from - 1]).longestCommonPrefixLength(prefix) == l) from--;
+					while (to < n && TransformationStrategies.prefixFreeIso().toBitVector(s[to]).longestCommonPrefixLength(prefix) == l) to++;
+					assertArrayEquals(s[i] + " " + prefix, new long[] { from, to }, hollowTrie.prefixRange(prefix));
+				}
+			}
+		}
+	}
 }
@@ -22,6 +22,20 @@ public class LcpMonotoneMinimalPerfectHashFunctionTest {
 	private void check(String[] s, int size, LcpMonotoneMinimalPerfectHashFunction<String> mph, int signatureWidth) {
 		for (int i = s.length; i-- != 0;) assertEquals(i, mph.getLong(s[i]));
 
+		// Batch computation on the sorted keys and on a mix of keys and non-keys
+		final long[] out = new long[s.length];
+		assertEquals(s.length, mph.getLongs(Arrays.asList(s).iterator(), out));
+		for (int i = s.length; i-- != 0;) assertEquals(i, out[i]);
+		final String[] t = new String[2 * size];
+		for (int i = size; i-- != 0;) {
+			t[2 * i] = binary(i);
+			t[2 * i + 1] = binary(i + size);
+		}
+		Arrays.sort(t);
+		final long[] tOut = new long[t.length];
+		assertEquals(t.length, mph.getLongs(Arrays.asList(t).iterator(), tOut));
+		for (int i = t.length; i-- != 0;) assertEquals(mph.getLong(t[i]), tOut[i]);
+
 		// Exercise code for negative results
 		if (signatureWidth == 0) for (int i = size; i-- != 0;) mph.getLong(binary(i + size));
 		else for (int i = size; i-- != 0;) assertEquals(-1, mph.getLong(binary(i + size)));
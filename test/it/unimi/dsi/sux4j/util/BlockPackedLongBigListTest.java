@@ -0,0 +1,72 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class BlockPackedLongBigListTest {
+
+	private static void check(final long[] s, final BlockPackedLongBigList list, final XoRoShiRo128PlusRandom random) {
+		assertEquals(s.length, list.size64());
+		for (int i = 0; i < s.length; i++) assertEquals(Integer.toString(i), s[i], list.getLong(i));
+		for (int k = 0; k < 100 && s.length > 0; k++) {
+			final int index = random.nextInt(s.length);
+			final int length = Math.min(s.length - index, random.nextInt(500));
+			final int offset = random.nextInt(10);
+			final long[] dest = list.get(index, new long[offset + length], offset, length);
+			for (int i = 0; i < length; i++) assertEquals(s[index + i], dest[offset + i]);
+		}
+		EliasFanoMonotoneLongBigListTest.checkListIterator(s, list::listIterator, random);
+
+		final BlockPackedLongBigList.BlockPackedLongBigListIterator i = list.listIterator(0);
+		final long[] dest = new long[400];
+		for (int p = 0; p < s.length;) {
+			final int offset = random.nextInt(10);
+			final int n = i.next(dest, offset, random.nextInt(300));
+			for (int j = 0; j < n; j++) assertEquals(s[p + j], dest[offset + j]);
+			p += n;
+		}
+		assertEquals(0, i.next(dest));
+	}
+
+	@Test
+	public void testSmall() {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		for (final long[] s : new long[][] { {}, { 0 }, { 0, 0, 0 }, { 1 }, { 4, 3, 2 }, { -1, 0, Long.MAX_VALUE, Long.MIN_VALUE, 1 } })
+			check(s, new BlockPackedLongBigList(LongArrayList.wrap(s)), random);
+	}
+
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		for (final int size : new int[] { 127, 128, 129, 10000 }) {
+			for (int type = 0; type < 4; type++) {
+				final long[] s = new long[size];
+				for (int i = s.length; i-- != 0;) {
+					switch(type) {
+					case 0: s[i] = random.nextLong(); break;
+					case 1: s[i] = 1000000 + random.nextInt(100); break;
+					// Small values with a few exceptions
+					case 2: s[i] = random.nextInt(100) == 0 ? random.nextLong() >>> random.nextInt(64) : random.nextInt(16); break;
+					default: s[i] = -random.nextInt(1000); break;
+					}
+				}
+				BlockPackedLongBigList list = new BlockPackedLongBigList(LongArrayList.wrap(s));
+				check(s, list, random);
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				BinIO.storeObject(list, temp);
+				list = (BlockPackedLongBigList)BinIO.loadObject(temp);
+				check(s, list, random);
+			}
+		}
+	}
+}
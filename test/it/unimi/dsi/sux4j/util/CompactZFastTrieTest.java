@@ -0,0 +1,105 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.bits.TransformationStrategies;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class CompactZFastTrieTest {
+
+	private static <T> void check(final ZFastTrie<T> zft, final CompactZFastTrie<T> czft, final T[] queries) {
+		assertEquals(zft.size(), czft.size());
+		for (final T q : queries) {
+			assertEquals(q.toString(), zft.contains(q), czft.contains(q));
+			assertEquals(q.toString(), zft.pred(q), czft.pred(q));
+			assertEquals(q.toString(), zft.succ(q), czft.succ(q));
+		}
+		assertEquals(zft.first(), czft.first());
+		assertEquals(zft.last(), czft.last());
+
+		final ObjectBidirectionalIterator<T> i = zft.iterator(), j = czft.iterator();
+		while (i.hasNext()) assertEquals(i.next(), j.next());
+		assertFalse(j.hasNext());
+		while (i.hasPrevious()) assertEquals(i.previous(), j.previous());
+		assertFalse(j.hasPrevious());
+	}
+
+	@Test
+	public void testEmpty() {
+		final CompactZFastTrie<String> czft = new CompactZFastTrie<>(TransformationStrategies.prefixFreeIso());
+		assertFalse(czft.contains(""));
+		assertFalse(czft.remove(""));
+		assertFalse(czft.iterator().hasNext());
+		assertTrue(czft.add(""));
+		assertTrue(czft.contains(""));
+		assertFalse(czft.add(""));
+		assertTrue(czft.remove(""));
+		assertEquals(0, czft.size());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final LongArrayBitVector[] queries = new LongArrayBitVector[1000];
+		for (int i = queries.length; i-- != 0;) {
+			queries[i] = LongArrayBitVector.getInstance();
+			for (int j = r.nextInt(30) + 1; j-- != 0;) queries[i].add(r.nextBoolean());
+		}
+
+		final ZFastTrie<LongArrayBitVector> zft = new ZFastTrie<>(TransformationStrategies.prefixFree());
+		CompactZFastTrie<LongArrayBitVector> czft = new CompactZFastTrie<>(TransformationStrategies.prefixFree());
+
+		for (int i = 0; i < 20000; i++) {
+			final LongArrayBitVector v = queries[r.nextInt(queries.length)];
+			if (r.nextInt(3) == 0) assertEquals(zft.remove(v), czft.remove(v));
+			else assertEquals(zft.add(v), czft.add(v));
+			if (i % 1000 == 0) check(zft, czft, queries);
+		}
+		check(zft, czft, queries);
+
+		final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+		temp.deleteOnExit();
+		BinIO.storeObject(czft, temp);
+		czft = (CompactZFastTrie<LongArrayBitVector>)BinIO.loadObject(temp);
+		check(zft, czft, queries);
+
+		for (final LongArrayBitVector v : queries) assertEquals(zft.remove(v), czft.remove(v));
+		assertEquals(0, czft.size());
+		check(zft, czft, queries);
+	}
+
+	@Test
+	public void testNumbers() {
+		for (int d = 10; d < 100000; d *= 10) {
+			final String[] s = new String[d];
+			for (int i = s.length; i-- != 0;) s[i] = ZFastTrieTest.binary(i);
+			Collections.shuffle(Arrays.asList(s), new XoRoShiRo128PlusRandom(0));
+			final CompactZFastTrie<String> czft = new CompactZFastTrie<>(Arrays.asList(s), TransformationStrategies.prefixFreeIso());
+			for (int i = s.length; i-- != 0;) assertTrue(s[i], czft.contains(s[i]));
+			for (int i = 1000; i-- != 0;) assertFalse(czft.contains(ZFastTrieTest.binary(i * i + d)));
+
+			Arrays.sort(s);
+			int p = 0;
+			for (final ObjectBidirectionalIterator<String> iterator = czft.iterator(); iterator.hasNext();) assertEquals(s[p++], iterator.next());
+			for (int i = 0; i < s.length; i += 7) assertEquals(s[i], czft.succ(s[i]));
+
+			for (int i = s.length; i-- != 0;) {
+				assertTrue(czft.remove(s[i]));
+				assertFalse(czft.contains(s[i]));
+			}
+		}
+	}
+}
@@ -0,0 +1,131 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.bits.TransformationStrategies;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.objects.ObjectBidirectionalIterator;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class ConcurrentZFastTrieTest {
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testSequential() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final int size : new int[] { 0, 1, 2, 10, 100, 1000 }) {
+			final LongArrayBitVector[] v = new LongArrayBitVector[size];
+			for(int i = 0; i < size; i++) {
+				v[i] = LongArrayBitVector.getInstance();
+				for(int j = r.nextInt(40) + 1; j-- != 0;) v[i].add(r.nextBoolean());
+			}
+
+			final ZFastTrie<LongArrayBitVector> zft = new ZFastTrie<>(TransformationStrategies.prefixFree());
+			ConcurrentZFastTrie<LongArrayBitVector> czft = new ConcurrentZFastTrie<>(TransformationStrategies.prefixFree());
+			for(final LongArrayBitVector bv : v) assertEquals(zft.add(bv), czft.add(bv));
+			assertEquals(zft.size(), czft.size());
+
+			final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+			temp.deleteOnExit();
+			BinIO.storeObject(czft, temp);
+			czft = (ConcurrentZFastTrie<LongArrayBitVector>)BinIO.loadObject(temp);
+
+			for(final LongArrayBitVector bv : v) assertTrue(czft.contains(bv));
+			for(int i = 0; i < 1000; i++) {
+				final LongArrayBitVector bv = LongArrayBitVector.getInstance();
+				for(int j = r.nextInt(40) + 1; j-- != 0;) bv.add(r.nextBoolean());
+				assertEquals(zft.contains(bv), czft.contains(bv));
+				assertEquals(zft.pred(bv), czft.pred(bv));
+				assertEquals(zft.succ(bv), czft.succ(bv));
+			}
+			assertEquals(zft.first(), czft.first());
+			assertEquals(zft.last(), czft.last());
+
+			ObjectBidirectionalIterator<LongArrayBitVector> i = zft.iterator(), j = czft.iterator();
+			while(i.hasNext()) assertEquals(i.next(), j.next());
+			assertFalse(j.hasNext());
+			while(i.hasPrevious()) assertEquals(i.previous(), j.previous());
+			assertFalse(j.hasPrevious());
+
+			if (size > 0) {
+				i = zft.iterator(v[0]);
+				j = czft.iterator(v[0]);
+				while(i.hasNext()) assertEquals(i.next(), j.next());
+				assertFalse(j.hasNext());
+			}
+
+			for(final LongArrayBitVector bv : v) {
+				assertEquals(zft.remove(bv), czft.remove(bv));
+				assertFalse(czft.contains(bv));
+			}
+			assertEquals(0, czft.size());
+		}
+	}
+
+	@Test
+	public void testConcurrent() throws InterruptedException {
+		final int n = 10000;
+		final String[] s = new String[n];
+		for(int i = 0; i < n; i++) s[i] = ZFastTrieTest.binary(i);
+		final ConcurrentZFastTrie<String> czft = new ConcurrentZFastTrie<>(TransformationStrategies.prefixFreeIso());
+		for(int i = 0; i < n; i++) czft.add(s[i]);
+
+		final AtomicBoolean stop = new AtomicBoolean();
+		final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+		// The writer removes and adds back odd keys, whereas readers check even keys
+		final Thread writer = new Thread(() -> {
+			final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+			try {
+				while(! stop.get()) {
+					final String k = s[r.nextInt(n / 2) * 2 + 1];
+					assertTrue(czft.remove(k));
+					assertFalse(czft.remove(k));
+					assertTrue(czft.add(k));
+				}
+			}
+			catch(final Throwable t) {
+				failure.compareAndSet(null, t);
+			}
+		});
+
+		final Thread[] reader = new Thread[4];
+		for(int t = reader.length; t-- != 0;) {
+			final long seed = t;
+			reader[t] = new Thread(() -> {
+				final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(seed);
+				try {
+					for(int i = 0; i < 200000; i++) {
+						final String k = s[r.nextInt(n / 2) * 2];
+						assertTrue(k, czft.contains(k));
+						assertEquals(k, czft.succ(k));
+						assertEquals(s[0], czft.first());
+					}
+				}
+				catch(final Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+		}
+
+		writer.start();
+		for(final Thread t : reader) t.start();
+		for(final Thread t : reader) t.join();
+		stop.set(true);
+		writer.join();
+
+		if (failure.get() != null) throw new AssertionError(failure.get());
+		assertEquals(n, czft.size());
+		for(int i = 0; i < n; i++) assertTrue(czft.contains(s[i]));
+	}
+}
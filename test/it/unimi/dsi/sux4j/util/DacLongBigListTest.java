@@ -0,0 +1,69 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class DacLongBigListTest {
+
+	private static void check(final long[] s, final DacLongBigList dac) {
+		assertEquals(s.length, dac.size64());
+		for (int i = 0; i < s.length; i++) assertEquals(Integer.toString(i), s[i], dac.getLong(i));
+	}
+
+	@Test
+	public void testSmall() {
+		for (final long[] s : new long[][] { {}, { 0 }, { 0, 0, 0 }, { 1 }, { 0, 1, 0 }, { 4, 3, 2 }, { 128, 2000, 50000000, 200, 10 }, { -1, 0, Long.MAX_VALUE, Long.MIN_VALUE, 1 } }) {
+			check(s, new DacLongBigList(LongArrayList.wrap(s)));
+			check(s, new DacLongBigList(LongArrayList.wrap(s), 1));
+			check(s, new DacLongBigList(LongArrayList.wrap(s), 2));
+		}
+	}
+
+	@Test
+	public void testPowerLaw() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		final long[] s = new long[100000];
+		for (int i = s.length; i-- != 0;) s[i] = (long)(1 / Math.pow(1 - random.nextDouble(), 1.5)) - 1;
+		for (final int maxLevels : new int[] { 1, 2, 3, DacLongBigList.DEFAULT_MAX_LEVELS }) {
+			DacLongBigList dac = new DacLongBigList(LongArrayList.wrap(s), maxLevels);
+			assertTrue(dac.levels() <= maxLevels);
+			check(s, dac);
+			EliasFanoMonotoneLongBigListTest.checkListIterator(s, dac::listIterator, random);
+
+			final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+			temp.deleteOnExit();
+			BinIO.storeObject(dac, temp);
+			dac = (DacLongBigList)BinIO.loadObject(temp);
+			check(s, dac);
+		}
+		// A power-law distribution should be more compact than a two-level scheme
+		assertTrue(new DacLongBigList(LongArrayList.wrap(s)).numBits() < new TwoSizesLongBigList(LongArrayList.wrap(s)).numBits());
+	}
+
+	@Test
+	public void testOptimalWidths() {
+		final long[] count = new long[Long.SIZE + 1];
+		assertArrayEquals(new int[] { 0 }, DacLongBigList.optimalWidths(count, 10));
+		count[3] = 10;
+		assertArrayEquals(new int[] { 3 }, DacLongBigList.optimalWidths(count, 10));
+		// Many small values and a few very large ones: two levels
+		count[1] = 1000000;
+		count[3] = 0;
+		count[64] = 1;
+		final int[] w = DacLongBigList.optimalWidths(count, 10);
+		assertEquals(2, w.length);
+		assertEquals(1, w[0]);
+		assertEquals(63, w[1]);
+		assertArrayEquals(new int[] { 64 }, DacLongBigList.optimalWidths(count, 1));
+	}
+}
@@ -0,0 +1,88 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongIterator;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class EliasFanoIndexedMonotoneLongBigListTest {
+
+	private static long[] random(final XoRoShiRo128PlusRandom r, final int n, final long bound) {
+		final long[] a = new long[n];
+		for (int i = n; i-- != 0;) a[i] = Math.abs(r.nextLong() % bound);
+		Arrays.sort(a);
+		return a;
+	}
+
+	@Test
+	public void testNextGEQ() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for (final int n : new int[] { 0, 1, 10, 1000, 100000 }) {
+			for (final long bound : new long[] { 10, 1000, 1L << 20, 1L << 50 }) {
+				final long[] a = random(r, n, bound);
+				final EliasFanoIndexedMonotoneLongBigList l = new EliasFanoIndexedMonotoneLongBigList(LongArrayList.wrap(a));
+				for (int i = 0; i < n; i++) assertEquals(a[i], l.getLong(i));
+
+				// Plain iteration
+				EliasFanoIndexedMonotoneLongBigList.SkippingIterator i = l.skippingIterator();
+				for (final long x : a) assertEquals(x, i.nextLong());
+				assertFalse(i.hasNext());
+
+				// Skips of random length interleaved with iteration
+				i = l.skippingIterator();
+				int p = 0;
+				long lowerBound = 0;
+				for (;;) {
+					lowerBound += Math.abs(r.nextLong() % (2 * bound / Math.max(1, n) + 2));
+					while (p < n && a[p] < lowerBound) p++;
+					final long x = i.nextGEQ(lowerBound);
+					if (p == n) {
+						assertEquals(-1, x);
+						assertFalse(i.hasNext());
+						break;
+					}
+					assertEquals(a[p++], x);
+					assertEquals(p, i.index());
+					if (r.nextBoolean() && p < n) {
+						assertEquals(a[p++], i.nextLong());
+						lowerBound = a[p - 1];
+					}
+				}
+
+				// Bounds beyond the last element
+				assertEquals(-1, l.skippingIterator().nextGEQ(bound + 1));
+				assertEquals(-1, l.skippingIterator().nextGEQ(Long.MAX_VALUE));
+				if (n != 0) assertEquals(a[0], l.skippingIterator().nextGEQ(-5));
+			}
+		}
+	}
+
+	@Test
+	public void testIntersection() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for (final int k : new int[] { 1, 2, 3, 5 }) {
+			final EliasFanoIndexedMonotoneLongBigList[] lists = new EliasFanoIndexedMonotoneLongBigList[k];
+			LongOpenHashSet common = null;
+			for (int j = 0; j < k; j++) {
+				final long[] a = random(r, 1000 + r.nextInt(100000), 200000);
+				lists[j] = new EliasFanoIndexedMonotoneLongBigList(LongArrayList.wrap(a));
+				final LongOpenHashSet s = new LongOpenHashSet(a);
+				if (common == null) common = s;
+				else common.retainAll(s);
+			}
+			final long[] expected = common.toLongArray();
+			Arrays.sort(expected);
+
+			final LongIterator i = EliasFanoIndexedMonotoneLongBigList.intersection(lists);
+			for (final long x : expected) assertEquals(x, i.nextLong());
+			assertFalse(i.hasNext());
+		}
+	}
+}
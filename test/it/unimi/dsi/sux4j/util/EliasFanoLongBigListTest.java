@@ -54,4 +54,26 @@ public class EliasFanoLongBigListTest {
 			}
 		}
 	}
+
+	@Test
+	public void testIterator() {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		for(final int base: new int[] { 0, 1, 10 }) {
+			final long[] s = new long[10000];
+			for(int i = s.length; i-- != 0;) s[i] = (random.nextLong() >>> 2 + random.nextInt(62)) + base;
+			final EliasFanoLongBigList ef = new EliasFanoLongBigList(LongIterators.wrap(s));
+			EliasFanoMonotoneLongBigListTest.checkListIterator(s, ef::listIterator, random);
+
+			final EliasFanoLongBigList.EliasFanoLongBigListIterator i = ef.listIterator(0);
+			final long[] dest = new long[110];
+			for(int p = 0; p < s.length;) {
+				final int offset = random.nextInt(10);
+				final int n = i.next(dest, offset, random.nextInt(100));
+				for(int j = 0; j < n; j++) assertEquals(s[p + j], dest[offset + j]);
+				p += n;
+				if (random.nextInt(10) == 0 && p < s.length) assertEquals(s[p++], i.nextLong());
+			}
+			assertEquals(0, i.next(dest));
+		}
+	}
 }
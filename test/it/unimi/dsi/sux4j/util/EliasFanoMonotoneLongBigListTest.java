@@ -1,12 +1,16 @@
 package it.unimi.dsi.sux4j.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.util.function.LongFunction;
 
 import org.junit.Test;
 
 import it.unimi.dsi.Util;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongBigArrayBigList;
+import it.unimi.dsi.fastutil.longs.LongBigListIterator;
 import it.unimi.dsi.sux4j.scratch.EliasFanoMonotoneLongBigListTables;
 import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
 
@@ -96,4 +100,62 @@ public class EliasFanoMonotoneLongBigListTest {
 			}
 		}
 	}
+
+	/** Checks the list iterators of a list against an array, using a random walk with skips. */
+	static void checkListIterator(final long[] s, final LongFunction<LongBigListIterator> listIterator, final XoRoShiRo128PlusRandom random) {
+		LongBigListIterator i = listIterator.apply(0);
+		for (final long x : s) assertEquals(x, i.nextLong());
+		assertFalse(i.hasNext());
+		for (int j = s.length; j-- != 0;) assertEquals(s[j], i.previousLong());
+		assertFalse(i.hasPrevious());
+
+		for (int t = 0; t < 100; t++) {
+			int p = random.nextInt(s.length + 1);
+			i = listIterator.apply(p);
+			for (int k = 0; k < 100; k++) {
+				assertEquals(p, i.nextIndex());
+				switch (random.nextInt(4)) {
+				case 0:
+					if (p < s.length) assertEquals(s[p++], i.nextLong());
+					break;
+				case 1:
+					if (p > 0) assertEquals(s[--p], i.previousLong());
+					break;
+				case 2:
+					final long n = random.nextInt(1000);
+					assertEquals(Math.min(n, s.length - p), i.skip(n));
+					p += Math.min(n, s.length - p);
+					break;
+				default:
+					final long b = random.nextInt(1000);
+					assertEquals(Math.min(b, p), i.back(b));
+					p -= Math.min(b, p);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testIterator() {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		for(final int base: new int[] { 0, 1, 10 }) {
+			for(final int jump : new int[] { 1, 10, 100 }) {
+				final long[] s = new long[10000];
+				for(int i = 1; i < s.length; i++) s[i] = s[i - 1] + random.nextInt(jump) + base;
+				final EliasFanoMonotoneLongBigList ef = new EliasFanoMonotoneLongBigList(LongArrayList.wrap(s));
+				checkListIterator(s, ef::listIterator, random);
+
+				final EliasFanoMonotoneLongBigList.EliasFanoMonotoneLongBigListIterator i = ef.listIterator(0);
+				final long[] dest = new long[110];
+				for(int p = 0; p < s.length;) {
+					final int offset = random.nextInt(10);
+					final int n = i.next(dest, offset, random.nextInt(100));
+					for(int j = 0; j < n; j++) assertEquals(s[p + j], dest[offset + j]);
+					p += n;
+					if (random.nextInt(10) == 0 && p < s.length) assertEquals(s[p++], i.nextLong());
+				}
+				assertEquals(0, i.next(dest));
+			}
+		}
+	}
 }
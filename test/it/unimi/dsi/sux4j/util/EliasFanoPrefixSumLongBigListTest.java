@@ -1,7 +1,12 @@
 package it.unimi.dsi.sux4j.util;
 
 import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.longs.LongBigArrayBigList;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
 
 import org.junit.Test;
 
@@ -26,4 +31,58 @@ public class EliasFanoPrefixSumLongBigListTest {
 		l = new LongBigArrayBigList(new long[][] { { 128, 2000, 50000000, 200, 10 } });
 		assertEquals(l, new EliasFanoPrefixSumLongBigList(l));
 	}
+
+	@Test
+	public void testIterator() {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		final long[] s = new long[10000];
+		for(int i = s.length; i-- != 0;) s[i] = random.nextInt(1000);
+		final EliasFanoPrefixSumLongBigList ef = new EliasFanoPrefixSumLongBigList(LongArrayList.wrap(s));
+		EliasFanoMonotoneLongBigListTest.checkListIterator(s, ef::listIterator, random);
+
+		final EliasFanoPrefixSumLongBigList.EliasFanoPrefixSumLongBigListIterator i = ef.listIterator(0);
+		final long[] dest = new long[110];
+		for(int p = 0; p < s.length;) {
+			final int offset = random.nextInt(10);
+			final int n = i.next(dest, offset, random.nextInt(100));
+			for(int j = 0; j < n; j++) assertEquals(s[p + j], dest[offset + j]);
+			p += n;
+			if (random.nextInt(10) == 0 && p < s.length) assertEquals(s[p++], i.nextLong());
+		}
+		assertEquals(0, i.next(dest));
+	}
+
+	private static long rankOfSum(final long[] s, final long sum) {
+		if (sum < 0) return -1;
+		long prefixSum = 0;
+		for(int i = 0; i < s.length; i++) {
+			prefixSum += s[i];
+			if (sum < prefixSum) return i;
+		}
+		return -1;
+	}
+
+	@Test
+	public void testRankOfSum() {
+		final XoRoShiRo128PlusRandom random = new XoRoShiRo128PlusRandom(0);
+		for(final int size : new int[] { 0, 1, 10, 1000 }) {
+			// Mostly zeroes, small and large values, to test empty intervals and large buckets
+			for(final int max : new int[] { 1, 2, 10, 1000, 1000000 }) {
+				final long[] s = new long[size];
+				for(int i = s.length; i-- != 0;) s[i] = random.nextInt(4) == 0 ? 0 : random.nextInt(max);
+				final EliasFanoPrefixSumLongBigList ef = new EliasFanoPrefixSumLongBigList(LongArrayList.wrap(s));
+				final long total = ef.prefixSum(size);
+				final long[] sum = new long[1000];
+				for(int i = sum.length; i-- != 0;) sum[i] = random.nextLong(total + 20) - 10;
+				for(final long x : sum) assertEquals(Long.toString(x), rankOfSum(s, x), ef.rankOfSum(x));
+				for(long x = 0; x < Math.min(total, 10000); x++) assertEquals(Long.toString(x), rankOfSum(s, x), ef.rankOfSum(x));
+
+				final long[] dest = ef.rankOfSum(sum, new long[sum.length]);
+				for(int i = 0; i < sum.length; i++) assertEquals(rankOfSum(s, sum[i]), dest[i]);
+				Arrays.sort(sum);
+				ef.rankOfSum(sum, dest, 10, sum.length - 20);
+				for(int i = 10; i < sum.length - 10; i++) assertEquals(Long.toString(sum[i]), rankOfSum(s, sum[i]), dest[i]);
+			}
+		}
+	}
 }
@@ -0,0 +1,126 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongBidirectionalIterator;
+import it.unimi.dsi.fastutil.longs.LongRBTreeSet;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class LongYFastTrieTest {
+
+	private static void check(final LongRBTreeSet s, final LongYFastTrie t, final long[] queries) {
+		assertEquals(s.size(), t.size());
+		for (final long q : queries) {
+			assertEquals(Long.toString(q), s.contains(q), t.contains(q));
+			final LongBidirectionalIterator i = s.iterator(q);
+			final long succ = s.contains(q) ? q : i.hasNext() ? i.nextLong() : t.defaultReturnValue();
+			assertEquals(Long.toString(q), succ, t.succ(q));
+			final LongBidirectionalIterator j = s.iterator(q);
+			if (s.contains(q)) j.previousLong();
+			assertEquals(Long.toString(q), j.hasPrevious() ? j.previousLong() : t.defaultReturnValue(), t.pred(q));
+		}
+		if (! s.isEmpty()) {
+			assertEquals(s.firstLong(), t.firstLong());
+			assertEquals(s.lastLong(), t.lastLong());
+		}
+
+		final LongBidirectionalIterator i = s.iterator(), j = t.iterator();
+		while (i.hasNext()) assertEquals(i.nextLong(), j.nextLong());
+		assertFalse(j.hasNext());
+		while (i.hasPrevious()) assertEquals(i.previousLong(), j.previousLong());
+		assertFalse(j.hasPrevious());
+
+		for (int k = 0; k < queries.length; k += 10) {
+			final LongBidirectionalIterator a = s.iterator(queries[k]), b = t.iterator(queries[k]);
+			for (int h = 0; h < 5 && a.hasNext(); h++) assertEquals(a.nextLong(), b.nextLong());
+			for (int h = 0; h < 10 && a.hasPrevious(); h++) assertEquals(a.previousLong(), b.previousLong());
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		final LongYFastTrie t = new LongYFastTrie();
+		assertFalse(t.contains(0));
+		assertFalse(t.remove(0));
+		assertFalse(t.iterator().hasNext());
+		assertEquals(Long.MIN_VALUE, t.succ(0));
+		assertEquals(Long.MIN_VALUE, t.pred(0));
+		t.defaultReturnValue(-1);
+		assertEquals(-1, t.succ(0));
+		assertTrue(t.add(0));
+		assertTrue(t.contains(0));
+		assertFalse(t.add(0));
+		assertEquals(0, t.succ(0));
+		assertEquals(-1, t.pred(0));
+		assertTrue(t.remove(0));
+		assertEquals(0, t.size());
+	}
+
+	@Test
+	public void testExtremes() {
+		final LongYFastTrie t = new LongYFastTrie();
+		final LongRBTreeSet s = new LongRBTreeSet();
+		final long[] queries = new long[1000];
+		for (int i = 0; i < 500; i++) {
+			queries[2 * i] = Long.MIN_VALUE + i;
+			queries[2 * i + 1] = Long.MAX_VALUE - i;
+		}
+		for (final long q : queries) assertEquals(s.add(q), t.add(q));
+		check(s, t, queries);
+		for (int i = 0; i < queries.length; i += 3) assertEquals(s.remove(queries[i]), t.remove(queries[i]));
+		check(s, t, queries);
+	}
+
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for (final int bits : new int[] { 8, 16, 64 }) {
+			final long[] queries = new long[2000];
+			for (int i = queries.length; i-- != 0;) queries[i] = bits == 64 ? r.nextLong() : r.nextLong() >> 64 - bits;
+
+			final LongRBTreeSet s = new LongRBTreeSet();
+			LongYFastTrie t = new LongYFastTrie();
+
+			for (int i = 0; i < 50000; i++) {
+				final long v = queries[r.nextInt(queries.length)];
+				// Phases of mostly insertions and mostly deletions to exercise splits and merges
+				if (r.nextInt(4) == 0 ^ (i / 10000) % 2 == 1) assertEquals(s.remove(v), t.remove(v));
+				else assertEquals(s.add(v), t.add(v));
+				if (i % 5000 == 0) check(s, t, queries);
+			}
+			check(s, t, queries);
+
+			final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+			temp.deleteOnExit();
+			BinIO.storeObject(t, temp);
+			t = (LongYFastTrie)BinIO.loadObject(temp);
+			check(s, t, queries);
+
+			for (final long v : queries) assertEquals(s.remove(v), t.remove(v));
+			assertEquals(0, t.size());
+			check(s, t, queries);
+		}
+	}
+
+	@Test
+	public void testSequential() {
+		final LongYFastTrie t = new LongYFastTrie();
+		for (long i = 100000; i-- != 0;) assertTrue(t.add(i * 3));
+		for (long i = 0; i < 100000; i++) {
+			assertEquals(i * 3, t.succ(i * 3 - 1));
+			assertEquals(i * 3, t.pred(i * 3 + 1));
+		}
+		for (long i = 0; i < 100000; i += 2) assertTrue(t.remove(i * 3));
+		for (long i = 0; i < 100000; i++) assertEquals(i % 2 != 0, t.contains(i * 3));
+		for (long i = 1; i < 100000; i += 2) assertTrue(t.remove(i * 3));
+		assertEquals(0, t.size());
+	}
+}
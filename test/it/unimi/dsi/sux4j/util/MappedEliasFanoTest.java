@@ -0,0 +1,75 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.sux4j.io.MappedOutput;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class MappedEliasFanoTest {
+
+	private static void checkGet(final long[] expected, final long index, final long[] actual) {
+		for(int i = 0; i < actual.length; i++) assertEquals(expected[(int)index + i], actual[i]);
+	}
+
+	@Test
+	public void testMonotone() throws IOException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final int size : new int[] { 0, 1, 10, 1000, 100000 }) {
+			for(final int gap : new int[] { 1, 10, 1000, 1 << 20 }) {
+				final long[] a = new long[size];
+				for(int i = 1; i < size; i++) a[i] = a[i - 1] + r.nextInt(gap);
+				final EliasFanoMonotoneLongBigList list = new EliasFanoMonotoneLongBigList(LongArrayList.wrap(a));
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				try (MappedOutput out = new MappedOutput(temp)) {
+					list.dump(out);
+				}
+				final MappedEliasFanoMonotoneLongBigList mapped = MappedEliasFanoMonotoneLongBigList.map(temp);
+
+				assertEquals(size, mapped.size64());
+				assertEquals(list.numBits(), mapped.numBits());
+				for(int i = 0; i < size; i++) assertEquals(a[i], mapped.getLong(i));
+				final MappedEliasFanoMonotoneLongBigList copy = mapped.copy();
+				for(int k = 0; k < 100 && size > 0; k++) {
+					final int index = r.nextInt(size);
+					final long[] dest = new long[Math.min(size - index, r.nextInt(100))];
+					checkGet(a, index, copy.get(index, dest));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testGeneral() throws IOException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final int size : new int[] { 0, 1, 10, 1000, 100000 }) {
+			final long[] a = new long[size];
+			for(int i = 0; i < size; i++) a[i] = (r.nextLong() >>> 2 + r.nextInt(62)) - 1000;
+			final EliasFanoLongBigList list = new EliasFanoLongBigList(LongArrayList.wrap(a));
+
+			final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+			temp.deleteOnExit();
+			try (MappedOutput out = new MappedOutput(temp)) {
+				list.dump(out);
+			}
+			final MappedEliasFanoLongBigList mapped = MappedEliasFanoLongBigList.map(temp);
+
+			assertEquals(size, mapped.size64());
+			assertEquals(list.numBits(), mapped.numBits());
+			for(int i = 0; i < size; i++) assertEquals(a[i], mapped.getLong(i));
+			final MappedEliasFanoLongBigList copy = mapped.copy();
+			for(int k = 0; k < 100 && size > 0; k++) {
+				final int index = r.nextInt(size);
+				final long[] dest = new long[Math.min(size - index, r.nextInt(100))];
+				checkGet(a, index, copy.get(index, dest));
+			}
+		}
+	}
+}
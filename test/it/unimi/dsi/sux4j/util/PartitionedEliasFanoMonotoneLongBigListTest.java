@@ -0,0 +1,117 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class PartitionedEliasFanoMonotoneLongBigListTest {
+
+	/** Generates a clustered sequence: runs, dense and sparse regions, and repeated elements. */
+	private static long[] clustered(final XoRoShiRo128PlusRandom r, final int n) {
+		final long[] a = new long[n];
+		long v = 0;
+		for (int i = 0; i < n;) {
+			final int len = Math.min(n - i, 1 + r.nextInt(2000));
+			final int kind = r.nextInt(5);
+			for (int j = 0; j < len; j++, i++) {
+				switch (kind) {
+				case 0: v += 1; break;
+				case 1: v += 1 + r.nextInt(3); break;
+				case 2: v += r.nextInt(2); break;
+				case 3: v += r.nextInt(1000); break;
+				default: v += r.nextInt(1 << 20);
+				}
+				a[i] = v;
+			}
+		}
+		return a;
+	}
+
+	private static void check(final long[] a, final PartitionedEliasFanoMonotoneLongBigList l, final XoRoShiRo128PlusRandom r) {
+		final int n = a.length;
+		assertEquals(n, l.size64());
+		for (int i = 0; i < n; i++) assertEquals(Integer.toString(i), a[i], l.getLong(i));
+
+		final long[] dest = new long[100];
+		for (int t = 0; t < 100 && n > dest.length; t++) {
+			final int from = r.nextInt(n - dest.length);
+			l.get(from, dest);
+			for (int i = 0; i < dest.length; i++) assertEquals(a[from + i], dest[i]);
+		}
+
+		PartitionedEliasFanoMonotoneLongBigList.SkippingIterator i = l.skippingIterator();
+		for (final long x : a) assertEquals(x, i.nextLong());
+		assertFalse(i.hasNext());
+
+		for (final long step : new long[] { 1, 10, 1000, 1 << 20, 1 << 30 }) {
+			i = l.skippingIterator();
+			int p = 0;
+			long lowerBound = 0;
+			for (;;) {
+				lowerBound += r.nextLong() >>> 1 & (step * 2 - 1);
+				while (p < n && a[p] < lowerBound) p++;
+				final long x = i.nextGEQ(lowerBound);
+				if (p == n) {
+					assertEquals(-1, x);
+					assertFalse(i.hasNext());
+					break;
+				}
+				assertEquals(a[p++], x);
+				assertEquals(p, i.index());
+				if (r.nextBoolean() && p < n) {
+					assertEquals(a[p++], i.nextLong());
+					lowerBound = a[p - 1];
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testEmpty() {
+		final PartitionedEliasFanoMonotoneLongBigList l = new PartitionedEliasFanoMonotoneLongBigList(new LongArrayList());
+		assertEquals(0, l.size64());
+		assertFalse(l.skippingIterator().hasNext());
+		assertEquals(-1, l.skippingIterator().nextGEQ(0));
+	}
+
+	@Test
+	public void testSmall() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		check(new long[] { 0 }, new PartitionedEliasFanoMonotoneLongBigList(LongArrayList.wrap(new long[] { 0 })), r);
+		check(new long[] { 0, 0, 0 }, new PartitionedEliasFanoMonotoneLongBigList(LongArrayList.wrap(new long[] { 0, 0, 0 })), r);
+		check(new long[] { 5, 6, 7, 100 }, new PartitionedEliasFanoMonotoneLongBigList(LongArrayList.wrap(new long[] { 5, 6, 7, 100 })), r);
+	}
+
+	@Test
+	public void testClustered() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for (final int n : new int[] { 10, 1000, 100000 }) {
+			final long[] a = clustered(r, n);
+			final PartitionedEliasFanoMonotoneLongBigList l = new PartitionedEliasFanoMonotoneLongBigList(LongArrayList.wrap(a));
+			check(a, l, r);
+			if (n == 100000) assertTrue(l.numBits() < new EliasFanoMonotoneLongBigList(LongArrayList.wrap(a)).numBits());
+
+			final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+			temp.deleteOnExit();
+			BinIO.storeObject(l, temp);
+			check(a, (PartitionedEliasFanoMonotoneLongBigList)BinIO.loadObject(temp), r);
+		}
+	}
+
+	@Test
+	public void testUniform() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final long[] a = new long[100000];
+		for (int i = 1; i < a.length; i++) a[i] = a[i - 1] + r.nextInt(100);
+		check(a, new PartitionedEliasFanoMonotoneLongBigList(LongArrayList.wrap(a)), r);
+	}
+}
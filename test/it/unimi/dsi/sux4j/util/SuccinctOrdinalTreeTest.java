@@ -0,0 +1,161 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.BitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.sux4j.bits.RangeMinMaxBalancedParentheses;
+import it.unimi.dsi.sux4j.bits.Rank9;
+import it.unimi.dsi.sux4j.bits.Select9;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class SuccinctOrdinalTreeTest {
+
+	private static void assertTree(final int[] parent, final SuccinctOrdinalTree tree, final XoRoShiRo128PlusRandom r) {
+		final int n = parent.length;
+		final int[] preorder = new int[n];
+		SuccinctOrdinalTree.fromParents(parent, preorder);
+		assertEquals(n, tree.numNodes());
+		assertEquals(2L * n, tree.bitVector().length());
+
+		// Maps preorder numbers to nodes, and computes the expected structure naively
+		final long[] node = new long[n];
+		for(int x = 0; x < n; x++) node[preorder[x]] = tree.preorderSelect(preorder[x]);
+		final int[] depth = new int[n], size = new int[n], firstChild = new int[n], lastChild = new int[n], nextSibling = new int[n], previousSibling = new int[n];
+		Arrays.fill(firstChild, -1);
+		Arrays.fill(lastChild, -1);
+		Arrays.fill(nextSibling, -1);
+		Arrays.fill(previousSibling, -1);
+		int lastRoot = -1;
+		for(int x = 0; x < n; x++) {
+			for(int y = x; y >= 0; y = parent[y]) {
+				size[y]++;
+				if (y != x) depth[x]++;
+			}
+			if (parent[x] < 0) {
+				if (lastRoot != -1) {
+					nextSibling[lastRoot] = x;
+					previousSibling[x] = lastRoot;
+				}
+				lastRoot = x;
+			}
+			else {
+				final int p = parent[x];
+				if (firstChild[p] == -1) firstChild[p] = x;
+				else {
+					nextSibling[lastChild[p]] = x;
+					previousSibling[x] = lastChild[p];
+				}
+				lastChild[p] = x;
+			}
+		}
+
+		for(int x = 0; x < n; x++) {
+			final long v = node[preorder[x]];
+			assertEquals(preorder[x], tree.preorderRank(v));
+			assertEquals(parent[x] < 0 ? -1 : node[preorder[parent[x]]], tree.parent(v));
+			assertEquals(firstChild[x] < 0 ? -1 : node[preorder[firstChild[x]]], tree.firstChild(v));
+			assertEquals(lastChild[x] < 0 ? -1 : node[preorder[lastChild[x]]], tree.lastChild(v));
+			assertEquals(nextSibling[x] < 0 ? -1 : node[preorder[nextSibling[x]]], tree.nextSibling(v));
+			assertEquals(previousSibling[x] < 0 ? -1 : node[preorder[previousSibling[x]]], tree.previousSibling(v));
+			assertEquals(firstChild[x] == -1, tree.isLeaf(v));
+			assertEquals(size[x], tree.subtreeSize(v));
+			assertEquals(depth[x], tree.depth(v));
+			int a = x;
+			for(int d = 0; d <= depth[x] + 1; d++) {
+				assertEquals("Level ancestor of " + x + " at distance " + d, a < 0 ? -1 : node[preorder[a]], tree.levelAncestor(v, d));
+				if (a >= 0) {
+					assertTrue(tree.isAncestor(node[preorder[a]], v));
+					a = parent[a];
+				}
+			}
+		}
+		assertEquals(-1, tree.preorderSelect(n));
+
+		for(int t = 0; t < 1000 && n > 0; t++) {
+			final int x = r.nextInt(n), y = r.nextInt(n);
+			int a = x, b = y;
+			while(a != b) {
+				if (a == -1 || b == -1) {
+					a = -1;
+					break;
+				}
+				if (depth[a] >= depth[b]) a = parent[a];
+				else b = parent[b];
+			}
+			assertEquals(a < 0 ? -1 : node[preorder[a]], tree.lca(node[preorder[x]], node[preorder[y]]));
+			if (a != x) assertFalse(tree.isAncestor(node[preorder[x]], node[preorder[y]]));
+		}
+	}
+
+	@Test
+	public void testSmall() {
+		final SuccinctOrdinalTree tree = new SuccinctOrdinalTree.Builder().open().open().close().open().open().close().close().close().build();
+		assertEquals(4, tree.numNodes());
+		assertEquals(0, tree.root());
+		assertEquals(1, tree.firstChild(0));
+		assertEquals(3, tree.nextSibling(1));
+		assertEquals(3, tree.lastChild(0));
+		assertEquals(1, tree.previousSibling(3));
+		assertEquals(0, tree.levelAncestor(4, 2));
+		assertEquals(-1, tree.levelAncestor(4, 3));
+		assertEquals(2, tree.depth(4));
+		assertEquals(2, tree.subtreeSize(3));
+		assertEquals(3, tree.preorderRank(4));
+		assertEquals(4, tree.preorderSelect(3));
+		assertEquals(0, tree.lca(1, 4));
+
+		assertEquals(-1, new SuccinctOrdinalTree.Builder().build().root());
+	}
+
+	@Test
+	public void testNumBits() {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final int n = 1000000;
+		final int[] parent = new int[n];
+		for(int x = 0; x < n; x++) parent[x] = x == 0 ? -1 : r.nextInt(x);
+		final SuccinctOrdinalTree tree = SuccinctOrdinalTree.fromParents(parent);
+		final BitVector bitVector = tree.bitVector();
+		// Select9 includes its Rank9
+		assertEquals(bitVector.length() + new RangeMinMaxBalancedParentheses(bitVector).numBits() + new Select9(new Rank9(bitVector)).numBits(), tree.numBits());
+		assertTrue(tree.numBits() < 4L * n);
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void testUnbalancedBuilder() {
+		new SuccinctOrdinalTree.Builder().open().open().close().build();
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testCycle() {
+		SuccinctOrdinalTree.fromParents(new int[] { -1, 2, 1 });
+	}
+
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for(final int n : new int[] { 1, 10, 100, 1000, 5000 }) {
+			for(final int width : new int[] { 1, 3, 100 }) {
+				// Each node picks a parent among the last width nodes; node 0, and some others, are roots
+				final int[] parent = new int[n];
+				for(int x = 0; x < n; x++) parent[x] = x == 0 || r.nextInt(50) == 0 ? -1 : x - 1 - r.nextInt(Math.min(x, width));
+				SuccinctOrdinalTree tree = SuccinctOrdinalTree.fromParents(parent);
+				assertTree(parent, tree, r);
+
+				final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+				temp.deleteOnExit();
+				BinIO.storeObject(tree, temp);
+				tree = (SuccinctOrdinalTree)BinIO.loadObject(temp);
+				assertTree(parent, tree, r);
+			}
+		}
+	}
+}
@@ -0,0 +1,133 @@
+package it.unimi.dsi.sux4j.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+import it.unimi.dsi.bits.Fast;
+import it.unimi.dsi.bits.LongArrayBitVector;
+import it.unimi.dsi.fastutil.io.BinIO;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.sux4j.bits.Rank9;
+import it.unimi.dsi.sux4j.bits.Select9;
+import it.unimi.dsi.sux4j.bits.SimpleSelectZero;
+import it.unimi.dsi.util.XoRoShiRo128PlusRandom;
+
+public class WaveletMatrixTest {
+
+	private static void check(final long[] s, final WaveletMatrix w) {
+		assertEquals(s.length, w.size64());
+		long max = 0;
+		for (final long x : s) max = Math.max(max, x);
+		for (int i = 0; i < s.length; i++) assertEquals(Integer.toString(i), s[i], w.getLong(i));
+
+		final long[] index = new long[s.length];
+		for (int i = 0; i < s.length; i++) index[i] = s.length - 1 - i;
+		final long[] dest = w.getLong(index, new long[s.length]);
+		for (int i = 0; i < s.length; i++) assertEquals(s[s.length - 1 - i], dest[i]);
+
+		// Rank and select of a few symbols, including absent ones
+		for (final long symbol : new long[] { 0, 1, max, max + 1, max / 2, s.length > 0 ? s[s.length / 2] : 0 }) {
+			long count = 0;
+			final long[] pos = new long[s.length + 1];
+			final long[] expected = new long[s.length + 1];
+			for (int i = 0; i <= s.length; i++) {
+				assertEquals("Rank of " + symbol + " at " + i, count, w.rank(symbol, i));
+				pos[i] = i;
+				expected[i] = count;
+				if (i < s.length && s[i] == symbol) assertEquals("Select of " + symbol + " rank " + count, i, w.select(symbol, count++));
+			}
+			assertEquals(-1, w.select(symbol, count));
+			assertArrayEquals(expected, w.rank(symbol, pos, new long[pos.length]));
+
+			final long[] rank = new long[(int)count + 2], selected = new long[rank.length];
+			for (int i = 0; i < rank.length; i++) rank[i] = rank.length - 2 - i;
+			for (int i = 0; i < rank.length; i++) selected[i] = w.select(symbol, rank[i]);
+			assertArrayEquals(selected, w.select(symbol, rank, new long[rank.length]));
+		}
+	}
+
+	private static void checkQuantiles(final long[] s, final WaveletMatrix w, final XoRoShiRo128PlusRandom r) {
+		for (int t = 0; t < 1000 && s.length > 0; t++) {
+			final int from = r.nextInt(s.length), to = from + 1 + r.nextInt(Math.min(100, s.length - from));
+			final long[] sorted = Arrays.copyOfRange(s, from, to);
+			Arrays.sort(sorted);
+			for (int k = 0; k < sorted.length; k++) assertEquals(sorted[k], w.quantile(from, to, k));
+		}
+	}
+
+	@Test
+	public void testSmall() {
+		for (final long[] s : new long[][] { {}, { 0 }, { 0, 0, 0 }, { 1 }, { 0, 1, 0 }, { 4, 3, 2 }, { 128, 2000, 50000000, 200, 10 }, { 0, Long.MAX_VALUE, 1 } }) {
+			check(s, new WaveletMatrix(LongArrayList.wrap(s)));
+			check(s, new WaveletMatrix(LongArrayList.wrap(s), true));
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testNegative() {
+		new WaveletMatrix(LongArrayList.wrap(new long[] { 0, -1 }));
+	}
+
+	@Test
+	public void testRandom() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for (final int sigma : new int[] { 2, 17, 256, 100000 }) {
+			final long[] s = new long[3000];
+			for (int i = s.length; i-- != 0;) s[i] = r.nextInt(sigma);
+			WaveletMatrix w = new WaveletMatrix(LongArrayList.wrap(s));
+			check(s, w);
+			checkQuantiles(s, w, r);
+
+			final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+			temp.deleteOnExit();
+			BinIO.storeObject(w, temp);
+			w = (WaveletMatrix)BinIO.loadObject(temp);
+			check(s, w);
+		}
+	}
+
+	/** Computes the expected number of bits of a wavelet matrix by building its levels and their selection structures. */
+	private static long expectedNumBits(final long[] s) {
+		long max = 0;
+		for (final long x : s) max |= x;
+		final int width = Fast.mostSignificantBit(max) + 1;
+		long[] current = s.clone();
+		long numBits = Long.SIZE * (long)width;
+		for (int j = 0; j < width; j++) {
+			final int shift = width - j - 1;
+			final LongArrayBitVector level = LongArrayBitVector.ofLength(s.length);
+			final long[] next = new long[s.length];
+			int p = 0;
+			for (int i = 0; i < s.length; i++) if ((current[i] >>> shift & 1) == 0) next[p++] = current[i];
+			else level.set(i);
+			for (int i = 0; i < s.length; i++) if ((current[i] >>> shift & 1) != 0) next[p++] = current[i];
+			current = next;
+			// Select9 includes its Rank9
+			numBits += s.length + new Select9(new Rank9(level)).numBits() + new SimpleSelectZero(level).numBits();
+		}
+		return numBits;
+	}
+
+	@Test
+	public void testParallel() {
+		// More than one chunk of elements
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final long[] s = new long[3000000];
+		for (int i = s.length; i-- != 0;) s[i] = r.nextInt(1000);
+		final WaveletMatrix sequential = new WaveletMatrix(LongArrayList.wrap(s)), parallel = new WaveletMatrix(LongArrayList.wrap(s), true);
+		assertEquals(expectedNumBits(s), sequential.numBits());
+		assertEquals(sequential.numBits(), parallel.numBits());
+		for (int i = 0; i < s.length; i += 101) {
+			assertEquals(s[i], sequential.getLong(i));
+			assertEquals(s[i], parallel.getLong(i));
+		}
+		checkQuantiles(s, parallel, r);
+		for (long symbol = 0; symbol < 1000; symbol += 37) assertEquals(sequential.rank(symbol, s.length), parallel.rank(symbol, s.length));
+	}
+}
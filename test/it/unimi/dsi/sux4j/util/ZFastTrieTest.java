@@ -8,6 +8,7 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.TreeSet;
 
 import org.apache.commons.math3.random.RandomGenerator;
 import org.junit.Test;
@@ -422,4 +423,123 @@ public class ZFastTrieTest {
 
 		}
 	}
+
+	private static void checkBulkLoad(final ZFastTrie<String> zft, final ZFastTrie<String> bulk, final String[] s, final XoRoShiRo128PlusRandom r) {
+		for (int i = 0; i < 1000; i++) {
+			final char[] a = new char[r.nextInt(12)];
+			for (int j = a.length; j-- != 0;) a[j] = (char)('a' + r.nextInt(3));
+			final String q = new String(a);
+			assertEquals(q, zft.contains(q), bulk.contains(q));
+			if (s.length > 0) {
+				assertEquals(q, zft.pred(q), bulk.pred(q));
+				assertEquals(q, zft.succ(q), bulk.succ(q));
+			}
+		}
+
+		// The bulk-loaded trie must support further updates
+		for (int i = 0; i < s.length; i += 2) assertTrue(bulk.remove(s[i]));
+		for (int i = 0; i < s.length; i++) assertEquals(s[i], i % 2 != 0, bulk.contains(s[i]));
+		for (int i = 0; i < s.length; i += 2) assertTrue(bulk.add(s[i]));
+		for (int i = 0; i < s.length; i++) assertTrue(s[i], bulk.contains(s[i]));
+		for (int i = 0; i < s.length; i++) assertTrue(bulk.remove(s[i]));
+		assertEquals(0, bulk.size());
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testBulkLoad() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		for (final int n : new int[] { 0, 1, 2, 3, 10, 100, 1000, 10000 }) {
+			final TreeSet<String> set = new TreeSet<>();
+			while (set.size() < n) {
+				final char[] a = new char[r.nextInt(12)];
+				for (int i = a.length; i-- != 0;) a[i] = (char)('a' + r.nextInt(3));
+				set.add(new String(a));
+			}
+			final String[] s = set.toArray(new String[0]);
+
+			final ZFastTrie<String> bulk = new ZFastTrie<>(Arrays.asList(s).iterator(), TransformationStrategies.prefixFreeIso(), true);
+			final ZFastTrie<String> zft = new ZFastTrie<>(Arrays.asList(s), TransformationStrategies.prefixFreeIso());
+			assertEquals(n, bulk.size());
+			for (int i = s.length; i-- != 0;) assertTrue(s[i], bulk.contains(s[i]));
+
+			int p = 0;
+			for (final ObjectBidirectionalIterator<String> iterator = bulk.iterator(); iterator.hasNext();) assertEquals(s[p++], iterator.next());
+			assertEquals(n, p);
+
+			final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+			temp.deleteOnExit();
+			BinIO.storeObject(bulk, temp);
+
+			checkBulkLoad(zft, bulk, s, r);
+			checkBulkLoad(zft, (ZFastTrie<String>)BinIO.loadObject(temp), s, r);
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBulkLoadUnsorted() {
+		new ZFastTrie<>(Arrays.asList("a", "c", "b").iterator(), TransformationStrategies.prefixFreeIso(), true);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testBulkLoadDuplicate() {
+		new ZFastTrie<>(Arrays.asList("a", "b", "b").iterator(), TransformationStrategies.prefixFreeIso(), true);
+	}
+
+	private static String randomString(final XoRoShiRo128PlusRandom r) {
+		final char[] a = new char[r.nextInt(12)];
+		for (int i = a.length; i-- != 0;) a[i] = (char)('a' + r.nextInt(3));
+		return new String(a);
+	}
+
+	private static void checkOrderStatistics(final ZFastTrie<String> zft, final TreeSet<String> set, final XoRoShiRo128PlusRandom r) {
+		assertEquals(set.size(), zft.size());
+		int p = 0;
+		for (final String s : set) {
+			assertEquals(s, zft.select(p));
+			assertEquals(s, p++, zft.rank(s));
+		}
+		for (int i = 0; i < 100; i++) {
+			final String q = randomString(r), q2 = randomString(r);
+			assertEquals(q, set.headSet(q).size(), zft.rank(q));
+			assertEquals(q + ", " + q2, q.compareTo(q2) < 0 ? set.subSet(q, q2).size() : 0, zft.count(q, q2));
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	@Test
+	public void testOrderStatistics() throws IOException, ClassNotFoundException {
+		final XoRoShiRo128PlusRandom r = new XoRoShiRo128PlusRandom(0);
+		final TreeSet<String> set = new TreeSet<>();
+		ZFastTrie<String> zft = new ZFastTrie<>(TransformationStrategies.prefixFreeIso(), true);
+		assertEquals(0, zft.rank("a"));
+
+		for (int i = 0; i < 5000; i++) {
+			final String s = randomString(r);
+			if (r.nextInt(3) == 0) assertEquals(set.remove(s), zft.remove(s));
+			else assertEquals(set.add(s), zft.add(s));
+			if (i % 500 == 0) checkOrderStatistics(zft, set, r);
+		}
+		checkOrderStatistics(zft, set, r);
+
+		final File temp = File.createTempFile(getClass().getSimpleName(), "test");
+		temp.deleteOnExit();
+		BinIO.storeObject(zft, temp);
+		zft = (ZFastTrie<String>)BinIO.loadObject(temp);
+		checkOrderStatistics(zft, set, r);
+
+		zft = new ZFastTrie<>(set.iterator(), TransformationStrategies.prefixFreeIso(), true, true);
+		checkOrderStatistics(zft, set, r);
+		for (int i = 0; i < 1000; i++) {
+			final String s = randomString(r);
+			if (r.nextBoolean()) assertEquals(set.remove(s), zft.remove(s));
+			else assertEquals(set.add(s), zft.add(s));
+		}
+		checkOrderStatistics(zft, set, r);
+	}
+
+	@Test(expected = UnsupportedOperationException.class)
+	public void testNoOrderStatistics() {
+		new ZFastTrie<>(Arrays.asList("a", "b"), TransformationStrategies.prefixFreeIso()).rank("a");
+	}
 }